@@ -1,5 +1,4 @@
 import java.awt.*;
-import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 
 /**
@@ -13,7 +12,7 @@ public class Animation
      * using watchers since multiple entities share the same animations */
     public static final int ANIMATION_ENDED = -1;
     /** The sequence of images for this animation */
-    private ArrayList<BufferedImage> images;
+    private ArrayList<SpriteRegion> images;
     /** The total duration of the animation in ms */
     private long totalDurationInMs;
     /** The duration that a single image displayed in ms */
@@ -28,7 +27,7 @@ public class Animation
      * @param durationInMs The duration of the sequence in ms.
      * @param loopAnimation The looping animation flag
      */
-    public Animation(ArrayList<BufferedImage> imageSequence, long durationInMs, boolean loopAnimation)
+    public Animation(ArrayList<SpriteRegion> imageSequence, long durationInMs, boolean loopAnimation)
     {
         //Verify valid duration
         if (durationInMs <= 0)
@@ -77,7 +76,43 @@ public class Animation
     public void draw(Graphics dbGraphics, int x, int y, long localElapsedTimeInMs)
     {
         //Draw the animation
-        dbGraphics.drawImage(images.get((int) (localElapsedTimeInMs / imageDurationInMs)), x, y, null);
+        images.get((int) (localElapsedTimeInMs / imageDurationInMs)).draw(dbGraphics, x, y);
+    }
+
+    /**
+     * Queue the animation to be drawn. The frame to draw is calculated using the localElapsedTimeInMs.
+     * @param renderQueue The render queue the frame is submitted to.
+     * @param x The x position on the screen to draw the animation at.
+     * @param y The y position on the screen to draw the animation at.
+     * @param localElapsedTimeInMs The amount of time elapsed for this animation.
+     * @param layer The layer to draw the animation in, this must match the RenderQueue layer constants.
+     */
+    public void submit(RenderQueue renderQueue, int x, int y, long localElapsedTimeInMs, int layer)
+    {
+        renderQueue.submit(images.get((int) (localElapsedTimeInMs / imageDurationInMs)), x, y, layer);
+    }
+
+    /**
+     * Get the index of the image shown after an amount of time.
+     * @param localElapsedTimeInMs The amount of time elapsed for this animation.
+     * @return The index of the image.
+     */
+    public int getFrame(long localElapsedTimeInMs)
+    {
+        return (int) (localElapsedTimeInMs / imageDurationInMs);
+    }
+
+    /**
+     * Queue a single image of the animation to be drawn.
+     * @param renderQueue The render queue the image is submitted to.
+     * @param frame The index of the image, as returned by getFrame().
+     * @param x The x position on the screen to draw the image at.
+     * @param y The y position on the screen to draw the image at.
+     * @param layer The layer to draw the image in, this must match the RenderQueue layer constants.
+     */
+    public void submitFrame(RenderQueue renderQueue, int frame, int x, int y, int layer)
+    {
+        renderQueue.submit(images.get(frame), x, y, layer);
     }
 
     /**
@@ -97,4 +132,13 @@ public class Animation
     {
         return images.get(0).getHeight();
     }
+
+    /**
+     * Get the number of images in the animation.
+     * @return The number of images.
+     */
+    public int getNumImages()
+    {
+        return images.size();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,204 @@
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+/**
+ * Times drawing every image in the images config from its texture atlas page against drawing the managed copy
+ * with the file's transparency, which is how images were stored before they were optimized and packed.
+ */
+public class AtlasBlitBenchmark
+{
+    /** The images config file benchmarked, the same one the game loads */
+    private static final String CONFIG_FILE = "ImagesConfig.txt";
+    /** The number of pixels blitted for each image in each pass, small images are blitted more often */
+    private static final long PIXELS_PER_PASS = 2000000;
+    /** The number of passes over every image before any are timed, to warm up the JIT and the blit loops */
+    private static final int NUM_WARMUP_PASSES = 3;
+    /** The number of timed passes over every image, the median pass is reported */
+    private static final int NUM_PASSES = 9;
+    /** The names of the page formats without a palette, indexed by the Transparency constants */
+    private static final String[] TRANSPARENCY_NAMES = {"", "opaque", "bitmask", "translucent"};
+
+    /**
+     * Run the benchmark and print the median time of one blit of each image before and after it was optimized,
+     * then the total for drawing every image once. Each image is blitted onto an opaque image of its own size.
+     * @param args Unused.
+     */
+    public static void main(String[] args) throws IOException
+    {
+        System.setProperty("java.awt.headless", "true");
+        ImageManager imageManager = new ImageManager(CONFIG_FILE);
+
+        //Pair each image in the config with its managed copy
+        ArrayList<String> names = new ArrayList<>();
+        ArrayList<BufferedImage> copies = new ArrayList<>();
+        ArrayList<SpriteRegion> regions = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                AtlasBlitBenchmark.class.getResourceAsStream("Images/" + CONFIG_FILE)));
+        String line;
+        while ((line = reader.readLine()) != null)
+        {
+            if (line.startsWith("//") || line.length() == 0)
+            {
+                continue;
+            }
+
+            //Find the name the sprites are stored under and the files they were loaded from, as the ImageManager does
+            String imageName;
+            String[] files;
+            if (line.startsWith("["))
+            {
+                imageName = line.substring(1, line.indexOf(':'));
+                files = line.substring(line.indexOf(':') + 1, line.indexOf(']')).split(",");
+            }
+            else
+            {
+                imageName = line.contains(".") ? line.substring(0, line.indexOf('.')) : line;
+                files = new String[] {line};
+            }
+            ArrayList<SpriteRegion> sprites = imageManager.getImages(imageName);
+            for (int i = 0; sprites != null && i < files.length; i++)
+            {
+                if (sprites.get(i).getAtlasPage() == null)
+                {
+                    continue; //Never drawn
+                }
+                names.add(files[i].trim());
+                copies.add(createManagedCopy(files[i].trim()));
+                regions.add(sprites.get(i));
+            }
+        }
+        reader.close();
+
+        //Time every image in every pass, so all of them are warmed up before any are timed
+        long[][] copyTimes = new long[names.size()][NUM_PASSES];
+        long[][] atlasTimes = new long[names.size()][NUM_PASSES];
+        for (int pass = 0; pass < NUM_WARMUP_PASSES + NUM_PASSES; pass++)
+        {
+            for (int i = 0; i < names.size(); i++)
+            {
+                long copyTime = timeCopy(copies.get(i));
+                long atlasTime = timeRegion(regions.get(i));
+                if (pass >= NUM_WARMUP_PASSES)
+                {
+                    copyTimes[i][pass - NUM_WARMUP_PASSES] = copyTime;
+                    atlasTimes[i][pass - NUM_WARMUP_PASSES] = atlasTime;
+                }
+            }
+        }
+
+        //Report the median pass of each image
+        System.out.println(names.size() + " images, " + NUM_PASSES + " timed passes of " + PIXELS_PER_PASS + " pixels each");
+        System.out.println("image                                    size        atlas page        copy     atlas   speed up   (us per blit)");
+        double copyTotal = 0.0;
+        double atlasTotal = 0.0;
+        for (int i = 0; i < names.size(); i++)
+        {
+            double copyTime = median(copyTimes[i]) / 1000.0;
+            double atlasTime = median(atlasTimes[i]) / 1000.0;
+            copyTotal += copyTime;
+            atlasTotal += atlasTime;
+            System.out.printf("%-38s   %-9s   %-15s   %7.2f   %7.2f   %7.2fx%n", names.get(i),
+                    regions.get(i).getWidth() + "x" + regions.get(i).getHeight(), describePage(regions.get(i).getAtlasPage()),
+                    copyTime, atlasTime, copyTime / atlasTime);
+        }
+        System.out.printf("Every image once: copy %.2f us, atlas %.2f us, %.2fx%n", copyTotal, atlasTotal, copyTotal / atlasTotal);
+    }
+
+    /**
+     * Load an image and copy it into a managed image with the file's transparency, the way images were stored before.
+     * @param file The name of the image file within the Images/ directory.
+     * @return The managed copy.
+     */
+    private static BufferedImage createManagedCopy(String file) throws IOException
+    {
+        BufferedImage readImage = ImageIO.read(AtlasBlitBenchmark.class.getResource("Images/" + file));
+        BufferedImage copy = ImageManager.createCompatibleImage(readImage.getWidth(), readImage.getHeight(),
+                readImage.getColorModel().getTransparency());
+        Graphics2D g2d = copy.createGraphics();
+        g2d.drawImage(readImage, 0, 0, null);
+        g2d.dispose();
+        return copy;
+    }
+
+    /**
+     * Time blitting a managed copy onto an opaque image of the same size.
+     * @param copy The managed copy.
+     * @return The average time of a blit (in nanos).
+     */
+    private static long timeCopy(BufferedImage copy)
+    {
+        BufferedImage target = ImageManager.createCompatibleImage(copy.getWidth(), copy.getHeight(), Transparency.OPAQUE);
+        Graphics2D g2d = target.createGraphics();
+        int numBlits = getNumBlits(copy.getWidth(), copy.getHeight());
+        long startTime = System.nanoTime();
+        for (int i = 0; i < numBlits; i++)
+        {
+            g2d.drawImage(copy, 0, 0, null);
+        }
+        long blitTime = (System.nanoTime() - startTime) / numBlits;
+        g2d.dispose();
+        return blitTime;
+    }
+
+    /**
+     * Time blitting a sprite from its atlas page onto an opaque image of the sprite's size.
+     * @param region The sprite.
+     * @return The average time of a blit (in nanos).
+     */
+    private static long timeRegion(SpriteRegion region)
+    {
+        BufferedImage target = ImageManager.createCompatibleImage(region.getWidth(), region.getHeight(), Transparency.OPAQUE);
+        Graphics2D g2d = target.createGraphics();
+        int numBlits = getNumBlits(region.getWidth(), region.getHeight());
+        long startTime = System.nanoTime();
+        for (int i = 0; i < numBlits; i++)
+        {
+            region.draw(g2d, 0, 0);
+        }
+        long blitTime = (System.nanoTime() - startTime) / numBlits;
+        g2d.dispose();
+        return blitTime;
+    }
+
+    /**
+     * Get the number of times an image is blitted in each pass.
+     * @param width The width of the image.
+     * @param height The height of the image.
+     * @return The number of blits covering PIXELS_PER_PASS, at least one.
+     */
+    private static int getNumBlits(int width, int height)
+    {
+        return (int) Math.max(1, PIXELS_PER_PASS / ((long) width * height));
+    }
+
+    /**
+     * Find the median of a set of times.
+     * @param times The times, these are sorted in place.
+     * @return The median time.
+     */
+    private static long median(long[] times)
+    {
+        Arrays.sort(times);
+        return times[times.length / 2];
+    }
+
+    /**
+     * Describe the format of an atlas page.
+     * @param page The atlas page.
+     * @return The size of its palette, or its transparency if it has no palette.
+     */
+    private static String describePage(BufferedImage page)
+    {
+        if (page.getColorModel() instanceof IndexColorModel)
+        {
+            return "palette of " + ((IndexColorModel) page.getColorModel()).getMapSize();
+        }
+        return TRANSPARENCY_NAMES[page.getTransparency()];
+    }
+}
@@ -51,4 +51,14 @@ public class Block
     {
         graphicsMap.get(NORMAL_GRAPHICS).draw(dbGraphics, xOffset, yOffset, elapsedAnimationTimeInMs);
     }
+
+    /**
+     * Check if the block always looks the same, meaning its normal graphics have a single image.
+     * Static blocks can be drawn once and reused, animated blocks must be drawn every frame.
+     * @return True if the block is static, false otherwise.
+     */
+    public boolean isStatic()
+    {
+        return graphicsMap.get(NORMAL_GRAPHICS).getNumImages() == 1;
+    }
 }
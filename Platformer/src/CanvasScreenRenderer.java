@@ -0,0 +1,122 @@
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+/**
+ * A screen renderer that page flips through the buffer strategy of a canvas.
+ */
+public class CanvasScreenRenderer extends Canvas implements ScreenRenderer
+{
+    /** The serialization version of the canvas */
+    private static final long serialVersionUID = 1L;
+
+    /** The number of buffers in the buffer strategy, including the front buffer */
+    private int numBuffers;
+    /** The buffer strategy that page flips the back buffers onto the screen */
+    private BufferStrategy bufferStrategy;
+    /** The graphics context of the back buffer currently being drawn */
+    private Graphics drawGraphics;
+
+    /**
+     * Create a canvas that actively renders the game using a page flipping buffer strategy.
+     * The buffer strategy is created once the canvas is displayed on the screen.
+     * @param numberOfBuffers The number of buffers to use (2 for double buffering, 3 for triple buffering).
+     * @param width The width of the canvas in pixels.
+     * @param height The height of the canvas in pixels.
+     */
+    public CanvasScreenRenderer(int numberOfBuffers, int width, int height)
+    {
+        numBuffers = numberOfBuffers;
+
+        //Set essential canvas data, the canvas is drawn actively so ignore paint requests
+        setIgnoreRepaint(true);
+        setBackground(Color.BLACK);
+        setFocusable(true);
+        setPreferredSize(new Dimension(width, height));
+    }
+
+    /**
+     * Create the buffer strategy. Accelerated (VolatileImage) back buffers with page flipping are
+     * requested first, if the display does not support them the default strategy is used instead.
+     * @return True if the buffer strategy was created, false if the canvas is not displayed yet.
+     */
+    private boolean createStrategy()
+    {
+        //The canvas must be displayed with a size before it can have a buffer strategy
+        if (!isDisplayable() || getWidth() <= 0 || getHeight() <= 0)
+        {
+            return false;
+        }
+
+        try
+        {
+            createBufferStrategy(numBuffers, new BufferCapabilities(new ImageCapabilities(true),
+                    new ImageCapabilities(true), BufferCapabilities.FlipContents.UNDEFINED));
+            System.out.println("Using accelerated page flipping with " + numBuffers + " buffers");
+        }
+        catch (AWTException exception)
+        {
+            createBufferStrategy(numBuffers);
+            System.out.println("Accelerated page flipping unavailable, using default buffer strategy");
+        }
+        bufferStrategy = getBufferStrategy();
+        return (bufferStrategy != null);
+    }
+
+    /**
+     * Get the graphics context of the next back buffer. If the buffer strategy
+     * does not already exist, this method attempts to create it.
+     * @return The graphics context of the back buffer, or null if the canvas is not ready.
+     */
+    @Override
+    public Graphics getDrawGraphics()
+    {
+        //Create the buffer strategy if necessary
+        if (bufferStrategy == null && !createStrategy())
+        {
+            return null;
+        }
+
+        try
+        {
+            drawGraphics = bufferStrategy.getDrawGraphics();
+        }
+        catch (IllegalStateException exception)
+        {
+            //The buffers were destroyed (the canvas was removed from the screen), recreate them next frame
+            bufferStrategy = null;
+            drawGraphics = null;
+        }
+        return drawGraphics;
+    }
+
+    /**
+     * Show the back buffer on the screen. This is the inner and outer condition of the usual buffer strategy
+     * loop. If the contents of the back buffer were restored while it was being drawn, the frame is garbage
+     * and is not shown. If the contents were lost after it was shown, the frame never reached the screen.
+     * Either way the caller draws the same frame again rather than skipping it.
+     * @return True if the frame reached the screen, false if it was lost and must be drawn again.
+     */
+    @Override
+    public boolean showFrame()
+    {
+        if (drawGraphics == null)
+        {
+            return true;
+        }
+
+        //Release the back buffer's graphics context
+        drawGraphics.dispose();
+        drawGraphics = null;
+
+        //Redraw the frame if the back buffer was restored while it was being drawn
+        if (bufferStrategy.contentsRestored())
+        {
+            return false;
+        }
+
+        bufferStrategy.show();
+        Toolkit.getDefaultToolkit().sync(); //Sync display
+
+        //Redraw the frame if the buffer was lost while it was being shown
+        return !bufferStrategy.contentsLost();
+    }
+}
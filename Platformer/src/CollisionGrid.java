@@ -0,0 +1,248 @@
+import java.awt.*;
+import java.util.Arrays;
+/**
+ * A uniform grid of cells that finds the objects near an area without checking every object.
+ */
+public class CollisionGrid
+{
+    /** The number of objects the grid can hold before its arrays grow */
+    private static final int INITIAL_CAPACITY = 32;
+    /** The number of objects a cell can hold before its bucket grows */
+    private static final int INITIAL_CELL_CAPACITY = 4;
+
+    /** The width and height of each cell in pixels */
+    private int cellSize;
+    /** The number of cells across the map */
+    private int numCellsX;
+    /** The number of cells down the map */
+    private int numCellsY;
+    /** The objects overlapping each cell, row by row, null until an object enters the cell */
+    private int[][] cellObjects;
+    /** The number of objects overlapping each cell */
+    private int[] cellCounts;
+
+    /** The number of objects in the grid */
+    private int numObjects;
+    /** The first column of cells each object overlaps */
+    private int[] firstCellX;
+    /** The first row of cells each object overlaps */
+    private int[] firstCellY;
+    /** The last column of cells each object overlaps */
+    private int[] lastCellX;
+    /** The last row of cells each object overlaps */
+    private int[] lastCellY;
+
+    /** The query each object was last found by, so an object in several cells is only found once per query */
+    private int[] queryStamps;
+    /** The number of queries made */
+    private int queryStamp;
+    /** The objects found by the last query, in the order they were added */
+    private int[] results;
+    /** The number of objects found by the last query */
+    private int numResults;
+
+    /**
+     * Create an empty grid covering a map. Objects are numbered in the order they are added, matching
+     * their index in the array the caller keeps them in. Objects outside the map are kept in the edge cells.
+     * @param mapWidthInPixels The width of the map in pixels.
+     * @param mapHeightInPixels The height of the map in pixels.
+     * @param cellSizeInPixels The width and height of each cell in pixels.
+     */
+    public CollisionGrid(int mapWidthInPixels, int mapHeightInPixels, int cellSizeInPixels)
+    {
+        cellSize = cellSizeInPixels;
+        numCellsX = Math.max(1, (mapWidthInPixels + cellSize - 1) / cellSize);
+        numCellsY = Math.max(1, (mapHeightInPixels + cellSize - 1) / cellSize);
+        cellObjects = new int[numCellsX * numCellsY][];
+        cellCounts = new int[numCellsX * numCellsY];
+        firstCellX = new int[INITIAL_CAPACITY];
+        firstCellY = new int[INITIAL_CAPACITY];
+        lastCellX = new int[INITIAL_CAPACITY];
+        lastCellY = new int[INITIAL_CAPACITY];
+        queryStamps = new int[INITIAL_CAPACITY];
+        results = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Add an object to the grid.
+     * @param boundingBox The bounding box of the object.
+     * @return The index of the object, the number of objects added before it.
+     */
+    public int add(Rectangle boundingBox)
+    {
+        //Grow the arrays if necessary
+        if (numObjects == firstCellX.length)
+        {
+            firstCellX = Arrays.copyOf(firstCellX, numObjects * 2);
+            firstCellY = Arrays.copyOf(firstCellY, numObjects * 2);
+            lastCellX = Arrays.copyOf(lastCellX, numObjects * 2);
+            lastCellY = Arrays.copyOf(lastCellY, numObjects * 2);
+            queryStamps = Arrays.copyOf(queryStamps, numObjects * 2);
+            results = Arrays.copyOf(results, numObjects * 2);
+        }
+
+        int index = numObjects++;
+        firstCellX[index] = getCellX(boundingBox.x);
+        firstCellY[index] = getCellY(boundingBox.y);
+        lastCellX[index] = getCellX(boundingBox.x + boundingBox.width - 1);
+        lastCellY[index] = getCellY(boundingBox.y + boundingBox.height - 1);
+        insert(index);
+        return index;
+    }
+
+    /**
+     * Move an object to the cells its bounding box now overlaps. The cells are only changed if the
+     * object crossed into a different cell, which is rare, so this is cheap to call after every move.
+     * @param index The index of the object.
+     * @param boundingBox The new bounding box of the object.
+     */
+    public void update(int index, Rectangle boundingBox)
+    {
+        int newFirstX = getCellX(boundingBox.x);
+        int newFirstY = getCellY(boundingBox.y);
+        int newLastX = getCellX(boundingBox.x + boundingBox.width - 1);
+        int newLastY = getCellY(boundingBox.y + boundingBox.height - 1);
+        if (newFirstX != firstCellX[index] || newFirstY != firstCellY[index]
+                || newLastX != lastCellX[index] || newLastY != lastCellY[index])
+        {
+            remove(index);
+            firstCellX[index] = newFirstX;
+            firstCellY[index] = newFirstY;
+            lastCellX[index] = newLastX;
+            lastCellY[index] = newLastY;
+            insert(index);
+        }
+    }
+
+    /**
+     * Find the objects in the cells an area overlaps. These are the only objects that can intersect the area,
+     * but they may not intersect it, so each must still be checked. Use getResult() to get the objects found.
+     * @param area The area, such as the bounding box of the object looking for collisions.
+     * @return The number of objects found.
+     */
+    public int query(Rectangle area)
+    {
+        queryStamp++;
+        numResults = 0;
+        int lastX = getCellX(area.x + area.width - 1);
+        int lastY = getCellY(area.y + area.height - 1);
+        for (int cellY = getCellY(area.y); cellY <= lastY; cellY++)
+        {
+            for (int cellX = getCellX(area.x); cellX <= lastX; cellX++)
+            {
+                int cell = cellY * numCellsX + cellX;
+                for (int i = 0; i < cellCounts[cell]; i++)
+                {
+                    int index = cellObjects[cell][i];
+                    if (queryStamps[index] != queryStamp)
+                    {
+                        queryStamps[index] = queryStamp;
+                        results[numResults++] = index;
+                    }
+                }
+            }
+        }
+
+        //Sort the few objects found so they are checked in the same order as the array they are kept in
+        for (int i = 1; i < numResults; i++)
+        {
+            int index = results[i];
+            int j = i - 1;
+            while (j >= 0 && results[j] > index)
+            {
+                results[j + 1] = results[j];
+                j--;
+            }
+            results[j + 1] = index;
+        }
+        return numResults;
+    }
+
+    /**
+     * Get an object found by the last query.
+     * @param i The position of the object in the results, from 0 to the number of objects found.
+     * @return The index of the object.
+     */
+    public int getResult(int i)
+    {
+        return results[i];
+    }
+
+    /**
+     * Add an object to every cell in its range of cells.
+     * @param index The index of the object.
+     */
+    private void insert(int index)
+    {
+        for (int cellY = firstCellY[index]; cellY <= lastCellY[index]; cellY++)
+        {
+            for (int cellX = firstCellX[index]; cellX <= lastCellX[index]; cellX++)
+            {
+                int cell = cellY * numCellsX + cellX;
+                if (cellObjects[cell] == null)
+                {
+                    cellObjects[cell] = new int[INITIAL_CELL_CAPACITY];
+                }
+                else if (cellCounts[cell] == cellObjects[cell].length)
+                {
+                    cellObjects[cell] = Arrays.copyOf(cellObjects[cell], cellCounts[cell] * 2);
+                }
+                cellObjects[cell][cellCounts[cell]++] = index;
+            }
+        }
+    }
+
+    /**
+     * Remove an object from every cell in its range of cells. The last object in each
+     * cell takes its place, the order of the objects in a cell does not matter.
+     * @param index The index of the object.
+     */
+    private void remove(int index)
+    {
+        for (int cellY = firstCellY[index]; cellY <= lastCellY[index]; cellY++)
+        {
+            for (int cellX = firstCellX[index]; cellX <= lastCellX[index]; cellX++)
+            {
+                int cell = cellY * numCellsX + cellX;
+                int[] objects = cellObjects[cell];
+                for (int i = 0; i < cellCounts[cell]; i++)
+                {
+                    if (objects[i] == index)
+                    {
+                        objects[i] = objects[--cellCounts[cell]];
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the column of cells containing an x position, positions outside the map are clamped to the edge cells.
+     * @param x The x position in pixels.
+     * @return The column.
+     */
+    private int getCellX(int x)
+    {
+        return Math.max(0, Math.min(numCellsX - 1, Math.floorDiv(x, cellSize)));
+    }
+
+    /**
+     * Get the row of cells containing a y position, positions outside the map are clamped to the edge cells.
+     * @param y The y position in pixels.
+     * @return The row.
+     */
+    private int getCellY(int y)
+    {
+        return Math.max(0, Math.min(numCellsY - 1, Math.floorDiv(y, cellSize)));
+    }
+
+    /**
+     * Get the number of objects in the grid.
+     * @return The number of objects.
+     */
+    public int getNumObjects()
+    {
+        return numObjects;
+    }
+}
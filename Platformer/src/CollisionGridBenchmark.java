@@ -0,0 +1,183 @@
+import java.awt.*;
+import java.util.Arrays;
+import java.util.Random;
+/**
+ * Times CollisionGrid queries against a linear scan of every object as the number of objects grows and checks they agree.
+ */
+public class CollisionGridBenchmark
+{
+    /** The width of the benchmark map in blocks */
+    private static final int MAP_WIDTH = 20000;
+    /** The height of the benchmark map in blocks */
+    private static final int MAP_HEIGHT = 200;
+    /** The width and height of each grid cell in pixels, the same as the game uses */
+    private static final int CELL_SIZE = 2 * Block.BLOCK_WIDTH;
+    /** The numbers of objects benchmarked */
+    private static final int[] NUM_OBJECTS = {1000, 10000, 100000};
+    /** The number of frames simulated for each number of objects, the first frames warm up the JIT and are not reported */
+    private static final int NUM_FRAMES = 12;
+    /** The number of warm up frames */
+    private static final int NUM_WARMUP_FRAMES = 4;
+    /** The number of queries made each frame */
+    private static final int NUM_QUERIES = 2000;
+    /** The furthest an object moves in each direction each frame in pixels */
+    private static final int MAX_STEP = 12;
+
+    /**
+     * Run the benchmark and print the time per query of the grid and the linear scan, and the time to move
+     * every object, for each number of objects. The process exits with status 1 if the grid and the scan
+     * ever find different objects or the grid returns them out of order.
+     * @param args Unused.
+     */
+    public static void main(String[] args)
+    {
+        int mapWidthInPixels = MAP_WIDTH * Block.BLOCK_WIDTH;
+        int mapHeightInPixels = MAP_HEIGHT * Block.BLOCK_HEIGHT;
+        System.out.println("Map " + MAP_WIDTH + "x" + MAP_HEIGHT + ", " + NUM_QUERIES + " queries per frame");
+        System.out.println("objects   grid query   linear scan   update all   found per query   (grid and scan in ns per query, update in us per frame)");
+        for (int numObjects : NUM_OBJECTS)
+        {
+            //Scatter enemy and block sized objects over the map
+            Random random = new Random(numObjects);
+            Rectangle[] boxes = new Rectangle[numObjects];
+            CollisionGrid grid = new CollisionGrid(mapWidthInPixels, mapHeightInPixels, CELL_SIZE);
+            for (int i = 0; i < numObjects; i++)
+            {
+                boxes[i] = new Rectangle(random.nextInt(mapWidthInPixels), random.nextInt(mapHeightInPixels),
+                        Block.BLOCK_WIDTH + random.nextInt(Block.BLOCK_WIDTH), Block.BLOCK_HEIGHT + random.nextInt(Block.BLOCK_HEIGHT));
+                grid.add(boxes[i]);
+            }
+
+            //The objects found by each query, one after the other, and the number found by each
+            int[] gridFound = new int[NUM_QUERIES * 8];
+            int[] scanFound = new int[NUM_QUERIES * 8];
+            int[] gridCounts = new int[NUM_QUERIES];
+            int[] scanCounts = new int[NUM_QUERIES];
+            Rectangle[] areas = new Rectangle[NUM_QUERIES];
+            for (int q = 0; q < NUM_QUERIES; q++)
+            {
+                areas[q] = new Rectangle();
+            }
+
+            long gridTime = 0;
+            long scanTime = 0;
+            long updateTime = 0;
+            long numFound = 0;
+            for (int frame = 0; frame < NUM_FRAMES; frame++)
+            {
+                //Move every object a little and tell the grid, as the game does after each move
+                long time = System.nanoTime();
+                for (int i = 0; i < numObjects; i++)
+                {
+                    boxes[i].x += random.nextInt(2 * MAX_STEP + 1) - MAX_STEP;
+                    boxes[i].y += random.nextInt(2 * MAX_STEP + 1) - MAX_STEP;
+                    grid.update(i, boxes[i]);
+                }
+                long frameUpdateTime = System.nanoTime() - time;
+
+                //Query the area around some objects, as an entity looks for what it touches
+                for (int q = 0; q < NUM_QUERIES; q++)
+                {
+                    Rectangle box = boxes[random.nextInt(numObjects)];
+                    areas[q].setBounds(box.x - random.nextInt(Block.BLOCK_WIDTH), box.y - random.nextInt(Block.BLOCK_HEIGHT),
+                            box.width + Block.BLOCK_WIDTH, box.height + Block.BLOCK_HEIGHT);
+                }
+
+                time = System.nanoTime();
+                int numGridFound = 0;
+                for (int q = 0; q < NUM_QUERIES; q++)
+                {
+                    int numNearby = grid.query(areas[q]);
+                    int first = numGridFound;
+                    for (int n = 0; n < numNearby; n++)
+                    {
+                        int i = grid.getResult(n);
+                        if (boxes[i].intersects(areas[q]))
+                        {
+                            gridFound = grow(gridFound, numGridFound);
+                            gridFound[numGridFound++] = i;
+                        }
+                    }
+                    gridCounts[q] = numGridFound - first;
+                }
+                long frameGridTime = System.nanoTime() - time;
+
+                time = System.nanoTime();
+                int numScanFound = 0;
+                for (int q = 0; q < NUM_QUERIES; q++)
+                {
+                    int first = numScanFound;
+                    for (int i = 0; i < numObjects; i++)
+                    {
+                        if (boxes[i].intersects(areas[q]))
+                        {
+                            scanFound = grow(scanFound, numScanFound);
+                            scanFound[numScanFound++] = i;
+                        }
+                    }
+                    scanCounts[q] = numScanFound - first;
+                }
+                long frameScanTime = System.nanoTime() - time;
+
+                //The scan finds objects in index order, so the grid must find the same objects in the same order
+                int position = 0;
+                for (int q = 0; q < NUM_QUERIES; q++)
+                {
+                    if (gridCounts[q] != scanCounts[q])
+                    {
+                        fail(numObjects, frame, q, "the grid found " + gridCounts[q] + " objects, the scan found " + scanCounts[q]);
+                    }
+                    for (int n = 0; n < gridCounts[q]; n++, position++)
+                    {
+                        if (gridFound[position] != scanFound[position])
+                        {
+                            fail(numObjects, frame, q, "the grid found object " + gridFound[position]
+                                    + " where the scan found object " + scanFound[position]);
+                        }
+                    }
+                }
+
+                if (frame >= NUM_WARMUP_FRAMES)
+                {
+                    gridTime += frameGridTime;
+                    scanTime += frameScanTime;
+                    updateTime += frameUpdateTime;
+                    numFound += numScanFound;
+                }
+            }
+
+            double numQueries = (double) NUM_QUERIES * (NUM_FRAMES - NUM_WARMUP_FRAMES);
+            System.out.printf("%7d   %10.1f   %11.1f   %10.1f   %15.2f%n", numObjects, gridTime / numQueries, scanTime / numQueries,
+                    updateTime / 1000.0 / (NUM_FRAMES - NUM_WARMUP_FRAMES), numFound / numQueries);
+        }
+        System.out.println("The grid and the scan agree on every query");
+    }
+
+    /**
+     * Double the size of an array of found objects if it is full.
+     * @param found The array.
+     * @param numFound The number of objects in the array.
+     * @return The array, or a larger copy of it.
+     */
+    private static int[] grow(int[] found, int numFound)
+    {
+        if (numFound == found.length)
+        {
+            return Arrays.copyOf(found, numFound * 2);
+        }
+        return found;
+    }
+
+    /**
+     * Print why the grid and the scan disagree and exit with status 1.
+     * @param numObjects The number of objects in the grid.
+     * @param frame The frame the query was made in.
+     * @param query The query.
+     * @param reason How the results differ.
+     */
+    private static void fail(int numObjects, int frame, int query, String reason)
+    {
+        System.out.println("MISMATCH with " + numObjects + " objects, frame " + frame + ", query " + query + ": " + reason);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,114 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+/**
+ * Keeps the rarely changing layers of the screen, such as the HUD and menus, in cached images.
+ */
+public class Compositor
+{
+    /** The layer containing the background ribbons */
+    public static final int BACKGROUND_LAYER = 0;
+    /** The layer containing the blocks of the level */
+    public static final int TERRAIN_LAYER = 1;
+    /** The layer containing the player, enemies, and event blocks */
+    public static final int ENTITY_LAYER = 2;
+    /** The layer containing the header, counters, and lives shown while playing */
+    public static final int HUD_LAYER = 3;
+    /** The layer containing the main menu or final menu */
+    public static final int MENU_LAYER = 4;
+    /** The number of layers */
+    public static final int NUM_LAYERS = 5;
+    /** The version a layer has before it is drawn for the first time */
+    private static final int NOT_DRAWN = -1;
+
+    /** The cached surface of each layer, null for the layers drawn straight to the screen every frame */
+    private BufferedImage[] surfaces;
+    /** The version of the contents each cached surface was last drawn with */
+    private int[] drawnVersions;
+    /** The cache of pre-scaled images the surfaces may be drawn from, or null if the game is not scaled */
+    private ScaledSpriteCache spriteCache;
+
+    /**
+     * Create a compositor where no layer is cached yet.
+     */
+    public Compositor()
+    {
+        surfaces = new BufferedImage[NUM_LAYERS];
+        drawnVersions = new int[NUM_LAYERS];
+        invalidate();
+    }
+
+    /**
+     * Give a layer its own cached surface, replacing any it had. The layer is drawn into the surface
+     * only when its contents change and the surface is blitted to the screen every frame.
+     * @param layer The layer, this must match the Compositor constants.
+     * @param width The width of the surface.
+     * @param height The height of the surface, the surface covers the top of the screen.
+     */
+    public void cacheLayer(int layer, int width, int height)
+    {
+        surfaces[layer] = ImageManager.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+        drawnVersions[layer] = NOT_DRAWN;
+    }
+
+    /**
+     * Check if a cached layer must be drawn again because its contents changed.
+     * @param layer The layer, this must be a cached layer.
+     * @param version The version of the layer's current contents, this changes whenever the contents do.
+     * @return True if the surface was drawn with a different version, false otherwise.
+     */
+    public boolean isDirty(int layer, int version)
+    {
+        return drawnVersions[layer] != version;
+    }
+
+    /**
+     * Clear a cached layer's surface so it can be drawn again. The caller must dispose of the graphics object.
+     * @param layer The layer, this must be a cached layer.
+     * @param version The version of the contents about to be drawn.
+     * @return The graphics object used to draw the layer.
+     */
+    public Graphics2D redrawLayer(int layer, int version)
+    {
+        Graphics2D layerGraphics = surfaces[layer].createGraphics();
+        layerGraphics.setComposite(AlphaComposite.Clear);
+        layerGraphics.fillRect(0, 0, surfaces[layer].getWidth(), surfaces[layer].getHeight());
+        layerGraphics.setComposite(AlphaComposite.SrcOver);
+        drawnVersions[layer] = version;
+        if (spriteCache != null)
+        {
+            spriteCache.invalidate(surfaces[layer]);
+        }
+        return layerGraphics;
+    }
+
+    /**
+     * Blit a cached layer's surface to the screen.
+     * @param dbGraphics The graphics object used to draw the game.
+     * @param layer The layer, this must be a cached layer.
+     */
+    public void drawLayer(Graphics dbGraphics, int layer)
+    {
+        dbGraphics.drawImage(surfaces[layer], 0, 0, null);
+    }
+
+    /**
+     * Set the cache of pre-scaled images the surfaces are drawn from when the game is scaled.
+     * The cache is told whenever a surface is redrawn.
+     * @param cache The cache, or null if the game is not scaled.
+     */
+    public void setSpriteCache(ScaledSpriteCache cache)
+    {
+        spriteCache = cache;
+    }
+
+    /**
+     * Mark every cached layer as dirty, such as when the images they were drawn from change.
+     */
+    public void invalidate()
+    {
+        for (int layer = 0; layer < NUM_LAYERS; layer++)
+        {
+            drawnVersions[layer] = NOT_DRAWN;
+        }
+    }
+}
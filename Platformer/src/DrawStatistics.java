@@ -0,0 +1,385 @@
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+/**
+ * Counts the draws made each frame and the overdraw of each area of the screen.
+ */
+public class DrawStatistics
+{
+    /** The mode where no statistics are recorded */
+    public static final int OFF = 0;
+    /** The mode where statistics are recorded and shown as text */
+    public static final int COUNTERS = 1;
+    /** The mode where statistics are shown as text and the overdraw of each cell is shown as a heatmap */
+    public static final int HEATMAP = 2;
+    /** The number of modes */
+    private static final int NUM_MODES = 3;
+
+    /** The layer of draws made before any layer is set, such as clearing the frame */
+    public static final int NO_LAYER = Compositor.NUM_LAYERS;
+    /** The names of the layers, indexed by the Compositor layer constants and then NO_LAYER */
+    private static final String[] LAYER_NAMES = { "Background", "Terrain", "Entities", "HUD", "Menu", "Frame" };
+
+    /** The width and height of a cell of the overdraw grid in pixels */
+    private static final int CELL_SIZE = 20;
+    /** The number of source images listed in the overlay, the ones drawing the most pixels */
+    private static final int NUM_IMAGES_LISTED = 4;
+    /** The amount of time between refreshes of the overlay text (in nanos) */
+    private static final long OVERLAY_REFRESH_PERIOD = 500000000L;
+
+    /** The width of the game's viewport in pixels */
+    private int viewWidth;
+    /** The height of the game's viewport in pixels */
+    private int viewHeight;
+    /** The number of columns in the overdraw grid */
+    private int numColumns;
+    /** The number of rows in the overdraw grid */
+    private int numRows;
+    /** The current mode, this must match the DrawStatistics mode constants */
+    private volatile int mode;
+    /** The layer draws are currently counted in */
+    private int currentLayer;
+    /** The number of images drawn in each layer this frame */
+    private int[] layerDraws;
+    /** The number of pixels drawn or filled in each layer this frame */
+    private long[] layerPixels;
+    /** The number of images drawn this frame at their own size */
+    private int numUnscaledDraws;
+    /** The number of images drawn this frame stretched or shrunk */
+    private int numScaledDraws;
+    /** The number of pixels covered by fills this frame */
+    private long numFilledPixels;
+    /** The number of pixels drawn or filled in each cell of the overdraw grid this frame */
+    private int[] cellPixels;
+    /** The draw counts of each source image this frame, keyed by the image and the rectangle drawn from it */
+    private HashMap<SourceImage, SourceImage> sourceImages;
+    /** The key used to look up source images without creating a new one for every draw */
+    private SourceImage lookupKey;
+
+    /** The lines of text drawn by the overlay, refreshed periodically rather than every frame */
+    private String[] overlayLines;
+    /** The overdraw grid shown by the heatmap, copied from the last frame when the overlay was refreshed */
+    private int[] heatmapCells;
+    /** The time the overlay was last refreshed */
+    private long timeOfLastOverlayRefresh;
+    /** The font used to draw the overlay */
+    private Font overlayFont;
+    /** The translucent color drawn behind the overlay text */
+    private Color overlayBackground;
+    /** The heatmap colors, indexed by the number of times a cell was covered */
+    private Color[] heatmapColors;
+
+    /**
+     * Create draw statistics that are switched off.
+     * @param width The width of the game's viewport in pixels.
+     * @param height The height of the game's viewport in pixels.
+     */
+    public DrawStatistics(int width, int height)
+    {
+        mode = OFF;
+        viewWidth = width;
+        viewHeight = height;
+        numColumns = (viewWidth + CELL_SIZE - 1) / CELL_SIZE;
+        numRows = (viewHeight + CELL_SIZE - 1) / CELL_SIZE;
+        layerDraws = new int[LAYER_NAMES.length];
+        layerPixels = new long[LAYER_NAMES.length];
+        cellPixels = new int[numColumns * numRows];
+        heatmapCells = new int[numColumns * numRows];
+        sourceImages = new HashMap<>();
+        lookupKey = new SourceImage();
+
+        //Setup the overlay, the heatmap goes from blue for cells covered once to red for cells covered five times or more
+        overlayLines = new String[0];
+        overlayFont = new Font(Font.MONOSPACED, Font.PLAIN, 11);
+        overlayBackground = new Color(0, 0, 0, 160);
+        heatmapColors = new Color[] { new Color(0, 0, 0, 0), new Color(0, 0, 255, 90), new Color(0, 255, 0, 110),
+                new Color(255, 255, 0, 130), new Color(255, 128, 0, 150), new Color(255, 0, 0, 170) };
+        timeOfLastOverlayRefresh = System.nanoTime() - OVERLAY_REFRESH_PERIOD;
+    }
+
+    /**
+     * Switch to the next mode, from off to counters to the heatmap and back to off.
+     */
+    public void cycleMode()
+    {
+        mode = (mode + 1) % NUM_MODES;
+    }
+
+    /**
+     * Are statistics being recorded?
+     * @return True if the mode is not OFF, false otherwise.
+     */
+    public boolean isEnabled()
+    {
+        return mode != OFF;
+    }
+
+    /**
+     * Reset the counters at the start of a frame and wrap the graphics object the frame is drawn with.
+     * The draws made through the returned graphics object are counted and then drawn as normal.
+     * @param graphics The graphics object the game is drawn with.
+     * @return The graphics object that counts the draws.
+     */
+    public Graphics2D beginFrame(Graphics graphics)
+    {
+        currentLayer = NO_LAYER;
+        numUnscaledDraws = 0;
+        numScaledDraws = 0;
+        numFilledPixels = 0;
+        for (int i = 0; i < LAYER_NAMES.length; i++)
+        {
+            layerDraws[i] = 0;
+            layerPixels[i] = 0;
+        }
+        for (int i = 0; i < cellPixels.length; i++)
+        {
+            cellPixels[i] = 0;
+        }
+        sourceImages.clear();
+        return new DrawStatisticsGraphics(this, (Graphics2D) graphics);
+    }
+
+    /**
+     * Set the layer the following draws are counted in, if the graphics object is counting draws.
+     * @param graphics The graphics object being drawn with.
+     * @param layer The layer, this must match the Compositor layer constants.
+     */
+    public static void setLayer(Graphics graphics, int layer)
+    {
+        if (graphics instanceof DrawStatisticsGraphics)
+        {
+            ((DrawStatisticsGraphics) graphics).getStatistics().currentLayer = layer;
+        }
+    }
+
+    /**
+     * Count an image draw. Coordinates are in the game's own space, which is the full resolution screen.
+     * @param image The source image.
+     * @param dx1 The x coordinate of the first corner of the destination rectangle.
+     * @param dy1 The y coordinate of the first corner of the destination rectangle.
+     * @param dx2 The x coordinate of the second corner of the destination rectangle.
+     * @param dy2 The y coordinate of the second corner of the destination rectangle.
+     * @param sx1 The x coordinate of the first corner of the source rectangle.
+     * @param sy1 The y coordinate of the first corner of the source rectangle.
+     * @param sx2 The x coordinate of the second corner of the source rectangle.
+     * @param sy2 The y coordinate of the second corner of the source rectangle.
+     */
+    public void recordImage(Image image, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2)
+    {
+        if (image == null)
+        {
+            return;
+        }
+        if (Math.abs(dx2 - dx1) == Math.abs(sx2 - sx1) && Math.abs(dy2 - dy1) == Math.abs(sy2 - sy1))
+        {
+            numUnscaledDraws++;
+        }
+        else
+        {
+            numScaledDraws++;
+        }
+        layerDraws[currentLayer]++;
+        long pixels = recordCoverage(Math.min(dx1, dx2), Math.min(dy1, dy2), Math.max(dx1, dx2), Math.max(dy1, dy2));
+
+        //Count the draw against its source, adding the source the first time it is seen this frame
+        lookupKey.set(image, sx1, sy1, sx2, sy2);
+        SourceImage source = sourceImages.get(lookupKey);
+        if (source == null)
+        {
+            source = new SourceImage();
+            source.set(image, sx1, sy1, sx2, sy2);
+            sourceImages.put(source, source);
+        }
+        source.numDraws++;
+        source.numPixels += pixels;
+    }
+
+    /**
+     * Count a fill of a rectangle. Shapes other than rectangles are counted as their bounds.
+     * @param x The x position of the rectangle.
+     * @param y The y position of the rectangle.
+     * @param width The width of the rectangle.
+     * @param height The height of the rectangle.
+     */
+    public void recordFill(int x, int y, int width, int height)
+    {
+        numFilledPixels += recordCoverage(x, y, x + width, y + height);
+    }
+
+    /**
+     * Add the visible part of a rectangle to the current layer and to the cells of the overdraw grid it covers.
+     * @param x1 The left edge of the rectangle.
+     * @param y1 The top edge of the rectangle.
+     * @param x2 The right edge of the rectangle.
+     * @param y2 The bottom edge of the rectangle.
+     * @return The number of pixels of the rectangle on the screen.
+     */
+    private long recordCoverage(int x1, int y1, int x2, int y2)
+    {
+        x1 = Math.max(x1, 0);
+        y1 = Math.max(y1, 0);
+        x2 = Math.min(x2, viewWidth);
+        y2 = Math.min(y2, viewHeight);
+        if (x1 >= x2 || y1 >= y2)
+        {
+            return 0;
+        }
+
+        //Add the part of the rectangle inside each cell it overlaps
+        for (int row = y1 / CELL_SIZE; row <= (y2 - 1) / CELL_SIZE; row++)
+        {
+            int height = Math.min(y2, (row + 1) * CELL_SIZE) - Math.max(y1, row * CELL_SIZE);
+            for (int column = x1 / CELL_SIZE; column <= (x2 - 1) / CELL_SIZE; column++)
+            {
+                int width = Math.min(x2, (column + 1) * CELL_SIZE) - Math.max(x1, column * CELL_SIZE);
+                cellPixels[row * numColumns + column] += width * height;
+            }
+        }
+        long pixels = (long) (x2 - x1) * (y2 - y1);
+        layerPixels[currentLayer] += pixels;
+        return pixels;
+    }
+
+    /**
+     * Finish counting a frame, refreshing the overlay text and heatmap periodically from the frame's counters.
+     */
+    public void endFrame()
+    {
+        if (System.nanoTime() - timeOfLastOverlayRefresh < OVERLAY_REFRESH_PERIOD)
+        {
+            return;
+        }
+        timeOfLastOverlayRefresh = System.nanoTime();
+        System.arraycopy(cellPixels, 0, heatmapCells, 0, cellPixels.length);
+
+        //Find the overall and worst overdraw, as the number of times the screen's pixels were covered
+        long totalPixels = 0;
+        int maxCellPixels = 0;
+        for (int cell : cellPixels)
+        {
+            totalPixels += cell;
+            maxCellPixels = Math.max(maxCellPixels, cell);
+        }
+
+        //List the totals, then each layer, then the source images drawing the most pixels
+        ArrayList<SourceImage> sources = new ArrayList<>(sourceImages.keySet());
+        Collections.sort(sources, new Comparator<SourceImage>()
+        {
+            @Override
+            public int compare(SourceImage first, SourceImage second)
+            {
+                return Long.compare(second.numPixels, first.numPixels);
+            }
+        });
+        int numSourcesListed = Math.min(NUM_IMAGES_LISTED, sources.size());
+        overlayLines = new String[4 + LAYER_NAMES.length + numSourcesListed];
+        overlayLines[0] = String.format("Draws %5d  unscaled %5d  scaled %4d", numUnscaledDraws + numScaledDraws,
+                numUnscaledDraws, numScaledDraws);
+        overlayLines[1] = String.format("Filled %8d px  images %5d", numFilledPixels, sourceImages.size());
+        overlayLines[2] = String.format("Overdraw %4.2fx  worst cell %4.2fx", (double) totalPixels / (viewWidth * viewHeight),
+                (double) maxCellPixels / (CELL_SIZE * CELL_SIZE));
+        overlayLines[3] = String.format("%-10s %6s %10s", "Layer", "draws", "pixels");
+        for (int i = 0; i < LAYER_NAMES.length; i++)
+        {
+            overlayLines[4 + i] = String.format("%-10s %6d %10d", LAYER_NAMES[i], layerDraws[i], layerPixels[i]);
+        }
+        for (int i = 0; i < numSourcesListed; i++)
+        {
+            SourceImage source = sources.get(i);
+            overlayLines[4 + LAYER_NAMES.length + i] = String.format("%4dx%-4d at %4d,%-4d %4d %8d", source.x2 - source.x1,
+                    source.y2 - source.y1, source.x1, source.y1, source.numDraws, source.numPixels);
+        }
+    }
+
+    /**
+     * Draw the heatmap, if it is shown, and the overlay text in the top right corner of the screen.
+     * This should be drawn after the game so that it is on top, and not through the counting graphics object.
+     * @param dbGraphics The graphics object used to draw the overlay.
+     */
+    public void draw(Graphics dbGraphics)
+    {
+        if (mode == OFF)
+        {
+            return;
+        }
+
+        //Color each cell by how many times its pixels were covered, rounding down
+        if (mode == HEATMAP)
+        {
+            for (int row = 0; row < numRows; row++)
+            {
+                for (int column = 0; column < numColumns; column++)
+                {
+                    int timesCovered = heatmapCells[row * numColumns + column] / (CELL_SIZE * CELL_SIZE);
+                    if (timesCovered > 0)
+                    {
+                        dbGraphics.setColor(heatmapColors[Math.min(timesCovered, heatmapColors.length - 1)]);
+                        dbGraphics.fillRect(column * CELL_SIZE, row * CELL_SIZE, CELL_SIZE, CELL_SIZE);
+                    }
+                }
+            }
+        }
+
+        //Draw the text over a translucent background, below the game header
+        dbGraphics.setFont(overlayFont);
+        dbGraphics.setColor(overlayBackground);
+        dbGraphics.fillRect(viewWidth - 270, 30, 270, overlayLines.length * 13 + 6);
+        dbGraphics.setColor(Color.WHITE);
+        for (int i = 0; i < overlayLines.length; i++)
+        {
+            dbGraphics.drawString(overlayLines[i], viewWidth - 266, 45 + i * 13);
+        }
+    }
+
+    /**
+     * A rectangle of a source image and the number of times it was drawn. Sprites are drawn from
+     * rectangles of the texture atlas pages, so the rectangle tells apart the sprites on a page.
+     */
+    private static class SourceImage
+    {
+        /** The source image */
+        private Image image;
+        /** The edges of the rectangle drawn from the image */
+        private int x1, y1, x2, y2;
+        /** The number of times the rectangle was drawn */
+        private int numDraws;
+        /** The number of pixels drawn from the rectangle */
+        private long numPixels;
+
+        /**
+         * Set the image and rectangle.
+         * @param sourceImage The source image.
+         * @param sx1 The x coordinate of the first corner of the rectangle.
+         * @param sy1 The y coordinate of the first corner of the rectangle.
+         * @param sx2 The x coordinate of the second corner of the rectangle.
+         * @param sy2 The y coordinate of the second corner of the rectangle.
+         */
+        private void set(Image sourceImage, int sx1, int sy1, int sx2, int sy2)
+        {
+            image = sourceImage;
+            x1 = sx1;
+            y1 = sy1;
+            x2 = sx2;
+            y2 = sy2;
+        }
+
+        @Override
+        public boolean equals(Object object)
+        {
+            if (!(object instanceof SourceImage))
+            {
+                return false;
+            }
+            SourceImage other = (SourceImage) object;
+            return image == other.image && x1 == other.x1 && y1 == other.y1 && x2 == other.x2 && y2 == other.y2;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return System.identityHashCode(image) * 31 + ((x1 * 31 + y1) * 31 + x2) * 31 + y2;
+        }
+    }
+}
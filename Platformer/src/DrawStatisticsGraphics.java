@@ -0,0 +1,176 @@
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.BufferedImageOp;
+import java.awt.image.ImageObserver;
+/**
+ * A graphics object that counts image draws and fills in the draw statistics before forwarding them.
+ */
+public class DrawStatisticsGraphics extends ForwardingGraphics
+{
+    /** The statistics the draws are counted in */
+    private DrawStatistics statistics;
+
+    /**
+     * Create a graphics object that counts image draws and fills before forwarding them.
+     * @param drawStatistics The statistics the draws are counted in.
+     * @param targetGraphics The graphics object to forward to.
+     */
+    public DrawStatisticsGraphics(DrawStatistics drawStatistics, Graphics2D targetGraphics)
+    {
+        super(targetGraphics);
+        statistics = drawStatistics;
+    }
+
+    /**
+     * Get the statistics the draws are counted in.
+     * @return The draw statistics.
+     */
+    public DrawStatistics getStatistics()
+    {
+        return statistics;
+    }
+
+    /**
+     * Count an image drawn with a transform as the bounds of the transformed image.
+     * @param image The image.
+     * @param transform The transform from the image to the game's space.
+     */
+    private void recordTransformedImage(Image image, AffineTransform transform)
+    {
+        if (image != null && transform != null)
+        {
+            Rectangle bounds = transform.createTransformedShape(new Rectangle(0, 0, image.getWidth(null), image.getHeight(null))).getBounds();
+            statistics.recordImage(image, bounds.x, bounds.y, bounds.x + bounds.width, bounds.y + bounds.height,
+                    0, 0, image.getWidth(null), image.getHeight(null));
+        }
+    }
+
+    @Override
+    public boolean drawImage(Image image, int x, int y, ImageObserver observer)
+    {
+        if (image != null)
+        {
+            statistics.recordImage(image, x, y, x + image.getWidth(null), y + image.getHeight(null), 0, 0,
+                    image.getWidth(null), image.getHeight(null));
+        }
+        return super.drawImage(image, x, y, observer);
+    }
+
+    @Override
+    public boolean drawImage(Image image, int x, int y, int width, int height, ImageObserver observer)
+    {
+        if (image != null)
+        {
+            statistics.recordImage(image, x, y, x + width, y + height, 0, 0, image.getWidth(null), image.getHeight(null));
+        }
+        return super.drawImage(image, x, y, width, height, observer);
+    }
+
+    @Override
+    public boolean drawImage(Image image, int x, int y, Color background, ImageObserver observer)
+    {
+        if (image != null)
+        {
+            statistics.recordImage(image, x, y, x + image.getWidth(null), y + image.getHeight(null), 0, 0,
+                    image.getWidth(null), image.getHeight(null));
+        }
+        return super.drawImage(image, x, y, background, observer);
+    }
+
+    @Override
+    public boolean drawImage(Image image, int x, int y, int width, int height, Color background, ImageObserver observer)
+    {
+        if (image != null)
+        {
+            statistics.recordImage(image, x, y, x + width, y + height, 0, 0, image.getWidth(null), image.getHeight(null));
+        }
+        return super.drawImage(image, x, y, width, height, background, observer);
+    }
+
+    @Override
+    public boolean drawImage(Image image, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2, ImageObserver observer)
+    {
+        statistics.recordImage(image, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2);
+        return super.drawImage(image, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, observer);
+    }
+
+    @Override
+    public boolean drawImage(Image image, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2,
+                             Color background, ImageObserver observer)
+    {
+        statistics.recordImage(image, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2);
+        return super.drawImage(image, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, background, observer);
+    }
+
+    @Override
+    public boolean drawImage(Image image, AffineTransform transform, ImageObserver observer)
+    {
+        recordTransformedImage(image, transform);
+        return super.drawImage(image, transform, observer);
+    }
+
+    @Override
+    public void drawImage(BufferedImage image, BufferedImageOp op, int x, int y)
+    {
+        recordTransformedImage(image, AffineTransform.getTranslateInstance(x, y));
+        super.drawImage(image, op, x, y);
+    }
+
+    @Override
+    public void fill(Shape shape)
+    {
+        Rectangle bounds = shape.getBounds();
+        statistics.recordFill(bounds.x, bounds.y, bounds.width, bounds.height);
+        super.fill(shape);
+    }
+
+    @Override
+    public void fillRect(int x, int y, int width, int height)
+    {
+        statistics.recordFill(x, y, width, height);
+        super.fillRect(x, y, width, height);
+    }
+
+    @Override
+    public void clearRect(int x, int y, int width, int height)
+    {
+        statistics.recordFill(x, y, width, height);
+        super.clearRect(x, y, width, height);
+    }
+
+    @Override
+    public void fillRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight)
+    {
+        statistics.recordFill(x, y, width, height);
+        super.fillRoundRect(x, y, width, height, arcWidth, arcHeight);
+    }
+
+    @Override
+    public void fillOval(int x, int y, int width, int height)
+    {
+        statistics.recordFill(x, y, width, height);
+        super.fillOval(x, y, width, height);
+    }
+
+    @Override
+    public void fillArc(int x, int y, int width, int height, int startAngle, int arcAngle)
+    {
+        statistics.recordFill(x, y, width, height);
+        super.fillArc(x, y, width, height, startAngle, arcAngle);
+    }
+
+    @Override
+    public void fillPolygon(int[] xPoints, int[] yPoints, int numPoints)
+    {
+        Rectangle bounds = new Polygon(xPoints, yPoints, numPoints).getBounds();
+        statistics.recordFill(bounds.x, bounds.y, bounds.width, bounds.height);
+        super.fillPolygon(xPoints, yPoints, numPoints);
+    }
+
+    @Override
+    public Graphics create()
+    {
+        return new DrawStatisticsGraphics(statistics, (Graphics2D) getTarget().create());
+    }
+}
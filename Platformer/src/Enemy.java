@@ -6,8 +6,10 @@ import java.util.HashMap;
  */
 public class Enemy extends Entity
 {
-    /** The number of pixels an enemy falls every game loop */
-    private static final int ENEMY_VERTICAL_SPEED = 5;
+    /** The downward acceleration of an enemy (in pixels per second, per second) */
+    private static final int ENEMY_GRAVITY = 667;
+    /** The fastest an enemy can fall (in pixels per second) */
+    private static final int ENEMY_TERMINAL_VELOCITY = 150;
 
     /** The flag specifying if this enemy is alive and should be drawn */
     private boolean isActive;
@@ -16,7 +18,7 @@ public class Enemy extends Entity
      * Create an enemy.
      * @param x The initial x position to place the enemy at.
      * @param y The initial y position to place the enemy at.
-     * @param speedInPixels The horizontal movement speed.
+     * @param speedInPixels The horizontal movement speed in pixels per second.
      * @param directionToMove The initial direction to move.
      * @param enemySpecificGraphics The graphics map for the enemy.
      */
@@ -26,6 +28,8 @@ public class Enemy extends Entity
         //Set class data
         state = NORMAL_STATE;
         elapsedAnimationTimeInMs = 0L;
+        gravity = ENEMY_GRAVITY * SUBPIXELS_PER_PIXEL;
+        terminalVelocity = ENEMY_TERMINAL_VELOCITY * SUBPIXELS_PER_PIXEL;
 
         //Store enemy data
         speed = speedInPixels;
@@ -39,21 +43,25 @@ public class Enemy extends Entity
 
         //Store the enemy spawn point for re-spawning
         spawnPoint = new Point(x, y);
+        previousLocation = new Point(x, y);
     }
 
     /**
      * Update the enemy's animation time and move it.
-     * @param blockMap The grid of blocks used to check for movement collisions.
+     * @param blockMap The map of blocks used to check for movement collisions.
      * @param eventBlocks The event blocks used to check for movement collisions.
-     * @param numEventBlocks The number of event blocks.
-     * @param loopPeriodInMs The loop period of the game cycle.
+     * @param eventBlockGrid The grid used to find the event blocks near the enemy.
+     * @param loopPeriodInNanos The loop period of the game cycle in nanoseconds.
      */
-    public void update(int[][] blockMap, EventBlock[] eventBlocks, int numEventBlocks, long loopPeriodInMs)
+    public void update(TileMap blockMap, EventBlock[] eventBlocks, CollisionGrid eventBlockGrid, long loopPeriodInNanos)
     {
         if (isActive)
         {
+            //Remember where the enemy was before moving
+            storePreviousLocation();
+
             //If the animation has ended, set waiting for animation to false and reset the elapsed time
-            elapsedAnimationTimeInMs = graphicsMap.get(graphicsState).update(loopPeriodInMs, elapsedAnimationTimeInMs);
+            elapsedAnimationTimeInMs = graphicsMap.get(graphicsState).update(loopPeriodInNanos / 1000000, elapsedAnimationTimeInMs);
             if (elapsedAnimationTimeInMs == Animation.ANIMATION_ENDED && waitingForAnimation)
             {
                 waitingForAnimation = false;
@@ -65,7 +73,7 @@ public class Enemy extends Entity
                     levelWatcher.specialEnemyDied();
                 }
             }
-            move(blockMap, eventBlocks, numEventBlocks);
+            move(blockMap, eventBlocks, eventBlockGrid, loopPeriodInNanos);
         }
     }
 
@@ -73,12 +81,14 @@ public class Enemy extends Entity
      * Check collisions with event blocks, specifically dangerous blocks. If the
      * enemy's bounding box intersects the block the enemy will die.
      * @param eventBlocks The event blocks to check collision for.
-     * @param numEventBlocks The number of event blocks.
+     * @param eventBlockGrid The grid used to find the event blocks near the enemy.
      */
-    private void checkEventBlockCollisions(EventBlock[] eventBlocks, int numEventBlocks)
+    private void checkEventBlockCollisions(EventBlock[] eventBlocks, CollisionGrid eventBlockGrid)
     {
-        for (int i = 0; i < numEventBlocks; i++)
+        int numNearbyBlocks = eventBlockGrid.query(boundingBox);
+        for (int n = 0; n < numNearbyBlocks; n++)
         {
+            int i = eventBlockGrid.getResult(n);
             if (checkCollision(eventBlocks[i].getBoundingBox(), 30)
                     && eventBlocks[i].getBlockType() == EventBlock.BLOCK_DANGER)
             {
@@ -90,24 +100,27 @@ public class Enemy extends Entity
 
     /**
      * Move the enemy according to its state.
-     * @param blockMap The grid of blocks used to check for movement collisions.
+     * @param blockMap The map of blocks used to check for movement collisions.
      * @param eventBlocks The event blocks used to check for movement collisions.
-     * @param numEventBlocks The number of event blocks.
+     * @param eventBlockGrid The grid used to find the event blocks near the enemy.
+     * @param loopPeriodInNanos The loop period of the game cycle in nanoseconds.
      */
-    private void move(int[][] blockMap, EventBlock[] eventBlocks, int numEventBlocks)
+    private void move(TileMap blockMap, EventBlock[] eventBlocks, CollisionGrid eventBlockGrid, long loopPeriodInNanos)
     {
         //Allow horizontal movement if enemy is not dead
         if (state != DEAD_STATE)
         {
             //Check for event block collisions
-            checkEventBlockCollisions(eventBlocks, numEventBlocks);
+            checkEventBlockCollisions(eventBlocks, eventBlockGrid);
 
             //Attempt to move depending on direction
             if (direction == LEFT)
             {
-                //Change direction if there was collision
-                if (moveHorizontal(blockMap, -speed))
+                //Turn around if there was a collision
+                velocityX = -speed * SUBPIXELS_PER_PIXEL;
+                if (moveHorizontal(blockMap, loopPeriodInNanos))
                 {
+                    rebound(blockMap, loopPeriodInNanos);
                     direction = RIGHT;
                     if (state != FALLING_STATE) //Change graphics
                     {
@@ -117,8 +130,10 @@ public class Enemy extends Entity
             }
             else if (direction == RIGHT)
             {
-                if (moveHorizontal(blockMap, speed))
+                velocityX = speed * SUBPIXELS_PER_PIXEL;
+                if (moveHorizontal(blockMap, loopPeriodInNanos))
                 {
+                    rebound(blockMap, loopPeriodInNanos);
                     direction = LEFT;
                     if (state != FALLING_STATE)
                     {
@@ -132,7 +147,7 @@ public class Enemy extends Entity
         if (state == NORMAL_STATE)
         {
             //Make the enemy fall if it is standing on thin air
-            moveVertical(blockMap, speed);
+            moveVertical(blockMap, loopPeriodInNanos);
 
             //Update graphics if enemy starts falling
             if (state == FALLING_STATE)
@@ -142,7 +157,7 @@ public class Enemy extends Entity
         }
         else if (state == FALLING_STATE)
         {
-            moveVertical(blockMap, ENEMY_VERTICAL_SPEED);
+            moveVertical(blockMap, loopPeriodInNanos);
 
             //Update graphics if enemy lands
             if (state == NORMAL_STATE)
@@ -172,16 +187,29 @@ public class Enemy extends Entity
     }
 
     /**
-     * Draw the enemy.
-     * @param dbGraphics The graphics object that will draw the enemy.
+     * Add the enemy to a snapshot if it is alive.
+     * @param snapshot The snapshot being captured.
+     */
+    public void captureSnapshot(WorldSnapshot snapshot)
+    {
+        if (isActive)
+        {
+            captureSprite(snapshot, RenderQueue.ENEMY_LAYER);
+        }
+    }
+
+    /**
+     * Queue the enemy to be drawn between its previous and current position if it is alive.
+     * @param renderQueue The render queue the enemy is submitted to.
      * @param xOffset The x position to draw the enemy at on the screen.
      * @param yOffset The y position to draw the enemy at on the screen.
+     * @param interpolation The fraction of a game update that has elapsed since the last update (0.0 - 1.0).
      */
-    public void draw(Graphics dbGraphics, int xOffset, int yOffset)
+    public void submit(RenderQueue renderQueue, int xOffset, int yOffset, double interpolation)
     {
         if (isActive)
         {
-            graphicsMap.get(graphicsState).draw(dbGraphics, boundingBox.x + xOffset, boundingBox.y + yOffset, elapsedAnimationTimeInMs);
+            submitSprite(renderQueue, xOffset, yOffset, interpolation, RenderQueue.ENEMY_LAYER);
         }
     }
 
@@ -193,6 +221,8 @@ public class Enemy extends Entity
         isActive = true;
         state = NORMAL_STATE;
         setGraphicsState(state, direction, true);
+        stopMoving();
         boundingBox.setLocation(spawnPoint);
+        previousLocation.setLocation(spawnPoint);
     }
 }
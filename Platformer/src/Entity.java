@@ -46,8 +46,29 @@ public abstract class Entity
     /** The direction state of the entity. */
     protected int direction;
 
-    /** The number of pixels the entity moves every game update */
+    /** The number of nanoseconds in a single second */
+    private static final long NANOS_PER_SECOND = 1000000000L;
+    /** The number of sub-pixels in a pixel, positions and velocities are stored in sub-pixels */
+    protected static final int SUBPIXELS_PER_PIXEL = 256;
+
+    /** The number of pixels the entity moves every second */
     protected int speed;
+    /** The horizontal velocity of the entity, positive is right (in sub-pixels per second) */
+    protected int velocityX;
+    /** The vertical velocity of the entity, positive is down (in sub-pixels per second) */
+    protected int velocityY;
+    /** The downward acceleration of the entity (in sub-pixels per second, per second) */
+    protected int gravity;
+    /** The fastest the entity can fall (in sub-pixels per second) */
+    protected int terminalVelocity;
+    /** The fraction of a pixel the entity is to the right of its bounding box (in sub-pixels) */
+    private int subPixelX;
+    /** The fraction of a pixel the entity is below its bounding box (in sub-pixels) */
+    private int subPixelY;
+    /** The fraction of a sub-pixel left over from previous horizontal movement (in sub-pixel nanos) */
+    private long subPixelRemainderX;
+    /** The fraction of a sub-pixel left over from previous vertical movement (in sub-pixel nanos) */
+    private long subPixelRemainderY;
     /** The amount of time elapsed in the entity's current animation */
     protected long elapsedAnimationTimeInMs;
     /** A flag specifying that the entity is waiting for an animation to complete */
@@ -56,92 +77,52 @@ public abstract class Entity
     protected Point spawnPoint;
     /** The bounding box of the entity that stores its position and dimensions */
     protected Rectangle boundingBox;
+    /** The position of the entity at the start of the most recent game update */
+    protected Point previousLocation;
     /** Maps graphics states (integers) to animations */
     protected HashMap<Integer, Animation> graphicsMap;
     /** The watcher that is notified when the entity triggers level events */
     protected LevelWatcher levelWatcher;
 
+    /** The x offset the entity could move before it hit a block in the most recent sweep */
+    protected int contactOffsetX;
+    /** The y offset the entity could move before it hit a block in the most recent sweep */
+    protected int contactOffsetY;
+    /** The fraction of the most recent sweep completed before the entity hit a block (0.0 - 1.0) */
+    protected double contactTime;
+    /** The x component of the normal of the block side hit in the most recent sweep (-1, 0, or 1) */
+    protected int contactNormalX;
+    /** The y component of the normal of the block side hit in the most recent sweep (-1, 0, or 1) */
+    protected int contactNormalY;
+
     /**
-     * Move the entity horizontally. The direction of movement is determined by the
-     * xPixelsMove argument. If the entity can freely moved the requested number of
-     * pixels then this method returns false. Otherwise, if the entity collides with
-     * a block this method will return true and it will not move the full distance.
-     * @param blockIdMap The grid of blocks id's that are checked for collision detection.
-     * @param xPixelsMoved The number of pixels to move.
+     * Move the entity horizontally by its horizontal velocity. If the entity can freely move
+     * the full distance then this method returns false. Otherwise, if the entity collides with
+     * a block this method will return true, it will stop against the block, and its horizontal
+     * velocity is cleared. Every column of blocks the entity passes through is checked, so it
+     * cannot skip over a block no matter how fast it moves.
+     * @param tileMap The map of blocks that is checked for collision detection.
+     * @param loopPeriodInNanos The loop period of the game cycle in nanoseconds.
      * @return True if the entity collided with a block, false otherwise.
      */
-    final protected boolean moveHorizontal(int[][] blockIdMap, int xPixelsMoved)
+    final protected boolean moveHorizontal(TileMap tileMap, long loopPeriodInNanos)
     {
-        int gridX; //Entity x position converted to block index
-        int gridYTop; //Entity y position converted to block index
-        int gridYBottom; //Entity y position plus height converted to block index
-        int idOfBlockAbove; //Id of the block at the top of the entity
-        int idOfBlockBelow; //Id of the block at the bottom of the entity
-
-        //Calculate the y index for the blocks above and below, subtract one to avoid getting stuck
-        gridYTop = (boundingBox.y / Block.BLOCK_HEIGHT);
-        gridYBottom = (boundingBox.y + boundingBox.height - 1) / Block.BLOCK_HEIGHT;
-
-        //Attempt to move left with respect for block collisions
-        if (xPixelsMoved < 0)
-        {
-            //Calculate x index for the block space that will be moved into
-            gridX = (boundingBox.x + xPixelsMoved) / Block.BLOCK_WIDTH;
-
-            //Attempting to move off left side of map
-            if (gridX < 0 || boundingBox.x <= 0)
-            {
-                boundingBox.x = 0;
-                return true;
-            }
-            else if (gridYTop < 0 || gridYBottom >= blockIdMap[0].length) //Above or below map, horizontal movement safe
-            {
-                boundingBox.x += xPixelsMoved;
-                return false;
-            }
-
-            //Retrieve the indexes of the blocks just above and below the entity
-            idOfBlockAbove = blockIdMap[gridX][gridYTop];
-            idOfBlockBelow = blockIdMap[gridX][gridYBottom];
+        //Add this update's movement to the fractions left over, and move the whole pixels
+        //Both splits round down, so moving left and right carry their fractions the same way
+        long subPixelNanos = (long) velocityX * loopPeriodInNanos + subPixelRemainderX;
+        long subPixels = subPixelX + Math.floorDiv(subPixelNanos, NANOS_PER_SECOND);
+        subPixelRemainderX = Math.floorMod(subPixelNanos, NANOS_PER_SECOND);
+        int xPixelsMoved = (int) Math.floorDiv(subPixels, (long) SUBPIXELS_PER_PIXEL);
+        subPixelX = (int) Math.floorMod(subPixels, (long) SUBPIXELS_PER_PIXEL);
 
-            //If either index is not 0 or 100, and is a solid block, then collision
-            if ((idOfBlockAbove % 100 != 0 && (idOfBlockAbove / 100) >= 1)
-             || (idOfBlockBelow % 100 != 0 && (idOfBlockBelow / 100) >= 1))
-            {
-                //Move up against the right side of the block to the left
-                boundingBox.x = (gridX * Block.BLOCK_WIDTH) + Block.BLOCK_WIDTH;
-                return true;
-            }
-        }
-        else if (xPixelsMoved > 0) //Attempt to move right with respect for block collisions
+        //Move up against the block or the side of the map if there was a collision
+        if (sweep(tileMap, xPixelsMoved, 0))
         {
-            //Calculate x index for the block space that will be moved into
-            gridX = (boundingBox.x + boundingBox.width + xPixelsMoved) / Block.BLOCK_WIDTH;
-
-            //Attempting to move off right side of map
-            if (gridX >= blockIdMap.length)
-            {
-                boundingBox.x = (blockIdMap.length * Block.BLOCK_WIDTH) - boundingBox.width;
-                return true;
-            }
-            else if (gridYTop < 0 || gridYBottom >= blockIdMap[0].length) //Above or below map, horizontal movement safe
-            {
-                boundingBox.x += xPixelsMoved;
-                return false;
-            }
-
-            //Retrieve the indexes of the blocks just above and below the entity
-            idOfBlockAbove = blockIdMap[gridX][gridYTop];
-            idOfBlockBelow = blockIdMap[gridX][gridYBottom];
-
-            //If either index is not 0 or 100, and is a solid block, then collision
-            if ((idOfBlockAbove % 100 != 0 && (idOfBlockAbove / 100) >= 1)
-             || (idOfBlockBelow % 100 != 0 && (idOfBlockBelow / 100) >= 1))
-            {
-                //Move up against the left side of the block to the right
-                boundingBox.x = (gridX * Block.BLOCK_WIDTH) - boundingBox.width;
-                return true;
-            }
+            boundingBox.x += contactOffsetX;
+            velocityX = 0;
+            subPixelX = 0;
+            subPixelRemainderX = 0L;
+            return true;
         }
 
         //No collision
@@ -150,124 +131,291 @@ public abstract class Entity
     }
 
     /**
-     * Move the entity vertically. The direction of movement is determined by the
-     * yPixelsMove argument. If the entity can freely moved the requested number of
-     * pixels then this method returns false. Otherwise, if the entity collides with
-     * a block this method will return true and it will not move the full distance.
-     * @param blockIdMap The grid of blocks id's that are checked for collision detection.
-     * @param yPixelsMoved The number of pixels to move.
-     * @return True if the entity collided with a block, false otherwise.
+     * Turn the entity around after moveHorizontal() hit a block, and move it away from the side of the block
+     * that was hit for the part of the update that was left when it hit. Without this, the time spent moving
+     * into the block is lost, and an entity turning at walls falls behind by more at lower update rates.
+     * @param tileMap The map of blocks that is checked for collision detection.
+     * @param loopPeriodInNanos The loop period of the game cycle in nanoseconds.
+     * @return True if the entity collided with another block, false otherwise.
      */
-    final protected void moveVertical(int[][] blockIdMap, int yPixelsMoved)
+    final protected boolean rebound(TileMap tileMap, long loopPeriodInNanos)
     {
-        int gridXLeft; //Entity x position converted to block index
-        int gridXRight; //Entity x position plus width converted to block index
-        int gridY; //Entity y position converted to block index
-        int idOfBlockLeft; //Id of the block to the left of the entity
-        int idOfBlockRight; //Id of the block to the right of the entity
-
-        //Calculate the x index for the blocks to the left and right, add/subtract one to avoid getting stuck
-        gridXLeft = (boundingBox.x + 1) / Block.BLOCK_WIDTH;
-        gridXRight = (boundingBox.x + boundingBox.width - 1) / Block.BLOCK_WIDTH;
-
-        //Attempt to move up with respect for block collisions
-        if (yPixelsMoved < 0)
-        {
-            //Calculate x index for the block space that will be moved into
-            gridY = (boundingBox.y + yPixelsMoved) / Block.BLOCK_HEIGHT;
+        velocityX = contactNormalX * speed * SUBPIXELS_PER_PIXEL;
+        return moveHorizontal(tileMap, (long) (loopPeriodInNanos * (1.0 - contactTime)));
+    }
 
-            //Attempting to jump above map
-            if (gridY < 0)
+    /**
+     * Accelerate the entity downwards by its gravity, up to its terminal velocity, and move it vertically by its
+     * vertical velocity. Moving up sets the entity's state to jumping, or falling if it hits a block above. Moving
+     * down sets the state to falling, or normal if it lands on a block. Hitting a block clears the vertical velocity.
+     * An entity moving less than a pixel is checked for a block directly beneath it, so it begins falling in the
+     * update it walks off a ledge. An entity that falls offscreen below the map dies. Every row of blocks the
+     * entity passes through is checked, so it cannot skip over a block no matter how fast it moves.
+     * @param tileMap The map of blocks that is checked for collision detection.
+     * @param loopPeriodInNanos The loop period of the game cycle in nanoseconds.
+     */
+    final protected void moveVertical(TileMap tileMap, long loopPeriodInNanos)
+    {
+        //Apply gravity, then add this update's movement to the fraction of a pixel left over. The entity moves by the
+        //average of its velocity before and after gravity is applied, which is exact for a constant acceleration, so
+        //it follows the same arc at every update rate instead of one that depends on how long each update is
+        long newVelocityY = Math.min(terminalVelocity, velocityY + (long) gravity * loopPeriodInNanos / NANOS_PER_SECOND);
+        long subPixelNanos = (velocityY + newVelocityY) * loopPeriodInNanos / 2 + subPixelRemainderY;
+        velocityY = (int) newVelocityY;
+        long subPixels = subPixelY + Math.floorDiv(subPixelNanos, NANOS_PER_SECOND);
+        subPixelRemainderY = Math.floorMod(subPixelNanos, NANOS_PER_SECOND);
+        int yPixelsMoved = (int) Math.floorDiv(subPixels, (long) SUBPIXELS_PER_PIXEL);
+        subPixelY = (int) Math.floorMod(subPixels, (long) SUBPIXELS_PER_PIXEL);
+        if (yPixelsMoved == 0)
+        {
+            //Moving less than a pixel still leaves the ground, so check for a block directly beneath the entity
+            if (velocityY < 0)
             {
-                boundingBox.y += yPixelsMoved;
-                return;
+                state = JUMPING_STATE;
             }
-            else if (gridY >= blockIdMap[0].length) //Below map, kill the entity
+            else if (sweep(tileMap, 0, 1))
             {
-                if (gridY > blockIdMap[0].length)
-                {
-                    state = DEAD_STATE;
-                }
-                else //Kill the entity only after it has fallen offscreen
-                {
-                    boundingBox.y += yPixelsMoved;
-                }
-                return;
+                state = NORMAL_STATE;
+                velocityY = 0;
+                subPixelY = 0;
+                subPixelRemainderY = 0L;
             }
-            else if (gridXRight >= blockIdMap.length) //Jumping along right side of map
+            else
             {
-                //Ignore gridXRight, no collision outside of map
-                gridXRight = gridXLeft;
+                state = FALLING_STATE;
             }
+            return;
+        }
 
-            //Retrieve the indexes of the blocks just to the left and right of the entity
-            idOfBlockLeft = blockIdMap[gridXLeft][gridY];
-            idOfBlockRight = blockIdMap[gridXRight][gridY];
+        //Kill the entity only after it has fallen offscreen, one row below the map
+        int gridY = Math.floorDiv((yPixelsMoved < 0 ? boundingBox.y : boundingBox.y + boundingBox.height) + yPixelsMoved,
+                Block.BLOCK_HEIGHT);
+        if (gridY > tileMap.getHeight())
+        {
+            state = DEAD_STATE;
+            return;
+        }
 
-            //If either index is not 0 or 100, and is a solid block, then collision
-            if ((idOfBlockLeft % 100 != 0 && (idOfBlockLeft / 100) >= 1)
-             || (idOfBlockRight % 100 != 0 && (idOfBlockRight / 100) >= 1))
-            {
-                //Begin falling, move up to bottom of block above
-                boundingBox.y = (gridY * Block.BLOCK_HEIGHT) + Block.BLOCK_HEIGHT;
-                state = FALLING_STATE;
-            }
-            else
-            {
-                //No collision, continue jumping
-                boundingBox.y += yPixelsMoved;
-                state = JUMPING_STATE;
-            }
+        if (sweep(tileMap, 0, yPixelsMoved))
+        {
+            //Move up against the block, begin falling if its bottom was hit or land if its top was hit
+            boundingBox.y += contactOffsetY;
+            state = (contactNormalY > 0) ? FALLING_STATE : NORMAL_STATE;
+            velocityY = 0;
+            subPixelY = 0;
+            subPixelRemainderY = 0L;
         }
-        else if (yPixelsMoved > 0) //Attempt to move down with respect for block collisions
+        else
         {
-            //Calculate x index for the block space that will be moved into
-            gridY = (boundingBox.y + boundingBox.height + yPixelsMoved) / Block.BLOCK_HEIGHT;
+            //No collision, continue jumping or falling
+            boundingBox.y += yPixelsMoved;
+            state = (yPixelsMoved < 0) ? JUMPING_STATE : FALLING_STATE;
+        }
+    }
+
+    /**
+     * Stop the entity, clearing its velocity and the fraction of a pixel it has moved past its bounding box.
+     * This method should be called whenever the entity is placed at a new position.
+     */
+    final protected void stopMoving()
+    {
+        velocityX = 0;
+        velocityY = 0;
+        subPixelX = 0;
+        subPixelY = 0;
+        subPixelRemainderX = 0L;
+        subPixelRemainderY = 0L;
+    }
+
+    /**
+     * Sweep the entity's bounding box along a move and find the first block it would hit, without moving it.
+     * The leading edges of the box are stepped from one block boundary to the next in the order they are
+     * reached, and each column or row the box enters is checked across the box's full height or width, so
+     * fast entities cannot tunnel through blocks and entities larger than a block cannot slip past one.
+     * The sides of the map are solid, the space above and below it is not. If there is a collision, the
+     * contact fields describe where and on which side it was hit.
+     * @param tileMap The map of blocks that is checked for collision detection.
+     * @param xPixelsMoved The number of pixels to move horizontally.
+     * @param yPixelsMoved The number of pixels to move vertically.
+     * @return True if the box would hit a block, false if it can move the full distance.
+     */
+    final protected boolean sweep(TileMap tileMap, int xPixelsMoved, int yPixelsMoved)
+    {
+        int stepX = Integer.signum(xPixelsMoved);
+        int stepY = Integer.signum(yPixelsMoved);
+        int distanceX = Math.abs(xPixelsMoved);
+        int distanceY = Math.abs(yPixelsMoved);
 
-            //Attempting to fall from above the map
-            if (gridY < 0)
+        //Find the next column and row the box enters, and how far its leading edges are from them
+        int column = 0;
+        int distanceToColumn = 0;
+        if (stepX > 0)
+        {
+            column = Math.floorDiv(boundingBox.x + boundingBox.width - 1, Block.BLOCK_WIDTH) + 1;
+            distanceToColumn = (column * Block.BLOCK_WIDTH) - (boundingBox.x + boundingBox.width);
+        }
+        else if (stepX < 0)
+        {
+            column = Math.floorDiv(boundingBox.x, Block.BLOCK_WIDTH) - 1;
+            distanceToColumn = boundingBox.x - ((column + 1) * Block.BLOCK_WIDTH);
+        }
+        int row = 0;
+        int distanceToRow = 0;
+        if (stepY > 0)
+        {
+            row = Math.floorDiv(boundingBox.y + boundingBox.height - 1, Block.BLOCK_HEIGHT) + 1;
+            distanceToRow = (row * Block.BLOCK_HEIGHT) - (boundingBox.y + boundingBox.height);
+        }
+        else if (stepY < 0)
+        {
+            row = Math.floorDiv(boundingBox.y, Block.BLOCK_HEIGHT) - 1;
+            distanceToRow = boundingBox.y - ((row + 1) * Block.BLOCK_HEIGHT);
+        }
+
+        while (true)
+        {
+            boolean entersColumn = stepX != 0 && distanceToColumn < distanceX;
+            boolean entersRow = stepY != 0 && distanceToRow < distanceY;
+            if (!entersColumn && !entersRow)
             {
-                boundingBox.y += yPixelsMoved;
-                return;
+                return false;
             }
-            else if (gridY >= blockIdMap[0].length) //Below map, kill the entity
+
+            //Enter whichever of the column and row is reached first, compare the times without dividing
+            if (entersColumn && (!entersRow || (long) distanceToColumn * distanceY <= (long) distanceToRow * distanceX))
             {
-                if (gridY > blockIdMap[0].length)
-                {
-                    state = DEAD_STATE;
-                }
-                else
+                //Check the rows the box covers when it reaches the column
+                int offsetY = (int) ((long) yPixelsMoved * distanceToColumn / distanceX);
+                if (isColumnBlocked(tileMap, column, Math.floorDiv(boundingBox.y + offsetY, Block.BLOCK_HEIGHT),
+                        Math.floorDiv(boundingBox.y + offsetY + boundingBox.height - 1, Block.BLOCK_HEIGHT)))
                 {
-                    //Kill the entity only after it has fallen offscreen
-                    boundingBox.y += yPixelsMoved;
+                    setContact(stepX * distanceToColumn, offsetY, (double) distanceToColumn / distanceX, -stepX, 0);
+                    return true;
                 }
-                return;
+                column += stepX;
+                distanceToColumn += Block.BLOCK_WIDTH;
             }
-            else if (gridXRight >= blockIdMap.length) //Falling along right side of map
+            else
             {
-                gridXRight = gridXLeft; //Ignore gridXRight, no collision outside of map
+                //Check the columns the box covers when it reaches the row
+                int offsetX = (int) ((long) xPixelsMoved * distanceToRow / distanceY);
+                if (isRowBlocked(tileMap, row, Math.floorDiv(boundingBox.x + offsetX, Block.BLOCK_WIDTH),
+                        Math.floorDiv(boundingBox.x + offsetX + boundingBox.width - 1, Block.BLOCK_WIDTH)))
+                {
+                    setContact(offsetX, stepY * distanceToRow, (double) distanceToRow / distanceY, 0, -stepY);
+                    return true;
+                }
+                row += stepY;
+                distanceToRow += Block.BLOCK_HEIGHT;
             }
+        }
+    }
 
-            //Retrieve the indexes of the blocks just to the left and right of the entity
-            idOfBlockLeft = blockIdMap[gridXLeft][gridY];
-            idOfBlockRight = blockIdMap[gridXRight][gridY];
+    /**
+     * Check if a box entering a column would hit a block. Columns outside the map are the sides of the map,
+     * which are solid, and a box entirely above or below the map passes over or under the blocks.
+     * @param tileMap The map of blocks that is checked for collision detection.
+     * @param column The column the box enters.
+     * @param firstRow The top row the box covers.
+     * @param lastRow The bottom row the box covers.
+     * @return True if the box would hit a block, false otherwise.
+     */
+    private static boolean isColumnBlocked(TileMap tileMap, int column, int firstRow, int lastRow)
+    {
+        if (column < 0 || column >= tileMap.getWidth())
+        {
+            return true;
+        }
+        return tileMap.isColumnSpanSolid(column, firstRow, lastRow);
+    }
 
-            //If either side of the entity would collide with a block when falling, the hundreds place has a one
-            //Check that the entity is currently above the block it may fall onto (does not include yPixelsMoved)
-            if ((boundingBox.y + boundingBox.height <= gridY * Block.BLOCK_HEIGHT)
-            && ((idOfBlockLeft % 100 != 0 && (idOfBlockLeft / 100) >= 1)
-             || (idOfBlockRight % 100 != 0 && (idOfBlockRight / 100) >= 1)))
-            {
-                //Landed on ground, move bottom of entity to top of block beneath
-                boundingBox.y = (gridY * Block.BLOCK_HEIGHT) - boundingBox.height;
-                state = NORMAL_STATE;
-            }
-            else //No collision, continue falling
-            {
-                boundingBox.y += yPixelsMoved;
-                state = FALLING_STATE;
-            }
+    /**
+     * Check if a box entering a row would hit a block. Rows outside the map are empty.
+     * @param tileMap The map of blocks that is checked for collision detection.
+     * @param row The row the box enters.
+     * @param firstColumn The left column the box covers.
+     * @param lastColumn The right column the box covers.
+     * @return True if the box would hit a block, false otherwise.
+     */
+    private static boolean isRowBlocked(TileMap tileMap, int row, int firstColumn, int lastColumn)
+    {
+        if (row < 0 || row >= tileMap.getHeight())
+        {
+            return false;
         }
+        return tileMap.isRowSpanSolid(row, firstColumn, lastColumn);
+    }
+
+    /**
+     * Store where the most recent sweep hit a block.
+     * @param offsetX The x offset of the box when it touched the block.
+     * @param offsetY The y offset of the box when it touched the block.
+     * @param time The fraction of the move completed when the box touched the block (0.0 - 1.0).
+     * @param normalX The x component of the normal of the side of the block that was hit.
+     * @param normalY The y component of the normal of the side of the block that was hit.
+     */
+    private void setContact(int offsetX, int offsetY, double time, int normalX, int normalY)
+    {
+        contactOffsetX = offsetX;
+        contactOffsetY = offsetY;
+        contactTime = time;
+        contactNormalX = normalX;
+        contactNormalY = normalY;
+    }
+
+    /**
+     * Store the entity's current position as its previous position. This method should be
+     * called at the start of every game update so that the entity can be drawn between updates.
+     */
+    final protected void storePreviousLocation()
+    {
+        previousLocation.setLocation(boundingBox.x, boundingBox.y);
+    }
+
+    /**
+     * Get the x position of the entity blended between its previous and current position.
+     * @param interpolation The fraction of a game update that has elapsed since the last update (0.0 - 1.0).
+     * @return The interpolated x position.
+     */
+    final protected int getInterpolatedX(double interpolation)
+    {
+        return previousLocation.x + (int) Math.round((boundingBox.x - previousLocation.x) * interpolation);
+    }
+
+    /**
+     * Get the y position of the entity blended between its previous and current position.
+     * @param interpolation The fraction of a game update that has elapsed since the last update (0.0 - 1.0).
+     * @return The interpolated y position.
+     */
+    final protected int getInterpolatedY(double interpolation)
+    {
+        return previousLocation.y + (int) Math.round((boundingBox.y - previousLocation.y) * interpolation);
+    }
+
+    /**
+     * Add the entity to a snapshot as a sprite showing its current animation.
+     * @param snapshot The snapshot being captured.
+     * @param layer The layer to draw the entity in, this must match the RenderQueue layer constants.
+     */
+    final protected void captureSprite(WorldSnapshot snapshot, int layer)
+    {
+        Animation animation = graphicsMap.get(graphicsState);
+        snapshot.addSprite(animation, animation.getFrame(elapsedAnimationTimeInMs),
+                previousLocation.x, previousLocation.y, boundingBox.x, boundingBox.y, layer);
+    }
+
+    /**
+     * Queue the entity's current animation to be drawn between its previous and current position.
+     * @param renderQueue The render queue the entity is submitted to.
+     * @param xOffset The x offset added to the entity's x coordinate to determine where to draw it.
+     * @param yOffset The y offset added to the entity's y coordinate to determine where to draw it.
+     * @param interpolation The fraction of a game update that has elapsed since the last update (0.0 - 1.0).
+     * @param layer The layer to draw the entity in, this must match the RenderQueue layer constants.
+     */
+    final protected void submitSprite(RenderQueue renderQueue, int xOffset, int yOffset, double interpolation, int layer)
+    {
+        graphicsMap.get(graphicsState).submit(renderQueue, getInterpolatedX(interpolation) + xOffset,
+                getInterpolatedY(interpolation) + yOffset, elapsedAnimationTimeInMs, layer);
     }
 
     /**
@@ -344,6 +492,8 @@ public abstract class Entity
     {
         spawnPoint = new Point(newX, newY);
         boundingBox.setLocation(spawnPoint);
+        previousLocation.setLocation(spawnPoint);
+        stopMoving();
     }
 
     /**
@@ -40,16 +40,31 @@ public class EventBlock extends Block
     }
 
     /**
-     * Draw the non-inactive event blocks. Blocks with the BLOCK_INACTIVE type are not drawn.
-     * @param dbGraphics The graphics object that will draw the block.
+     * Queue the non-inactive event blocks to be drawn. Blocks with the BLOCK_INACTIVE type are not drawn.
+     * @param renderQueue The render queue the block is submitted to.
      * @param xOffset The x position to draw the block at on the screen.
      * @param yOffset The y position to draw the block at on the screen.
      */
-    public void draw(Graphics dbGraphics, int xOffset, int yOffset)
+    public void submit(RenderQueue renderQueue, int xOffset, int yOffset)
     {
         if (blockType != BLOCK_INACTIVE && blockType != BLOCK_SPECIAL_INACTIVE)
         {
-            graphicsMap.get(NORMAL_GRAPHICS).draw(dbGraphics, boundingBox.x + xOffset, boundingBox.y + yOffset, elapsedAnimationTimeInMs);
+            graphicsMap.get(NORMAL_GRAPHICS).submit(renderQueue, boundingBox.x + xOffset, boundingBox.y + yOffset,
+                    elapsedAnimationTimeInMs, RenderQueue.BLOCK_LAYER);
+        }
+    }
+
+    /**
+     * Add the non-inactive event blocks to a snapshot. Blocks with the BLOCK_INACTIVE type are not added.
+     * @param snapshot The snapshot being captured.
+     */
+    public void captureSnapshot(WorldSnapshot snapshot)
+    {
+        if (blockType != BLOCK_INACTIVE && blockType != BLOCK_SPECIAL_INACTIVE)
+        {
+            Animation animation = graphicsMap.get(NORMAL_GRAPHICS);
+            snapshot.addSprite(animation, animation.getFrame(elapsedAnimationTimeInMs),
+                    boundingBox.x, boundingBox.y, boundingBox.x, boundingBox.y, RenderQueue.BLOCK_LAYER);
         }
     }
 
@@ -0,0 +1,310 @@
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+/**
+ * Keeps a ring of recent frames and game events and dumps it to a file when a frame runs over budget.
+ */
+public class FlightRecorder implements NotificationListener
+{
+    /** The event fired when the player triggers the easter egg */
+    public static final int EASTER_EGG_ACTIVATED = 1;
+    /** The event fired when the game changes to the next level */
+    public static final int LEVEL_CHANGED = 1 << 1;
+    /** The event fired when the player defeats an enemy */
+    public static final int ENEMY_DEFEATED = 1 << 2;
+    /** The event fired when the player picks up a collectible */
+    public static final int ITEM_COLLECTED = 1 << 3;
+    /** The event fired when the player dies */
+    public static final int PLAYER_DIED = 1 << 4;
+    /** The event fired when the special enemy dies */
+    public static final int SPECIAL_ENEMY_DIED = 1 << 5;
+    /** The audio command issued when a midi sequence is played */
+    public static final int MUSIC_PLAYED = 1 << 6;
+    /** The audio command issued when the midi sequence is paused */
+    public static final int MUSIC_PAUSED = 1 << 7;
+    /** The audio command issued when the midi sequence is resumed */
+    public static final int MUSIC_RESUMED = 1 << 8;
+    /** The audio command issued when a sound is played */
+    public static final int SOUND_PLAYED = 1 << 9;
+    /** The event fired when the garbage collector finishes a collection */
+    public static final int GARBAGE_COLLECTED = 1 << 10;
+    /** The names of the events, indexed by the bit each event sets */
+    private static final String[] EVENT_NAMES = {"easter-egg", "level-changed", "enemy-defeated", "item-collected",
+            "player-died", "special-enemy-died", "music-played", "music-paused", "music-resumed", "sound-played", "gc"};
+
+    /** The number written at the start of every dump file */
+    public static final int FILE_MAGIC = 0x504B4652; //"PKFR"
+    /** The version of the dump file format */
+    public static final int FILE_VERSION = 2;
+    /** The type of the notification sent by the garbage collector beans after a collection */
+    private static final String GC_NOTIFICATION = "com.sun.management.gc.notification";
+    /** The shortest time between two dumps, so one long hitch does not produce a dump per frame (in nanos) */
+    private static final long DUMP_COOLDOWN = 5000000000L;
+
+    /** The time each frame started (System.nanoTime()) */
+    private long[] frameTimes;
+    /** The time spent updating in each frame (in micros) */
+    private int[] updateTimes;
+    /** The time spent rendering in each frame (in micros) */
+    private int[] renderTimes;
+    /** The time spent presenting each frame (in micros) */
+    private int[] presentTimes;
+    /** How late the frame scheduler woke up after each frame (in micros) */
+    private int[] sleepErrors;
+    /** The number of game updates skipped in each frame */
+    private int[] numUpdatesSkipped;
+    /** The number of entities in the level during each frame */
+    private int[] numEntities;
+    /** The events fired during each frame, one bit per event */
+    private int[] events;
+    /** The time the garbage collector spent collecting during each frame (in ms) */
+    private int[] gcTimes;
+    /** The index the next frame is recorded at */
+    private int nextFrame;
+    /** The number of frames in the ring, up to its capacity */
+    private int numFrames;
+
+    /** The events fired since the last frame was recorded, these can be fired from any thread */
+    private AtomicInteger pendingEvents;
+    /** The time the garbage collector spent collecting since the last frame was recorded (in ms) */
+    private AtomicLong pendingGcTime;
+    /** The total collection time of all the garbage collectors when last notified (in ms) */
+    private long lastTotalGcTime;
+
+    /** The longest a frame can take before the ring is dumped (in nanos) */
+    private long frameBudget;
+    /** The time of the last dump */
+    private long timeOfLastDump;
+    /** Flag specifying a dump is being written, the ring is not dumped again until it is finished */
+    private AtomicBoolean dumpInProgress;
+    /** The copy of the ring that is handed to the writer thread, in the order the frames were recorded */
+    private FlightRecorder dumpCopy;
+
+    /**
+     * Create a flight recorder that always records the most recent frames.
+     * @param capacity The number of frames the ring holds.
+     * @param frameBudgetInNanos The longest a frame can take before the ring is dumped (in nanos).
+     */
+    public FlightRecorder(int capacity, long frameBudgetInNanos)
+    {
+        this(capacity);
+        frameBudget = frameBudgetInNanos;
+        pendingEvents = new AtomicInteger(0);
+        pendingGcTime = new AtomicLong(0L);
+        dumpInProgress = new AtomicBoolean(false);
+        dumpCopy = new FlightRecorder(capacity);
+        timeOfLastDump = System.nanoTime() - DUMP_COOLDOWN;
+
+        //Listen for garbage collections
+        for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans())
+        {
+            lastTotalGcTime += Math.max(0L, gcBean.getCollectionTime());
+            if (gcBean instanceof NotificationEmitter)
+            {
+                ((NotificationEmitter) gcBean).addNotificationListener(this, null, null);
+            }
+        }
+    }
+
+    /**
+     * Create the ring of frames without any event or dump state, used for the copy that is dumped.
+     * @param capacity The number of frames the ring holds.
+     */
+    private FlightRecorder(int capacity)
+    {
+        frameTimes = new long[capacity];
+        updateTimes = new int[capacity];
+        renderTimes = new int[capacity];
+        presentTimes = new int[capacity];
+        sleepErrors = new int[capacity];
+        numUpdatesSkipped = new int[capacity];
+        numEntities = new int[capacity];
+        events = new int[capacity];
+        gcTimes = new int[capacity];
+    }
+
+    /**
+     * Record an event that happened since the last frame. This is safe to call from any thread.
+     * @param event The event, this must be one of the FlightRecorder event constants.
+     */
+    public void recordEvent(int event)
+    {
+        int oldEvents;
+        do
+        {
+            oldEvents = pendingEvents.get();
+        }
+        while (!pendingEvents.compareAndSet(oldEvents, oldEvents | event));
+    }
+
+    /**
+     * Called by the garbage collector beans after every collection.
+     * @param notification The notification sent by the bean.
+     * @param handback Not used.
+     */
+    @Override
+    public void handleNotification(Notification notification, Object handback)
+    {
+        if (GC_NOTIFICATION.equals(notification.getType()))
+        {
+            //Add the collection time since the last notification
+            long totalGcTime = 0L;
+            for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans())
+            {
+                totalGcTime += Math.max(0L, gcBean.getCollectionTime());
+            }
+            synchronized (this)
+            {
+                pendingGcTime.addAndGet(Math.max(0L, totalGcTime - lastTotalGcTime));
+                lastTotalGcTime = Math.max(lastTotalGcTime, totalGcTime);
+            }
+            recordEvent(GARBAGE_COLLECTED);
+        }
+    }
+
+    /**
+     * Record a frame into the ring, overwriting the oldest frame once the ring is full. If the frame took
+     * longer than the budget, the ring is copied and written to a file on a separate thread so the game
+     * never waits on the disk. A dump is skipped if the last one is still being written or was too recent.
+     * @param timeOfFrame The time the frame started (System.nanoTime()).
+     * @param updateTime The time spent updating the game (in nanos).
+     * @param renderTime The time spent rendering the game (in nanos).
+     * @param presentTime The time spent putting the frame on the screen (in nanos).
+     * @param sleepError How late the frame scheduler woke up (in nanos).
+     * @param numSkipped The number of game updates skipped.
+     * @param numEntitiesInLevel The number of entities in the level.
+     */
+    public void recordFrame(long timeOfFrame, long updateTime, long renderTime, long presentTime, long sleepError,
+                            int numSkipped, int numEntitiesInLevel)
+    {
+        //Store the frame along with the events and collection time since the last one
+        frameTimes[nextFrame] = timeOfFrame;
+        updateTimes[nextFrame] = (int) (updateTime / 1000);
+        renderTimes[nextFrame] = (int) (renderTime / 1000);
+        presentTimes[nextFrame] = (int) (presentTime / 1000);
+        sleepErrors[nextFrame] = (int) (sleepError / 1000);
+        numUpdatesSkipped[nextFrame] = numSkipped;
+        numEntities[nextFrame] = numEntitiesInLevel;
+        events[nextFrame] = pendingEvents.getAndSet(0);
+        gcTimes[nextFrame] = (int) pendingGcTime.getAndSet(0L);
+        nextFrame = (nextFrame + 1) % frameTimes.length;
+        numFrames = Math.min(numFrames + 1, frameTimes.length);
+
+        //Dump the ring if the frame, including any oversleep, went over budget
+        long frameTime = updateTime + renderTime + presentTime + Math.max(0L, sleepError);
+        if (frameTime > frameBudget && timeOfFrame - timeOfLastDump >= DUMP_COOLDOWN
+                && dumpInProgress.compareAndSet(false, true))
+        {
+            timeOfLastDump = timeOfFrame;
+            copyInto(dumpCopy);
+            Thread writer = new Thread(this::writeDump, "Flight recorder dump");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    /**
+     * Copy the frames in the ring into another ring, oldest first.
+     * @param copy The ring to copy into, it must have the same capacity.
+     */
+    private void copyInto(FlightRecorder copy)
+    {
+        int oldestFrame = (nextFrame - numFrames + frameTimes.length) % frameTimes.length;
+        for (int i = 0; i < numFrames; i++)
+        {
+            int frame = (oldestFrame + i) % frameTimes.length;
+            copy.frameTimes[i] = frameTimes[frame];
+            copy.updateTimes[i] = updateTimes[frame];
+            copy.renderTimes[i] = renderTimes[frame];
+            copy.presentTimes[i] = presentTimes[frame];
+            copy.sleepErrors[i] = sleepErrors[frame];
+            copy.numUpdatesSkipped[i] = numUpdatesSkipped[frame];
+            copy.numEntities[i] = numEntities[frame];
+            copy.events[i] = events[frame];
+            copy.gcTimes[i] = gcTimes[frame];
+        }
+        copy.numFrames = numFrames;
+    }
+
+    /**
+     * Write the copied ring to a file named after the current time. This runs on the writer thread.
+     */
+    private void writeDump()
+    {
+        String fileName = "hitch-" + System.currentTimeMillis() + ".pkfr";
+        try
+        {
+            //Write the header followed by every frame, oldest first
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName)));
+            output.writeInt(FILE_MAGIC);
+            output.writeInt(FILE_VERSION);
+            output.writeLong(frameBudget);
+            output.writeInt(dumpCopy.numFrames);
+            for (int i = 0; i < dumpCopy.numFrames; i++)
+            {
+                output.writeLong(dumpCopy.frameTimes[i]);
+                output.writeInt(dumpCopy.updateTimes[i]);
+                output.writeInt(dumpCopy.renderTimes[i]);
+                output.writeInt(dumpCopy.presentTimes[i]);
+                output.writeInt(dumpCopy.sleepErrors[i]);
+                output.writeShort(dumpCopy.numUpdatesSkipped[i]);
+                output.writeInt(dumpCopy.numEntities[i]);
+                output.writeInt(dumpCopy.events[i]);
+                output.writeInt(dumpCopy.gcTimes[i]);
+            }
+
+            //Close the stream and output the dump location
+            output.close();
+            System.out.println("Flight recorder dumped " + dumpCopy.numFrames + " frames to " + fileName);
+        }
+        catch (IOException exception)
+        {
+            System.out.println("Error writing flight recorder dump: " + fileName);
+            exception.printStackTrace();
+        }
+        finally
+        {
+            dumpInProgress.set(false);
+        }
+    }
+
+    /**
+     * Set the longest a frame can take before the ring is dumped.
+     * @param frameBudgetInNanos The frame budget (in nanos).
+     */
+    public void setFrameBudget(long frameBudgetInNanos)
+    {
+        frameBudget = frameBudgetInNanos;
+    }
+
+    /**
+     * Describe a set of events by name.
+     * @param eventBits The events, one bit per event.
+     * @return The names of the events separated by spaces, or an empty string if there were none.
+     */
+    public static String describeEvents(int eventBits)
+    {
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < EVENT_NAMES.length; i++)
+        {
+            if ((eventBits & (1 << i)) != 0)
+            {
+                if (description.length() > 0)
+                {
+                    description.append(' ');
+                }
+                description.append(EVENT_NAMES[i]);
+            }
+        }
+        return description.toString();
+    }
+}
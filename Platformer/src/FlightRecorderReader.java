@@ -0,0 +1,88 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+/**
+ * Prints flight recorder dumps as readable timelines.
+ */
+public class FlightRecorderReader
+{
+    /**
+     * Print the frames in each flight recorder dump passed as an argument as a timeline.
+     * Times are relative to the last frame in the dump, the one that went over budget,
+     * and frames that went over budget are marked with an asterisk.
+     * @param args The paths to the dump files.
+     */
+    public static void main(String[] args)
+    {
+        if (args.length == 0)
+        {
+            System.out.println("Usage: java FlightRecorderReader <hitch-file.pkfr> ...");
+            return;
+        }
+        for (String fileName : args)
+        {
+            printTimeline(fileName);
+        }
+    }
+
+    /**
+     * Read a dump file and print its frames.
+     * @param fileName The path to the dump file.
+     */
+    private static void printTimeline(String fileName)
+    {
+        try
+        {
+            DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName)));
+
+            //Read and check the header
+            if (input.readInt() != FlightRecorder.FILE_MAGIC || input.readInt() != FlightRecorder.FILE_VERSION)
+            {
+                System.out.println("Not a flight recorder dump: " + fileName);
+                input.close();
+                return;
+            }
+            long frameBudget = input.readLong();
+            int numFrames = input.readInt();
+
+            //Read every frame, the times are printed relative to the last one
+            long[] frameTimes = new long[numFrames];
+            String[] lines = new String[numFrames];
+            for (int i = 0; i < numFrames; i++)
+            {
+                frameTimes[i] = input.readLong();
+                int updateTime = input.readInt();
+                int renderTime = input.readInt();
+                int presentTime = input.readInt();
+                int sleepError = input.readInt();
+                int numSkipped = input.readShort();
+                int numEntities = input.readInt();
+                int events = input.readInt();
+                int gcTime = input.readInt();
+
+                long frameTime = (updateTime + renderTime + presentTime + Math.max(0, sleepError)) * 1000L;
+                lines[i] = String.format("%7.2f %7.2f %7.2f %7.2f %4d %5d %5d  %s",
+                        updateTime / 1000.0, renderTime / 1000.0, presentTime / 1000.0, sleepError / 1000.0,
+                        numSkipped, numEntities, gcTime, FlightRecorder.describeEvents(events))
+                        + (frameTime > frameBudget ? " *" : "");
+                lines[i] = lines[i].replaceAll("\\s+$", ""); //Drop the padding left when there are no events
+            }
+            input.close();
+
+            //Print the timeline
+            System.out.println(String.format("%s: %d frames, budget %.2fms", fileName, numFrames, frameBudget / 1.0e6));
+            System.out.println(String.format("%9s %7s %7s %7s %7s %4s %5s %5s  %s",
+                    "time(ms)", "update", "render", "present", "sleep", "skip", "ents", "gc", "events"));
+            for (int i = 0; i < numFrames; i++)
+            {
+                System.out.println(String.format("%9.1f ", (frameTimes[i] - frameTimes[numFrames - 1]) / 1.0e6) + lines[i]);
+            }
+        }
+        catch (IOException exception)
+        {
+            System.out.println("Error reading flight recorder dump: " + fileName);
+            exception.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,315 @@
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.BufferedImageOp;
+import java.awt.image.ImageObserver;
+import java.awt.image.RenderedImage;
+import java.awt.image.renderable.RenderableImage;
+import java.text.AttributedCharacterIterator;
+import java.util.Map;
+/**
+ * A graphics object that forwards every call to another, for subclasses that intercept some of them.
+ */
+public class ForwardingGraphics extends Graphics2D
+{
+    /** The graphics object every call is forwarded to, it also holds the color, transform, clip, and other state */
+    private Graphics2D target;
+
+    /**
+     * Create a graphics object that forwards every call to another. Subclasses override the
+     * calls they are interested in, beforeDraw() is called before any drawing is forwarded.
+     * @param targetGraphics The graphics object to forward to.
+     */
+    public ForwardingGraphics(Graphics2D targetGraphics)
+    {
+        target = targetGraphics;
+    }
+
+    /**
+     * Called before a drawing call is forwarded to the target. Calls that only change
+     * or read the state, such as setColor(), do not call this. This does nothing by default.
+     */
+    protected void beforeDraw() { /* Do nothing */ }
+
+    /**
+     * Get the graphics object calls are forwarded to.
+     * @return The target graphics object.
+     */
+    protected Graphics2D getTarget()
+    {
+        return target;
+    }
+
+    /**
+     * Change the graphics object calls are forwarded to.
+     * @param targetGraphics The new target graphics object.
+     */
+    protected void setTarget(Graphics2D targetGraphics)
+    {
+        target = targetGraphics;
+    }
+
+    //Drawing calls, these are forwarded after calling beforeDraw()
+
+    @Override
+    public void draw(Shape shape) { beforeDraw(); target.draw(shape); }
+
+    @Override
+    public void fill(Shape shape) { beforeDraw(); target.fill(shape); }
+
+    @Override
+    public boolean drawImage(Image image, AffineTransform transform, ImageObserver observer)
+    {
+        beforeDraw();
+        return target.drawImage(image, transform, observer);
+    }
+
+    @Override
+    public void drawImage(BufferedImage image, BufferedImageOp op, int x, int y) { beforeDraw(); target.drawImage(image, op, x, y); }
+
+    @Override
+    public void drawRenderedImage(RenderedImage image, AffineTransform transform) { beforeDraw(); target.drawRenderedImage(image, transform); }
+
+    @Override
+    public void drawRenderableImage(RenderableImage image, AffineTransform transform) { beforeDraw(); target.drawRenderableImage(image, transform); }
+
+    @Override
+    public void drawString(String string, int x, int y) { beforeDraw(); target.drawString(string, x, y); }
+
+    @Override
+    public void drawString(String string, float x, float y) { beforeDraw(); target.drawString(string, x, y); }
+
+    @Override
+    public void drawString(AttributedCharacterIterator iterator, int x, int y) { beforeDraw(); target.drawString(iterator, x, y); }
+
+    @Override
+    public void drawString(AttributedCharacterIterator iterator, float x, float y) { beforeDraw(); target.drawString(iterator, x, y); }
+
+    @Override
+    public void drawGlyphVector(GlyphVector glyphs, float x, float y) { beforeDraw(); target.drawGlyphVector(glyphs, x, y); }
+
+    @Override
+    public void copyArea(int x, int y, int width, int height, int dx, int dy) { beforeDraw(); target.copyArea(x, y, width, height, dx, dy); }
+
+    @Override
+    public void drawLine(int x1, int y1, int x2, int y2) { beforeDraw(); target.drawLine(x1, y1, x2, y2); }
+
+    @Override
+    public void drawRect(int x, int y, int width, int height) { beforeDraw(); target.drawRect(x, y, width, height); }
+
+    @Override
+    public void fillRect(int x, int y, int width, int height) { beforeDraw(); target.fillRect(x, y, width, height); }
+
+    @Override
+    public void clearRect(int x, int y, int width, int height) { beforeDraw(); target.clearRect(x, y, width, height); }
+
+    @Override
+    public void drawRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight)
+    {
+        beforeDraw();
+        target.drawRoundRect(x, y, width, height, arcWidth, arcHeight);
+    }
+
+    @Override
+    public void fillRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight)
+    {
+        beforeDraw();
+        target.fillRoundRect(x, y, width, height, arcWidth, arcHeight);
+    }
+
+    @Override
+    public void drawOval(int x, int y, int width, int height) { beforeDraw(); target.drawOval(x, y, width, height); }
+
+    @Override
+    public void fillOval(int x, int y, int width, int height) { beforeDraw(); target.fillOval(x, y, width, height); }
+
+    @Override
+    public void drawArc(int x, int y, int width, int height, int startAngle, int arcAngle)
+    {
+        beforeDraw();
+        target.drawArc(x, y, width, height, startAngle, arcAngle);
+    }
+
+    @Override
+    public void fillArc(int x, int y, int width, int height, int startAngle, int arcAngle)
+    {
+        beforeDraw();
+        target.fillArc(x, y, width, height, startAngle, arcAngle);
+    }
+
+    @Override
+    public void drawPolyline(int[] xPoints, int[] yPoints, int numPoints) { beforeDraw(); target.drawPolyline(xPoints, yPoints, numPoints); }
+
+    @Override
+    public void drawPolygon(int[] xPoints, int[] yPoints, int numPoints) { beforeDraw(); target.drawPolygon(xPoints, yPoints, numPoints); }
+
+    @Override
+    public void fillPolygon(int[] xPoints, int[] yPoints, int numPoints) { beforeDraw(); target.fillPolygon(xPoints, yPoints, numPoints); }
+
+    @Override
+    public boolean drawImage(Image image, int x, int y, ImageObserver observer)
+    {
+        beforeDraw();
+        return target.drawImage(image, x, y, observer);
+    }
+
+    @Override
+    public boolean drawImage(Image image, int x, int y, int width, int height, ImageObserver observer)
+    {
+        beforeDraw();
+        return target.drawImage(image, x, y, width, height, observer);
+    }
+
+    @Override
+    public boolean drawImage(Image image, int x, int y, Color background, ImageObserver observer)
+    {
+        beforeDraw();
+        return target.drawImage(image, x, y, background, observer);
+    }
+
+    @Override
+    public boolean drawImage(Image image, int x, int y, int width, int height, Color background, ImageObserver observer)
+    {
+        beforeDraw();
+        return target.drawImage(image, x, y, width, height, background, observer);
+    }
+
+    @Override
+    public boolean drawImage(Image image, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2, ImageObserver observer)
+    {
+        beforeDraw();
+        return target.drawImage(image, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, observer);
+    }
+
+    @Override
+    public boolean drawImage(Image image, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2,
+                             Color background, ImageObserver observer)
+    {
+        beforeDraw();
+        return target.drawImage(image, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, background, observer);
+    }
+
+    //State calls, these are forwarded as is
+
+    @Override
+    public Graphics create() { return new ForwardingGraphics((Graphics2D) target.create()); }
+
+    @Override
+    public void dispose() { target.dispose(); }
+
+    @Override
+    public boolean hit(Rectangle rectangle, Shape shape, boolean onStroke) { return target.hit(rectangle, shape, onStroke); }
+
+    @Override
+    public GraphicsConfiguration getDeviceConfiguration() { return target.getDeviceConfiguration(); }
+
+    @Override
+    public void setComposite(Composite composite) { target.setComposite(composite); }
+
+    @Override
+    public Composite getComposite() { return target.getComposite(); }
+
+    @Override
+    public void setPaint(Paint paint) { target.setPaint(paint); }
+
+    @Override
+    public Paint getPaint() { return target.getPaint(); }
+
+    @Override
+    public void setStroke(Stroke stroke) { target.setStroke(stroke); }
+
+    @Override
+    public Stroke getStroke() { return target.getStroke(); }
+
+    @Override
+    public void setRenderingHint(RenderingHints.Key key, Object value) { target.setRenderingHint(key, value); }
+
+    @Override
+    public Object getRenderingHint(RenderingHints.Key key) { return target.getRenderingHint(key); }
+
+    @Override
+    public void setRenderingHints(Map<?, ?> hints) { target.setRenderingHints(hints); }
+
+    @Override
+    public void addRenderingHints(Map<?, ?> hints) { target.addRenderingHints(hints); }
+
+    @Override
+    public RenderingHints getRenderingHints() { return target.getRenderingHints(); }
+
+    @Override
+    public void translate(int x, int y) { target.translate(x, y); }
+
+    @Override
+    public void translate(double x, double y) { target.translate(x, y); }
+
+    @Override
+    public void rotate(double theta) { target.rotate(theta); }
+
+    @Override
+    public void rotate(double theta, double x, double y) { target.rotate(theta, x, y); }
+
+    @Override
+    public void scale(double scaleX, double scaleY) { target.scale(scaleX, scaleY); }
+
+    @Override
+    public void shear(double shearX, double shearY) { target.shear(shearX, shearY); }
+
+    @Override
+    public void transform(AffineTransform transform) { target.transform(transform); }
+
+    @Override
+    public void setTransform(AffineTransform transform) { target.setTransform(transform); }
+
+    @Override
+    public AffineTransform getTransform() { return target.getTransform(); }
+
+    @Override
+    public void setBackground(Color color) { target.setBackground(color); }
+
+    @Override
+    public Color getBackground() { return target.getBackground(); }
+
+    @Override
+    public void clip(Shape shape) { target.clip(shape); }
+
+    @Override
+    public FontRenderContext getFontRenderContext() { return target.getFontRenderContext(); }
+
+    @Override
+    public Color getColor() { return target.getColor(); }
+
+    @Override
+    public void setColor(Color color) { target.setColor(color); }
+
+    @Override
+    public void setPaintMode() { target.setPaintMode(); }
+
+    @Override
+    public void setXORMode(Color color) { target.setXORMode(color); }
+
+    @Override
+    public Font getFont() { return target.getFont(); }
+
+    @Override
+    public void setFont(Font font) { target.setFont(font); }
+
+    @Override
+    public FontMetrics getFontMetrics(Font font) { return target.getFontMetrics(font); }
+
+    @Override
+    public Rectangle getClipBounds() { return target.getClipBounds(); }
+
+    @Override
+    public void clipRect(int x, int y, int width, int height) { target.clipRect(x, y, width, height); }
+
+    @Override
+    public void setClip(int x, int y, int width, int height) { target.setClip(x, y, width, height); }
+
+    @Override
+    public Shape getClip() { return target.getClip(); }
+
+    @Override
+    public void setClip(Shape shape) { target.setClip(shape); }
+}
@@ -0,0 +1,176 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+/**
+ * Copies finished frames into a ring in a memory mapped file for another process to read.
+ */
+public class FrameCapture
+{
+    /** The number written at the start of every capture file */
+    public static final int FILE_MAGIC = 0x504B4643; //"PKFC"
+    /** The version of the capture file format */
+    public static final int FILE_VERSION = 1;
+    /** The default number of frames the ring holds */
+    public static final int DEFAULT_NUM_SLOTS = 8;
+
+    /** The size of the file header, the slots follow it (in bytes) */
+    public static final int HEADER_SIZE = 64;
+    /** The position of the width of the frames in the header */
+    public static final int WIDTH_POSITION = 8;
+    /** The position of the height of the frames in the header */
+    public static final int HEIGHT_POSITION = 12;
+    /** The position of the number of slots in the header */
+    public static final int NUM_SLOTS_POSITION = 16;
+    /** The position of the size of each slot in the header */
+    public static final int SLOT_SIZE_POSITION = 20;
+    /** The position of the sequence number of the most recently published frame in the header */
+    public static final int PUBLISHED_POSITION = 24;
+    /** The size of the header at the start of every slot, the pixels follow it (in bytes) */
+    public static final int SLOT_HEADER_SIZE = 16;
+    /** The position of the sequence number of the frame in a slot, zero while the slot is being written */
+    public static final int SLOT_SEQUENCE_POSITION = 0;
+    /** The position of the time the frame was captured in a slot (System.nanoTime()) */
+    public static final int SLOT_TIME_POSITION = 8;
+
+    /** The mapped capture file */
+    private MappedByteBuffer ring;
+    /** The mapped capture file viewed as ints, used to copy the pixels in bulk */
+    private IntBuffer ringPixels;
+    /** The width of the frames */
+    private int width;
+    /** The height of the frames */
+    private int height;
+    /** The number of frames the ring holds */
+    private int numSlots;
+    /** The size of each slot (in bytes) */
+    private int slotSize;
+    /** The sequence number of the most recently published frame */
+    private long lastSequence;
+    /** The image the game is drawn into when it is not drawn by the software renderer, created when first needed */
+    private BufferedImage frameImage;
+    /** The graphics of the frame image */
+    private Graphics2D frameGraphics;
+
+    /**
+     * Create a ring of frames in a memory mapped file. Each finished frame is copied into the next slot and
+     * published with a sequence number, so any local process can map the same file and read the frames
+     * without the game waiting on it. The file is little endian, it starts with a header of HEADER_SIZE bytes
+     * holding the magic number, version, width, height, number of slots, slot size and the sequence number of
+     * the most recently published frame. Each slot holds the frame's sequence number, the time it was captured
+     * and then its pixels as ints in the RGB format, row by row. The first frame's sequence number is 1, and
+     * frame N is stored in slot N % numSlots.
+     * @param fileName The path to the capture file, it is created or replaced.
+     * @param frameWidth The width of the frames.
+     * @param frameHeight The height of the frames.
+     * @param numFrameSlots The number of frames the ring holds.
+     * @throws IOException If the file cannot be created or mapped.
+     */
+    public FrameCapture(String fileName, int frameWidth, int frameHeight, int numFrameSlots) throws IOException
+    {
+        width = frameWidth;
+        height = frameHeight;
+        numSlots = numFrameSlots;
+        slotSize = SLOT_HEADER_SIZE + width * height * 4;
+
+        //Map the whole file, the mapping stays valid after the file is closed
+        RandomAccessFile file = new RandomAccessFile(fileName, "rw");
+        try
+        {
+            file.setLength(0L); //Clear any frames left from an earlier capture
+            file.setLength(HEADER_SIZE + (long) slotSize * numSlots);
+            ring = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0L, file.length());
+        }
+        finally
+        {
+            file.close();
+        }
+        ring.order(ByteOrder.LITTLE_ENDIAN);
+        ringPixels = ring.asIntBuffer();
+
+        //Write the header
+        ring.putInt(0, FILE_MAGIC);
+        ring.putInt(4, FILE_VERSION);
+        ring.putInt(WIDTH_POSITION, width);
+        ring.putInt(HEIGHT_POSITION, height);
+        ring.putInt(NUM_SLOTS_POSITION, numSlots);
+        ring.putInt(SLOT_SIZE_POSITION, slotSize);
+        ring.putLong(PUBLISHED_POSITION, 0L);
+    }
+
+    /**
+     * Get the graphics of the image the game is drawn into when it is not drawn by the software renderer.
+     * Once the frame is finished, it is put on the screen with a single blit and published from the image.
+     * @return The graphics of the frame image.
+     */
+    public Graphics2D getFrameGraphics()
+    {
+        if (frameImage == null)
+        {
+            frameImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            frameGraphics = frameImage.createGraphics();
+        }
+        return frameGraphics;
+    }
+
+    /**
+     * Get the image the game is drawn into when it is not drawn by the software renderer.
+     * @return The frame image, or null if getFrameGraphics() has not been called.
+     */
+    public BufferedImage getFrameImage()
+    {
+        return frameImage;
+    }
+
+    /**
+     * Copy a finished frame into the next slot of the ring and publish it. The slot's sequence number is
+     * cleared while its pixels are written, so a reader that copied the slot while it was being overwritten
+     * sees the sequence number change and drops the frame. The game never waits for readers, a reader that
+     * falls more than a ring behind loses the frames that were overwritten.
+     * @param frame The frame, an integer RGB image the size of the frames in the ring.
+     */
+    public void publishFrame(BufferedImage frame)
+    {
+        if (frame.getType() != BufferedImage.TYPE_INT_RGB || frame.getWidth() != width || frame.getHeight() != height)
+        {
+            return;
+        }
+        int[] pixels = ((DataBufferInt) frame.getRaster().getDataBuffer()).getData();
+        long sequence = lastSequence + 1;
+        int slotPosition = HEADER_SIZE + (int) (sequence % numSlots) * slotSize;
+
+        //Mark the slot as being written before touching its pixels
+        ring.putLong(slotPosition + SLOT_SEQUENCE_POSITION, 0L);
+
+        //Copy the pixels, then stamp the slot and publish it
+        ringPixels.position((slotPosition + SLOT_HEADER_SIZE) / 4);
+        ringPixels.put(pixels, 0, width * height);
+        ring.putLong(slotPosition + SLOT_TIME_POSITION, System.nanoTime());
+        ring.putLong(slotPosition + SLOT_SEQUENCE_POSITION, sequence);
+        ring.putLong(PUBLISHED_POSITION, sequence);
+        lastSequence = sequence;
+    }
+
+    /**
+     * Get the width of the frames.
+     * @return The width in pixels.
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+
+    /**
+     * Get the height of the frames.
+     * @return The height in pixels.
+     */
+    public int getHeight()
+    {
+        return height;
+    }
+}
@@ -0,0 +1,136 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+/**
+ * Reads frames out of a frame capture file.
+ */
+public class FrameCaptureReader
+{
+    /** The mapped capture file */
+    private MappedByteBuffer ring;
+    /** The mapped capture file viewed as ints, used to copy the pixels in bulk */
+    private IntBuffer ringPixels;
+    /** The width of the frames */
+    private int width;
+    /** The height of the frames */
+    private int height;
+    /** The number of frames the ring holds */
+    private int numSlots;
+    /** The size of each slot (in bytes) */
+    private int slotSize;
+
+    /**
+     * Drain the frames published by a running game into a PNG sequence. This runs in its own process,
+     * so the PNGs are encoded without taking any time from the game, and it runs until it is killed.
+     * @param args The path to the capture file and the directory to write the PNGs into.
+     */
+    public static void main(String[] args)
+    {
+        if (args.length != 2)
+        {
+            System.out.println("Usage: java FrameCaptureReader <capture-file.pkfc> <output-directory>");
+            return;
+        }
+        try
+        {
+            new PngSequenceWriter(new FrameCaptureReader(args[0]), new File(args[1])).run();
+        }
+        catch (IOException exception)
+        {
+            System.out.println("Error reading frame capture: " + args[0]);
+            exception.printStackTrace();
+        }
+    }
+
+    /**
+     * Map a capture file written by a FrameCapture so its frames can be read.
+     * @param fileName The path to the capture file.
+     * @throws IOException If the file cannot be mapped or is not a capture file.
+     */
+    public FrameCaptureReader(String fileName) throws IOException
+    {
+        RandomAccessFile file = new RandomAccessFile(fileName, "r");
+        try
+        {
+            ring = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0L, file.length());
+        }
+        finally
+        {
+            file.close();
+        }
+        ring.order(ByteOrder.LITTLE_ENDIAN);
+        ringPixels = ring.asIntBuffer();
+
+        //Read and check the header
+        if (ring.capacity() < FrameCapture.HEADER_SIZE || ring.getInt(0) != FrameCapture.FILE_MAGIC
+                || ring.getInt(4) != FrameCapture.FILE_VERSION)
+        {
+            throw new IOException("Not a frame capture file: " + fileName);
+        }
+        width = ring.getInt(FrameCapture.WIDTH_POSITION);
+        height = ring.getInt(FrameCapture.HEIGHT_POSITION);
+        numSlots = ring.getInt(FrameCapture.NUM_SLOTS_POSITION);
+        slotSize = ring.getInt(FrameCapture.SLOT_SIZE_POSITION);
+    }
+
+    /**
+     * Get the sequence number of the most recently published frame.
+     * @return The sequence number, zero if no frames have been published.
+     */
+    public long getLatestSequence()
+    {
+        return ring.getLong(FrameCapture.PUBLISHED_POSITION);
+    }
+
+    /**
+     * Copy a published frame out of the ring. The copy fails if the frame has already been overwritten,
+     * or if it was overwritten while it was being copied.
+     * @param sequence The sequence number of the frame.
+     * @param pixels The array to copy the pixels into, at least width * height long.
+     * @return True if the frame was copied, false if it was overwritten.
+     */
+    public boolean readFrame(long sequence, int[] pixels)
+    {
+        int slotPosition = FrameCapture.HEADER_SIZE + (int) (sequence % numSlots) * slotSize;
+        if (ring.getLong(slotPosition + FrameCapture.SLOT_SEQUENCE_POSITION) != sequence)
+        {
+            return false;
+        }
+        ringPixels.position((slotPosition + FrameCapture.SLOT_HEADER_SIZE) / 4);
+        ringPixels.get(pixels, 0, width * height);
+
+        //Check the slot was not overwritten while it was being copied
+        return ring.getLong(slotPosition + FrameCapture.SLOT_SEQUENCE_POSITION) == sequence;
+    }
+
+    /**
+     * Get the width of the frames.
+     * @return The width in pixels.
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+
+    /**
+     * Get the height of the frames.
+     * @return The height in pixels.
+     */
+    public int getHeight()
+    {
+        return height;
+    }
+
+    /**
+     * Get the number of frames the ring holds.
+     * @return The number of slots.
+     */
+    public int getNumSlots()
+    {
+        return numSlots;
+    }
+}
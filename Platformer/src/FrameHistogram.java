@@ -0,0 +1,128 @@
+/**
+ * A bucketed histogram over a rolling window of samples, for percentiles that never allocate.
+ */
+public class FrameHistogram
+{
+    /** The width of a single bucket, in the same units as the samples */
+    private long bucketWidth;
+    /** The number of samples in the window that fall in each bucket, the last bucket holds everything too large for the rest */
+    private int[] bucketCounts;
+    /** The ring of samples in the rolling window, used to remove samples as they fall out of the window */
+    private long[] samples;
+    /** The index in the ring that the next sample is stored at */
+    private int nextSample;
+    /** The number of samples currently in the window */
+    private int numSamples;
+
+    /**
+     * Create a histogram over a rolling window of samples. All storage is allocated up front
+     * so recording samples and reading percentiles never allocates.
+     * @param numBuckets The number of buckets, samples larger than the last bucket are counted in an overflow bucket.
+     * @param widthOfBucket The width of a single bucket, in the same units as the samples.
+     * @param windowSize The number of most recent samples the histogram covers.
+     */
+    public FrameHistogram(int numBuckets, long widthOfBucket, int windowSize)
+    {
+        bucketWidth = widthOfBucket;
+        bucketCounts = new int[numBuckets + 1];
+        samples = new long[windowSize];
+        nextSample = 0;
+        numSamples = 0;
+    }
+
+    /**
+     * Record a sample. If the window is full, the oldest sample is removed.
+     * @param sample The sample to record, negative samples are counted in the first bucket.
+     */
+    public void record(long sample)
+    {
+        //Remove the oldest sample if the window is full
+        if (numSamples == samples.length)
+        {
+            bucketCounts[getBucket(samples[nextSample])]--;
+        }
+        else
+        {
+            numSamples++;
+        }
+
+        //Store the new sample
+        samples[nextSample] = sample;
+        bucketCounts[getBucket(sample)]++;
+        nextSample = (nextSample + 1) % samples.length;
+    }
+
+    /**
+     * Get the bucket that a sample falls into.
+     * @param sample The sample.
+     * @return The index of the bucket.
+     */
+    private int getBucket(long sample)
+    {
+        if (sample <= 0)
+        {
+            return 0;
+        }
+        return (int) Math.min(sample / bucketWidth, bucketCounts.length - 1);
+    }
+
+    /**
+     * Get a percentile of the samples in the window. The value is accurate to the width of
+     * a bucket and is never larger than the maximum sample.
+     * @param percentile The percentile to get (0.0 - 1.0).
+     * @return The upper edge of the bucket containing the percentile, or zero if there are no samples.
+     */
+    public long getPercentile(double percentile)
+    {
+        if (numSamples == 0)
+        {
+            return 0L;
+        }
+
+        //Walk the buckets until the number of samples seen reaches the percentile's rank
+        int rank = Math.max(1, (int) Math.ceil(percentile * numSamples));
+        int samplesSeen = 0;
+        for (int i = 0; i < bucketCounts.length; i++)
+        {
+            samplesSeen += bucketCounts[i];
+            if (samplesSeen >= rank)
+            {
+                //The overflow bucket has no upper edge
+                if (i == bucketCounts.length - 1)
+                {
+                    return getMax();
+                }
+                return Math.min((i + 1) * bucketWidth, getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Get the largest sample in the window.
+     * @return The largest sample, or zero if there are no samples.
+     */
+    public long getMax()
+    {
+        if (numSamples == 0)
+        {
+            return 0L;
+        }
+
+        long max = samples[0];
+        for (int i = 1; i < numSamples; i++)
+        {
+            max = Math.max(max, samples[i]);
+        }
+        return max;
+    }
+
+    /**
+     * Get the number of samples currently in the window.
+     * @return The number of samples.
+     */
+    public int getNumSamples()
+    {
+        return numSamples;
+    }
+}
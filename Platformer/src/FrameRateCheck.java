@@ -0,0 +1,340 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+/**
+ * Plays the same real-time input script through the fixed timestep loop at several update and render rates. At each update
+ * rate every render rate must move the game identically, and every update rate must keep the player, the camera, and the
+ * enemies within a tolerance of where the highest update rate has them at the same points in time.
+ */
+public class FrameRateCheck
+{
+    /** The render rates checked, in frames per second */
+    private static final int[] FRAME_RATES = {30, 60, 144};
+    /** The update rates checked, in updates per second, the last is the reference the others are compared to */
+    private static final int[] UPDATE_RATES = {30, 60, 120, 144};
+    /** The most updates the loop runs to catch up in one frame, matching the GamePanel */
+    private static final int MAX_UPDATES_PER_LOOP = 5;
+    /** The longest a simulated frame runs over its period, so frames do not line up exactly with updates (in nanos) */
+    private static final long MAX_FRAME_JITTER = 3000000L;
+    /** The amount of game time simulated (in ms) */
+    private static final long RUN_TIME_IN_MS = 20000L;
+    /** The time between the points the update rates are compared at (in ms) */
+    private static final long SAMPLE_PERIOD_IN_MS = 10L;
+    /** The furthest apart two update rates may place anything at the same point in time (in pixels) */
+    private static final double TOLERANCE_IN_PIXELS = 2.0;
+    /** The width of the level in blocks */
+    private static final int MAP_WIDTH = 40;
+    /** The height of the level in blocks */
+    private static final int MAP_HEIGHT = 15;
+    /** The speed of the player in pixels per second, matching the Game */
+    private static final int PLAYER_SPEED = 150;
+    /** The number of values recorded after each update: the player, the camera, and each enemy's x and y */
+    private static final int TRACE_VALUES_PER_UPDATE = 8;
+    /** The names of the traced values, in pairs of x and y */
+    private static final String[] TRACE_NAMES = {"player", "camera", "enemy 1", "enemy 2"};
+
+    /** The keys the script presses */
+    private static final int LEFT = 0;
+    /** The right key */
+    private static final int RIGHT = 1;
+    /** The jump key */
+    private static final int UP = 2;
+    /** The scripted key presses as {key, time pressed, time released} (in ms of real time). Every update rate
+     * checked starts an update on each half second, so the keys are pressed and released on half seconds and
+     * every rate reads the same input at the same time. The player walks right and climbs the staircase with a
+     * jump every two seconds, jumps in place at the top, then walks back down. It jumps off each step instead of
+     * walking off, since a fall from a ledge begins at the first update after the edge is passed, which is not a
+     * half second */
+    private static final long[][] SCRIPT = {
+            {RIGHT, 500, 13500}, {UP, 2000, 2500}, {UP, 4000, 4500}, {UP, 6000, 6500}, {UP, 8000, 8500},
+            {UP, 10000, 10500}, {UP, 12000, 12500}, {UP, 14000, 14500}, {LEFT, 15000, 19500}, {UP, 16000, 16500},
+            {UP, 18000, 18500}};
+
+    /**
+     * Run the check and print the result for each update rate. The process exits with status 1 if any render
+     * rate moves the game differently from the first render rate, or if any update rate strays further than the
+     * tolerance from the reference update rate.
+     * @param args Unused.
+     */
+    public static void main(String[] args)
+    {
+        System.setProperty("java.awt.headless", "true");
+        boolean allMatched = true;
+        long[][] traces = new long[UPDATE_RATES.length][];
+        for (int u = 0; u < UPDATE_RATES.length; u++)
+        {
+            //The render rate only decides when updates run, so every render rate must produce the same updates
+            for (int f = 0; f < FRAME_RATES.length; f++)
+            {
+                long[] trace = run(FRAME_RATES[f], UPDATE_RATES[u]);
+                if (f == 0)
+                {
+                    traces[u] = trace;
+                }
+                else if (!Arrays.equals(traces[u], trace))
+                {
+                    System.out.printf("%3d UPS at %3d FPS: DIFFERS from %d FPS%n", UPDATE_RATES[u], FRAME_RATES[f], FRAME_RATES[0]);
+                    allMatched = false;
+                }
+            }
+        }
+
+        //Compare each update rate to the reference at the same points in time
+        int reference = UPDATE_RATES.length - 1;
+        for (int u = 0; u < UPDATE_RATES.length; u++)
+        {
+            double[] largestDifferences = new double[TRACE_NAMES.length];
+            long timeOfLargestDifference = 0L;
+            double largestDifference = 0.0;
+            for (long time = 0L; time <= RUN_TIME_IN_MS; time += SAMPLE_PERIOD_IN_MS)
+            {
+                for (int n = 0; n < TRACE_NAMES.length; n++)
+                {
+                    double differenceX = getPosition(traces[u], UPDATE_RATES[u], 2 * n, time)
+                            - getPosition(traces[reference], UPDATE_RATES[reference], 2 * n, time);
+                    double differenceY = getPosition(traces[u], UPDATE_RATES[u], 2 * n + 1, time)
+                            - getPosition(traces[reference], UPDATE_RATES[reference], 2 * n + 1, time);
+                    double difference = Math.hypot(differenceX, differenceY);
+                    largestDifferences[n] = Math.max(largestDifferences[n], difference);
+                    if (difference > largestDifference)
+                    {
+                        largestDifference = difference;
+                        timeOfLargestDifference = time;
+                    }
+                }
+            }
+
+            int last = traces[u].length - TRACE_VALUES_PER_UPDATE;
+            StringBuilder differences = new StringBuilder();
+            for (int n = 0; n < TRACE_NAMES.length; n++)
+            {
+                differences.append(String.format("%s %.2f, ", TRACE_NAMES[n], largestDifferences[n]));
+            }
+            boolean withinTolerance = largestDifference <= TOLERANCE_IN_PIXELS;
+            System.out.printf("%3d UPS: %d updates, player ends at %d,%d, furthest from %d UPS: %s%s%n", UPDATE_RATES[u],
+                    traces[u].length / TRACE_VALUES_PER_UPDATE - 1, traces[u][last], traces[u][last + 1], UPDATE_RATES[reference],
+                    differences, withinTolerance ? "within tolerance" : "DIVERGES at " + timeOfLargestDifference + " ms");
+            allMatched &= withinTolerance;
+        }
+
+        System.out.printf("%s (tolerance %.1f pixels)%n", allMatched ? "All trajectories match" : "TRAJECTORIES DIFFER", TOLERANCE_IN_PIXELS);
+        if (!allMatched)
+        {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Run the game loop against a simulated clock. Each frame takes its frame period plus some jitter, and the
+     * game is updated in fixed steps the same way as the GamePanel's loop, with the input read at each update.
+     * @param framesPerSecond The render rate.
+     * @param updatesPerSecond The update rate.
+     * @return The starting positions followed by the positions after each update, TRACE_VALUES_PER_UPDATE values each.
+     */
+    private static long[] run(int framesPerSecond, int updatesPerSecond)
+    {
+        long loopPeriod = 1000000000 / framesPerSecond;
+        long tickPeriod = 1000000000 / updatesPerSecond;
+        int numUpdatesToRun = (int) (RUN_TIME_IN_MS * updatesPerSecond / 1000);
+
+        //Build the level, the enemies are kept out of the player's collision checks so no sounds are played
+        TileMap tileMap = createTileMap();
+        ScriptedInputComponent input = new ScriptedInputComponent();
+        Player player = new Player(2 * Block.BLOCK_WIDTH + 25, (MAP_HEIGHT - 3) * Block.BLOCK_HEIGHT, PLAYER_SPEED,
+                Entity.IDLE_RIGHT_GRAPHICS, createGraphicsMap(50, 40), input, null);
+        player.setLevelWatcher(new IgnoredLevelWatcher());
+        Enemy[] enemies = {new Enemy(3 * Block.BLOCK_WIDTH, (MAP_HEIGHT - 2) * Block.BLOCK_HEIGHT - 45, 30, Enemy.LEFT, createGraphicsMap(60, 45)),
+                new Enemy(25 * Block.BLOCK_WIDTH, (MAP_HEIGHT - 2) * Block.BLOCK_HEIGHT - 45, 90, Enemy.RIGHT, createGraphicsMap(60, 45))};
+        CollisionGrid emptyGrid = new CollisionGrid(MAP_WIDTH * Block.BLOCK_WIDTH, MAP_HEIGHT * Block.BLOCK_HEIGHT, 2 * Block.BLOCK_WIDTH);
+        GameCamera gameCamera = new GameCamera(MAP_WIDTH * Block.BLOCK_WIDTH, MAP_HEIGHT * Block.BLOCK_HEIGHT,
+                GamePanel.DEFAULT_WIDTH, GamePanel.DEFAULT_HEIGHT);
+        WorldSnapshot cameraSnapshot = new WorldSnapshot();
+
+        long[] trace = new long[(numUpdatesToRun + 1) * TRACE_VALUES_PER_UPDATE];
+        gameCamera.update(player.boundingBox.getLocation());
+        recordPositions(trace, 0, player.boundingBox.getLocation(), gameCamera, cameraSnapshot, enemies);
+        int numUpdates = 0;
+        Random jitter = new Random(framesPerSecond);
+        long time = 0L;
+        long timeOfLastLoop = 0L;
+        long accumulatedTime = 0L;
+        while (numUpdates < numUpdatesToRun)
+        {
+            //Add the time since the last loop, capped as in the GamePanel
+            accumulatedTime += Math.min(time - timeOfLastLoop, MAX_UPDATES_PER_LOOP * tickPeriod);
+            timeOfLastLoop = time;
+
+            //Advance the game in fixed steps until it has caught up with the clock
+            while (accumulatedTime >= tickPeriod && numUpdates < numUpdatesToRun)
+            {
+                accumulatedTime -= tickPeriod;
+                input.setKeys(numUpdates * 1000L / updatesPerSecond);
+                Point playerLocation = player.update(tileMap, new Enemy[0], emptyGrid, new EventBlock[0], emptyGrid, tickPeriod);
+                gameCamera.update(playerLocation);
+                for (Enemy enemy : enemies)
+                {
+                    enemy.update(tileMap, new EventBlock[0], emptyGrid, tickPeriod);
+                }
+                numUpdates++;
+                recordPositions(trace, numUpdates, playerLocation, gameCamera, cameraSnapshot, enemies);
+            }
+
+            //The frame would be drawn here, then the loop sleeps until the next frame and usually wakes a little late
+            time += loopPeriod + (long) (jitter.nextDouble() * MAX_FRAME_JITTER);
+        }
+        return trace;
+    }
+
+    /**
+     * Record the positions of the player, the camera, and the enemies in a trace.
+     * @param trace The trace being recorded.
+     * @param update The number of updates run so far.
+     * @param playerLocation The location of the player.
+     * @param gameCamera The camera.
+     * @param cameraSnapshot A snapshot used to read the camera's offsets.
+     * @param enemies The enemies.
+     */
+    private static void recordPositions(long[] trace, int update, Point playerLocation, GameCamera gameCamera,
+                                        WorldSnapshot cameraSnapshot, Enemy[] enemies)
+    {
+        gameCamera.captureSnapshot(cameraSnapshot);
+        int n = update * TRACE_VALUES_PER_UPDATE;
+        trace[n] = playerLocation.x;
+        trace[n + 1] = playerLocation.y;
+        trace[n + 2] = cameraSnapshot.cameraX;
+        trace[n + 3] = cameraSnapshot.cameraY;
+        trace[n + 4] = enemies[0].boundingBox.x;
+        trace[n + 5] = enemies[0].boundingBox.y;
+        trace[n + 6] = enemies[1].boundingBox.x;
+        trace[n + 7] = enemies[1].boundingBox.y;
+    }
+
+    /**
+     * Get a traced value at a point in time, blending between the updates before and after it the same way
+     * the game is drawn between updates.
+     * @param trace The trace of an update rate.
+     * @param updatesPerSecond The update rate.
+     * @param value The index of the value within an update.
+     * @param timeInMs The point in time (in ms).
+     * @return The value at that time.
+     */
+    private static double getPosition(long[] trace, int updatesPerSecond, int value, long timeInMs)
+    {
+        long updateTimes = timeInMs * updatesPerSecond;
+        int update = (int) (updateTimes / 1000);
+        double interpolation = (updateTimes % 1000) / 1000.0;
+        double previous = trace[update * TRACE_VALUES_PER_UPDATE + value];
+        if (interpolation == 0.0)
+        {
+            return previous;
+        }
+        return previous + (trace[(update + 1) * TRACE_VALUES_PER_UPDATE + value] - previous) * interpolation;
+    }
+
+    /**
+     * Create a walled level with solid ground and a staircase of floating steps, each five blocks wide and a block
+     * higher than the last. The steps are placed so the player's scripted jumps clear each step's edge well before
+     * reaching it, since an entity that catches a corner is held back for a whole update and that would differ
+     * between update rates. There are no pits, so the player cannot die.
+     * @return The level.
+     */
+    private static TileMap createTileMap()
+    {
+        int[][] blockIdMap = new int[MAP_WIDTH][MAP_HEIGHT];
+        for (int x = 0; x < MAP_WIDTH; x++)
+        {
+            blockIdMap[x][MAP_HEIGHT - 1] = 101;
+        }
+        for (int y = 0; y < MAP_HEIGHT; y++)
+        {
+            blockIdMap[0][y] = 101;
+            blockIdMap[MAP_WIDTH - 1][y] = 101;
+        }
+        for (int step = 0; step < 6; step++)
+        {
+            for (int x = 0; x < 5; x++)
+            {
+                blockIdMap[8 + 5 * step + x][MAP_HEIGHT - 2 - step] = 101;
+            }
+        }
+        return new TileMap(blockIdMap);
+    }
+
+    /**
+     * Create the graphics of an entity, every state shows the same blank sprite.
+     * @param width The width of the entity in pixels.
+     * @param height The height of the entity in pixels.
+     * @return The map of graphics states to animations.
+     */
+    private static HashMap<Integer, Animation> createGraphicsMap(int width, int height)
+    {
+        SpriteRegion sprite = new SpriteRegion(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB), 0, 0, width, height);
+        int[] graphicsStates = {Entity.IDLE_LEFT_GRAPHICS, Entity.IDLE_RIGHT_GRAPHICS, Entity.MOVE_LEFT_GRAPHICS, Entity.MOVE_RIGHT_GRAPHICS,
+                Entity.MIDAIR_LEFT_GRAPHICS, Entity.MIDAIR_RIGHT_GRAPHICS, Entity.DYING_LEFT_GRAPHICS, Entity.DYING_RIGHT_GRAPHICS};
+        HashMap<Integer, Animation> graphicsMap = new HashMap<>();
+        for (int graphicsState : graphicsStates)
+        {
+            ArrayList<SpriteRegion> imageSequence = new ArrayList<>();
+            imageSequence.add(sprite);
+            graphicsMap.put(graphicsState, new Animation(imageSequence, 500, true));
+        }
+        return graphicsMap;
+    }
+
+    /**
+     * An input component whose keys are pressed by the script instead of the keyboard.
+     */
+    private static class ScriptedInputComponent extends InputComponent
+    {
+        /**
+         * Press the keys the script holds down at a point in time.
+         * @param timeInMs The time (in ms).
+         */
+        public void setKeys(long timeInMs)
+        {
+            left = false;
+            right = false;
+            up = false;
+            for (long[] press : SCRIPT)
+            {
+                if (timeInMs >= press[1] && timeInMs < press[2])
+                {
+                    left |= (press[0] == LEFT);
+                    right |= (press[0] == RIGHT);
+                    up |= (press[0] == UP);
+                }
+            }
+        }
+
+        /** Keep the keys the script pressed, the keyboard is not read */
+        @Override
+        public void update() { /* Do nothing */ }
+    }
+
+    /**
+     * A level watcher for a level without collectibles, event blocks, or enemies the player can reach.
+     */
+    private static class IgnoredLevelWatcher implements LevelWatcher
+    {
+        /** This method is not used and does nothing */
+        public void activateEasterEgg() { /* Do nothing */ }
+
+        /** This method is not used and does nothing */
+        public void changeToNextLevel(InputComponent inputComponent) { /* Do nothing */ }
+
+        /** This method is not used and does nothing */
+        public void enemyDefeated() { /* Do nothing */ }
+
+        /** This method is not used and does nothing */
+        public void itemCollected() { /* Do nothing */ }
+
+        /** This method is not used and does nothing */
+        public void playerHasDied() { /* Do nothing */ }
+
+        /** This method is not used and does nothing */
+        public void specialEnemyDied() { /* Do nothing */ }
+    }
+}
@@ -0,0 +1,8 @@
+/**
+ * The way the GamePanel waits out the rest of a frame.
+ */
+public interface FrameScheduler
+{
+    /** Called by the GamePanel to wait until the given System.nanoTime() deadline, returns the time overslept in nanos */
+    long waitUntil(long deadlineInNanos);
+}
@@ -0,0 +1,197 @@
+import java.awt.*;
+/**
+ * Records how long each phase of a frame takes and reports rolling percentiles of them.
+ */
+public class FrameTelemetry
+{
+    /** The constant representing the time spent updating the game each frame */
+    public static final int UPDATE = 0;
+    /** The constant representing the time spent rendering the game each frame */
+    public static final int RENDER = 1;
+    /** The constant representing the time spent putting the frame on the screen */
+    public static final int PRESENT = 2;
+    /** The constant representing how late the frame scheduler woke up */
+    public static final int SLEEP_ERROR = 3;
+    /** The constant representing the number of game updates dropped to stop the game falling behind */
+    public static final int SKIPPED_UPDATES = 4;
+    /** The names of the recorded measurements, indexed by the constants above */
+    private static final String[] MEASUREMENT_NAMES = { "Update", "Render", "Present", "Sleep error", "Skipped" };
+
+    /** The number of most recent frames covered by the histograms */
+    private static final int WINDOW_SIZE = 256;
+    /** The width of a single histogram bucket for durations (in nanos) */
+    private static final long DURATION_BUCKET_WIDTH = 100000L;
+    /** The number of histogram buckets for durations, covering 0-50ms */
+    private static final int NUM_DURATION_BUCKETS = 500;
+    /** The number of histogram buckets for counts, one per count */
+    private static final int NUM_COUNT_BUCKETS = 16;
+    /** The amount of time between refreshes of the overlay text (in nanos) */
+    private static final long OVERLAY_REFRESH_PERIOD = 500000000L;
+
+    /** The histograms of each measurement, indexed by the constants above */
+    private FrameHistogram[] histograms;
+    /** The total number of frames recorded */
+    private long numFramesRecorded;
+
+    /** Flag specifying if the overlay is drawn */
+    private volatile boolean overlayVisible;
+    /** The lines of text drawn by the overlay, refreshed periodically rather than every frame */
+    private String[] overlayLines;
+    /** The time the overlay text was last refreshed */
+    private long timeOfLastOverlayRefresh;
+    /** The font used to draw the overlay */
+    private Font overlayFont;
+    /** The translucent color drawn behind the overlay text */
+    private Color overlayBackground;
+
+    /** The amount of time between dumps to the console (in nanos), zero disables dumping */
+    private long dumpPeriod;
+    /** The time of the last dump to the console */
+    private long timeOfLastDump;
+
+    /**
+     * Create telemetry for recording how each frame's time is spent.
+     */
+    public FrameTelemetry()
+    {
+        //Create the histograms, durations are bucketed by 0.1ms and counts by one
+        histograms = new FrameHistogram[MEASUREMENT_NAMES.length];
+        for (int i = 0; i < histograms.length; i++)
+        {
+            if (i == SKIPPED_UPDATES)
+            {
+                histograms[i] = new FrameHistogram(NUM_COUNT_BUCKETS, 1L, WINDOW_SIZE);
+            }
+            else
+            {
+                histograms[i] = new FrameHistogram(NUM_DURATION_BUCKETS, DURATION_BUCKET_WIDTH, WINDOW_SIZE);
+            }
+        }
+
+        //Setup the overlay
+        overlayVisible = false;
+        overlayLines = new String[MEASUREMENT_NAMES.length + 1];
+        overlayFont = new Font(Font.MONOSPACED, Font.PLAIN, 11);
+        overlayBackground = new Color(0, 0, 0, 160);
+        dumpPeriod = 0L;
+        timeOfLastOverlayRefresh = System.nanoTime() - OVERLAY_REFRESH_PERIOD;
+        timeOfLastDump = System.nanoTime();
+    }
+
+    /**
+     * Record the measurements of a single frame. The measurements are dumped to the
+     * console if dumping is enabled and the dump period has passed.
+     * @param updateTimeInNanos The time spent updating the game.
+     * @param renderTimeInNanos The time spent rendering the game.
+     * @param presentTimeInNanos The time spent putting the frame on the screen.
+     * @param sleepErrorInNanos How late the frame scheduler woke up.
+     * @param numUpdatesSkipped The number of game updates dropped to stop the game falling behind.
+     */
+    public void recordFrame(long updateTimeInNanos, long renderTimeInNanos, long presentTimeInNanos,
+                            long sleepErrorInNanos, int numUpdatesSkipped)
+    {
+        histograms[UPDATE].record(updateTimeInNanos);
+        histograms[RENDER].record(renderTimeInNanos);
+        histograms[PRESENT].record(presentTimeInNanos);
+        histograms[SLEEP_ERROR].record(sleepErrorInNanos);
+        histograms[SKIPPED_UPDATES].record(numUpdatesSkipped);
+        numFramesRecorded++;
+
+        //Dump to the console periodically
+        if (dumpPeriod > 0 && System.nanoTime() - timeOfLastDump >= dumpPeriod)
+        {
+            timeOfLastDump = System.nanoTime();
+            dump();
+        }
+    }
+
+    /**
+     * Print the percentiles of every measurement to the console.
+     */
+    public void dump()
+    {
+        System.out.println("Frame telemetry after " + numFramesRecorded + " frames (last " + histograms[UPDATE].getNumSamples() + ")");
+        for (int i = 0; i < histograms.length; i++)
+        {
+            System.out.println("  " + describe(i));
+        }
+    }
+
+    /**
+     * Draw the overlay of percentiles in the top left corner of the screen, if it is visible.
+     * This should be drawn after the game so that it is on top.
+     * @param dbGraphics The graphics object used to draw the overlay.
+     */
+    public void draw(Graphics dbGraphics)
+    {
+        if (!overlayVisible)
+        {
+            return;
+        }
+
+        //Refresh the text periodically so that it is readable and not rebuilt every frame
+        if (System.nanoTime() - timeOfLastOverlayRefresh >= OVERLAY_REFRESH_PERIOD)
+        {
+            timeOfLastOverlayRefresh = System.nanoTime();
+            overlayLines[0] = String.format("%-11s %6s %6s %6s %6s", "", "p50", "p95", "p99", "max");
+            for (int i = 0; i < histograms.length; i++)
+            {
+                overlayLines[i + 1] = describe(i);
+            }
+        }
+
+        //Draw the text over a translucent background, below the game header
+        dbGraphics.setFont(overlayFont);
+        dbGraphics.setColor(overlayBackground);
+        dbGraphics.fillRect(0, 30, 290, overlayLines.length * 13 + 6);
+        dbGraphics.setColor(Color.WHITE);
+        for (int i = 0; i < overlayLines.length; i++)
+        {
+            dbGraphics.drawString(overlayLines[i], 4, 45 + i * 13);
+        }
+    }
+
+    /**
+     * Describe the percentiles of a measurement on a single line. Durations are in ms.
+     * @param measurement The measurement, this must match the FrameTelemetry constants.
+     * @return The description.
+     */
+    private String describe(int measurement)
+    {
+        FrameHistogram histogram = histograms[measurement];
+        if (measurement == SKIPPED_UPDATES)
+        {
+            return String.format("%-11s %6d %6d %6d %6d", MEASUREMENT_NAMES[measurement], histogram.getPercentile(0.50),
+                    histogram.getPercentile(0.95), histogram.getPercentile(0.99), histogram.getMax());
+        }
+        return String.format("%-11s %6.1f %6.1f %6.1f %6.1f", MEASUREMENT_NAMES[measurement], histogram.getPercentile(0.50) / 1000000.0,
+                histogram.getPercentile(0.95) / 1000000.0, histogram.getPercentile(0.99) / 1000000.0, histogram.getMax() / 1000000.0);
+    }
+
+    /**
+     * Show or hide the overlay.
+     * @param isVisible True if the overlay should be drawn, false otherwise.
+     */
+    public void setOverlayVisible(boolean isVisible)
+    {
+        overlayVisible = isVisible;
+    }
+
+    /**
+     * Is the overlay visible?
+     * @return True if the overlay is drawn, false otherwise.
+     */
+    public boolean isOverlayVisible()
+    {
+        return overlayVisible;
+    }
+
+    /**
+     * Set how often the measurements are dumped to the console.
+     * @param dumpPeriodInSeconds The time between dumps in seconds, zero disables dumping.
+     */
+    public void setDumpPeriod(int dumpPeriodInSeconds)
+    {
+        dumpPeriod = dumpPeriodInSeconds * 1000000000L;
+    }
+}
@@ -5,6 +5,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -14,12 +15,16 @@ import java.util.Map;
  */
 public class Game implements LevelWatcher, MouseWatcher
 {
-    /** The maximum number of enemies in a single level */
-    public static final int MAX_ENEMIES = 15;
-    /** The maximum number of event blocks in a single level */
-    public static final int MAX_EVENT_BLOCKS = 10;
-    /** The maximum number of ribbons in a single level */
-    public static final int MAX_RIBBONS = 2;
+    /** The number of enemies and event blocks a level can hold before their arrays grow */
+    private static final int INITIAL_NUM_OBJECTS = 16;
+    /** The width and height of the cells of the collision grids in pixels */
+    private static final int COLLISION_CELL_SIZE = 2 * Block.BLOCK_WIDTH;
+    /** The distance outside the camera view that enemies are still updated when off-screen enemies are capped */
+    private static final int OFFSCREEN_ENEMY_MARGIN = 2 * Block.BLOCK_WIDTH;
+    /** The width the menu and header images are laid out for in pixels, they are centered in wider views */
+    private static final int INTERFACE_WIDTH = 600;
+    /** The height the menu images are laid out for in pixels, they are centered in taller views */
+    private static final int INTERFACE_HEIGHT = 600;
 
     /** The constant representing the main menu state */
     public static final int MAIN_MENU = 0;
@@ -29,6 +34,20 @@ public class Game implements LevelWatcher, MouseWatcher
     public static final int FINAL_MENU = 2;
     /** The state of the game */
     private int gameState;
+    /** The watcher that is notified when a static scene changes */
+    private SceneWatcher sceneWatcher;
+    /** The quality level that decides which non-essential updates are skipped, this matches the QualityGovernor constants */
+    private volatile int qualityLevel;
+    /** Flag specifying the texture atlas should be rebuilt before the next game update */
+    private volatile boolean atlasRebuildRequested;
+    /** The number of times the texture atlas has been rebuilt, it is captured in snapshots so the renderer learns of rebuilds */
+    private int atlasVersion;
+    /** The atlas version the terrain cache, scaled sprite cache, and interface layers were last set up for */
+    private int drawnAtlasVersion;
+    /** The flight recorder that level events are recorded in */
+    private FlightRecorder flightRecorder;
+    /** The cache of pre-scaled images used when the game is scaled, or null if it is not */
+    private ScaledSpriteCache spriteCache;
 
     /** The imageManager that loads and stores all of the game's images */
     private ImageManager imageManager;
@@ -38,13 +57,19 @@ public class Game implements LevelWatcher, MouseWatcher
     private SoundManager soundManager;
     /** The game camera that calculates the drawing offsets */
     private GameCamera gameCamera;
+    /** The compositor that keeps the HUD and menu layers in cached surfaces */
+    private Compositor compositor;
+    /** The version of the values shown by the HUD and menus, this changes whenever one of them does */
+    private volatile int interfaceVersion;
     /** The player */
     private Player player;
 
     /** Look up table of id's read from the levels config to block definitions */
     private HashMap<Integer, Block> blocks;
-    /** The raw map level data read from the levels config */
-    private ArrayList<int[][]> levelMaps;
+    /** A copy of the blocks look up table that is never modified, it is replaced each time a level is initialized */
+    private HashMap<Integer, Block> publishedBlocks;
+    /** The map of each level read from the levels config */
+    private ArrayList<TileMap> levelMaps;
     /** The name's of songs to be played at each level */
     private String[] levelSongs;
 
@@ -54,6 +79,10 @@ public class Game implements LevelWatcher, MouseWatcher
     private EventBlock[] eventBlocks;
     /** The ribbons draw in the background of the current level */
     private Ribbon[] ribbons;
+    /** The grid used to find the enemies near a bounding box */
+    private CollisionGrid enemyGrid;
+    /** The grid used to find the event blocks near a bounding box */
+    private CollisionGrid eventBlockGrid;
 
     /** The current number of enemies */
     private int numEnemies;
@@ -80,17 +109,55 @@ public class Game implements LevelWatcher, MouseWatcher
     private boolean goldenCarrotFound;
     /** Flag specifying the easter egg has been triggered */
     private boolean easterEggActivated;
-    /** The number of game cycles waited activating the easter egg */
-    private int gameCyclesWaitedForEasterEgg;
+    /** The amount of time to wait after activating the easter egg before playing it (in ms) */
+    private static final long EASTER_EGG_DELAY_IN_MS = 2000;
+    /** The amount of time waited since activating the easter egg (in nanos) */
+    private long timeWaitedForEasterEgg;
+    /** Flag specifying the music was playing when the audio was last paused */
+    private boolean musicWasPlaying;
+
+    /** The width of the view the game is played in */
+    private int viewWidth;
+    /** The height of the view the game is played in */
+    private int viewHeight;
+    /** The x position the menus and header are drawn at, so they are centered in the view */
+    private int interfaceX;
+    /** The y position the menus are drawn at, so they are centered in the view */
+    private int interfaceY;
+
+    /** The digit images used to draw the counters */
+    private ArrayList<SpriteRegion> numberImages;
+    /** The main menu image */
+    private SpriteRegion mainMenuImage;
+    /** The final menu image */
+    private SpriteRegion finalMenuImage;
+    /** The tablet drawn on the final menu when the golden carrot was not found */
+    private SpriteRegion goldenCarrotLostImage;
+    /** The header drawn along the top of the screen while playing */
+    private SpriteRegion headerImage;
+    /** The icon drawn on the header for each life remaining */
+    private SpriteRegion lifeIconImage;
+    /** The symbol drawn when the music is disabled */
+    private SpriteRegion musicDisabledImage;
+    /** The symbol drawn when the sound is disabled */
+    private SpriteRegion soundDisabledImage;
 
 
     /**
      * Create a game.
      * @param levelsFilePath The path to the LevelsConfig.txt file.
      * @param playerInputComponent The inputComponent that processes the user's inputs.
+     * @param width The width of the view the game is played in, at least as wide as the menus.
+     * @param height The height of the view the game is played in, at least as tall as the menus.
      */
-    public Game(String levelsFilePath, InputComponent playerInputComponent)
+    public Game(String levelsFilePath, InputComponent playerInputComponent, int width, int height)
     {
+        //Center the menus and header in the view
+        viewWidth = width;
+        viewHeight = height;
+        interfaceX = (viewWidth - INTERFACE_WIDTH) / 2;
+        interfaceY = (viewHeight - INTERFACE_HEIGHT) / 2;
+
         //Load the maps from the file path
         levelMaps = loadGameLevels(levelsFilePath);
         currentLevel = 0;
@@ -100,8 +167,11 @@ public class Game implements LevelWatcher, MouseWatcher
         imageManager = new ImageManager("ImagesConfig.txt");
         midiManager = new MidiManager("MidiConfig.txt");
         soundManager = new SoundManager("SoundsConfig.txt");
-        gameCamera = new GameCamera(Block.BLOCK_WIDTH * levelMaps.get(currentLevel).length,
-                                    Block.BLOCK_HEIGHT * levelMaps.get(currentLevel)[0].length);
+        gameCamera = new GameCamera(Block.BLOCK_WIDTH * levelMaps.get(currentLevel).getWidth(),
+                                    Block.BLOCK_HEIGHT * levelMaps.get(currentLevel).getHeight(), viewWidth, viewHeight);
+        compositor = new Compositor();
+        findInterfaceImages();
+        cacheInterfaceLayers();
 
         //Set the state to the main menu
         gameState = MAIN_MENU;
@@ -119,10 +189,14 @@ public class Game implements LevelWatcher, MouseWatcher
      */
     private void initializeLevel(InputComponent playerInputComponent)
     {
-        //Create/clear the enemies, eventBlocks, and ribbons
-        enemies = new Enemy[MAX_ENEMIES];
-        eventBlocks = new EventBlock[MAX_EVENT_BLOCKS];
-        ribbons = new Ribbon[MAX_RIBBONS];
+        //Create/clear the enemies, eventBlocks, their collision grids, and ribbons
+        enemies = new Enemy[INITIAL_NUM_OBJECTS];
+        eventBlocks = new EventBlock[INITIAL_NUM_OBJECTS];
+        enemyGrid = new CollisionGrid(Block.BLOCK_WIDTH * levelMaps.get(currentLevel).getWidth(),
+                Block.BLOCK_HEIGHT * levelMaps.get(currentLevel).getHeight(), COLLISION_CELL_SIZE);
+        eventBlockGrid = new CollisionGrid(Block.BLOCK_WIDTH * levelMaps.get(currentLevel).getWidth(),
+                Block.BLOCK_HEIGHT * levelMaps.get(currentLevel).getHeight(), COLLISION_CELL_SIZE);
+        ribbons = new Ribbon[1];
         numEnemies = 0;
         numEventBlocks = 0;
         numRibbons = 0;
@@ -151,17 +225,18 @@ public class Game implements LevelWatcher, MouseWatcher
 
             //Set the number of lives
             numPlayerLives = 3;
-            gameCyclesWaitedForEasterEgg = 0;
+            timeWaitedForEasterEgg = 0L;
 
             //Set the goldenCarrotFound flag
             goldenCarrotFound = false;
+            interfaceVersion++;
         }
         else
         {
             //Update the gameCamera's map dimensions
             gameCamera.resetCamera();
-            gameCamera.setMapDimensions(Block.BLOCK_WIDTH * levelMaps.get(currentLevel).length,
-                                        Block.BLOCK_HEIGHT * levelMaps.get(currentLevel)[0].length);
+            gameCamera.setMapDimensions(Block.BLOCK_WIDTH * levelMaps.get(currentLevel).getWidth(),
+                                        Block.BLOCK_HEIGHT * levelMaps.get(currentLevel).getHeight());
         }
         //Define common elements that are used in every level
         //Define grass terrain blocks
@@ -238,15 +313,15 @@ public class Game implements LevelWatcher, MouseWatcher
         graphicsMap.get(40).put(Block.NORMAL_GRAPHICS,  new Animation(imageManager.getImages("Purple Carrot"), 1200, true));
 
         //Define the ribbon(s)
-        addRibbon(new Ribbon(imageManager.getImages("Platformer Ribbon").get(0), Ribbon.SCROLL_STILL, 2));
+        addRibbon(new Ribbon(imageManager.getImages("Platformer Ribbon").get(0), 0.4, viewWidth));
 
         //Initialize the player, enemies and blocks from the map data
-        for (int x = 0; x < levelMaps.get(currentLevel).length; x++)
+        for (int x = 0; x < levelMaps.get(currentLevel).getWidth(); x++)
         {
-            for (int y = 0; y < levelMaps.get(currentLevel)[0].length; y++)
+            for (int y = 0; y < levelMaps.get(currentLevel).getHeight(); y++)
             {
                 //Define game objects according to their ids
-                int mappedId = levelMaps.get(currentLevel)[x][y] % 100;
+                int mappedId = levelMaps.get(currentLevel).getTileId(x, y) % 100;
                 switch (mappedId)
                 {
                     //Air Block
@@ -256,7 +331,7 @@ public class Game implements LevelWatcher, MouseWatcher
                     case 1:
                         if (player == null)
                         {
-                            player = new Player(x * Block.BLOCK_WIDTH, y * Block.BLOCK_HEIGHT, 5,
+                            player = new Player(x * Block.BLOCK_WIDTH, y * Block.BLOCK_HEIGHT, 150,
                                     Entity.IDLE_RIGHT_GRAPHICS, graphicsMap.get(mappedId), playerInputComponent, soundManager);
                             player.setLevelWatcher(this);
                         }
@@ -310,7 +385,7 @@ public class Game implements LevelWatcher, MouseWatcher
                     case 32: //Turtle
                         addEnemy(new Enemy(x * Block.BLOCK_WIDTH,
                                 y * Block.BLOCK_HEIGHT + (Block.BLOCK_HEIGHT - graphicsMap.get(mappedId).get(Entity.IDLE_LEFT_GRAPHICS).getImageHeight()),
-                                1, Enemy.LEFT, graphicsMap.get(mappedId)));
+                                30, Enemy.LEFT, graphicsMap.get(mappedId)));
                         break;
                     case 33: //Level Complete Sign
                         addEventBlock(new EventBlock(x * Block.BLOCK_WIDTH, y * Block.BLOCK_HEIGHT, EventBlock.BLOCK_LEVEL, graphicsMap.get(mappedId)));
@@ -329,21 +404,20 @@ public class Game implements LevelWatcher, MouseWatcher
                     case 37: //Boar
                         addEnemy(new Enemy(x * Block.BLOCK_WIDTH,
                                 y * Block.BLOCK_HEIGHT + (Block.BLOCK_HEIGHT - graphicsMap.get(mappedId).get(Entity.IDLE_LEFT_GRAPHICS).getImageHeight()),
-                                3, Enemy.LEFT, graphicsMap.get(mappedId)));
+                                90, Enemy.LEFT, graphicsMap.get(mappedId)));
                         break;
                     case 38: //Chicken
                         addEnemy(new Enemy(x * Block.BLOCK_WIDTH,
                                 y * Block.BLOCK_HEIGHT + (Block.BLOCK_HEIGHT - graphicsMap.get(mappedId).get(Entity.IDLE_LEFT_GRAPHICS).getImageHeight()),
-                                2, Enemy.LEFT, graphicsMap.get(mappedId)));
+                                60, Enemy.LEFT, graphicsMap.get(mappedId)));
                         break;
                     case 39: //Purple Boar
-                        if ( addEnemy(new Enemy(x * Block.BLOCK_WIDTH,
+                        addEnemy(new Enemy(x * Block.BLOCK_WIDTH,
                                 y * Block.BLOCK_HEIGHT + (Block.BLOCK_HEIGHT - graphicsMap.get(mappedId).get(Entity.IDLE_LEFT_GRAPHICS).getImageHeight()),
-                                0, Enemy.STILL, graphicsMap.get(mappedId))))
-                        {
-                            //Add the level watcher so that the purple boar's death can trigger special events
-                            enemies[numEnemies - 1].setLevelWatcher(this);
-                        }
+                                0, Enemy.STILL, graphicsMap.get(mappedId)));
+
+                        //Add the level watcher so that the purple boar's death can trigger special events
+                        enemies[numEnemies - 1].setLevelWatcher(this);
                         break;
                     case 40: //Purple Carrot
                         addEventBlock(new EventBlock(x * Block.BLOCK_WIDTH, y * Block.BLOCK_HEIGHT, EventBlock.BLOCK_SPECIAL_INACTIVE, graphicsMap.get(mappedId)));
@@ -355,6 +429,9 @@ public class Game implements LevelWatcher, MouseWatcher
                 }
             }
         }
+
+        //Publish a copy of the blocks for drawing snapshots
+        publishedBlocks = new HashMap<>(blocks);
     }
 
     /**
@@ -363,39 +440,49 @@ public class Game implements LevelWatcher, MouseWatcher
      */
     public void update(long loopPeriodInNanos)
     {
+        rebuildAtlasIfRequested();
+
         //Update the game according to the gameState
         if (gameState == PLAYING_GAME)
         {
             //Update the player and use its new location to update the game camera
-            Point playerLocation = player.update(levelMaps.get(currentLevel), enemies, numEnemies, eventBlocks, numEventBlocks,
-                    ribbons, numRibbons,loopPeriodInNanos / 1000000);
+            Point playerLocation = player.update(levelMaps.get(currentLevel), enemies, enemyGrid, eventBlocks, eventBlockGrid,
+                    loopPeriodInNanos);
             gameCamera.update(playerLocation);
 
-            //Update the enemies, blocks, and ribbons
-            for (Map.Entry<Integer, Block> entry : blocks.entrySet())
+            //Update the enemies and blocks, skipping what the quality level has turned off
+            int quality = qualityLevel;
+            if (quality < QualityGovernor.FROZEN_ANIMATIONS)
             {
-                entry.getValue().update(loopPeriodInNanos / 1000000);
+                for (Map.Entry<Integer, Block> entry : blocks.entrySet())
+                {
+                    entry.getValue().update(loopPeriodInNanos / 1000000);
+                }
             }
             for (int i = 0; i < numEnemies; i++)
             {
-                enemies[i].update(levelMaps.get(currentLevel), eventBlocks, numEventBlocks,loopPeriodInNanos / 1000000);
-            }
-            for (int i = 0; i < numEventBlocks; i++)
-            {
-                eventBlocks[i].update(loopPeriodInNanos / 1000000);
+                //Enemies far outside the view are left where they are until the camera nears them
+                if (quality < QualityGovernor.CAPPED_ENEMIES || gameCamera.isInView(enemies[i].boundingBox, OFFSCREEN_ENEMY_MARGIN))
+                {
+                    enemies[i].update(levelMaps.get(currentLevel), eventBlocks, eventBlockGrid, loopPeriodInNanos);
+                    enemyGrid.update(i, enemies[i].boundingBox);
+                }
             }
-            for (int i = 0; i < numRibbons; i++)
+            if (quality < QualityGovernor.FROZEN_ANIMATIONS)
             {
-                ribbons[i].update();
+                for (int i = 0; i < numEventBlocks; i++)
+                {
+                    eventBlocks[i].update(loopPeriodInNanos / 1000000);
+                }
             }
 
             //If the easter egg has been activated wait before playing the sounds/music.
             //This prevents the weird track ending MIDI sounds from playing over it.
             if (easterEggActivated)
             {
-                //Increment the wait counter, play after ~2 seconds
-                gameCyclesWaitedForEasterEgg++;
-                if (gameCyclesWaitedForEasterEgg >= 2 * Launcher.ONE_SECOND)
+                //Increment the wait timer, play after 2 seconds
+                timeWaitedForEasterEgg += loopPeriodInNanos;
+                if (timeWaitedForEasterEgg >= EASTER_EGG_DELAY_IN_MS * 1000000)
                 {
                     soundManager.playSound("GameBlouses", false);
                     midiManager.play("purplerain", true);
@@ -407,91 +494,211 @@ public class Game implements LevelWatcher, MouseWatcher
 
     /**
      * Draw the game. This method draws all of the components in the game depending on the
-     * current game state.
+     * current game state. Moving objects are drawn between their previous and current positions.
      * @param dbGraphics The graphics object used to draw the game.
+     * @param interpolation The fraction of a game update that has elapsed since the last update (0.0 - 1.0).
      */
-    public void draw(Graphics dbGraphics)
+    public void draw(Graphics dbGraphics, double interpolation)
     {
-        //Draw the game according to the gameState
-        if (gameState == MAIN_MENU)
+        clearAtlasCachesIfRebuilt(atlasVersion);
+
+        //Draw the background, terrain, and entity layers if the game is being played, they move with the camera
+        //so they are drawn straight to the screen, then blit the cached HUD or menu layer on top
+        if (gameState == PLAYING_GAME)
         {
-            //Draw the main menu image
-            dbGraphics.drawImage(imageManager.getImages("Main Menu").get(0), 0, 0, null);
+            gameCamera.draw(dbGraphics, levelMaps.get(currentLevel), blocks, enemies, numEnemies, player, eventBlocks, numEventBlocks,
+                    ribbons, numRibbons, isParallaxEnabled(), interpolation);
         }
-        else if (gameState == PLAYING_GAME)
+        drawInterface(dbGraphics, gameState, numCarrotsValues, numEnemiesValues, numPlayerLives, goldenCarrotFound,
+                midiManager.isMusicEnabled(), soundManager.isSoundEnabled(), interfaceVersion);
+    }
+
+    /**
+     * Draw the game as it was captured in a snapshot. This method only reads the snapshot and the
+     * images it refers to, so it is safe to call from a thread other than the one updating the game.
+     * @param dbGraphics The graphics object used to draw the game.
+     * @param snapshot The snapshot to draw.
+     * @param interpolation The fraction of a game update that has elapsed since the snapshot was captured (0.0 - 1.0).
+     */
+    public void draw(Graphics dbGraphics, WorldSnapshot snapshot, double interpolation)
+    {
+        clearAtlasCachesIfRebuilt(snapshot.atlasVersion);
+
+        //Draw the background, terrain, and entity layers if the game is being played, they move with the camera
+        //so they are drawn straight to the screen, then blit the cached HUD or menu layer on top
+        if (snapshot.gameState == PLAYING_GAME)
         {
-            gameCamera.draw(dbGraphics, levelMaps.get(currentLevel), blocks, enemies, numEnemies, player, eventBlocks, numEventBlocks,
-                    ribbons, numRibbons);
+            gameCamera.draw(dbGraphics, snapshot, interpolation);
+        }
+        drawInterface(dbGraphics, snapshot.gameState, snapshot.numCarrotsValues, snapshot.numEnemiesValues, snapshot.numPlayerLives,
+                snapshot.goldenCarrotFound, snapshot.musicEnabled, snapshot.soundEnabled, snapshot.interfaceVersion);
+    }
 
+    /**
+     * Draw the HUD while playing or the menu otherwise on top of the level. The layer is kept in a
+     * cached surface by the compositor and is only drawn again when the values it shows change.
+     * @param dbGraphics The graphics object used to draw the game.
+     * @param state The state of the game.
+     * @param carrotsValues The decimal place values of the number of carrots.
+     * @param enemiesValues The decimal place values of the number of enemies defeated.
+     * @param livesRemaining The number of player lives remaining.
+     * @param foundGoldenCarrot Flag specifying if the golden carrot was found.
+     * @param musicIsEnabled Flag specifying if the music is enabled.
+     * @param soundIsEnabled Flag specifying if the sound is enabled.
+     * @param version The version of the values shown.
+     */
+    private void drawInterface(Graphics dbGraphics, int state, int[] carrotsValues, int[] enemiesValues, int livesRemaining,
+                               boolean foundGoldenCarrot, boolean musicIsEnabled, boolean soundIsEnabled, int version)
+    {
+        //The version does not include the state, so the HUD and menu layers are checked separately
+        int layer = (state == PLAYING_GAME) ? Compositor.HUD_LAYER : Compositor.MENU_LAYER;
+        if (compositor.isDirty(layer, version))
+        {
+            Graphics2D layerGraphics = compositor.redrawLayer(layer, version);
+            paintInterface(layerGraphics, state, carrotsValues, enemiesValues, livesRemaining, foundGoldenCarrot,
+                    musicIsEnabled, soundIsEnabled);
+            layerGraphics.dispose();
+        }
+        DrawStatistics.setLayer(dbGraphics, layer);
+        compositor.drawLayer(dbGraphics, layer);
+    }
+
+    /**
+     * Paint the menus, the header, and the sound and music symbols.
+     * @param dbGraphics The graphics object used to paint the interface.
+     * @param state The state of the game.
+     * @param carrotsValues The decimal place values of the number of carrots.
+     * @param enemiesValues The decimal place values of the number of enemies defeated.
+     * @param livesRemaining The number of player lives remaining.
+     * @param foundGoldenCarrot Flag specifying if the golden carrot was found.
+     * @param musicIsEnabled Flag specifying if the music is enabled.
+     * @param soundIsEnabled Flag specifying if the sound is enabled.
+     */
+    private void paintInterface(Graphics dbGraphics, int state, int[] carrotsValues, int[] enemiesValues, int livesRemaining,
+                                boolean foundGoldenCarrot, boolean musicIsEnabled, boolean soundIsEnabled)
+    {
+        //Draw the menus and header according to the state
+        if (state == MAIN_MENU)
+        {
+            //Draw the main menu image
+            mainMenuImage.draw(dbGraphics, interfaceX, interfaceY);
+        }
+        else if (state == PLAYING_GAME)
+        {
             //Draw the game header
-            dbGraphics.drawImage(imageManager.getImages("Platformer Header").get(0), 0, 0, null);
+            headerImage.draw(dbGraphics, interfaceX, 0);
 
             //Draw the number of carrots collected
-            int carrotOffset = 112; //x position to draw first digit
+            int carrotOffset = interfaceX + 112; //x position to draw first digit
             for (int i = 2; i >= 0; i--)
             {
                 //If i is zero, always draw. Otherwise, make sure we don't draw leading zeros
-                if (i == 0 || (numCarrotsValues[i] != 0 || (i != 2 && numCarrotsValues[i + 1] != 0)))
+                if (i == 0 || (carrotsValues[i] != 0 || (i != 2 && carrotsValues[i + 1] != 0)))
                 {
-                    dbGraphics.drawImage(imageManager.getImages("Numbers").get(numCarrotsValues[i]), carrotOffset, 0, null);
+                    numberImages.get(carrotsValues[i]).draw(dbGraphics, carrotOffset, 0);
                     carrotOffset += 9;
                 }
             }
 
             //Draw the player's lives onto the header
-            int livesOffset = 490; //x position to draw first pig life icon
-            for (int i = 0; i < numPlayerLives; i++)
+            int livesOffset = interfaceX + 490; //x position to draw first pig life icon
+            for (int i = 0; i < livesRemaining; i++)
             {
-                dbGraphics.drawImage(imageManager.getImages("Pig Life Icon").get(0), livesOffset, 0, null);
+                lifeIconImage.draw(dbGraphics, livesOffset, 0);
                 livesOffset += 22;
             }
         }
-        else if (gameState == FINAL_MENU)
+        else if (state == FINAL_MENU)
         {
             //Draw the main menu image
-            dbGraphics.drawImage(imageManager.getImages("Final Menu").get(0), 0, 0, null);
+            finalMenuImage.draw(dbGraphics, interfaceX, interfaceY);
 
             //Draw the Golden Carrot not found screen if the player lost
-            if (!goldenCarrotFound)
+            if (!foundGoldenCarrot)
             {
-                dbGraphics.drawImage(imageManager.getImages("Menu Final Tablet Golden Carrot Lose").get(0), 150, 270, null);
+                goldenCarrotLostImage.draw(dbGraphics, interfaceX + 150, interfaceY + 270);
             }
 
             //Draw the number of carrots collected
-            int finalMenuOffset = 374; //x position to draw first digit
+            int finalMenuOffset = interfaceX + 374; //x position to draw first digit
             for (int i = 2; i >= 0; i--)
             {
                 //If i is zero, always draw. Otherwise, make sure we don't draw leading zeros
-                if (i == 0 || (numCarrotsValues[i] != 0 || (i != 2 && numCarrotsValues[i + 1] != 0)))
+                if (i == 0 || (carrotsValues[i] != 0 || (i != 2 && carrotsValues[i + 1] != 0)))
                 {
-                    dbGraphics.drawImage(imageManager.getImages("Numbers").get(numCarrotsValues[i]), finalMenuOffset, 380, null);
+                    numberImages.get(carrotsValues[i]).draw(dbGraphics, finalMenuOffset, interfaceY + 380);
                     finalMenuOffset += 9;
                 }
             }
 
             //Draw the number of enemies defeated
-            finalMenuOffset = 374; //x position to draw first digit
+            finalMenuOffset = interfaceX + 374; //x position to draw first digit
             for (int i = 2; i >= 0; i--)
             {
                 //If i is zero, always draw. Otherwise, make sure we don't draw leading zeros
-                if (i == 0 || (numEnemiesValues[i] != 0 || (i != 2 && numEnemiesValues[i + 1] != 0)))
+                if (i == 0 || (enemiesValues[i] != 0 || (i != 2 && enemiesValues[i + 1] != 0)))
                 {
-                    dbGraphics.drawImage(imageManager.getImages("Numbers").get(numEnemiesValues[i]), finalMenuOffset, 470, null);
+                    numberImages.get(enemiesValues[i]).draw(dbGraphics, finalMenuOffset, interfaceY + 470);
                     finalMenuOffset += 9;
                 }
             }
         }
 
         //Draw the sound and music disabled symbols if necessary
-        if (!midiManager.isMusicEnabled())
+        if (!musicIsEnabled)
         {
-            dbGraphics.drawImage(imageManager.getImages("Music Symbol Disabled").get(0),
-                    GamePanel.WIDTH - imageManager.getImages("Music Symbol Disabled").get(0).getWidth(), 0, null);
+            musicDisabledImage.draw(dbGraphics,
+                    interfaceX + INTERFACE_WIDTH - musicDisabledImage.getWidth(), 0);
         }
-        if (!soundManager.isSoundEnabled()) //Add two to the sound disabled symbol so that it overlaps with the music symbol correctly
+        if (!soundIsEnabled) //Add two to the sound disabled symbol so that it overlaps with the music symbol correctly
         {
-            dbGraphics.drawImage(imageManager.getImages("Sound Symbol Disabled").get(0),
-                    GamePanel.WIDTH - (imageManager.getImages("Sound Symbol Disabled").get(0).getWidth() * 2) + 2, 0, null);
+            soundDisabledImage.draw(dbGraphics,
+                    interfaceX + INTERFACE_WIDTH - (soundDisabledImage.getWidth() * 2) + 2, 0);
+        }
+    }
+
+    /**
+     * Capture everything needed to draw the game into a snapshot. The snapshot must be owned
+     * by the caller until it is published, this is the only time the game state is read.
+     * @param snapshot The snapshot to capture into.
+     */
+    public void captureSnapshot(WorldSnapshot snapshot)
+    {
+        //Capture the game and header state
+        snapshot.clear();
+        snapshot.gameState = gameState;
+        snapshot.musicEnabled = midiManager.isMusicEnabled();
+        snapshot.soundEnabled = soundManager.isSoundEnabled();
+        snapshot.interfaceVersion = interfaceVersion;
+        snapshot.atlasVersion = atlasVersion;
+        snapshot.numEntities = getNumEntities();
+        if (numCarrotsValues != null) //Not defined until the first level is initialized
+        {
+            System.arraycopy(numCarrotsValues, 0, snapshot.numCarrotsValues, 0, numCarrotsValues.length);
+            System.arraycopy(numEnemiesValues, 0, snapshot.numEnemiesValues, 0, numEnemiesValues.length);
+            snapshot.numPlayerLives = numPlayerLives;
+            snapshot.goldenCarrotFound = goldenCarrotFound;
+        }
+
+        //Capture the level, in the same order it is drawn
+        if (gameState == PLAYING_GAME)
+        {
+            snapshot.tileMap = levelMaps.get(currentLevel);
+            snapshot.blocks = publishedBlocks;
+            gameCamera.captureSnapshot(snapshot);
+            for (int i = 0; i < numRibbons; i++)
+            {
+                ribbons[i].captureSnapshot(snapshot, isParallaxEnabled());
+            }
+            for (int i = 0; i < numEventBlocks; i++)
+            {
+                eventBlocks[i].captureSnapshot(snapshot);
+            }
+            for (int i = 0; i < numEnemies; i++)
+            {
+                enemies[i].captureSnapshot(snapshot);
+            }
+            player.captureSnapshot(snapshot);
         }
     }
 
@@ -503,34 +710,48 @@ public class Game implements LevelWatcher, MouseWatcher
     @Override
     public void mouseClicked(Point mousePosition, InputComponent playerInputComponent)
     {
+        boolean sceneChanged = false; //Flag specifying a button was clicked and the screen must be redrawn
+
         //Determine actions based on game state
         if (gameState == MAIN_MENU || gameState == FINAL_MENU)
         {
             //Start/Restart button (coordinates from GIMP)
-            if (new Rectangle(218, 549, 64, 42).contains(mousePosition))
+            if (new Rectangle(interfaceX + 218, interfaceY + 549, 64, 42).contains(mousePosition))
             {
                 initializeLevel(playerInputComponent);
                 midiManager.play(levelSongs[currentLevel], true);
                 gameState = PLAYING_GAME;
+                interfaceVersion++;
+                sceneChanged = true;
             }
 
             //Quit button
-            if (new Rectangle(318, 549, 64, 42).contains(mousePosition))
+            if (new Rectangle(interfaceX + 318, interfaceY + 549, 64, 42).contains(mousePosition))
             {
                 System.exit(0);
             }
         }
 
         //Sound button
-        if (new Rectangle(563, 0, 18, 19).contains(mousePosition))
+        if (new Rectangle(interfaceX + 563, 0, 18, 19).contains(mousePosition))
         {
             soundManager.enableSound(!soundManager.isSoundEnabled());
+            interfaceVersion++;
+            sceneChanged = true;
         }
 
         //Music button
-        if (new Rectangle(581, 0, 18, 19).contains(mousePosition))
+        if (new Rectangle(interfaceX + 581, 0, 18, 19).contains(mousePosition))
         {
             midiManager.enableMusic(!midiManager.isMusicEnabled());
+            interfaceVersion++;
+            sceneChanged = true;
+        }
+
+        //Inform the scene watcher so a static menu is redrawn
+        if (sceneChanged && sceneWatcher != null)
+        {
+            sceneWatcher.sceneChanged();
         }
     }
 
@@ -543,25 +764,11 @@ public class Game implements LevelWatcher, MouseWatcher
     @Override
     public void activateEasterEgg()
     {
+        recordEvent(FlightRecorder.EASTER_EGG_ACTIVATED);
         midiManager.pause();
         easterEggActivated = true;
     }
 
-    /**
-     * Change the scrolling direction of the background ribbons. The player drives this action
-     * since it is based on its movement.
-     * @param newScrollDirection The new direction the ribbon should scroll.
-     */
-    @Override
-    public void changeRibbonScrollDirection(int newScrollDirection)
-    {
-        //Set the ribbon scroll direction
-        for (int i = 0; i < numRibbons; i++)
-        {
-            ribbons[i].setScrollDirection(newScrollDirection);
-        }
-    }
-
     /**
      * Change to the next level. If the next level does not exist, then
      * the game ends.
@@ -570,6 +777,8 @@ public class Game implements LevelWatcher, MouseWatcher
     @Override
     public void changeToNextLevel(InputComponent playerInputComponent)
     {
+        recordEvent(FlightRecorder.LEVEL_CHANGED);
+
         //Increment the level number and check if the game has ended
         currentLevel++;
         if (currentLevel < levelMaps.size())
@@ -595,6 +804,8 @@ public class Game implements LevelWatcher, MouseWatcher
     @Override
     public void itemCollected()
     {
+        recordEvent(FlightRecorder.ITEM_COLLECTED);
+
         //Increment the number of carrots collected
         numCarrotsCollected++;
 
@@ -611,6 +822,7 @@ public class Game implements LevelWatcher, MouseWatcher
             numCarrotsValues[1] = 9; //Tens
             numCarrotsValues[0] = 9; //Ones
         }
+        interfaceVersion++;
     }
 
     /**
@@ -621,6 +833,8 @@ public class Game implements LevelWatcher, MouseWatcher
     @Override
     public void enemyDefeated()
     {
+        recordEvent(FlightRecorder.ENEMY_DEFEATED);
+
         //Increment the number of enemies defeated
         numEnemiesDefeated++;
 
@@ -637,6 +851,7 @@ public class Game implements LevelWatcher, MouseWatcher
             numEnemiesValues[1] = 9; //Tens
             numEnemiesValues[0] = 9; //Ones
         }
+        interfaceVersion++;
     }
 
     /**
@@ -646,8 +861,11 @@ public class Game implements LevelWatcher, MouseWatcher
     @Override
     public void playerHasDied()
     {
+        recordEvent(FlightRecorder.PLAYER_DIED);
+
         //Subtract a life
         numPlayerLives--;
+        interfaceVersion++;
 
         //If the player has lost all its lives, game over
         if (numPlayerLives < 0)
@@ -656,14 +874,12 @@ public class Game implements LevelWatcher, MouseWatcher
         }
         else
         {
-            //Reset the enemies and ribbons
+            //Reset the enemies and camera, the ribbons follow the camera
+            gameCamera.resetCamera();
             for (int i = 0; i < numEnemies; i++)
             {
                 enemies[i].reset();
-            }
-            for (int i = 0; i < numRibbons; i++)
-            {
-                ribbons[i].reset();
+                enemyGrid.update(i, enemies[i].boundingBox);
             }
         }
     }
@@ -675,6 +891,7 @@ public class Game implements LevelWatcher, MouseWatcher
     @Override
     public void specialEnemyDied()
     {
+        recordEvent(FlightRecorder.SPECIAL_ENEMY_DIED);
         for (int i = 0; i < numEventBlocks; i++)
         {
             if (eventBlocks[i].getBlockType() == EventBlock.BLOCK_SPECIAL_INACTIVE)
@@ -684,6 +901,193 @@ public class Game implements LevelWatcher, MouseWatcher
         }
     }
 
+    /**
+     * Is the scene static? The menus only change when the user clicks a button, so they
+     * do not need to be redrawn every frame. The game itself is never static.
+     * @return True if the game is showing a menu, false otherwise.
+     */
+    public boolean isSceneStatic()
+    {
+        return gameState != PLAYING_GAME;
+    }
+
+    /**
+     * Is the scene captured in a snapshot static?
+     * @param snapshot The snapshot to check.
+     * @return True if the snapshot shows a menu, false otherwise.
+     */
+    public boolean isSceneStatic(WorldSnapshot snapshot)
+    {
+        return snapshot.gameState != PLAYING_GAME;
+    }
+
+    /**
+     * Set the quality level, the non-essential updates it turns off are skipped from the next update on.
+     * @param newQualityLevel The quality level, this must match the QualityGovernor constants.
+     */
+    public void setQualityLevel(int newQualityLevel)
+    {
+        qualityLevel = newQualityLevel;
+    }
+
+    /**
+     * Ask for the images config to be read again and the texture atlas rebuilt. The atlas is rebuilt
+     * by the thread that updates the game, between two game updates.
+     */
+    public void requestAtlasRebuild()
+    {
+        atlasRebuildRequested = true;
+        if (sceneWatcher != null)
+        {
+            sceneWatcher.sceneChanged();
+        }
+    }
+
+    /**
+     * Rebuild the texture atlas if it was requested. This is called by the thread that updates the game
+     * before an update, so nothing in the game is being updated while the sprites are pointed at the new
+     * atlas. The ribbon strips are built again from the new images and the atlas version is counted, the
+     * renderer clears what it drew from the old images when it draws a snapshot with the new version.
+     */
+    private void rebuildAtlasIfRequested()
+    {
+        if (atlasRebuildRequested)
+        {
+            atlasRebuildRequested = false;
+            imageManager.rebuildAtlas();
+            findInterfaceImages();
+            for (int i = 0; i < numRibbons; i++)
+            {
+                ribbons[i].buildStrip();
+            }
+            atlasVersion++;
+        }
+    }
+
+    /**
+     * Clear the terrain chunks, pre-scaled images, and interface layers drawn from the old images once a
+     * version of the game captured after an atlas rebuild is drawn. This is called by the thread that draws
+     * the game, which owns these caches.
+     * @param version The atlas version of the game being drawn.
+     */
+    private void clearAtlasCachesIfRebuilt(int version)
+    {
+        if (version != drawnAtlasVersion)
+        {
+            drawnAtlasVersion = version;
+            gameCamera.clearTerrainCache();
+            if (spriteCache != null)
+            {
+                spriteCache.clear(); //The old atlas pages, ribbon strips, and layer surfaces are replaced
+            }
+            cacheInterfaceLayers();
+        }
+    }
+
+    /**
+     * Look up the images drawn by the HUD and menus.
+     */
+    private void findInterfaceImages()
+    {
+        numberImages = imageManager.getImages("Numbers");
+        mainMenuImage = imageManager.getImages("Main Menu").get(0);
+        finalMenuImage = imageManager.getImages("Final Menu").get(0);
+        goldenCarrotLostImage = imageManager.getImages("Menu Final Tablet Golden Carrot Lose").get(0);
+        headerImage = imageManager.getImages("Platformer Header").get(0);
+        lifeIconImage = imageManager.getImages("Pig Life Icon").get(0);
+        musicDisabledImage = imageManager.getImages("Music Symbol Disabled").get(0);
+        soundDisabledImage = imageManager.getImages("Sound Symbol Disabled").get(0);
+    }
+
+    /**
+     * Give the HUD and menu layers cached surfaces, they are redrawn the next time they are drawn. The HUD
+     * surface only covers the header along the top of the screen, the menu surface covers the screen.
+     */
+    private void cacheInterfaceLayers()
+    {
+        int hudHeight = Math.max(headerImage.getHeight(), Math.max(lifeIconImage.getHeight(),
+                Math.max(musicDisabledImage.getHeight(), soundDisabledImage.getHeight())));
+        compositor.cacheLayer(Compositor.HUD_LAYER, viewWidth, hudHeight);
+        compositor.cacheLayer(Compositor.MENU_LAYER, viewWidth, viewHeight);
+    }
+
+    /**
+     * Get the number of entities in the current level.
+     * @return The number of enemies and event blocks plus the player, or zero if a menu is showing.
+     */
+    public int getNumEntities()
+    {
+        return (gameState == PLAYING_GAME) ? numEnemies + numEventBlocks + 1 : 0;
+    }
+
+    /**
+     * Set the cache of pre-scaled images used when the game is scaled. The terrain chunks and
+     * interface layers tell the cache when they are redrawn, so it does not keep old copies.
+     * @param cache The cache, or null if the game is not scaled.
+     */
+    public void setSpriteCache(ScaledSpriteCache cache)
+    {
+        spriteCache = cache;
+        compositor.setSpriteCache(cache);
+        gameCamera.setSpriteCache(cache);
+    }
+
+    /**
+     * Set the flight recorder that level events and audio commands are recorded in.
+     * @param recorder The flight recorder.
+     */
+    public void setFlightRecorder(FlightRecorder recorder)
+    {
+        flightRecorder = recorder;
+        midiManager.setFlightRecorder(recorder);
+        soundManager.setFlightRecorder(recorder);
+    }
+
+    /**
+     * Record a level event in the flight recorder, if there is one.
+     * @param event The event, this must be one of the FlightRecorder event constants.
+     */
+    private void recordEvent(int event)
+    {
+        if (flightRecorder != null)
+        {
+            flightRecorder.recordEvent(event);
+        }
+    }
+
+    /**
+     * Set the scene watcher to notify when a static scene changes.
+     * @param gameSceneWatcher The scene watcher.
+     */
+    public void setSceneWatcher(SceneWatcher gameSceneWatcher)
+    {
+        sceneWatcher = gameSceneWatcher;
+    }
+
+    /**
+     * Pause the music and any sounds that are playing, such as when the game window is
+     * in the background or minimized. Only the audio that was interrupted is resumed.
+     */
+    public void pauseAudio()
+    {
+        musicWasPlaying = midiManager.isPlaying();
+        midiManager.pause();
+        soundManager.pauseAllSounds();
+    }
+
+    /**
+     * Resume the music and sounds that were playing when the audio was paused.
+     */
+    public void resumeAudio()
+    {
+        if (musicWasPlaying)
+        {
+            midiManager.resume();
+            musicWasPlaying = false;
+        }
+        soundManager.resumeAllSounds();
+    }
+
     /**
      * End the game and transition the state to the final menu.
      */
@@ -693,6 +1097,7 @@ public class Game implements LevelWatcher, MouseWatcher
         midiManager.pause();
         currentLevel = 0;
         gameState = FINAL_MENU;
+        interfaceVersion++;
 
         //Reward the players that found all the carrots
         if (numCarrotsCollected == totalNumCarrots)
@@ -702,11 +1107,12 @@ public class Game implements LevelWatcher, MouseWatcher
     }
 
     /**
-     * Load the game levels from the specified filePath.
+     * Load the game levels from the specified filePath. Each level's map of block id's is
+     * compiled into a tile map once it has been read.
      * @param filePath The path to the levels config file.
-     * @return An arrayList containing the raw data for each level.
+     * @return An arrayList containing the tile map of each level.
      */
-    private ArrayList<int[][]> loadGameLevels(String filePath)
+    private ArrayList<TileMap> loadGameLevels(String filePath)
     {
         //An ArrayList of the loaded game levelManagers
         ArrayList<int[][]> loadedLevels = new ArrayList<>();
@@ -755,8 +1161,13 @@ public class Game implements LevelWatcher, MouseWatcher
             bufferedReader.close();
             System.out.println("Completed reading file: " + filePath);
 
-            //Return
-            return loadedLevels;
+            //Compile the levels and return
+            ArrayList<TileMap> tileMaps = new ArrayList<>();
+            for (int[][] blockIdMap : loadedLevels)
+            {
+                tileMaps.add(new TileMap(blockIdMap));
+            }
+            return tileMaps;
         }
         catch (IOException exception)
         {
@@ -782,60 +1193,64 @@ public class Game implements LevelWatcher, MouseWatcher
     }
 
     /**
-     * Add a new enemy to the enemies array. If the array is
-     * full then this method returns false. Otherwise, the enemy
-     * is added and it returns true.
+     * Add a new enemy to the enemies array and its collision grid.
+     * The array grows if it is full.
      * @param enemyToAdd The new enemy.
-     * @return True if the enemy is added, false otherwise.
      */
-    private boolean addEnemy(Enemy enemyToAdd)
+    private void addEnemy(Enemy enemyToAdd)
     {
-        //Add the new enemy if possible
-        if (numEnemies < MAX_ENEMIES)
+        //Grow the array if necessary
+        if (numEnemies == enemies.length)
         {
-            enemies[numEnemies] = enemyToAdd;
-            numEnemies++;
-            return true;
+            enemies = Arrays.copyOf(enemies, numEnemies * 2);
         }
-        return false;
+
+        enemies[numEnemies] = enemyToAdd;
+        enemyGrid.add(enemyToAdd.boundingBox);
+        numEnemies++;
     }
 
     /**
-     * Add a new event block to the eventBlocks array. If the array is
-     * full then this method returns false. Otherwise, the block
-     * is added and it returns true.
+     * Add a new event block to the eventBlocks array and its collision grid.
+     * The array grows if it is full.
      * @param blockToAdd The new event block.
-     * @return True if the block is added, false otherwise.
      */
-    private boolean addEventBlock(EventBlock blockToAdd)
+    private void addEventBlock(EventBlock blockToAdd)
     {
-        //Add the new event block if possible
-        if (numEventBlocks < MAX_EVENT_BLOCKS)
+        //Grow the array if necessary
+        if (numEventBlocks == eventBlocks.length)
         {
-            eventBlocks[numEventBlocks] = blockToAdd;
-            numEventBlocks++;
-            return true;
+            eventBlocks = Arrays.copyOf(eventBlocks, numEventBlocks * 2);
         }
-        return false;
+
+        eventBlocks[numEventBlocks] = blockToAdd;
+        eventBlockGrid.add(blockToAdd.getBoundingBox());
+        numEventBlocks++;
+    }
+
+    /**
+     * Check if the ribbons scroll with the camera. When the quality level turns parallax off every
+     * ribbon is drawn at a fixed offset instead, so the background stays still while the camera moves.
+     * @return True if the ribbons scroll, false otherwise.
+     */
+    private boolean isParallaxEnabled()
+    {
+        return qualityLevel < QualityGovernor.NO_PARALLAX;
     }
 
     /**
-     * Add a new ribbon to the ribbons array. If the array is
-     * full then this method returns false. Otherwise, the ribbon
-     * is added and it returns true.
-     * @param ribbonToAdd The new event block.
-     * @return True if the ribbon is added, false otherwise.
+     * Add a new ribbon to the ribbons array, growing the array if it is full. Ribbons
+     * are drawn in the order they are added, so the furthest ribbon should be added first.
+     * @param ribbonToAdd The new ribbon.
      */
-    private boolean addRibbon(Ribbon ribbonToAdd)
+    private void addRibbon(Ribbon ribbonToAdd)
     {
-        //Add the new ribbon if possible
-        if (numRibbons < MAX_RIBBONS)
+        if (numRibbons == ribbons.length)
         {
-            ribbons[numRibbons] = ribbonToAdd;
-            numRibbons++;
-            return true;
+            ribbons = Arrays.copyOf(ribbons, numRibbons * 2);
         }
-        return false;
+        ribbons[numRibbons] = ribbonToAdd;
+        numRibbons++;
     }
 
     /** This method is not used and does nothing */
@@ -10,17 +10,31 @@ public class GameCamera
     private Rectangle cameraView;
     /** The dimensions of the current level in pixels, from the first block to the last */
     private Point mapDimensions;
+    /** The camera offsets at the start of the most recent update */
+    private Point previousOffsets;
+    /** Flag specifying the camera was reset and should not blend from its previous offsets */
+    private boolean cameraWasReset;
+    /** The cache of pre-rendered terrain chunks, only used by the thread that draws the game */
+    private TerrainCache terrainCache;
+    /** The queue the sprites are culled and sorted in before they are drawn, only used by the thread that draws the game */
+    private RenderQueue renderQueue;
 
     /**
      * Create a new game camera.
      * @param mapWidthInPixels The width of the map in pixels.
      * @param maxHeightInPixels The height of the map in pixels.
+     * @param viewWidth The width of the camera's view in pixels.
+     * @param viewHeight The height of the camera's view in pixels.
      */
-    public GameCamera(int mapWidthInPixels, int maxHeightInPixels)
+    public GameCamera(int mapWidthInPixels, int maxHeightInPixels, int viewWidth, int viewHeight)
     {
         //Set up the camera view
-        cameraView = new Rectangle(0, 0, GamePanel.WIDTH, GamePanel.HEIGHT);
+        cameraView = new Rectangle(0, 0, viewWidth, viewHeight);
         mapDimensions = new Point(mapWidthInPixels, maxHeightInPixels);
+        previousOffsets = new Point(0, 0);
+        cameraWasReset = true;
+        terrainCache = new TerrainCache(TerrainCache.DEFAULT_CHUNK_SIZE_IN_BLOCKS, TerrainCache.getMaxChunks(viewWidth, viewHeight));
+        renderQueue = new RenderQueue();
     }
 
     /**
@@ -30,6 +44,9 @@ public class GameCamera
      */
     public void update(Point playerLocation)
     {
+        //Remember the offsets before moving so the view can be drawn between updates
+        previousOffsets.setLocation(cameraView.x, cameraView.y);
+
         //Set camera offsets to zero if the player is to the left of the middle of the screen
         //Or if the width of the map is less than or equal to the width of the screen
         if (playerLocation.x < (cameraView.width/2) || mapDimensions.x <= cameraView.width)
@@ -68,12 +85,19 @@ public class GameCamera
         //and the center of the screen. Inverting the values gives the true offset to add to center the player.
         cameraView.x = -cameraView.x;
         cameraView.y = -cameraView.y;
+
+        //Jump straight to the new view after a reset rather than sliding across the level
+        if (cameraWasReset)
+        {
+            previousOffsets.setLocation(cameraView.x, cameraView.y);
+            cameraWasReset = false;
+        }
     }
 
     /**
      * Draw everything that is contained within the view of the game camera.
      * @param dbGraphics The graphics object used to draw.
-     * @param blockIdMap The condensed map of block id's that only contains 1's for solid blocks and 0's for transparent air blocks.
+     * @param tileMap The map of block id's of the current level.
      * @param blocks The map of block id's to actual block graphics.
      * @param enemies The enemies present in the current level.
      * @param numEnemies The number of enemies.
@@ -82,47 +106,121 @@ public class GameCamera
      * @param numEventBlocks The number of event blocks.
      * @param ribbons The background ribbons.
      * @param numRibbons The number of ribbons.
+     * @param ribbonsScroll Flag specifying the ribbons scroll with the camera, they are drawn at a fixed offset if not.
+     * @param interpolation The fraction of a game update that has elapsed since the last update (0.0 - 1.0).
      */
-    public void draw(Graphics dbGraphics, int[][] blockIdMap, HashMap<Integer, Block> blocks,
+    public void draw(Graphics dbGraphics, TileMap tileMap, HashMap<Integer, Block> blocks,
                      Enemy[] enemies, int numEnemies, Player player, EventBlock[] eventBlocks,
-                     int numEventBlocks, Ribbon[] ribbons, int numRibbons)
+                     int numEventBlocks, Ribbon[] ribbons, int numRibbons, boolean ribbonsScroll, double interpolation)
     {
-        //Draw the ribbons
+        //Blend the offsets between the previous and current update
+        int xOffset = previousOffsets.x + (int) Math.round((cameraView.x - previousOffsets.x) * interpolation);
+        int yOffset = previousOffsets.y + (int) Math.round((cameraView.y - previousOffsets.y) * interpolation);
+
+        //Draw the ribbons, at the start of their cycle if they do not scroll
+        DrawStatistics.setLayer(dbGraphics, Compositor.BACKGROUND_LAYER);
         for (int i = 0; i < numRibbons; i++)
         {
-            ribbons[i].draw(dbGraphics);
+            ribbons[i].draw(dbGraphics, ribbonsScroll ? xOffset : 0);
         }
 
-        //Draw the blockIdMap using the blocks map as a look-up-table
-        for (int x = 0; x < blockIdMap.length; x++)
+        //Draw the terrain
+        DrawStatistics.setLayer(dbGraphics, Compositor.TERRAIN_LAYER);
+        drawTerrain(dbGraphics, tileMap, blocks, xOffset, yOffset);
+
+        //Queue the event blocks, enemies, and player, then draw the ones in view sorted by layer and image
+        DrawStatistics.setLayer(dbGraphics, Compositor.ENTITY_LAYER);
+        renderQueue.begin(cameraView.width, cameraView.height);
+        for (int i = 0; i < numEventBlocks; i++)
+        {
+            eventBlocks[i].submit(renderQueue, xOffset, yOffset);
+        }
+        for (int i = 0; i < numEnemies; i++)
         {
-            for (int y = 0; y < blockIdMap[0].length; y++)
-            {
-                //Only draw the blocks that can be seen on screen, only look at the last two digits for the id
-                if (blocks.containsKey(blockIdMap[x][y] % 100)
-                        && (x * Block.BLOCK_WIDTH + Block.BLOCK_WIDTH + cameraView.x) > 0
-                        && (x * Block.BLOCK_WIDTH + cameraView.x) < mapDimensions.x)
-                {
-                    blocks.get(blockIdMap[x][y] % 100).draw(dbGraphics,
-                            (x * Block.BLOCK_WIDTH) + cameraView.x, (y * Block.BLOCK_HEIGHT) + cameraView.y);
-                }
-            }
+            enemies[i].submit(renderQueue, xOffset, yOffset, interpolation);
         }
+        player.submit(renderQueue, xOffset, yOffset, interpolation);
+        renderQueue.flush(dbGraphics);
+    }
 
-        //Draw the event blocks
-        for (int i = 0; i < numEventBlocks; i++)
+    /**
+     * Draw everything contained within the view of the game camera as it was captured in a snapshot.
+     * This method only reads the snapshot and the images it refers to, so it is safe to call from
+     * a thread other than the one updating the game.
+     * @param dbGraphics The graphics object used to draw.
+     * @param snapshot The snapshot to draw.
+     * @param interpolation The fraction of a game update that has elapsed since the snapshot was captured (0.0 - 1.0).
+     */
+    public void draw(Graphics dbGraphics, WorldSnapshot snapshot, double interpolation)
+    {
+        //Blend the offsets between the previous and current update
+        int xOffset = snapshot.previousCameraX + (int) Math.round((snapshot.cameraX - snapshot.previousCameraX) * interpolation);
+        int yOffset = snapshot.previousCameraY + (int) Math.round((snapshot.cameraY - snapshot.previousCameraY) * interpolation);
+
+        //Draw the ribbons, blending how far they scrolled between the previous and current update
+        DrawStatistics.setLayer(dbGraphics, Compositor.BACKGROUND_LAYER);
+        for (int i = 0; i < snapshot.numRibbons; i++)
         {
-            eventBlocks[i].draw(dbGraphics, cameraView.x, cameraView.y);
+            int ribbonOffset = snapshot.ribbonPreviousOffsets[i]
+                    + (int) Math.round((snapshot.ribbonOffsets[i] - snapshot.ribbonPreviousOffsets[i]) * interpolation);
+            Ribbon.drawStrip(dbGraphics, snapshot.ribbonStrips[i], snapshot.ribbonWidths[i], ribbonOffset);
         }
 
-        //Draw the enemies
-        for (int i = 0; i < numEnemies; i++)
+        //Draw the terrain
+        DrawStatistics.setLayer(dbGraphics, Compositor.TERRAIN_LAYER);
+        drawTerrain(dbGraphics, snapshot.tileMap, snapshot.blocks, xOffset, yOffset);
+
+        //Queue the event blocks, enemies, and player between their previous and current positions,
+        //then draw the ones in view sorted by layer and image
+        DrawStatistics.setLayer(dbGraphics, Compositor.ENTITY_LAYER);
+        renderQueue.begin(cameraView.width, cameraView.height);
+        for (int i = 0; i < snapshot.numSprites; i++)
         {
-            enemies[i].draw(dbGraphics, cameraView.x, cameraView.y);
+            int x = snapshot.spritePreviousX[i] + (int) Math.round((snapshot.spriteX[i] - snapshot.spritePreviousX[i]) * interpolation);
+            int y = snapshot.spritePreviousY[i] + (int) Math.round((snapshot.spriteY[i] - snapshot.spritePreviousY[i]) * interpolation);
+            snapshot.spriteAnimations[i].submitFrame(renderQueue, snapshot.spriteFrames[i], x + xOffset, y + yOffset,
+                    snapshot.spriteLayers[i]);
         }
+        renderQueue.flush(dbGraphics);
+    }
 
-        //Draw the player
-        player.draw(dbGraphics, cameraView.x, cameraView.y);
+    /**
+     * Draw the tile map using the blocks map as a look-up-table. The terrain is drawn from
+     * the terrain cache, which pre-renders the blocks into large chunks.
+     * @param dbGraphics The graphics object used to draw.
+     * @param tileMap The map of block id's.
+     * @param blocks The map of block id's to actual block graphics.
+     * @param xOffset The x offset of the camera.
+     * @param yOffset The y offset of the camera.
+     */
+    private void drawTerrain(Graphics dbGraphics, TileMap tileMap, HashMap<Integer, Block> blocks, int xOffset, int yOffset)
+    {
+        terrainCache.draw(dbGraphics, tileMap, blocks, xOffset, yOffset, cameraView.width, cameraView.height);
+    }
+
+    /**
+     * Check if a bounding box is within the camera view, or close to it.
+     * @param boundingBox The bounding box to check, relative to the map.
+     * @param margin The distance outside the camera view that still counts as in view.
+     * @return True if the bounding box is within the margin of the camera view, false otherwise.
+     */
+    public boolean isInView(Rectangle boundingBox, int margin)
+    {
+        //The camera offsets are inverted, negate them to get the view's position on the map
+        return boundingBox.intersects(-cameraView.x - margin, -cameraView.y - margin,
+                cameraView.width + 2 * margin, cameraView.height + 2 * margin);
+    }
+
+    /**
+     * Store the camera's previous and current offsets in a snapshot.
+     * @param snapshot The snapshot being captured.
+     */
+    public void captureSnapshot(WorldSnapshot snapshot)
+    {
+        snapshot.cameraX = cameraView.x;
+        snapshot.cameraY = cameraView.y;
+        snapshot.previousCameraX = previousOffsets.x;
+        snapshot.previousCameraY = previousOffsets.y;
     }
 
     /**
@@ -139,11 +237,31 @@ public class GameCamera
     }
 
     /**
-     * Reset the camera's offsets to zero.
+     * Throw away the pre-rendered terrain, such as when the block images change.
+     * This must only be called by the thread that draws the game.
+     */
+    public void clearTerrainCache()
+    {
+        terrainCache.clear();
+    }
+
+    /**
+     * Set the cache of pre-scaled images the terrain is drawn from when the game is scaled.
+     * @param cache The cache, or null if the game is not scaled.
+     */
+    public void setSpriteCache(ScaledSpriteCache cache)
+    {
+        terrainCache.setSpriteCache(cache);
+    }
+
+    /**
+     * Reset the camera's offsets to zero. The next update will
+     * jump straight to the new view instead of blending into it.
      */
     public void resetCamera()
     {
         cameraView.x = 0;
         cameraView.y = 0;
+        cameraWasReset = true;
     }
 }
@@ -1,55 +1,187 @@
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
 /**
  * @author Logan Karstetter
  * Date: 2018
  */
-public class GamePanel extends JPanel implements Runnable
+public class GamePanel extends JPanel implements Runnable, SceneWatcher
 {
-    /** The width of the game panel */
-    public static final int WIDTH = 600;
-    /** The height of the game panel */
-    public static final int HEIGHT = 600;
+    /** The default width of the view the game is played in, the menus are laid out for this */
+    public static final int DEFAULT_WIDTH = 600;
+    /** The default height of the view the game is played in, the menus are laid out for this */
+    public static final int DEFAULT_HEIGHT = 600;
+
+    /** The constant representing rendering into an image that is painted onto the panel */
+    public static final int RENDER_IMAGE = 0;
+    /** The constant representing page flipped rendering onto a canvas using a buffer strategy */
+    public static final int RENDER_CANVAS = 1;
+    /** The number of buffers used by the canvas buffer strategy */
+    private static final int NUM_CANVAS_BUFFERS = 2;
+
+    /** The maximum number of game updates that can be run in a single cycle of the game loop */
+    private static final int MAX_UPDATES_PER_LOOP = 5;
+    /** The time between redraws while the game is paused in the background (in ms) */
+    private static final long HEARTBEAT_PERIOD_IN_MS = 250L;
+    /** The longest time a static scene goes without being redrawn, in case the screen was damaged (in ms) */
+    private static final long STATIC_REDRAW_PERIOD_IN_MS = 1000L;
+    /** The factor the resolution is divided by when the quality governor lowers the render resolution */
+    private static final int LOW_RESOLUTION_SCALE = 2;
+    /** The number of seconds of frames kept by the flight recorder */
+    private static final int RECORDED_SECONDS = 5;
+    /** The default time a frame can take before the flight recorder dumps its frames (in ms) */
+    private static final int DEFAULT_HITCH_BUDGET_IN_MS = 100;
 
     /** The thread that runs the animation loop */
     private Thread animator;
     /** The amount of time allocated for each cycle of the game loop (in nanos) */
     private long loopPeriod;
+    /** The fixed amount of game time simulated by a single game update (in nanos) */
+    private long tickPeriod;
     /** Determines whether the animator thread is running */
     private volatile boolean isRunning;
 
-    /** The Graphics used to double buffer/render the screen */
-    private Graphics dbGraphics;
-    /** The image that is created/rendered offscreen and later painted to the screen */
-    private Image dbImage;
+    /** The renderer that provides the graphics to draw into and puts each frame on the screen */
+    private ScreenRenderer screenRenderer;
+    /** The scheduler that waits out the time left over at the end of each cycle of the game loop */
+    private FrameScheduler frameScheduler;
+    /** The telemetry that records how the time of each cycle of the game loop is spent */
+    private FrameTelemetry frameTelemetry;
+    /** The controller that tracks whether the window is focused, in the background, or minimized */
+    private PowerStateController powerStateController;
+    /** The governor that lowers the quality of the game when frames overrun their budget */
+    private QualityGovernor qualityGovernor;
+    /** The recorder that keeps the last few seconds of frames and dumps them when a frame hitches */
+    private FlightRecorder flightRecorder;
+    /** The image the game is drawn into at a lower resolution before being scaled up to the screen */
+    private BufferedImage lowResolutionImage;
+    /** The graphics of the low resolution image, scaled down so the game can draw at full size */
+    private Graphics2D lowResolutionGraphics;
+    /** The renderer that draws the game into its own framebuffer on the CPU, or null if Java2D draws the game */
+    private SoftwareRenderer softwareRenderer;
+    /** The statistics of the draws made each frame, switched on and off at runtime */
+    private DrawStatistics drawStatistics;
+    /** The width of the view the game is played in, before it is scaled */
+    private int viewWidth;
+    /** The height of the view the game is played in, before it is scaled */
+    private int viewHeight;
+    /** The factor the game is scaled by when it is put on the screen */
+    private double outputScale;
+    /** The cache of sprites pre-scaled to the output resolution, or null if the game is not scaled */
+    private ScaledSpriteCache spriteCache;
+    /** The graphics object the game is drawn through when it is scaled, bound to the frame's output each frame */
+    private ScaledGraphics scaledGraphics;
+    /** The ring that each finished frame is copied into for other processes to read, or null if frames are not captured */
+    private FrameCapture frameCapture;
+    /** Flag specifying the draws of the frame being rendered were counted and are waiting for the frame to be shown */
+    private boolean frameCounted;
+    /** The component that receives the user's input */
+    private InputComponent userInputComponent;
+    /** The lock that threads waiting on a static scene wait on */
+    private Object sceneLock;
+    /** The time a static scene last changed (System.nanoTime()), guarded by the scene lock */
+    private long timeOfSceneChange;
+
+    /** Flag specifying the game is updated on its own thread, separate from rendering */
+    private boolean updateThreadEnabled;
+    /** The exchange the update thread publishes snapshots through for the render thread */
+    private SnapshotExchange snapshotExchange;
+    /** The time the update thread took to run its most recent game update (in nanos) */
+    private volatile long lastUpdateTime;
+    /** The number of game updates the update thread dropped since the render thread last checked */
+    private AtomicInteger numUpdatesSkippedByUpdater;
 
     /** The game object that is actually "played" */
     private Game game;
 
     /**
      * Create a new game panel and subsequent game.
-     * @param framesPerSecond The desired FPS to run at. (30)
+     * @param framesPerSecond The desired FPS to run at. (30, 60, 120, 144)
+     * @param updatesPerSecond The number of game updates to run every second. (30)
+     * @param renderMode The way frames are put on the screen, this must match the GamePanel render constants.
+     * @param width The width of the view the game is played in, at least DEFAULT_WIDTH.
+     * @param height The height of the view the game is played in, at least DEFAULT_HEIGHT.
      */
-    public GamePanel(int framesPerSecond)
+    public GamePanel(int framesPerSecond, int updatesPerSecond, int renderMode, int width, int height)
     {
-        //Calculate nanoseconds per game loop cycle
+        //Calculate nanoseconds per game loop cycle and per game update
         loopPeriod = 1000000000/framesPerSecond;
+        tickPeriod = 1000000000/updatesPerSecond;
+        frameScheduler = new HybridFrameScheduler(HybridFrameScheduler.BALANCED_SPIN_TIME);
+        frameTelemetry = new FrameTelemetry();
+        viewWidth = width;
+        viewHeight = height;
+        drawStatistics = new DrawStatistics(viewWidth, viewHeight);
+        powerStateController = new PowerStateController();
+        qualityGovernor = new QualityGovernor(loopPeriod);
+        flightRecorder = new FlightRecorder(framesPerSecond * RECORDED_SECONDS, DEFAULT_HITCH_BUDGET_IN_MS * 1000000L);
+        sceneLock = new Object();
+        timeOfSceneChange = System.nanoTime();
+        updateThreadEnabled = false;
+        outputScale = 1.0;
 
         //Set essential panel data
         setBackground(Color.BLACK);
         setDoubleBuffered(false);
-        setPreferredSize(new Dimension(WIDTH, HEIGHT));
+        setPreferredSize(new Dimension(viewWidth, viewHeight));
         setFocusable(true);
         requestFocus();
 
         //Setup game input data
-        InputComponent userInputComponent = new InputComponent();
-        this.addKeyListener(userInputComponent);
-        this.addMouseListener(userInputComponent);
+        userInputComponent = new InputComponent();
+
+        //Setup the screen renderer, the input is received by whichever component is drawn on
+        Component screenComponent = this;
+        if (renderMode == RENDER_CANVAS)
+        {
+            CanvasScreenRenderer canvas = new CanvasScreenRenderer(NUM_CANVAS_BUFFERS, viewWidth, viewHeight);
+            setLayout(new BorderLayout());
+            setFocusable(false);
+            add(canvas);
+            screenRenderer = canvas;
+            screenComponent = canvas;
+        }
+        else
+        {
+            screenRenderer = new ImageScreenRenderer(this);
+        }
+        screenComponent.addKeyListener(userInputComponent);
+        screenComponent.addMouseListener(userInputComponent);
+
+        //Toggle the telemetry overlay with F3, cycle the draw statistics and overdraw heatmap with F4,
+        //rebuild the texture atlas from the images config with F5
+        screenComponent.addKeyListener(new KeyAdapter()
+        {
+            @Override
+            public void keyPressed(KeyEvent event)
+            {
+                if (event.getKeyCode() == KeyEvent.VK_F3)
+                {
+                    frameTelemetry.setOverlayVisible(!frameTelemetry.isOverlayVisible());
+                    sceneChanged();
+                }
+                else if (event.getKeyCode() == KeyEvent.VK_F4)
+                {
+                    drawStatistics.cycleMode();
+                    sceneChanged();
+                }
+                else if (event.getKeyCode() == KeyEvent.VK_F5)
+                {
+                    game.requestAtlasRebuild();
+                }
+            }
+        });
 
         //Create game
-        game = new Game("Levels/LevelsConfig.txt", userInputComponent);
+        game = new Game("Levels/LevelsConfig.txt", userInputComponent, viewWidth, viewHeight);
+        game.setSceneWatcher(this);
+        game.setFlightRecorder(flightRecorder);
     }
 
     /**
@@ -57,10 +189,20 @@ public class GamePanel extends JPanel implements Runnable
      * This method informs the GamePanel that it has been added to a
      * parent container such as a JFrame. Once notified it starts the
      * game. This prevents the game starting before the user can see it.
+     * The power state controller begins following the parent window.
      */
     public void addNotify()
     {
         super.addNotify();
+        Window window = SwingUtilities.getWindowAncestor(this);
+        if (window != null)
+        {
+            //Remove the controller first so it is never registered twice
+            window.removeWindowListener(powerStateController);
+            window.removeWindowFocusListener(powerStateController);
+            window.addWindowListener(powerStateController);
+            window.addWindowFocusListener(powerStateController);
+        }
         if (animator == null || !isRunning)
         {
             animator = new Thread(this);
@@ -68,6 +210,117 @@ public class GamePanel extends JPanel implements Runnable
         }
     }
 
+    /**
+     * Set the scheduler that waits out the time left over at the end of each cycle of the game loop.
+     * This should be called before the GamePanel is added to its parent.
+     * @param newFrameScheduler The frame scheduler.
+     */
+    public void setFrameScheduler(FrameScheduler newFrameScheduler)
+    {
+        frameScheduler = newFrameScheduler;
+    }
+
+    /**
+     * Enable or disable updating the game on its own thread. When enabled, the update thread
+     * publishes a snapshot of the game after every update and the animator thread only renders
+     * the most recent snapshot, so a slow frame never delays the game. This should be called
+     * before the GamePanel is added to its parent.
+     * @param isEnabled True if the game should be updated on its own thread, false otherwise.
+     */
+    public void setUpdateThreadEnabled(boolean isEnabled)
+    {
+        updateThreadEnabled = isEnabled;
+    }
+
+    /**
+     * Set how often the frame telemetry is dumped to the console.
+     * @param dumpPeriodInSeconds The time between dumps in seconds, zero disables dumping.
+     */
+    public void setTelemetryDumpPeriod(int dumpPeriodInSeconds)
+    {
+        frameTelemetry.setDumpPeriod(dumpPeriodInSeconds);
+    }
+
+    /**
+     * Set how long a frame can take before the flight recorder dumps the last few seconds of frames to a file.
+     * @param hitchBudgetInMs The frame budget in ms.
+     */
+    public void setHitchBudget(int hitchBudgetInMs)
+    {
+        flightRecorder.setFrameBudget(hitchBudgetInMs * 1000000L);
+    }
+
+    /**
+     * Set whether the game is drawn by the software renderer into an integer framebuffer, which is
+     * then put on the screen with a single blit, instead of by Java2D straight into the screen's buffer.
+     * @param isEnabled Flag specifying the software renderer is used.
+     */
+    public void setSoftwareRenderingEnabled(boolean isEnabled)
+    {
+        softwareRenderer = isEnabled ? new SoftwareRenderer(getOutputSize(viewWidth), getOutputSize(viewHeight)) : null;
+    }
+
+    /**
+     * Set the factor the game is scaled by when it is put on the screen. The game is still laid out and
+     * played in its view, but it is drawn at the scaled resolution with sprites that are scaled once and
+     * cached rather than scaled every frame. This should be called before the GamePanel is added to its
+     * parent and before the software renderer is enabled.
+     * @param scale The scale, 1.0 draws the game at its own resolution.
+     */
+    public void setOutputScale(double scale)
+    {
+        outputScale = scale;
+        spriteCache = (scale != 1.0) ? new ScaledSpriteCache(scale, ScaledSpriteCache.DEFAULT_BUDGET) : null;
+        scaledGraphics = (spriteCache != null) ? new ScaledGraphics(spriteCache) : null;
+        game.setSpriteCache(spriteCache);
+        userInputComponent.setScale(scale);
+
+        //Resize whichever component the game is drawn on
+        Dimension outputSize = new Dimension(getOutputSize(viewWidth), getOutputSize(viewHeight));
+        setPreferredSize(outputSize);
+        if (screenRenderer instanceof Component)
+        {
+            ((Component) screenRenderer).setPreferredSize(outputSize);
+        }
+    }
+
+    /**
+     * Start copying each finished frame into a ring in a memory mapped file, which other local processes can
+     * read without slowing the game down. The frames are also written out as a PNG sequence on a background
+     * thread if a directory is passed. This should be called after the output scale is set.
+     * @param fileName The path to the capture file.
+     * @param pngDirectory The directory to write the PNG sequence into, or null to only fill the ring.
+     */
+    public void startFrameCapture(String fileName, String pngDirectory)
+    {
+        try
+        {
+            frameCapture = new FrameCapture(fileName, getOutputSize(viewWidth), getOutputSize(viewHeight),
+                    FrameCapture.DEFAULT_NUM_SLOTS);
+            if (pngDirectory != null)
+            {
+                new PngSequenceWriter(new FrameCaptureReader(fileName), new File(pngDirectory)).start();
+            }
+            System.out.println("Capturing frames to " + fileName + (pngDirectory != null ? " and " + pngDirectory : ""));
+        }
+        catch (IOException exception)
+        {
+            System.out.println("Error starting frame capture: " + fileName);
+            exception.printStackTrace();
+            frameCapture = null;
+        }
+    }
+
+    /**
+     * Get the size of a length of the game's viewport once it is scaled to the output resolution.
+     * @param length The length in the game's viewport.
+     * @return The length on the screen in pixels.
+     */
+    private int getOutputSize(int length)
+    {
+        return (int) Math.round(length * outputScale);
+    }
+
     /**
      * Stop the game, set isRunning to false.
      */
@@ -77,53 +330,246 @@ public class GamePanel extends JPanel implements Runnable
     }
 
     /**
-     * Repeatably update, render, paint, and sleep such that the game loop takes close to the amount of
-     * time allotted by the desired FPS (loopPeriod).
+     * Run the game until it is stopped. The game is either updated and rendered together on the
+     * animator thread, or updated on its own thread while the animator thread renders.
      */
     public void run()
+    {
+        isRunning = true;
+        if (updateThreadEnabled)
+        {
+            //Update on a new thread, render the snapshots it publishes on this one
+            snapshotExchange = new SnapshotExchange();
+            numUpdatesSkippedByUpdater = new AtomicInteger(0);
+            new Thread(this::runUpdateLoop).start();
+            runRenderLoop();
+        }
+        else
+        {
+            runGameLoop();
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Repeatably update, render, paint, and sleep such that each frame takes close to the amount of
+     * time allotted by the desired FPS (loopPeriod). The game itself is advanced in fixed steps of
+     * tickPeriod, as many as are needed to keep up with real time, and the leftover fraction of a
+     * step is used to draw moving objects between their previous and current positions.
+     */
+    private void runGameLoop()
     {
         long timeBeforeLoop; //The time measured before the game methods are called
+        long timeAfterUpdate; //The time measured after the game updates complete
+        long timeAfterRender; //The time measured after the game is rendered
         long timeAfterLoop; //The time measured after the game methods complete
         long timeDifference; //The time taken to complete run the methods (timeAfterLoop - timeBeforeLoop)
+        long timeOfLastLoop; //The time measured before the game methods were called in the previous loop
 
-        long overtime = 0L; //The excess time taken to complete the loop (actual - loopPeriod)
+        long accumulatedTime = 0L; //Real time that has passed but has not yet been simulated by game updates
         long timeToSleep = 0L; //Time left for sleeping to maintain fps (loopPeriod - timeDifference) - timeOverslept
         long timeOverslept = 0L; //The amount of time the thread overslept
 
+        boolean frameDrawn; //Flag specifying the game was drawn this loop, the screen may not be ready yet
         int numDelays = 0; //The number of times the thread has looped without sleeping
-        int numFramesSkipped = 0; //The number of times the thread has skipped rendering due to running overtime
+        int numUpdates; //The number of game updates run this loop to catch up with real time
+        int numUpdatesSkipped; //The number of game updates dropped this loop because the game fell too far behind
         int numDelaysBeforeYield = 16; //Number of times the thread can loop with sleep < 0 before yielding to other threads
-        int framesSkippedBeforeRender = 5; //Number of frames can skip rendering before it is forced to do so
 
         //Capture the time before the first loop begins
-        timeBeforeLoop = System.nanoTime();
-        isRunning = true;
+        timeOfLastLoop = System.nanoTime();
         while (isRunning)
         {
-            //Update, render, paint
-            gameUpdate();
-            gameRender();
-            paintScreen();
+            //Pause while the window is inactive, then start timing from now so the pause is not caught up on
+            if (throttleWhileInactive(true, true))
+            {
+                timeOfLastLoop = System.nanoTime();
+                timeOverslept = 0L;
+                continue;
+            }
+
+            //Add the time since the last loop, capped so a long stall does not cause a burst of updates
+            timeBeforeLoop = System.nanoTime();
+            accumulatedTime += Math.min(timeBeforeLoop - timeOfLastLoop, MAX_UPDATES_PER_LOOP * tickPeriod);
+            numUpdatesSkipped = (int) Math.max(0L, (timeBeforeLoop - timeOfLastLoop) / tickPeriod - MAX_UPDATES_PER_LOOP);
+            timeOfLastLoop = timeBeforeLoop;
+
+            //Advance the game in fixed steps until it has caught up with real time
+            numUpdates = 0;
+            while (accumulatedTime >= tickPeriod)
+            {
+                accumulatedTime -= tickPeriod;
+                gameUpdate();
+                numUpdates++;
+            }
+            timeAfterUpdate = System.nanoTime();
+
+            //Render and paint the game part of the way between the last update and the next, again if the frame was lost
+            do
+            {
+                frameDrawn = gameRender(null, (double) accumulatedTime / tickPeriod);
+                timeAfterRender = System.nanoTime();
+            }
+            while (frameDrawn && !paintScreen());
+            if (frameDrawn)
+            {
+                frameShown();
+            }
 
             //Capture the time taken to run the methods
             timeAfterLoop = System.nanoTime();
             timeDifference = (timeAfterLoop - timeBeforeLoop);
 
-            //Calculate time to sleep to maintain fps
+            //Calculate time to sleep to maintain fps, taking back the time overslept last loop
             timeToSleep = (loopPeriod - timeDifference) - timeOverslept;
             if (timeToSleep > 0)
             {
-                try
+                //Wait and measure how late the scheduler woke up
+                timeOverslept = frameScheduler.waitUntil(timeAfterLoop + timeToSleep);
+            }
+            else
+            {
+                //Clear timeOverslept
+                timeOverslept = 0L;
+
+                //Increment delays and check for yield condition
+                if (++numDelays >= numDelaysBeforeYield)
                 {
-                    //Convert timeToSleep to milliseconds
-                    Thread.sleep(timeToSleep/1000000);
+                    Thread.yield();
+                    numDelays = 0;
                 }
-                catch (InterruptedException exception) { /* Do nothing */ }
+            }
+
+            //Record where the time went
+            frameTelemetry.recordFrame(timeAfterUpdate - timeBeforeLoop, timeAfterRender - timeAfterUpdate,
+                    timeAfterLoop - timeAfterRender, timeOverslept, numUpdatesSkipped);
+            flightRecorder.recordFrame(timeBeforeLoop, timeAfterUpdate - timeBeforeLoop, timeAfterRender - timeAfterUpdate,
+                    timeAfterLoop - timeAfterRender, timeOverslept, numUpdatesSkipped, game.getNumEntities());
+            if (qualityGovernor.recordFrame(timeDifference, numUpdatesSkipped))
+            {
+                game.setQualityLevel(qualityGovernor.getQualityLevel());
+            }
+
+            //A static scene has been drawn, wait until it changes rather than drawing it again
+            if (frameDrawn && game.isSceneStatic() && waitForSceneChange(timeBeforeLoop))
+            {
+                timeOfLastLoop = System.nanoTime();
+                timeOverslept = 0L;
+            }
+        }
+    }
+
+    /**
+     * Repeatably update the game in fixed steps of tickPeriod and publish a snapshot of the game after
+     * every update. This runs on the update thread and never waits on the render thread.
+     */
+    private void runUpdateLoop()
+    {
+        long timeBeforeUpdate; //The time measured before the game is updated
+        long timeOfNextUpdate; //The time the next update is scheduled to run at
+
+        //The frame scheduler is not shared with the render thread
+        FrameScheduler updateScheduler = new HybridFrameScheduler(HybridFrameScheduler.LOW_CPU_SPIN_TIME);
+
+        timeOfNextUpdate = System.nanoTime();
+        while (isRunning)
+        {
+            //Pause while the window is inactive, then schedule from now so the pause is not caught up on
+            if (throttleWhileInactive(true, false))
+            {
+                timeOfNextUpdate = System.nanoTime();
+                continue;
+            }
+
+            //Drop the updates the game has fallen too far behind to catch up on
+            timeBeforeUpdate = System.nanoTime();
+            if (timeBeforeUpdate - timeOfNextUpdate > MAX_UPDATES_PER_LOOP * tickPeriod)
+            {
+                numUpdatesSkippedByUpdater.addAndGet((int) ((timeBeforeUpdate - timeOfNextUpdate) / tickPeriod));
+                timeOfNextUpdate = timeBeforeUpdate;
+            }
+
+            //Update the game and publish it for the render thread
+            gameUpdate();
+            WorldSnapshot snapshot = snapshotExchange.getBackSnapshot();
+            game.captureSnapshot(snapshot);
+            snapshot.timeOfUpdate = timeOfNextUpdate;
+            snapshotExchange.publish();
+            lastUpdateTime = System.nanoTime() - timeBeforeUpdate;
+
+            //Nothing changes in a static scene until it is clicked, update right away once it has changed
+            if (game.isSceneStatic() && waitForSceneChange(timeBeforeUpdate))
+            {
+                timeOfNextUpdate = System.nanoTime();
+                continue;
+            }
+
+            //Wait for the next update, if the game is behind it runs right away
+            timeOfNextUpdate += tickPeriod;
+            if (timeOfNextUpdate > System.nanoTime())
+            {
+                updateScheduler.waitUntil(timeOfNextUpdate);
+            }
+        }
+    }
+
+    /**
+     * Repeatably render, paint, and sleep such that each frame takes close to the amount of time
+     * allotted by the desired FPS (loopPeriod). Each frame draws the most recent snapshot published
+     * by the update thread, blended by how much time has passed since that update.
+     */
+    private void runRenderLoop()
+    {
+        long timeBeforeLoop; //The time measured before the game methods are called
+        long timeAfterRender; //The time measured after the game is rendered
+        long timeAfterLoop; //The time measured after the game methods complete
+        long timeDifference; //The time taken to complete run the methods (timeAfterLoop - timeBeforeLoop)
+
+        long timeToSleep = 0L; //Time left for sleeping to maintain fps (loopPeriod - timeDifference) - timeOverslept
+        long timeOverslept = 0L; //The amount of time the thread overslept
+
+        boolean frameDrawn; //Flag specifying the game was drawn this loop, the screen may not be ready yet
+        int numDelays = 0; //The number of times the thread has looped without sleeping
+        int numUpdatesSkipped; //The number of game updates the update thread dropped since the last loop
+        int numDelaysBeforeYield = 16; //Number of times the thread can loop with sleep < 0 before yielding to other threads
+
+        while (isRunning)
+        {
+            //Only redraw at the heartbeat rate while the window is inactive
+            if (throttleWhileInactive(false, true))
+            {
+                timeOverslept = 0L;
+                continue;
+            }
+
+            //Render and paint the most recent snapshot part of the way towards the next update
+            timeBeforeLoop = System.nanoTime();
+            WorldSnapshot snapshot = snapshotExchange.acquireLatest();
+            do
+            {
+                frameDrawn = gameRender(snapshot, Math.max(0.0, Math.min(1.0, (double) (timeBeforeLoop - snapshot.timeOfUpdate) / tickPeriod)));
+                timeAfterRender = System.nanoTime();
+            }
+            while (frameDrawn && !paintScreen());
+            if (frameDrawn)
+            {
+                frameShown();
+            }
+
+            //Capture the time taken to run the methods
+            timeAfterLoop = System.nanoTime();
+            timeDifference = (timeAfterLoop - timeBeforeLoop);
+
+            //Calculate time to sleep to maintain fps, taking back the time overslept last loop
+            timeToSleep = (loopPeriod - timeDifference) - timeOverslept;
+            if (timeToSleep > 0)
+            {
+                //Wait and measure how late the scheduler woke up
+                timeOverslept = frameScheduler.waitUntil(timeAfterLoop + timeToSleep);
             }
             else
             {
-                //Capture overtime and clear timeOverslept
-                overtime = overtime - timeToSleep;
+                //Clear timeOverslept
                 timeOverslept = 0L;
 
                 //Increment delays and check for yield condition
@@ -134,81 +580,250 @@ public class GamePanel extends JPanel implements Runnable
                 }
             }
 
-            //Capture the time before the next loop begins
-            timeBeforeLoop = System.nanoTime();
+            //Record where the time went, the update time is the update thread's most recent update
+            numUpdatesSkipped = numUpdatesSkippedByUpdater.getAndSet(0);
+            frameTelemetry.recordFrame(lastUpdateTime, timeAfterRender - timeBeforeLoop,
+                    timeAfterLoop - timeAfterRender, timeOverslept, numUpdatesSkipped);
+            flightRecorder.recordFrame(timeBeforeLoop, lastUpdateTime, timeAfterRender - timeBeforeLoop,
+                    timeAfterLoop - timeAfterRender, timeOverslept, numUpdatesSkipped, snapshot.numEntities);
+            if (qualityGovernor.recordFrame(timeDifference, numUpdatesSkipped))
+            {
+                game.setQualityLevel(qualityGovernor.getQualityLevel());
+            }
 
-            //Force an update if rendering is consuming too much of the loop period to maintain ups
-            numFramesSkipped = 0;
-            while ((overtime > loopPeriod) && (numFramesSkipped < framesSkippedBeforeRender))
+            //A static scene has been drawn, wait until it changes unless the snapshot drawn is older than the change
+            if (frameDrawn && game.isSceneStatic(snapshot) && waitForSceneChange(snapshot.timeOfUpdate))
             {
-                overtime = overtime - loopPeriod;
-                gameUpdate();
-                numFramesSkipped++;
+                timeOverslept = 0L;
             }
         }
-        System.exit(0);
     }
 
     /**
-     * Update the game as long as the game is not over or paused.
+     * Wait while the window is in the background or minimized. The game is not updated while it waits,
+     * in the background it is redrawn at the heartbeat rate and while minimized nothing is drawn at all.
+     * The thread that updates the game also pauses the audio until the window is active again.
+     * @param pausesAudio Flag specifying the calling thread updates the game and owns its audio.
+     * @param drawsHeartbeat Flag specifying the calling thread draws the game while in the background.
+     * @return True if the thread waited, false if the window was already active.
      */
-    private void gameUpdate()
+    private boolean throttleWhileInactive(boolean pausesAudio, boolean drawsHeartbeat)
     {
-        game.update(loopPeriod);
+        if (powerStateController.getPowerState() == PowerStateController.ACTIVE)
+        {
+            return false;
+        }
+
+        if (pausesAudio)
+        {
+            game.pauseAudio();
+        }
+        while (isRunning && powerStateController.getPowerState() != PowerStateController.ACTIVE)
+        {
+            //Redraw the paused game so the window is not left blank when uncovered
+            if (drawsHeartbeat && powerStateController.getPowerState() == PowerStateController.BACKGROUND)
+            {
+                WorldSnapshot snapshot = updateThreadEnabled ? snapshotExchange.acquireLatest() : null;
+                boolean frameDrawn;
+                do
+                {
+                    frameDrawn = gameRender(snapshot, 1.0);
+                }
+                while (frameDrawn && !paintScreen()); //Draw the frame again if it was lost
+                if (frameDrawn)
+                {
+                    frameShown();
+                }
+            }
+            powerStateController.waitWhileInactive(HEARTBEAT_PERIOD_IN_MS);
+        }
+        if (pausesAudio)
+        {
+            game.resumeAudio();
+        }
+        return true;
+    }
+
+    /**
+     * Mark a static scene as changed so that it is drawn again. Any threads
+     * waiting for the scene to change are woken up.
+     */
+    @Override
+    public void sceneChanged()
+    {
+        synchronized (sceneLock)
+        {
+            timeOfSceneChange = System.nanoTime();
+            sceneLock.notifyAll();
+        }
     }
 
     /**
-     * Render the game using double buffering. If it does not already exist, this
-     * method creates an Image the size of the GamePanel and draws to it offscreen.
-     * Drawing offscreen prevents flickering and then allows the paintScreen() method
-     * to draw the entire screen as an image rather than in layers.
+     * Wait for a static scene to change. If the scene has already changed since the passed time
+     * this returns right away, otherwise it waits for a change or for the static redraw period.
+     * @param timeOfLastDraw The time the scene was last captured or drawn (System.nanoTime()).
+     * @return True if the thread waited, false if the scene had already changed.
      */
-    private void gameRender()
+    private boolean waitForSceneChange(long timeOfLastDraw)
     {
-        //If the double buffered image is null, define it
-        if (dbImage == null)
+        synchronized (sceneLock)
         {
-            //Create double buffered image
-            dbImage = createImage(WIDTH, HEIGHT);
-            if (dbImage == null)
+            if (timeOfSceneChange - timeOfLastDraw >= 0)
             {
-                return;
+                return false;
             }
-            else
+
+            try
             {
-                //Fetch the image graphics context to enable drawing
-                dbGraphics = dbImage.getGraphics();
+                sceneLock.wait(STATIC_REDRAW_PERIOD_IN_MS);
             }
+            catch (InterruptedException exception) { /* Do nothing */ }
+            return true;
         }
+    }
 
-        //Draw the background and game
-        dbGraphics.setColor(Color.BLACK);
-        dbGraphics.fillRect(0, 0, WIDTH, HEIGHT);
-        game.draw(dbGraphics);
+    /**
+     * Update the game by a single fixed step as long as the game is not over or paused.
+     */
+    private void gameUpdate()
+    {
+        game.update(tickPeriod);
     }
 
     /**
-     * Actively render/draw the dbImage (created in gameRender()) onto the screen.
+     * Render the game offscreen. The screen renderer provides the graphics to draw into,
+     * either an image the size of the GamePanel or the back buffer of the canvas. Drawing
+     * offscreen prevents flickering and then allows the paintScreen() method
+     * to draw the entire screen at once rather than in layers.
+     * @param snapshot The snapshot of the game to draw, or null to draw the game directly.
+     * @param interpolation The fraction of a game update that has elapsed since the last update (0.0 - 1.0).
+     * @return True if the game was drawn, false if the screen was not ready.
      */
-    private void paintScreen()
+    private boolean gameRender(WorldSnapshot snapshot, double interpolation)
     {
-        try
+        //Fetch the graphics to draw into, skip this frame if the screen is not ready
+        Graphics dbGraphics = screenRenderer.getDrawGraphics();
+        if (dbGraphics == null)
         {
-            //Retrieve graphics context
-            Graphics graphics = this.getGraphics();
+            return false;
+        }
+
+        //Draw into the software renderer's framebuffer if it is enabled, or into the capture image if frames are captured
+        Graphics gameGraphics = dbGraphics;
+        if (softwareRenderer != null)
+        {
+            gameGraphics = softwareRenderer.getGraphics();
+        }
+        else if (frameCapture != null)
+        {
+            gameGraphics = frameCapture.getFrameGraphics();
+        }
+
+        //Scale the game up to the output resolution, drawing the sprites pre-scaled from the cache
+        if (scaledGraphics != null)
+        {
+            scaledGraphics.bind((Graphics2D) gameGraphics);
+            gameGraphics = scaledGraphics;
+        }
 
-            //Draw double buffered image to the panel
-            if ((graphics != null) && (dbImage != null))
+        //Draw the game at a lower resolution and scale it up if the quality governor requires it
+        if (qualityGovernor.getQualityLevel() >= QualityGovernor.LOW_RESOLUTION)
+        {
+            if (lowResolutionImage == null)
             {
-                graphics.drawImage(dbImage, 0, 0, null);
+                lowResolutionImage = new BufferedImage(viewWidth / LOW_RESOLUTION_SCALE, viewHeight / LOW_RESOLUTION_SCALE,
+                        BufferedImage.TYPE_INT_RGB);
+                lowResolutionGraphics = lowResolutionImage.createGraphics();
+                lowResolutionGraphics.scale(1.0 / LOW_RESOLUTION_SCALE, 1.0 / LOW_RESOLUTION_SCALE);
             }
-            Toolkit.getDefaultToolkit().sync(); //Sync display
-            graphics.dispose();
+            drawGame(lowResolutionGraphics, snapshot, interpolation);
+            gameGraphics.drawImage(lowResolutionImage, 0, 0, viewWidth, viewHeight, null);
         }
-        catch (NullPointerException exception)
+        else
         {
-            System.out.println("Graphics context error");
-            exception.printStackTrace();
+            drawGame(gameGraphics, snapshot, interpolation);
+        }
+
+        //Rasterize the queued draws and put the whole framebuffer on the screen at once
+        if (softwareRenderer != null)
+        {
+            softwareRenderer.flush();
+            dbGraphics.drawImage(softwareRenderer.getFramebuffer(), 0, 0, null);
+        }
+        else if (frameCapture != null)
+        {
+            dbGraphics.drawImage(frameCapture.getFrameImage(), 0, 0, null);
         }
+
+        //Draw the statistics and telemetry overlays at full resolution so they stay readable
+        Graphics overlayGraphics = dbGraphics;
+        if (spriteCache != null)
+        {
+            overlayGraphics = dbGraphics.create();
+            ((Graphics2D) overlayGraphics).scale(outputScale, outputScale);
+        }
+        drawStatistics.draw(overlayGraphics);
+        frameTelemetry.draw(overlayGraphics);
+        if (overlayGraphics != dbGraphics)
+        {
+            overlayGraphics.dispose();
+        }
+        return true;
+    }
+
+    /**
+     * Draw the background and the game.
+     * @param graphics The graphics object used to draw the game.
+     * @param snapshot The snapshot of the game to draw, or null to draw the game directly.
+     * @param interpolation The fraction of a game update that has elapsed since the last update (0.0 - 1.0).
+     */
+    private void drawGame(Graphics graphics, WorldSnapshot snapshot, double interpolation)
+    {
+        //Count the draws through a wrapper if the draw statistics are switched on
+        Graphics frameGraphics = graphics;
+        if (drawStatistics.isEnabled())
+        {
+            frameGraphics = drawStatistics.beginFrame(graphics);
+        }
+
+        frameGraphics.setColor(Color.BLACK);
+        frameGraphics.fillRect(0, 0, viewWidth, viewHeight);
+        if (snapshot != null)
+        {
+            game.draw(frameGraphics, snapshot, interpolation);
+        }
+        else
+        {
+            game.draw(frameGraphics, interpolation);
+        }
+
+        frameCounted = (frameGraphics != graphics);
+    }
+
+    /**
+     * Finish a frame once it has reached the screen. The frame is published to the capture ring, without the
+     * overlays, and its draws are added to the statistics. A frame that was lost and drawn again is only
+     * finished once, after the copy that was shown.
+     */
+    private void frameShown()
+    {
+        if (frameCapture != null)
+        {
+            frameCapture.publishFrame(softwareRenderer != null ? softwareRenderer.getFramebuffer() : frameCapture.getFrameImage());
+        }
+        if (frameCounted)
+        {
+            drawStatistics.endFrame();
+            frameCounted = false;
+        }
+    }
+
+    /**
+     * Actively render/draw the frame (created in gameRender()) onto the screen.
+     * @return True if the frame reached the screen, false if it was lost and must be rendered again.
+     */
+    private boolean paintScreen()
+    {
+        return screenRenderer.showFrame();
     }
-}
+}
\ No newline at end of file
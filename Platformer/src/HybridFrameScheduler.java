@@ -0,0 +1,78 @@
+import java.util.concurrent.locks.LockSupport;
+/**
+ * A frame scheduler that parks until shortly before the deadline and spins the rest of the way, learning how late the thread wakes.
+ */
+public class HybridFrameScheduler implements FrameScheduler
+{
+    /** The spin time that never spins, the thread parks for the entire wait (least CPU, least accurate) */
+    public static final long LOW_CPU_SPIN_TIME = 0L;
+    /** The spin time that balances CPU use against pacing accuracy (in nanos) */
+    public static final long BALANCED_SPIN_TIME = 1000000L;
+    /** The spin time that paces frames as accurately as possible (most CPU, in nanos) */
+    public static final long PRECISE_SPIN_TIME = 3000000L;
+
+    /** The oversleep estimate used before anything has been measured (in nanos) */
+    private static final long INITIAL_OVERSLEEP_ESTIMATE = 1000000L;
+    /** The weight given to each new oversleep measurement, 1/n of the difference is added to the estimate */
+    private static final int OVERSLEEP_SMOOTHING = 8;
+
+    /** The amount of time before the deadline that the thread stops parking and spins instead (in nanos) */
+    private long spinTime;
+    /** The calibrated estimate of how late the thread wakes up after parking (in nanos) */
+    private long estimatedOversleep;
+
+    /**
+     * Create a scheduler that parks the thread for most of the wait and then spins for the last stretch.
+     * The longer the spin time, the more accurately frames are paced and the more CPU is used.
+     * @param spinTimeInNanos The time spent spinning before each deadline, this should be one of the spin time constants.
+     */
+    public HybridFrameScheduler(long spinTimeInNanos)
+    {
+        spinTime = Math.max(0L, spinTimeInNanos);
+        estimatedOversleep = INITIAL_OVERSLEEP_ESTIMATE;
+    }
+
+    /**
+     * Wait until the deadline. The thread is parked until the deadline minus the spin time and the
+     * estimated oversleep, every park is measured to keep the estimate calibrated. Then the thread
+     * spins until the deadline, unless spinning is disabled.
+     * @param deadlineInNanos The System.nanoTime() to wake up at.
+     * @return The time the thread overslept past the deadline in nanos.
+     */
+    @Override
+    public long waitUntil(long deadlineInNanos)
+    {
+        //Park for the coarse part of the wait, park again if the thread woke up early
+        long timeToPark;
+        while ((timeToPark = deadlineInNanos - System.nanoTime() - spinTime - estimatedOversleep) > 0)
+        {
+            long timeBeforePark = System.nanoTime();
+            LockSupport.parkNanos(timeToPark);
+
+            //Blend the measured oversleep into the estimate, early wake ups count as no oversleep
+            long oversleep = Math.max(0L, (System.nanoTime() - timeBeforePark) - timeToPark);
+            estimatedOversleep += (oversleep - estimatedOversleep) / OVERSLEEP_SMOOTHING;
+        }
+
+        //Spin for the last stretch
+        if (spinTime > 0)
+        {
+            while (System.nanoTime() < deadlineInNanos)
+            {
+                /* Spin */
+            }
+        }
+
+        //Measure how late the thread woke up
+        return System.nanoTime() - deadlineInNanos;
+    }
+
+    /**
+     * Get the calibrated estimate of how late the thread wakes up after parking.
+     * @return The estimated oversleep in nanos.
+     */
+    public long getEstimatedOversleep()
+    {
+        return estimatedOversleep;
+    }
+}
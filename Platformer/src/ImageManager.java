@@ -17,11 +17,18 @@ public class ImageManager
     private String directory = "Images/";
     /**
      * The HashMap used to store loaded images. The key is the image name as
-     * it appeared in the file, and the object stored is an ArrayList of BufferedImages.
+     * it appeared in the file, and the object stored is an ArrayList of OptimizedImages.
      */
-    private HashMap<String, ArrayList<BufferedImage>> imageMap;
-    /** The graphics configuration describing the characteristics of the user's display */
-    private GraphicsConfiguration graphicsConfiguration;
+    private HashMap<String, ArrayList<OptimizedImage>> imageMap;
+    /**
+     * The HashMap used to store the sprites drawn by the game. The key is the image name and the object
+     * stored is an ArrayList of SpriteRegions, each referring to one image copied into the texture atlas.
+     */
+    private HashMap<String, ArrayList<SpriteRegion>> spriteMap;
+    /** The texture atlas that packs the loaded images into a few large images */
+    private TextureAtlas textureAtlas;
+    /** The name of the images config file */
+    private String configFile;
 
     /**
      * Create an ImageManager for loading images from a file located in the local Images/ directory.
@@ -29,11 +36,57 @@ public class ImageManager
      */
     public ImageManager(String imagesConfigFile)
     {
-        //Setup the image map and graphics configuration
+        //Setup the image map and texture atlas
         imageMap = new HashMap<>();
-        GraphicsEnvironment graphicsEnvironment = GraphicsEnvironment.getLocalGraphicsEnvironment();
-        graphicsConfiguration = graphicsEnvironment.getDefaultScreenDevice().getDefaultConfiguration();
-        loadImagesFromFile(imagesConfigFile);
+        spriteMap = new HashMap<>();
+        textureAtlas = new TextureAtlas();
+        configFile = imagesConfigFile;
+        loadImagesFromFile(configFile);
+        buildAtlas();
+    }
+
+    /**
+     * Read the images config file and its images again and rebuild the texture atlas. Sprites that are
+     * still in the config keep their SpriteRegion objects, so the animations and ribbons holding them
+     * draw the new images. This must not be called while the game is being drawn on another thread.
+     */
+    public void rebuildAtlas()
+    {
+        imageMap.clear();
+        loadImagesFromFile(configFile);
+        buildAtlas();
+    }
+
+    /**
+     * Pack every loaded image into the texture atlas and point the sprites in the spriteMap at them. Sprites
+     * that already exist are updated in place unless their number of images changed. The loaded images are
+     * not kept afterwards, the atlas holds the only copy.
+     */
+    private void buildAtlas()
+    {
+        //Gather the images along with the sprite regions they will be drawn through
+        ArrayList<OptimizedImage> images = new ArrayList<>();
+        ArrayList<SpriteRegion> regions = new ArrayList<>();
+        for (String imageName : imageMap.keySet())
+        {
+            ArrayList<OptimizedImage> imageList = imageMap.get(imageName);
+            ArrayList<SpriteRegion> spriteList = spriteMap.get(imageName);
+            if (spriteList == null || spriteList.size() != imageList.size())
+            {
+                spriteList = new ArrayList<>();
+                for (int i = 0; i < imageList.size(); i++)
+                {
+                    spriteList.add(new SpriteRegion(null, 0, 0, 0, 0));
+                }
+                spriteMap.put(imageName, spriteList);
+            }
+            images.addAll(imageList);
+            regions.addAll(spriteList);
+        }
+
+        //Pack the images and release the originals
+        textureAtlas.pack(images, regions);
+        imageMap.clear();
     }
 
     /**
@@ -109,13 +162,13 @@ public class ImageManager
         }
 
         //Load the image
-        BufferedImage image = loadImage(line);
+        OptimizedImage image = loadImage(line);
 
         //Store the new image in the imageMap if it is not null
         if (image != null)
         {
             //Add the new image to an new array list
-            ArrayList<BufferedImage> imageList = new ArrayList<>();
+            ArrayList<OptimizedImage> imageList = new ArrayList<>();
             imageList.add(image);
             imageMap.put(imageName, imageList);
             System.out.println("Stored " + imageName + " [" + line + "]");
@@ -149,8 +202,8 @@ public class ImageManager
         String[] lines = line.split(",");
 
         //Load the images
-        ArrayList<BufferedImage> imageList = new ArrayList<>();
-        BufferedImage loadedImage;
+        ArrayList<OptimizedImage> imageList = new ArrayList<>();
+        OptimizedImage loadedImage;
         for (int i = 0; i < lines.length; i++)
         {
             //Load the image and store it in the imageList
@@ -174,29 +227,31 @@ public class ImageManager
     }
 
     /**
-     * Loads the specified image from the line and ensures the image becomes a managed image
-     * using the computer's graphics configuration.
+     * Loads the specified image from the line, trims its transparent borders and works out the
+     * cheapest way to store it. The memory saved compared to a managed copy with the file's
+     * transparency, which is how images used to be stored, is reported to the console.
      * @param line The line containing the file to be loaded.
-     * @return The new managed BufferedImage, or null on failure.
+     * @return The optimized image, or null on failure.
      */
-    private BufferedImage loadImage(String line)
+    private OptimizedImage loadImage(String line)
     {
         try
         {
             //Read in the image and store it in a new BufferedImage
             BufferedImage readImage = ImageIO.read(getClass().getResource(directory + line));
 
-            //Create a new copy of the image to ensure it becomes a managed image
+            //Create a managed copy of the image with its source transparency to compare the optimized image against
             int transparency = readImage.getColorModel().getTransparency();
-            BufferedImage copy = graphicsConfiguration.createCompatibleImage(readImage.getWidth(),
-                    readImage.getHeight(), transparency);
+            BufferedImage copy = createCompatibleImage(readImage.getWidth(), readImage.getHeight(), transparency);
             //Create a graphics context to draw the image onto
             Graphics2D g2d = copy.createGraphics();
             g2d.drawImage(readImage, 0, 0, null);
             g2d.dispose();
 
-            //Return the new image
-            return copy;
+            //Optimize the image and report the difference
+            OptimizedImage optimizedImage = new OptimizedImage(readImage);
+            System.out.println("Optimized " + line + ": " + optimizedImage.describe(copy));
+            return optimizedImage;
         }
         catch (IOException e)
         {
@@ -215,14 +270,14 @@ public class ImageManager
      * Get the sequence of images stored under the passed imageKey (if one exists).
      * If the sequence does not exist, then this method returns null.
      * @param imageKey The name of the sequence of images.
-     * @return An arrayList of bufferedImages, or null if the key is invalid.
+     * @return An arrayList of sprite regions in the texture atlas, or null if the key is invalid.
      */
-    public ArrayList<BufferedImage> getImages(String imageKey)
+    public ArrayList<SpriteRegion> getImages(String imageKey)
     {
         //Return the stored array list, check for null
-        if (imageMap.containsKey(imageKey))
+        if (spriteMap.containsKey(imageKey))
         {
-            return (imageMap.get(imageKey));
+            return (spriteMap.get(imageKey));
         }
 
         System.out.println("No images found under '" + imageKey + "'");
@@ -236,8 +291,28 @@ public class ImageManager
      */
     public boolean imageExists(String imageName)
     {
-        //See if the imageName is a key used in the imageMap
-        return imageMap.containsKey(imageName);
+        //See if the imageName is a key used in the spriteMap
+        return spriteMap.containsKey(imageName);
     }
-}
 
+    /**
+     * Create an image that matches the display's pixel format so it can be drawn quickly and accelerated.
+     * When there is no display, such as when the game is rendered in software on a server, a plain
+     * integer RGB or ARGB image is created instead.
+     * @param width The width of the image.
+     * @param height The height of the image.
+     * @param transparency The transparency of the image, this must match the Transparency constants.
+     * @return The new image.
+     */
+    public static BufferedImage createCompatibleImage(int width, int height, int transparency)
+    {
+        if (GraphicsEnvironment.isHeadless())
+        {
+            int type = (transparency == Transparency.OPAQUE) ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+            return new BufferedImage(width, height, type);
+        }
+        GraphicsEnvironment graphicsEnvironment = GraphicsEnvironment.getLocalGraphicsEnvironment();
+        GraphicsConfiguration graphicsConfiguration = graphicsEnvironment.getDefaultScreenDevice().getDefaultConfiguration();
+        return graphicsConfiguration.createCompatibleImage(width, height, transparency);
+    }
+}
@@ -0,0 +1,81 @@
+import java.awt.*;
+/**
+ * A screen renderer that draws into an offscreen image and paints it onto a component, used when page flipping is unavailable.
+ */
+public class ImageScreenRenderer implements ScreenRenderer
+{
+    /** The component that the finished frames are painted onto */
+    private Component screen;
+    /** The Graphics used to double buffer/render the screen */
+    private Graphics dbGraphics;
+    /** The image that is created/rendered offscreen and later painted to the screen */
+    private Image dbImage;
+
+    /**
+     * Create a renderer that draws each frame into an offscreen image and then
+     * paints that image onto the screen component using its graphics context.
+     * @param screenComponent The component to paint the finished frames onto.
+     */
+    public ImageScreenRenderer(Component screenComponent)
+    {
+        screen = screenComponent;
+    }
+
+    /**
+     * Get the graphics context of the double buffered image. If it does not already exist,
+     * this method creates an Image the preferred size of the screen component, which is the
+     * size of the GamePanel scaled to the output resolution, for drawing offscreen.
+     * Drawing offscreen prevents flickering and then allows the showFrame() method
+     * to draw the entire screen as an image rather than in layers.
+     * @return The graphics context of the double buffered image, or null if it could not be created.
+     */
+    @Override
+    public Graphics getDrawGraphics()
+    {
+        //If the double buffered image is null, define it
+        if (dbImage == null)
+        {
+            //Create double buffered image
+            Dimension screenSize = screen.getPreferredSize();
+            dbImage = screen.createImage(screenSize.width, screenSize.height);
+            if (dbImage == null)
+            {
+                return null;
+            }
+            else
+            {
+                //Fetch the image graphics context to enable drawing
+                dbGraphics = dbImage.getGraphics();
+            }
+        }
+        return dbGraphics;
+    }
+
+    /**
+     * Actively render/draw the dbImage onto the screen. The image cannot be lost, so the frame is always shown.
+     * @return True, the frame was shown.
+     */
+    @Override
+    public boolean showFrame()
+    {
+        try
+        {
+            //Retrieve graphics context
+            Graphics graphics = screen.getGraphics();
+
+            //Draw double buffered image to the panel
+            if ((graphics != null) && (dbImage != null))
+            {
+                graphics.drawImage(dbImage, 0, 0, null);
+            }
+            Toolkit.getDefaultToolkit().sync(); //Sync display
+            graphics.dispose();
+        }
+        catch (NullPointerException exception)
+        {
+            System.out.println("Graphics context error");
+            exception.printStackTrace();
+        }
+        return true;
+    }
+}
@@ -1,3 +1,4 @@
+import java.awt.*;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.MouseEvent;
@@ -11,6 +12,8 @@ public class InputComponent implements KeyListener, MouseListener
 {
     /** The watcher to notify when mouse events occur */
     private MouseWatcher mouseWatcher;
+    /** The factor the game is scaled by on the screen, mouse positions are divided by it */
+    private double scale = 1.0;
     /** Maps key codes to booleans to indicate pressed keys */
     private HashMap<Integer, Boolean> keyMap;
     /** Flag specifying the left key was pressed */
@@ -73,11 +76,24 @@ public class InputComponent implements KeyListener, MouseListener
     }
 
     /**
-     * Notifies the mouse watcher whenever the mouse is pressed.
+     * Notifies the mouse watcher whenever the mouse is pressed, with the position at the game's resolution.
      * @param event The mouse event that occurred.
      */
     @Override
-    public void mousePressed(MouseEvent event) { mouseWatcher.mouseClicked(event.getPoint(), this); }
+    public void mousePressed(MouseEvent event)
+    {
+        Point position = new Point((int) (event.getX() / scale), (int) (event.getY() / scale));
+        mouseWatcher.mouseClicked(position, this);
+    }
+
+    /**
+     * Set the factor the game is scaled by on the screen, so mouse positions are reported at the game's resolution.
+     * @param screenScale The scale.
+     */
+    public void setScale(double screenScale)
+    {
+        scale = screenScale;
+    }
 
     /** This method does nothing and is not used. */
     @Override
@@ -1,4 +1,5 @@
 import javax.swing.*;
+import java.awt.Dimension;
 
 /**
  * @author Logan Karstetter
@@ -8,19 +9,62 @@ public class Launcher extends JFrame
 {
     /** The default and recommend FPS value */
     private static final int DEFAULT_FPS = 30;
-    /** The number of game cycles in a single second */
-    public static final int ONE_SECOND = DEFAULT_FPS;
+    /** The default number of game updates in a single second */
+    private static final int DEFAULT_UPS = 30;
+    /** The maximum FPS or UPS value that can be requested */
+    private static final int MAX_RATE = 240;
+    /** The maximum flight recorder hitch budget that can be requested in ms */
+    private static final int MAX_HITCH_BUDGET = 10000;
+    /** The smallest output scale that can be requested */
+    private static final double MIN_SCALE = 0.5;
+    /** The largest output scale that can be requested */
+    private static final double MAX_SCALE = 4.0;
+    /** The largest view width or height that can be requested in pixels */
+    private static final int MAX_VIEW_SIZE = 4096;
+    /** The constant representing no frames are captured */
+    private static final int CAPTURE_NONE = 0;
+    /** The constant representing frames are captured into the ring for another process to read */
+    private static final int CAPTURE_RING = 1;
+    /** The constant representing frames are captured into the ring and written out as a PNG sequence */
+    private static final int CAPTURE_PNG = 2;
+    /** The file the captured frames are mapped into */
+    private static final String CAPTURE_FILE = "frames.pkfc";
 
     /**
      * Create a launcher for launching the game.
      * @param framesPerSecond The desired FPS.
+     * @param updatesPerSecond The desired number of game updates per second.
+     * @param renderMode The way frames are put on the screen, this must match the GamePanel render constants.
+     * @param frameScheduler The scheduler that paces the game loop.
+     * @param telemetryDumpPeriod The time between frame telemetry dumps to the console in seconds, zero disables dumping.
+     * @param hitchBudget The time a frame can take before the flight recorder dumps to a file in ms, zero keeps the default.
+     * @param updateThreadEnabled Flag specifying if the game is updated on its own thread, separate from rendering.
+     * @param softwareRenderingEnabled Flag specifying if the game is drawn by the software renderer instead of Java2D.
+     * @param outputScale The factor the game is scaled by when it is put on the screen.
+     * @param viewSize The size of the view the game is played in, before it is scaled.
+     * @param captureMode The frames captured, this must match the Launcher capture constants.
      */
-    public Launcher(int framesPerSecond)
+    public Launcher(int framesPerSecond, int updatesPerSecond, int renderMode, FrameScheduler frameScheduler,
+                    int telemetryDumpPeriod, int hitchBudget, boolean updateThreadEnabled,
+                    boolean softwareRenderingEnabled, double outputScale, Dimension viewSize, int captureMode)
     {
         super("Porkchop");
 
         //Create and add the game panel
-        GamePanel gamePanel = new GamePanel(framesPerSecond);
+        GamePanel gamePanel = new GamePanel(framesPerSecond, updatesPerSecond, renderMode, viewSize.width, viewSize.height);
+        gamePanel.setFrameScheduler(frameScheduler);
+        gamePanel.setTelemetryDumpPeriod(telemetryDumpPeriod);
+        if (hitchBudget > 0)
+        {
+            gamePanel.setHitchBudget(hitchBudget);
+        }
+        gamePanel.setUpdateThreadEnabled(updateThreadEnabled);
+        gamePanel.setOutputScale(outputScale);
+        gamePanel.setSoftwareRenderingEnabled(softwareRenderingEnabled);
+        if (captureMode != CAPTURE_NONE)
+        {
+            gamePanel.startFrameCapture(CAPTURE_FILE, captureMode == CAPTURE_PNG ? "capture-" + System.currentTimeMillis() : null);
+        }
         getContentPane().add(gamePanel);
 
         //Set window data
@@ -32,13 +76,186 @@ public class Launcher extends JFrame
     }
 
     /**
-     * Start the game at the default FPS.
-     * @param args The command line argument for the FPS.
+     * Start the game at the FPS passed as a number, 60, 120 or 144 for example, or the default FPS
+     * if none is given. The game is updated 30 times a second unless -ups=N is passed, gameplay
+     * moves in real time units so neither rate changes how fast the game plays. The page flipped canvas renderer is used unless
+     * the -image argument is passed, which falls back to painting an image onto the panel.
+     * Frames are paced by parking and briefly spinning, -lowcpu disables the spinning,
+     * -precise spins longer for steadier frames, and -sleep falls back to Thread.sleep().
+     * Frame telemetry is dumped to the console every ten seconds if -telemetry is passed.
+     * The game is updated on a separate thread from rendering if -threaded is passed.
+     * The game is drawn into an integer framebuffer on the CPU, in parallel bands, if -software is passed.
+     * The window is scaled by -scale=N, 1.5 or 2 for example, with the sprites pre-scaled and cached.
+     * The game is played in a 600x600 view unless -view=WxH is passed, 1280x720 for example, showing more of the
+     * level with the menus centered, a view smaller than 600x600 is not allowed as the menus would not fit.
+     * A level shorter than the view is drawn along the top of it.
+     * Finished frames are copied into a memory mapped ring in frames.pkfc if -capture is passed and written out
+     * as a PNG sequence on a background thread, -capture=ring leaves the ring for FrameCaptureReader to drain.
+     * The flight recorder dumps the last few seconds of frames whenever a frame takes longer
+     * than 100ms, or -hitch=N ms if passed. Dumps are printed with FlightRecorderReader.
+     * @param args The command line arguments.
      */
     public static void main(String[] args)
     {
-        //Leave the FPS at 30
-        System.out.println("Running with default FPS: " + DEFAULT_FPS);
-        new Launcher(DEFAULT_FPS);
+        //Determine the frame rate, update rate, renderer and frame scheduler
+        int framesPerSecond = DEFAULT_FPS;
+        int updatesPerSecond = DEFAULT_UPS;
+        int renderMode = GamePanel.RENDER_CANVAS;
+        int telemetryDumpPeriod = 0;
+        int hitchBudget = 0;
+        boolean updateThreadEnabled = false;
+        boolean softwareRenderingEnabled = false;
+        double outputScale = 1.0;
+        Dimension viewSize = new Dimension(GamePanel.DEFAULT_WIDTH, GamePanel.DEFAULT_HEIGHT);
+        int captureMode = CAPTURE_NONE;
+        FrameScheduler frameScheduler = new HybridFrameScheduler(HybridFrameScheduler.BALANCED_SPIN_TIME);
+        for (String arg : args)
+        {
+            if (arg.equalsIgnoreCase("-image"))
+            {
+                renderMode = GamePanel.RENDER_IMAGE;
+            }
+            else if (arg.equalsIgnoreCase("-lowcpu"))
+            {
+                frameScheduler = new HybridFrameScheduler(HybridFrameScheduler.LOW_CPU_SPIN_TIME);
+            }
+            else if (arg.equalsIgnoreCase("-precise"))
+            {
+                frameScheduler = new HybridFrameScheduler(HybridFrameScheduler.PRECISE_SPIN_TIME);
+            }
+            else if (arg.equalsIgnoreCase("-sleep"))
+            {
+                frameScheduler = new SleepFrameScheduler();
+            }
+            else if (arg.equalsIgnoreCase("-telemetry"))
+            {
+                telemetryDumpPeriod = 10;
+            }
+            else if (arg.equalsIgnoreCase("-threaded"))
+            {
+                updateThreadEnabled = true;
+            }
+            else if (arg.equalsIgnoreCase("-software"))
+            {
+                softwareRenderingEnabled = true;
+            }
+            else if (arg.toLowerCase().startsWith("-hitch="))
+            {
+                hitchBudget = parseNumber(arg.substring(7), MAX_HITCH_BUDGET, 0);
+            }
+            else if (arg.equalsIgnoreCase("-capture"))
+            {
+                captureMode = CAPTURE_PNG;
+            }
+            else if (arg.equalsIgnoreCase("-capture=ring"))
+            {
+                captureMode = CAPTURE_RING;
+            }
+            else if (arg.toLowerCase().startsWith("-scale="))
+            {
+                outputScale = parseScale(arg.substring(7));
+            }
+            else if (arg.toLowerCase().startsWith("-view="))
+            {
+                viewSize = parseView(arg.substring(6));
+            }
+            else if (arg.toLowerCase().startsWith("-ups="))
+            {
+                updatesPerSecond = parseNumber(arg.substring(5), MAX_RATE, DEFAULT_UPS);
+            }
+            else
+            {
+                framesPerSecond = parseNumber(arg, MAX_RATE, DEFAULT_FPS);
+            }
+        }
+
+        System.out.println("Running with FPS: " + framesPerSecond);
+        System.out.println("Running with UPS: " + updatesPerSecond);
+        System.out.println("Running with renderer: " + (renderMode == GamePanel.RENDER_CANVAS ? "canvas" : "image")
+                + (softwareRenderingEnabled ? " (software)" : ""));
+        System.out.println("Running with scale: " + outputScale);
+        System.out.println("Running with view: " + viewSize.width + "x" + viewSize.height);
+        new Launcher(framesPerSecond, updatesPerSecond, renderMode, frameScheduler, telemetryDumpPeriod, hitchBudget,
+                updateThreadEnabled, softwareRenderingEnabled, outputScale, viewSize, captureMode);
+    }
+
+    /**
+     * Parse a positive number from a command line argument, such as a frame rate. If the argument
+     * is not a number between one and the maximum value, the default value is returned.
+     * @param arg The command line argument to parse.
+     * @param maxValue The largest value allowed.
+     * @param defaultValue The value to use if the argument is invalid.
+     * @return The parsed value.
+     */
+    private static int parseNumber(String arg, int maxValue, int defaultValue)
+    {
+        try
+        {
+            int value = Integer.parseInt(arg);
+            if (value >= 1 && value <= maxValue)
+            {
+                return value;
+            }
+        }
+        catch (NumberFormatException exception)
+        {
+            //Fall through to the default value
+        }
+        System.out.println("Ignoring invalid argument: " + arg);
+        return defaultValue;
+    }
+
+    /**
+     * Parse the output scale from a command line argument. If the argument is not a
+     * number between MIN_SCALE and MAX_SCALE, the game is not scaled.
+     * @param arg The command line argument to parse.
+     * @return The parsed scale.
+     */
+    private static double parseScale(String arg)
+    {
+        try
+        {
+            double scale = Double.parseDouble(arg);
+            if (scale >= MIN_SCALE && scale <= MAX_SCALE)
+            {
+                return scale;
+            }
+        }
+        catch (NumberFormatException exception)
+        {
+            //Fall through to no scaling
+        }
+        System.out.println("Ignoring invalid argument: -scale=" + arg);
+        return 1.0;
+    }
+
+    /**
+     * Parse the view size from a command line argument written as WIDTHxHEIGHT. If the argument is not
+     * two numbers between the default view size and MAX_VIEW_SIZE, the default view size is used.
+     * @param arg The command line argument to parse.
+     * @return The parsed view size.
+     */
+    private static Dimension parseView(String arg)
+    {
+        String[] lengths = arg.toLowerCase().split("x");
+        if (lengths.length == 2)
+        {
+            try
+            {
+                int width = Integer.parseInt(lengths[0]);
+                int height = Integer.parseInt(lengths[1]);
+                if (width >= GamePanel.DEFAULT_WIDTH && width <= MAX_VIEW_SIZE
+                        && height >= GamePanel.DEFAULT_HEIGHT && height <= MAX_VIEW_SIZE)
+                {
+                    return new Dimension(width, height);
+                }
+            }
+            catch (NumberFormatException exception)
+            {
+                //Fall through to the default view
+            }
+        }
+        System.out.println("Ignoring invalid argument: -view=" + arg);
+        return new Dimension(GamePanel.DEFAULT_WIDTH, GamePanel.DEFAULT_HEIGHT);
     }
 }
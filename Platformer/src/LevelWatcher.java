@@ -7,9 +7,6 @@ public interface LevelWatcher
     /** Called by the game once the player has triggered the easter egg */
     void activateEasterEgg();
 
-    /** Called by the game once the player has changed movement directions */
-    void changeRibbonScrollDirection(int newScrollDirection);
-
     /** This method is called by the Game once the player has encountered the event block for triggering a level change */
     void changeToNextLevel(InputComponent inputComponent);
 
@@ -25,6 +25,8 @@ public class MidiManager implements MetaEventListener
     private SoundWatcher sequenceWatcher;
     /** Flag specifiying if the music is enabled or disabled */
     private boolean musicEnabled;
+    /** The flight recorder that audio commands are recorded in */
+    private FlightRecorder flightRecorder;
 
     /**
      * Create a new MidiManager that loads and manages midi sequences
@@ -199,6 +201,7 @@ public class MidiManager implements MetaEventListener
             }
 
             //Set the sequence
+            recordCommand(FlightRecorder.MUSIC_PLAYED);
             currentSequence = sequenceMap.get(sequenceName);
             //Only play the new sequence if the music is enabled
             if (musicEnabled)
@@ -223,6 +226,7 @@ public class MidiManager implements MetaEventListener
         //Pause the sequence
         if (currentSequence != null)
         {
+            recordCommand(FlightRecorder.MUSIC_PAUSED);
             currentSequence.pause();
         }
     }
@@ -237,6 +241,7 @@ public class MidiManager implements MetaEventListener
             //Resume the sequence
             if (currentSequence != null)
             {
+                recordCommand(FlightRecorder.MUSIC_RESUMED);
                 currentSequence.resume();
             }
         }
@@ -297,6 +302,27 @@ public class MidiManager implements MetaEventListener
         }
     }
 
+    /**
+     * Record an audio command in the flight recorder, if there is one.
+     * @param command The command, this must be one of the FlightRecorder event constants.
+     */
+    private void recordCommand(int command)
+    {
+        if (flightRecorder != null)
+        {
+            flightRecorder.recordEvent(command);
+        }
+    }
+
+    /**
+     * Set the flight recorder that audio commands are recorded in.
+     * @param recorder The flight recorder.
+     */
+    public void setFlightRecorder(FlightRecorder recorder)
+    {
+        flightRecorder = recorder;
+    }
+
     /**
      * Set a sequence watcher to be notified when sequences end.
      * @param midiSequenceWatcher The sequence watcher.
@@ -306,6 +332,15 @@ public class MidiManager implements MetaEventListener
         sequenceWatcher = midiSequenceWatcher;
     }
 
+    /**
+     * Is a sequence currently playing?
+     * @return True if the sequencer is running, false otherwise.
+     */
+    public boolean isPlaying()
+    {
+        return sequencer != null && sequencer.isRunning();
+    }
+
     /**
      * Is music enabled or disabled?
      * @return True if music is enabled, false otherwise.
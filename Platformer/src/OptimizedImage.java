@@ -0,0 +1,306 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.IndexColorModel;
+import java.awt.image.WritableRaster;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+/**
+ * Trims, reclassifies and palettizes images when they are loaded so they draw faster.
+ */
+public class OptimizedImage
+{
+    /** The most colors an image can have and still be stored with a palette, one index is kept for transparency */
+    public static final int MAX_PALETTE_COLORS = 255;
+    /** The names of the transparency types, indexed by the Transparency constants */
+    private static final String[] TRANSPARENCY_NAMES = { "", "OPAQUE", "BITMASK", "TRANSLUCENT" };
+
+    /** The image trimmed to its visible pixels, or null if it has none */
+    private BufferedImage image;
+    /** The x position of the trimmed image within the original image */
+    private int offsetX;
+    /** The y position of the trimmed image within the original image */
+    private int offsetY;
+    /** The width of the original image */
+    private int width;
+    /** The height of the original image */
+    private int height;
+    /** The transparency the image actually needs, this matches the Transparency constants */
+    private int transparency;
+    /** The colors of the visible pixels, or null if there are more than MAX_PALETTE_COLORS */
+    private int[] colors;
+
+    /**
+     * Analyse an image and trim off its fully transparent borders. The image is reclassified as
+     * OPAQUE if every pixel is opaque, or BITMASK if every pixel is either opaque or fully transparent.
+     * The colors of the visible pixels are recorded if there are few enough to store with a palette.
+     * @param source The image as it was read from its file.
+     */
+    public OptimizedImage(BufferedImage source)
+    {
+        width = source.getWidth();
+        height = source.getHeight();
+        int[] pixels = source.getRGB(0, 0, width, height, null, 0, width);
+
+        //Find the bounds of the visible pixels, whether any are partly transparent, and their colors
+        int left = width, top = height, right = -1, bottom = -1;
+        boolean hasPartialAlpha = false;
+        LinkedHashSet<Integer> colorSet = new LinkedHashSet<>();
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                int pixel = pixels[y * width + x];
+                int alpha = pixel >>> 24;
+                if (alpha == 0)
+                {
+                    continue;
+                }
+                left = Math.min(left, x);
+                top = Math.min(top, y);
+                right = Math.max(right, x);
+                bottom = Math.max(bottom, y);
+                if (alpha != 0xFF)
+                {
+                    hasPartialAlpha = true;
+                }
+                if (colorSet.size() <= MAX_PALETTE_COLORS)
+                {
+                    colorSet.add(pixel);
+                }
+            }
+        }
+
+        //Check for transparent pixels left inside the trimmed bounds
+        boolean hasTransparentPixels = false;
+        for (int y = top; y <= bottom && !hasTransparentPixels; y++)
+        {
+            for (int x = left; x <= right; x++)
+            {
+                if ((pixels[y * width + x] >>> 24) == 0)
+                {
+                    hasTransparentPixels = true;
+                    break;
+                }
+            }
+        }
+
+        //Classify the transparency of the trimmed image, keep the palette only if the image is not translucent
+        if (hasPartialAlpha)
+        {
+            transparency = Transparency.TRANSLUCENT;
+        }
+        else if (hasTransparentPixels || right < 0)
+        {
+            transparency = Transparency.BITMASK;
+        }
+        else
+        {
+            transparency = Transparency.OPAQUE;
+        }
+        if (!hasPartialAlpha && colorSet.size() <= MAX_PALETTE_COLORS)
+        {
+            colors = new int[colorSet.size()];
+            int i = 0;
+            for (int color : colorSet)
+            {
+                colors[i++] = color;
+            }
+        }
+
+        //Copy the visible pixels, an image without any is left empty
+        if (right >= 0)
+        {
+            offsetX = left;
+            offsetY = top;
+            image = new BufferedImage(right - left + 1, bottom - top + 1, BufferedImage.TYPE_INT_ARGB);
+            image.setRGB(0, 0, image.getWidth(), image.getHeight(), pixels, top * width + left, width);
+        }
+    }
+
+    /**
+     * Create a palette holding a set of colors. Index 0 is fully transparent if requested and the colors follow it.
+     * @param paletteColors The colors, there must be at most MAX_PALETTE_COLORS of them.
+     * @param hasTransparentIndex Flag specifying the palette needs a transparent index.
+     * @return The palette.
+     */
+    public static IndexColorModel createPalette(int[] paletteColors, boolean hasTransparentIndex)
+    {
+        int first = hasTransparentIndex ? 1 : 0;
+        int[] entries = new int[Math.max(1, paletteColors.length + first)];
+        System.arraycopy(paletteColors, 0, entries, first, paletteColors.length);
+        return new IndexColorModel(8, entries.length, entries, 0, false, hasTransparentIndex ? 0 : -1, DataBuffer.TYPE_BYTE);
+    }
+
+    /**
+     * Write the trimmed image into the raster of a palette image.
+     * @param raster The raster of the palette image.
+     * @param x The x position to write the image at.
+     * @param y The y position to write the image at.
+     * @param colorIndices The palette index of each color, transparent pixels are written as index 0.
+     */
+    public void writeIndices(WritableRaster raster, int x, int y, HashMap<Integer, Integer> colorIndices)
+    {
+        if (image == null)
+        {
+            return;
+        }
+        for (int row = 0; row < image.getHeight(); row++)
+        {
+            for (int column = 0; column < image.getWidth(); column++)
+            {
+                int pixel = image.getRGB(column, row);
+                raster.setSample(x + column, y + row, 0, ((pixel >>> 24) == 0) ? 0 : colorIndices.get(pixel));
+            }
+        }
+    }
+
+    /**
+     * Create a standalone copy of the trimmed image in the cheapest format that keeps every pixel exact,
+     * a palette image if the colors allow it or otherwise a compatible image with the reclassified transparency.
+     * @return The copy, or null if the image has no visible pixels.
+     */
+    public BufferedImage createStorageImage()
+    {
+        if (image == null)
+        {
+            return null;
+        }
+        if (colors != null)
+        {
+            HashMap<Integer, Integer> colorIndices = new HashMap<>();
+            int first = (transparency == Transparency.OPAQUE) ? 0 : 1;
+            for (int i = 0; i < colors.length; i++)
+            {
+                colorIndices.put(colors[i], i + first);
+            }
+            BufferedImage paletteImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_INDEXED,
+                    createPalette(colors, first == 1));
+            writeIndices(paletteImage.getRaster(), 0, 0, colorIndices);
+            return paletteImage;
+        }
+        BufferedImage copy = ImageManager.createCompatibleImage(image.getWidth(), image.getHeight(), transparency);
+        Graphics2D g2d = copy.createGraphics();
+        g2d.drawImage(image, 0, 0, null);
+        g2d.dispose();
+        return copy;
+    }
+
+    /**
+     * Describe how much memory the optimization saves. AtlasBlitBenchmark measures how it changes the speed of
+     * drawing the image, timing blits here would slow down every load and time the image outside of its atlas page.
+     * @param original The image as it was stored before being optimized.
+     * @return The description.
+     */
+    public String describe(BufferedImage original)
+    {
+        BufferedImage optimized = createStorageImage();
+        long originalBytes = getNumBytes(original);
+        long optimizedBytes = getNumBytes(optimized);
+        return String.format("%dx%d %s -> %dx%d %s%s, %d -> %d bytes", width, height,
+                TRANSPARENCY_NAMES[original.getTransparency()], getTrimmedWidth(), getTrimmedHeight(),
+                TRANSPARENCY_NAMES[transparency], (colors != null) ? " palette of " + colors.length : "",
+                originalBytes, optimizedBytes);
+    }
+
+    /**
+     * Find the memory used by an image's pixels and palette.
+     * @param storedImage The image, or null for an empty image.
+     * @return The number of bytes.
+     */
+    private static long getNumBytes(BufferedImage storedImage)
+    {
+        if (storedImage == null)
+        {
+            return 0;
+        }
+        DataBuffer dataBuffer = storedImage.getRaster().getDataBuffer();
+        long bytes = (long) dataBuffer.getSize() * dataBuffer.getNumBanks() * DataBuffer.getDataTypeSize(dataBuffer.getDataType()) / 8;
+        if (storedImage.getColorModel() instanceof IndexColorModel)
+        {
+            bytes += ((IndexColorModel) storedImage.getColorModel()).getMapSize() * 4;
+        }
+        return bytes;
+    }
+
+    /**
+     * Get the image trimmed to its visible pixels.
+     * @return The trimmed image, or null if the image has no visible pixels.
+     */
+    public BufferedImage getImage()
+    {
+        return image;
+    }
+
+    /**
+     * Get the x position of the trimmed image within the original image.
+     * @return The x offset in pixels.
+     */
+    public int getOffsetX()
+    {
+        return offsetX;
+    }
+
+    /**
+     * Get the y position of the trimmed image within the original image.
+     * @return The y offset in pixels.
+     */
+    public int getOffsetY()
+    {
+        return offsetY;
+    }
+
+    /**
+     * Get the width of the original image.
+     * @return The width in pixels.
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+
+    /**
+     * Get the height of the original image.
+     * @return The height in pixels.
+     */
+    public int getHeight()
+    {
+        return height;
+    }
+
+    /**
+     * Get the width of the trimmed image.
+     * @return The width in pixels, zero if the image has no visible pixels.
+     */
+    public int getTrimmedWidth()
+    {
+        return (image != null) ? image.getWidth() : 0;
+    }
+
+    /**
+     * Get the height of the trimmed image.
+     * @return The height in pixels, zero if the image has no visible pixels.
+     */
+    public int getTrimmedHeight()
+    {
+        return (image != null) ? image.getHeight() : 0;
+    }
+
+    /**
+     * Get the transparency the image needs.
+     * @return The transparency, this matches the Transparency constants.
+     */
+    public int getTransparency()
+    {
+        return transparency;
+    }
+
+    /**
+     * Get the colors of the visible pixels.
+     * @return The colors, or null if there are too many to store with a palette or the image is translucent.
+     */
+    public int[] getColors()
+    {
+        return colors;
+    }
+}
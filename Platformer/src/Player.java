@@ -6,11 +6,15 @@ import java.util.HashMap;
  */
 public class Player extends Entity
 {
-    /** The maximum number of game cycles that the player can be rising without falling */
-    private static final int MAX_JUMPING_UPDATES = 14;
+    /** The upward velocity the player jumps with, it rises just over a block (in pixels per second) */
+    private static final int JUMP_VELOCITY = 305;
+    /** The upward velocity the player is given for landing on an enemy, it rises about a block and a half (in pixels per second) */
+    private static final int STOMP_BOOST_VELOCITY = 356;
+    /** The downward acceleration of the player, it reaches the top of a jump in 0.46 seconds (in pixels per second, per second) */
+    private static final int GRAVITY = 667;
+    /** The fastest the player can fall (in pixels per second) */
+    private static final int TERMINAL_VELOCITY = 150;
 
-    /** The number of updates where the player has been jumping */
-    private int numOfJumpingUpdates;
     /** The inputComponent that process user input */
     private InputComponent inputComponent;
     /** The soundManager that plays game sounds */
@@ -20,7 +24,7 @@ public class Player extends Entity
      * Create a new player.
      * @param x The x spawn position of the player.
      * @param y The y spawn position of the player.
-     * @param speedInPixels The player's movement speed in pixels.
+     * @param speedInPixels The player's movement speed in pixels per second.
      * @param defaultGraphicsState The default graphics state that the player assumes.
      * @param playerSpecificGraphics The map of graphics states and animations for the player.
      * @param playerInputComponent The inputComponent that processes user input.
@@ -31,8 +35,9 @@ public class Player extends Entity
     {
         //Set class data
         state = NORMAL_STATE;
-        numOfJumpingUpdates = 0;
         elapsedAnimationTimeInMs = 0L;
+        gravity = GRAVITY * SUBPIXELS_PER_PIXEL;
+        terminalVelocity = TERMINAL_VELOCITY * SUBPIXELS_PER_PIXEL;
         direction = Entity.RIGHT;
         waitingForAnimation = false;
 
@@ -46,68 +51,75 @@ public class Player extends Entity
 
         //Store the player spawn point for re-spawning
         spawnPoint = new Point(x, y);
+        previousLocation = new Point(x, y);
     }
 
     /**
      * Update the player. This method updates processes user input, updates the player's animations,
      * moves the player, and finally returns the player's new location.
-     * @param blockMap The grid of id's specifying which blocks are solid and which are not.
+     * @param blockMap The map of blocks specifying which blocks are solid and which are not.
      * @param enemies The enemies present in the current level.
-     * @param numOfEnemies The number of enemies.
-     * @param eventBlocks The number of event blocks in the current level.
-     * @param numEventBlocks The number of event blocks.
-     * @param ribbons The ribbons draw in the background of the current level.
-     * @param numRibbons The number of ribbons.
-     * @param loopPeriodInMs The loop period of the game cycle.
+     * @param enemyGrid The grid used to find the enemies near the player.
+     * @param eventBlocks The event blocks present in the current level.
+     * @param eventBlockGrid The grid used to find the event blocks near the player.
+     * @param loopPeriodInNanos The loop period of the game cycle in nanoseconds.
      * @return The player's new position.
      */
-    public Point update(int[][] blockMap, Enemy[] enemies, int numOfEnemies, EventBlock[] eventBlocks,
-                        int numEventBlocks, Ribbon[] ribbons, int numRibbons, long loopPeriodInMs)
+    public Point update(TileMap blockMap, Enemy[] enemies, CollisionGrid enemyGrid, EventBlock[] eventBlocks,
+                        CollisionGrid eventBlockGrid, long loopPeriodInNanos)
     {
-        //Process user input and update the animations
+        //Remember where the player was before moving, then process user input and update the animations
+        storePreviousLocation();
         inputComponent.update();
-        elapsedAnimationTimeInMs = graphicsMap.get(graphicsState).update(loopPeriodInMs, elapsedAnimationTimeInMs);
+        elapsedAnimationTimeInMs = graphicsMap.get(graphicsState).update(loopPeriodInNanos / 1000000, elapsedAnimationTimeInMs);
 
         //If the animation has ended, set waiting for animation to false and reset the elapsed time
         if (elapsedAnimationTimeInMs == Animation.ANIMATION_ENDED && waitingForAnimation)
         {
             waitingForAnimation = false;
         }
-        move(blockMap, enemies, numOfEnemies, eventBlocks, numEventBlocks, ribbons, numRibbons);
+        move(blockMap, enemies, enemyGrid, eventBlocks, eventBlockGrid, loopPeriodInNanos);
         return boundingBox.getLocation();
     }
 
     /**
      * Move the player and check for collisions according to its state.
-     * @param blockMap The grid of id's specifying which blocks are solid and which are not.
+     * @param blockMap The map of blocks specifying which blocks are solid and which are not.
      * @param enemies The enemies present in the current level.
-     * @param numEnemies The number of enemies.
-     * @param eventBlocks The number of event blocks in the current level.
-     * @param numEventBlocks The number of event blocks.
-     * @param ribbons The ribbons draw in the background of the current level.
-     * @param numRibbons The number of ribbons.
+     * @param enemyGrid The grid used to find the enemies near the player.
+     * @param eventBlocks The event blocks present in the current level.
+     * @param eventBlockGrid The grid used to find the event blocks near the player.
+     * @param loopPeriodInNanos The loop period of the game cycle in nanoseconds.
      */
-    private void move(int[][] blockMap, Enemy[] enemies, int numEnemies, EventBlock[] eventBlocks,
-                      int numEventBlocks, Ribbon[] ribbons, int numRibbons)
+    private void move(TileMap blockMap, Enemy[] enemies, CollisionGrid enemyGrid, EventBlock[] eventBlocks,
+                      CollisionGrid eventBlockGrid, long loopPeriodInNanos)
     {
         //Check for collisions, then move if not dead
         if (state != DEAD_STATE)
         {
             //Determine if the player has encountered any enemies or event blocks
-            checkEnemyCollisions(enemies, numEnemies);
-            if (checkEventBlockCollisions(eventBlocks, numEventBlocks))
+            checkEnemyCollisions(enemies, enemyGrid);
+            if (checkEventBlockCollisions(eventBlocks, eventBlockGrid))
                 return; //If a new level has loaded, skip the movement this update
 
-            //Default ribbons to not scroll
-            levelWatcher.changeRibbonScrollDirection(Ribbon.SCROLL_STILL);
+            //Set the horizontal velocity from the user input, then attempt to move
+            if (inputComponent.left)
+            {
+                velocityX = -speed * SUBPIXELS_PER_PIXEL;
+            }
+            else if (inputComponent.right)
+            {
+                velocityX = speed * SUBPIXELS_PER_PIXEL;
+            }
+            else
+            {
+                velocityX = 0;
+            }
+            moveHorizontal(blockMap, loopPeriodInNanos);
 
-            //Attempt to move depending on direction
+            //Update the graphics depending on direction
             if (inputComponent.left)
             {
-                if (!moveHorizontal(blockMap, -speed)) //Move ribbons only if there was no collision
-                {
-                    levelWatcher.changeRibbonScrollDirection(Ribbon.SCROLL_RIGHT);
-                }
                 if (state != FALLING_STATE && state != JUMPING_STATE) //Graphics change
                 {
                     setGraphicsState(Entity.MOVE_LEFT_GRAPHICS);
@@ -116,10 +128,6 @@ public class Player extends Entity
             }
             else if (inputComponent.right)
             {
-                if (!moveHorizontal(blockMap, speed)) //Move ribbons only if there was no collision
-                {
-                    levelWatcher.changeRibbonScrollDirection(Ribbon.SCROLL_LEFT);
-                }
                 if (state != FALLING_STATE && state != JUMPING_STATE)
                 {
                     setGraphicsState(Entity.MOVE_RIGHT_GRAPHICS);
@@ -140,48 +148,22 @@ public class Player extends Entity
         }
 
         //Determine vertical movement
-        if (state == NORMAL_STATE)
-        {
-            //Make the player fall if it is standing on thin air
-            moveVertical(blockMap, speed);
-
-            //Player is on the ground
-            if (state == NORMAL_STATE)
-            {
-                //Attempt to jump upwards
-                if (inputComponent.up)
-                {
-                    moveVertical(blockMap, -speed);
-                    numOfJumpingUpdates++;
-                    setGraphicsState(state, direction, false);
-                }
-            }
-            else if (state == FALLING_STATE) //Started falling
-            {
-                setGraphicsState(state, direction, false);
-            }
-        }
-        else if (state == JUMPING_STATE)
+        if (state != DEAD_STATE)
         {
-            //Continue jumping if possible
-            if (numOfJumpingUpdates < MAX_JUMPING_UPDATES)
+            //Attempt to jump if the player is on the ground
+            if (state == NORMAL_STATE && inputComponent.up)
             {
-                moveVertical(blockMap, -speed);
-                numOfJumpingUpdates++;
+                velocityY = -JUMP_VELOCITY * SUBPIXELS_PER_PIXEL;
             }
-            else //Max height reached
+
+            //Rise or fall, update the graphics while the player is in the air and when it lands
+            int previousState = state;
+            moveVertical(blockMap, loopPeriodInNanos);
+            if (state != DEAD_STATE && (state != NORMAL_STATE || previousState != NORMAL_STATE))
             {
-                state = FALLING_STATE;
                 setGraphicsState(state, direction, false);
             }
         }
-        else if (state == FALLING_STATE)
-        {
-            //Clear jumping update counter
-            numOfJumpingUpdates = 0;
-            moveVertical(blockMap, speed);
-            setGraphicsState(state, direction, false);
-        }
         else if (state == DEAD_STATE)
         {
             //Wait for the death animation to finish before re-spawning
@@ -197,7 +179,6 @@ public class Player extends Entity
                 //Play the death sound
                 soundManager.playSound("Poof", false);
             }
-            levelWatcher.changeRibbonScrollDirection(Ribbon.SCROLL_STILL);
 
             if (!waitingForAnimation)
             {
@@ -206,8 +187,9 @@ public class Player extends Entity
 
                 //Reset player data
                 state = NORMAL_STATE;
-                numOfJumpingUpdates = 0;
+                stopMoving();
                 boundingBox.setLocation(spawnPoint);
+                previousLocation.setLocation(spawnPoint); //Don't draw the player sliding back to the spawn point
                 setGraphicsState(Entity.IDLE_RIGHT_GRAPHICS);
             }
         }
@@ -216,18 +198,18 @@ public class Player extends Entity
     /**
      * Check if the enemy has collided with an enemies. If the player has collided with
      * an enemy, but either jumped/fell on top of them, then the enemy will be killed. Otherwise,
-     * the player will be killed.
+     * the player will be killed. Only the enemies the grid finds near the player are checked.
      * @param enemies The enemies present in the current level.
-     * @param numEnemies The number of enemies.
+     * @param enemyGrid The grid used to find the enemies near the player.
      */
-    private void checkEnemyCollisions(Enemy[] enemies, int numEnemies)
+    private void checkEnemyCollisions(Enemy[] enemies, CollisionGrid enemyGrid)
     {
-        for (int i = 0; i < numEnemies; i++)
+        int numNearbyEnemies = enemyGrid.query(boundingBox);
+        for (int n = 0; n < numNearbyEnemies; n++)
         {
+            int i = enemyGrid.getResult(n);
             if (checkCollision(enemies[i].boundingBox, 10) && enemies[i].getEntityState() != DEAD_STATE)
             {
-                numOfJumpingUpdates = 0; //Clear jumping
-
                 //If the player has landed on the enemy, kill the enemy
                 if ((boundingBox.y + boundingBox.height/2) <= enemies[i].boundingBox.y)
                 {
@@ -237,7 +219,7 @@ public class Player extends Entity
                     state = JUMPING_STATE;
 
                     //Give the player an extra boost
-                    numOfJumpingUpdates = -5;
+                    velocityY = -STOMP_BOOST_VELOCITY * SUBPIXELS_PER_PIXEL;
                 }
                 else //Kill the player
                 {
@@ -248,15 +230,17 @@ public class Player extends Entity
     }
 
     /**
-     * Check if the player has interacted with any event blocks.
-     * @param eventBlocks The number of event blocks in the current level.
-     * @param numEventBlocks The number of event blocks.
+     * Check if the player has interacted with any event blocks. Only the event blocks the grid finds near the player are checked.
+     * @param eventBlocks The event blocks present in the current level.
+     * @param eventBlockGrid The grid used to find the event blocks near the player.
      * @return True if the player has triggered the start of the next level, false otherwise.
      */
-    private boolean checkEventBlockCollisions(EventBlock[] eventBlocks, int numEventBlocks)
+    private boolean checkEventBlockCollisions(EventBlock[] eventBlocks, CollisionGrid eventBlockGrid)
     {
-        for (int i = 0; i < numEventBlocks; i++)
+        int numNearbyBlocks = eventBlockGrid.query(boundingBox);
+        for (int n = 0; n < numNearbyBlocks; n++)
         {
+            int i = eventBlockGrid.getResult(n);
             if (checkCollision(eventBlocks[i].getBoundingBox(), 30))
             {
                 //Perform various actions depending on the block type
@@ -293,13 +277,23 @@ public class Player extends Entity
     }
 
     /**
-     * Draw the player.
-     * @param dbGraphics The graphics object used to draw the player.
+     * Add the player to a snapshot.
+     * @param snapshot The snapshot being captured.
+     */
+    public void captureSnapshot(WorldSnapshot snapshot)
+    {
+        captureSprite(snapshot, RenderQueue.PLAYER_LAYER);
+    }
+
+    /**
+     * Queue the player to be drawn between its previous and current position.
+     * @param renderQueue The render queue the player is submitted to.
      * @param xOffset The x offset added to the player's x coordinate to determine where to draw it.
      * @param yOffset The y offset added to the player's y coordinate to determine where to draw it.
+     * @param interpolation The fraction of a game update that has elapsed since the last update (0.0 - 1.0).
      */
-    public void draw(Graphics dbGraphics, int xOffset, int yOffset)
+    public void submit(RenderQueue renderQueue, int xOffset, int yOffset, double interpolation)
     {
-        graphicsMap.get(graphicsState).draw(dbGraphics, boundingBox.x + xOffset, boundingBox.y + yOffset, elapsedAnimationTimeInMs);
+        submitSprite(renderQueue, xOffset, yOffset, interpolation, RenderQueue.PLAYER_LAYER);
     }
 }
@@ -0,0 +1,149 @@
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+/**
+ * Drains the frames in a capture ring into a sequence of numbered PNG files.
+ */
+public class PngSequenceWriter implements Runnable
+{
+    /** The time waited for a new frame when the writer has caught up with the game (in ms) */
+    private static final long POLL_PERIOD_IN_MS = 5L;
+    /** The shortest time between two reports of dropped frames (in nanos) */
+    private static final long REPORT_PERIOD = 1000000000L;
+
+    /** The reader the frames are read from */
+    private FrameCaptureReader reader;
+    /** The directory the PNGs are written into */
+    private File outputDirectory;
+    /** The image each frame is copied into before it is encoded */
+    private BufferedImage frameImage;
+    /** The pixels of the frame image */
+    private int[] framePixels;
+    /** Flag specifying the writer is running */
+    private volatile boolean isRunning;
+    /** The number of frames written */
+    private long numFramesWritten;
+    /** The number of frames dropped because they were overwritten before they were read */
+    private long numFramesDropped;
+    /** The number of frames dropped when dropped frames were last reported */
+    private long numFramesReported;
+    /** The time dropped frames were last reported */
+    private long timeOfLastReport;
+
+    /**
+     * Create a writer that drains the frames in a capture ring into a sequence of PNG files named after
+     * their sequence numbers, so any gaps in the sequence are the frames that were dropped.
+     * @param frameReader The reader the frames are read from.
+     * @param directory The directory the PNGs are written into, it is created if it does not exist.
+     */
+    public PngSequenceWriter(FrameCaptureReader frameReader, File directory)
+    {
+        reader = frameReader;
+        outputDirectory = directory;
+        frameImage = new BufferedImage(reader.getWidth(), reader.getHeight(), BufferedImage.TYPE_INT_RGB);
+        framePixels = ((DataBufferInt) frameImage.getRaster().getDataBuffer()).getData();
+        timeOfLastReport = System.nanoTime() - REPORT_PERIOD;
+        isRunning = true;
+    }
+
+    /**
+     * Start writing the frames on a background thread, the thread does not keep the game running once it exits.
+     */
+    public void start()
+    {
+        Thread writer = new Thread(this, "PNG sequence writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Stop writing frames once the current frame is written.
+     */
+    public void stop()
+    {
+        isRunning = false;
+    }
+
+    /**
+     * Write every frame published from now on until the writer is stopped. Encoding a PNG can take longer than
+     * the game takes to draw a frame, so when the writer falls more than a ring behind it skips ahead to the
+     * oldest frame that is still safe to read, and the skipped frames are reported as dropped.
+     */
+    @Override
+    public void run()
+    {
+        outputDirectory.mkdirs();
+        long nextSequence = Math.max(1L, reader.getLatestSequence());
+        while (isRunning)
+        {
+            //Wait for the game to publish the next frame
+            long latestSequence = reader.getLatestSequence();
+            if (latestSequence < nextSequence)
+            {
+                try
+                {
+                    Thread.sleep(POLL_PERIOD_IN_MS);
+                }
+                catch (InterruptedException exception) { /* Do nothing */ }
+                continue;
+            }
+
+            //Skip the frames that have been or are about to be overwritten, the slot after the latest may be written now
+            long oldestSafeSequence = latestSequence - reader.getNumSlots() + 2;
+            if (nextSequence < oldestSafeSequence)
+            {
+                numFramesDropped += oldestSafeSequence - nextSequence;
+                nextSequence = oldestSafeSequence;
+            }
+
+            //Copy the frame out of the ring and encode it
+            if (reader.readFrame(nextSequence, framePixels))
+            {
+                writeFrame(nextSequence);
+            }
+            else
+            {
+                numFramesDropped++;
+            }
+            nextSequence++;
+            reportDroppedFrames();
+        }
+    }
+
+    /**
+     * Encode the frame image as a PNG named after its sequence number.
+     * @param sequence The sequence number of the frame.
+     */
+    private void writeFrame(long sequence)
+    {
+        File file = new File(outputDirectory, String.format("frame-%06d.png", sequence));
+        try
+        {
+            ImageIO.write(frameImage, "png", file);
+            numFramesWritten++;
+        }
+        catch (IOException exception)
+        {
+            System.out.println("Error writing captured frame: " + file);
+            exception.printStackTrace();
+        }
+    }
+
+    /**
+     * Print the number of frames dropped if more have been dropped since the last report,
+     * at most once every REPORT_PERIOD.
+     */
+    private void reportDroppedFrames()
+    {
+        long time = System.nanoTime();
+        if (numFramesDropped > numFramesReported && time - timeOfLastReport >= REPORT_PERIOD)
+        {
+            System.out.println("Frame capture dropped " + (numFramesDropped - numFramesReported) + " frames, "
+                    + numFramesDropped + " dropped and " + numFramesWritten + " written in total");
+            numFramesReported = numFramesDropped;
+            timeOfLastReport = time;
+        }
+    }
+}
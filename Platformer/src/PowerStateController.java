@@ -0,0 +1,163 @@
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+/**
+ * Slows or pauses the game while the window is unfocused or minimized.
+ */
+public class PowerStateController extends WindowAdapter
+{
+    /** The power state where the window has focus and the game runs at full rate */
+    public static final int ACTIVE = 0;
+    /** The power state where the window is visible but unfocused, the game is paused and redrawn at a low rate */
+    public static final int BACKGROUND = 1;
+    /** The power state where the window is minimized, the game is paused and nothing is drawn */
+    public static final int SUSPENDED = 2;
+    /** The names of the power states, used when reporting state changes */
+    private static final String[] POWER_STATE_NAMES = {"active", "background", "suspended"};
+
+    /** The current power state */
+    private volatile int powerState;
+    /** Flag specifying the window has focus */
+    private boolean windowFocused;
+    /** Flag specifying the window is minimized */
+    private boolean windowIconified;
+
+    /** The time spent in each power state, not including the time since the last change (in nanos) */
+    private long[] timeInStates;
+    /** The time the power state last changed */
+    private long timeOfLastChange;
+
+    /**
+     * Create a power state controller. The game starts in the active state, the controller
+     * must be added as a window listener and window focus listener to follow the window.
+     */
+    public PowerStateController()
+    {
+        powerState = ACTIVE;
+        windowFocused = true;
+        windowIconified = false;
+        timeInStates = new long[POWER_STATE_NAMES.length];
+        timeOfLastChange = System.nanoTime();
+    }
+
+    /**
+     * Enter the background state when the window loses focus.
+     * @param event The window event.
+     */
+    @Override
+    public void windowLostFocus(WindowEvent event)
+    {
+        windowFocused = false;
+        changePowerState();
+    }
+
+    /**
+     * Return to the active state when the window regains focus.
+     * @param event The window event.
+     */
+    @Override
+    public void windowGainedFocus(WindowEvent event)
+    {
+        windowFocused = true;
+        changePowerState();
+    }
+
+    /**
+     * Enter the suspended state when the window is minimized.
+     * @param event The window event.
+     */
+    @Override
+    public void windowIconified(WindowEvent event)
+    {
+        windowIconified = true;
+        changePowerState();
+    }
+
+    /**
+     * Leave the suspended state when the window is restored.
+     * @param event The window event.
+     */
+    @Override
+    public void windowDeiconified(WindowEvent event)
+    {
+        windowIconified = false;
+        changePowerState();
+    }
+
+    /**
+     * Determine the power state from the window's focus and minimized flags. If the state
+     * changed, the time spent in the old state is added to its counter, the change is
+     * reported to the console, and any waiting threads are woken up.
+     */
+    private synchronized void changePowerState()
+    {
+        int newPowerState = ACTIVE;
+        if (windowIconified)
+        {
+            newPowerState = SUSPENDED;
+        }
+        else if (!windowFocused)
+        {
+            newPowerState = BACKGROUND;
+        }
+
+        if (newPowerState != powerState)
+        {
+            //Charge the time since the last change to the old state
+            long timeOfChange = System.nanoTime();
+            timeInStates[powerState] += timeOfChange - timeOfLastChange;
+            timeOfLastChange = timeOfChange;
+            powerState = newPowerState;
+
+            System.out.println(String.format("Power state: %s (active %.1fs, background %.1fs, suspended %.1fs)",
+                    POWER_STATE_NAMES[powerState], getTimeInState(ACTIVE) / 1.0e9,
+                    getTimeInState(BACKGROUND) / 1.0e9, getTimeInState(SUSPENDED) / 1.0e9));
+            notifyAll();
+        }
+    }
+
+    /**
+     * Wait while the game is not active. In the background state this waits for at most the heartbeat
+     * period so the caller can redraw the game, in the suspended state this waits until the window is
+     * restored. This returns right away in the active state, or if the waiting thread is interrupted.
+     * @param heartbeatPeriodInMs The longest time to wait in the background state (in ms).
+     */
+    public synchronized void waitWhileInactive(long heartbeatPeriodInMs)
+    {
+        try
+        {
+            if (powerState == BACKGROUND)
+            {
+                wait(heartbeatPeriodInMs);
+            }
+            while (powerState == SUSPENDED)
+            {
+                wait();
+            }
+        }
+        catch (InterruptedException exception) { /* Do nothing */ }
+    }
+
+    /**
+     * Get the current power state.
+     * @return The power state, this matches the PowerStateController constants.
+     */
+    public int getPowerState()
+    {
+        return powerState;
+    }
+
+    /**
+     * Get the total time spent in a power state, including the time since the last change.
+     * @param state The power state, this must match the PowerStateController constants.
+     * @return The time spent in the power state (in nanos).
+     */
+    public synchronized long getTimeInState(int state)
+    {
+        long timeInState = timeInStates[state];
+        if (state == powerState)
+        {
+            timeInState += System.nanoTime() - timeOfLastChange;
+        }
+        return timeInState;
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * Lowers the quality of the game when frames run over budget and raises it again once they recover.
+ */
+public class QualityGovernor
+{
+    /** The quality level where everything is updated and drawn normally */
+    public static final int FULL_QUALITY = 0;
+    /** The quality level where the background ribbons stop scrolling and are drawn at a fixed offset */
+    public static final int NO_PARALLAX = 1;
+    /** The quality level where the block and event block animations are frozen */
+    public static final int FROZEN_ANIMATIONS = 2;
+    /** The quality level where the game is drawn at a lower resolution and scaled up */
+    public static final int LOW_RESOLUTION = 3;
+    /** The quality level where enemies far outside the camera view are not updated */
+    public static final int CAPPED_ENEMIES = 4;
+    /** The names of the quality levels, used when logging level changes */
+    private static final String[] QUALITY_LEVEL_NAMES = {"full quality", "parallax off", "animations frozen",
+            "low resolution", "off-screen enemies capped"};
+
+    /** The number of frames measured before the quality level is reconsidered */
+    private static final int FRAMES_PER_WINDOW = 60;
+    /** The fraction of frames in a window that can overrun their budget before the quality is lowered */
+    private static final double DEGRADE_OVERRUN_RATE = 0.2;
+    /** The fraction of frames in a window that can skip game updates before the quality is lowered */
+    private static final double DEGRADE_SKIP_RATE = 0.1;
+    /** The fraction of frames in a window that can overrun their budget for the window to count as healthy */
+    private static final double RESTORE_OVERRUN_RATE = 0.05;
+    /** The fraction of the frame budget the average frame can use for the window to count as healthy */
+    private static final double RESTORE_LOAD = 0.6;
+    /** The number of healthy windows in a row needed before the quality is raised */
+    private static final int WINDOWS_BEFORE_RESTORE = 3;
+
+    /** The current quality level */
+    private volatile int qualityLevel;
+    /** The amount of time each frame is allowed to take (in nanos) */
+    private long frameBudget;
+
+    /** The number of frames measured in the current window */
+    private int numFramesInWindow;
+    /** The number of frames in the current window that overran their budget */
+    private int numOverrunsInWindow;
+    /** The number of game updates skipped in the current window */
+    private int numUpdatesSkippedInWindow;
+    /** The number of frames in the current window that skipped at least one game update */
+    private int numSkipsInWindow;
+    /** The total time taken by the frames in the current window (in nanos) */
+    private long busyTimeInWindow;
+    /** The number of healthy windows in a row */
+    private int numHealthyWindows;
+
+    /**
+     * Create a quality governor that starts at full quality.
+     * @param frameBudgetInNanos The amount of time each frame is allowed to take (in nanos).
+     */
+    public QualityGovernor(long frameBudgetInNanos)
+    {
+        qualityLevel = FULL_QUALITY;
+        frameBudget = frameBudgetInNanos;
+    }
+
+    /**
+     * Record how long a frame took and how many game updates were skipped. At the end of every window of
+     * frames the quality is lowered by one level if too many frames overran their budget or skipped
+     * updates, so a single hitch does not cost a level. The quality is raised by one level only after several healthy windows in a row, so it
+     * does not flip back and forth when the game is close to its budget. Every change is logged.
+     * @param busyTimeInNanos The time taken to update, render, and present the frame (in nanos).
+     * @param numUpdatesSkipped The number of game updates skipped since the last frame.
+     * @return True if the quality level changed, false otherwise.
+     */
+    public boolean recordFrame(long busyTimeInNanos, int numUpdatesSkipped)
+    {
+        //Measure the frame
+        numFramesInWindow++;
+        busyTimeInWindow += busyTimeInNanos;
+        numUpdatesSkippedInWindow += numUpdatesSkipped;
+        if (numUpdatesSkipped > 0)
+        {
+            numSkipsInWindow++;
+        }
+        if (busyTimeInNanos > frameBudget)
+        {
+            numOverrunsInWindow++;
+        }
+        if (numFramesInWindow < FRAMES_PER_WINDOW)
+        {
+            return false;
+        }
+
+        //The window is full, decide if the level should change
+        double overrunRate = (double) numOverrunsInWindow / numFramesInWindow;
+        double skipRate = (double) numSkipsInWindow / numFramesInWindow;
+        double load = (double) busyTimeInWindow / numFramesInWindow / frameBudget;
+        int newQualityLevel = qualityLevel;
+        if ((overrunRate > DEGRADE_OVERRUN_RATE || skipRate > DEGRADE_SKIP_RATE) && qualityLevel < CAPPED_ENEMIES)
+        {
+            newQualityLevel = qualityLevel + 1;
+            numHealthyWindows = 0;
+        }
+        else if (overrunRate <= RESTORE_OVERRUN_RATE && numUpdatesSkippedInWindow == 0 && load <= RESTORE_LOAD)
+        {
+            //Wait for headroom to last before raising the quality
+            if (++numHealthyWindows >= WINDOWS_BEFORE_RESTORE && qualityLevel > FULL_QUALITY)
+            {
+                newQualityLevel = qualityLevel - 1;
+                numHealthyWindows = 0;
+            }
+        }
+        else
+        {
+            numHealthyWindows = 0;
+        }
+
+        //Log the change along with the measurements that caused it
+        if (newQualityLevel != qualityLevel)
+        {
+            System.out.println(String.format("Quality level %d (%s) -> %d (%s): %.0f%% overruns, %d skipped updates, %.0f%% load",
+                    qualityLevel, QUALITY_LEVEL_NAMES[qualityLevel], newQualityLevel, QUALITY_LEVEL_NAMES[newQualityLevel],
+                    overrunRate * 100, numUpdatesSkippedInWindow, load * 100));
+        }
+
+        //Start the next window
+        numFramesInWindow = 0;
+        numOverrunsInWindow = 0;
+        numUpdatesSkippedInWindow = 0;
+        numSkipsInWindow = 0;
+        busyTimeInWindow = 0L;
+        if (newQualityLevel != qualityLevel)
+        {
+            qualityLevel = newQualityLevel;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Get the current quality level.
+     * @return The quality level, this matches the QualityGovernor constants.
+     */
+    public int getQualityLevel()
+    {
+        return qualityLevel;
+    }
+}
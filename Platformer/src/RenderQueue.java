@@ -0,0 +1,199 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+/**
+ * Collects the sprites drawn each frame, culls the ones off screen and draws the rest by layer and source image.
+ */
+public class RenderQueue
+{
+    /** The layer the event blocks are drawn in */
+    public static final int BLOCK_LAYER = 0;
+    /** The layer the enemies are drawn in, over the event blocks */
+    public static final int ENEMY_LAYER = 1;
+    /** The layer the player is drawn in, over everything else */
+    public static final int PLAYER_LAYER = 2;
+    /** The number of layers */
+    public static final int NUM_LAYERS = 3;
+    /** The number of commands the queue can hold before its arrays grow */
+    private static final int INITIAL_CAPACITY = 64;
+    /** The number of source images the queue can tell apart before its arrays grow */
+    private static final int INITIAL_NUM_IMAGES = 8;
+
+    /** The sprite each command draws */
+    private SpriteRegion[] sprites;
+    /** The x position on the screen each command draws its sprite at */
+    private int[] spriteX;
+    /** The y position on the screen each command draws its sprite at */
+    private int[] spriteY;
+    /** The layer of each command in the high 16 bits and the handle of its source image in the low 16 bits */
+    private int[] sortKeys;
+    /** The indexes of the commands in the order they are drawn */
+    private int[] drawOrder;
+    /** The number of commands queued this frame */
+    private int numCommands;
+    /** The number of commands culled this frame because they were outside the view */
+    private int numCulled;
+
+    /** The source images submitted this frame, indexed by their handles */
+    private BufferedImage[] images;
+    /** The number of source images submitted this frame */
+    private int numImages;
+    /** The index in the draw order each bucket of layer and image starts at, used to sort the commands */
+    private int[] bucketStarts;
+
+    /** The width of the view the commands are culled against */
+    private int viewWidth;
+    /** The height of the view the commands are culled against */
+    private int viewHeight;
+
+    /**
+     * Create an empty render queue. The queue's arrays grow when a frame submits more sprites than they
+     * hold and are kept for the following frames, so a frame of the same size creates no garbage.
+     */
+    public RenderQueue()
+    {
+        sprites = new SpriteRegion[INITIAL_CAPACITY];
+        spriteX = new int[INITIAL_CAPACITY];
+        spriteY = new int[INITIAL_CAPACITY];
+        sortKeys = new int[INITIAL_CAPACITY];
+        drawOrder = new int[INITIAL_CAPACITY];
+        images = new BufferedImage[INITIAL_NUM_IMAGES];
+        bucketStarts = new int[NUM_LAYERS * INITIAL_NUM_IMAGES + 1];
+    }
+
+    /**
+     * Start a new frame, forgetting the commands and source images of the last one.
+     * @param width The width of the view, sprites entirely outside the view are culled.
+     * @param height The height of the view.
+     */
+    public void begin(int width, int height)
+    {
+        viewWidth = width;
+        viewHeight = height;
+        Arrays.fill(sprites, 0, numCommands, null);
+        Arrays.fill(images, 0, numImages, null);
+        numCommands = 0;
+        numCulled = 0;
+        numImages = 0;
+    }
+
+    /**
+     * Queue a sprite to be drawn when the queue is flushed, unless it is entirely outside the view.
+     * @param sprite The sprite.
+     * @param x The x position on the screen to draw the sprite at.
+     * @param y The y position on the screen to draw the sprite at.
+     * @param layer The layer to draw the sprite in, this must match the RenderQueue layer constants.
+     */
+    public void submit(SpriteRegion sprite, int x, int y, int layer)
+    {
+        if (x >= viewWidth || y >= viewHeight || x + sprite.getWidth() <= 0 || y + sprite.getHeight() <= 0)
+        {
+            numCulled++;
+            return;
+        }
+
+        //Grow the arrays if necessary
+        if (numCommands == sprites.length)
+        {
+            sprites = Arrays.copyOf(sprites, numCommands * 2);
+            spriteX = Arrays.copyOf(spriteX, numCommands * 2);
+            spriteY = Arrays.copyOf(spriteY, numCommands * 2);
+            sortKeys = Arrays.copyOf(sortKeys, numCommands * 2);
+            drawOrder = Arrays.copyOf(drawOrder, numCommands * 2);
+        }
+
+        sprites[numCommands] = sprite;
+        spriteX[numCommands] = x;
+        spriteY[numCommands] = y;
+        sortKeys[numCommands] = (layer << 16) | getImageHandle(sprite.getAtlasPage());
+        numCommands++;
+    }
+
+    /**
+     * Get the handle of a source image, giving it the next handle the first time it is submitted this frame.
+     * There are only a few atlas pages, so they are searched in order starting with the most recent.
+     * @param image The source image.
+     * @return The handle.
+     */
+    private int getImageHandle(BufferedImage image)
+    {
+        for (int handle = numImages - 1; handle >= 0; handle--)
+        {
+            if (images[handle] == image)
+            {
+                return handle;
+            }
+        }
+
+        //Grow the arrays if necessary
+        if (numImages == images.length)
+        {
+            images = Arrays.copyOf(images, numImages * 2);
+            bucketStarts = new int[NUM_LAYERS * images.length + 1];
+        }
+        images[numImages] = image;
+        return numImages++;
+    }
+
+    /**
+     * Draw the queued sprites sorted by layer and then by source image, so the sprites on the same atlas page
+     * are drawn one after another. Sprites in the same layer and image keep the order they were submitted in.
+     * The commands are sorted with a counting sort, which is stable and needs no extra memory.
+     * @param dbGraphics The graphics object used to draw.
+     */
+    public void flush(Graphics dbGraphics)
+    {
+        //Count the commands in each bucket of layer and image, then turn the counts into starting indexes
+        int numBuckets = NUM_LAYERS * numImages;
+        Arrays.fill(bucketStarts, 0, numBuckets + 1, 0);
+        for (int i = 0; i < numCommands; i++)
+        {
+            bucketStarts[getBucket(sortKeys[i]) + 1]++;
+        }
+        for (int bucket = 0; bucket < numBuckets; bucket++)
+        {
+            bucketStarts[bucket + 1] += bucketStarts[bucket];
+        }
+
+        //Place each command after the earlier commands in its bucket
+        for (int i = 0; i < numCommands; i++)
+        {
+            drawOrder[bucketStarts[getBucket(sortKeys[i])]++] = i;
+        }
+
+        //Draw the commands in order
+        for (int i = 0; i < numCommands; i++)
+        {
+            int command = drawOrder[i];
+            sprites[command].draw(dbGraphics, spriteX[command], spriteY[command]);
+        }
+    }
+
+    /**
+     * Get the bucket a command is sorted into.
+     * @param sortKey The layer and image handle of the command.
+     * @return The bucket, ordered by layer and then by image.
+     */
+    private int getBucket(int sortKey)
+    {
+        return (sortKey >>> 16) * numImages + (sortKey & 0xFFFF);
+    }
+
+    /**
+     * Get the number of sprites queued this frame.
+     * @return The number of commands.
+     */
+    public int getNumCommands()
+    {
+        return numCommands;
+    }
+
+    /**
+     * Get the number of sprites culled this frame because they were outside the view.
+     * @return The number of culled sprites.
+     */
+    public int getNumCulled()
+    {
+        return numCulled;
+    }
+}
@@ -6,112 +6,93 @@ import java.awt.image.BufferedImage;
  */
 public class Ribbon
 {
-    /** The constant defining the still movement */
-    public static final int SCROLL_STILL = 0;
-    /** The constant defining the scroll left movement */
-    public static final int SCROLL_LEFT = 1;
-    /** The constant defining the scroll right movement */
-    public static final int SCROLL_RIGHT = 2;
-    /** The scroll direction of the ribbon */
-    private int scrollDirection;
-
-    /** The x position of the head of the ribbon on the screen */
-    private int xPos;
-    /** The speed the ribbon scrolls */
-    private int speed;
-    /** The width of the ribbon */
-    private int width;
+    /** How fast the ribbon scrolls compared to the camera, smaller values look further away */
+    private double speedFactor;
     /** The image displayed by the ribbon */
-    private BufferedImage image;
+    private SpriteRegion image;
+    /** The width of the ribbon's image, the ribbon repeats every this many pixels */
+    private int width;
+    /** The width of the view the ribbon is drawn in */
+    private int viewWidth;
+    /** The ribbon's image repeated side by side, wide enough that any part of the ribbon the screen shows is one blit */
+    private BufferedImage strip;
 
     /**
-     * Create a new ribbon with an image, scroll direction, and speed.
+     * Create a new ribbon with an image and a speed factor.
      * @param ribbonImage The image displayed by the ribbon.
-     * @param initialScrollDirection The initial scroll direction of the ribbon, this must match the Ribbon constants.
-     * @param ribbonSpeed The scroll speed of the ribbon.
+     * @param ribbonSpeedFactor How fast the ribbon scrolls compared to the camera (0.0 - 1.0).
+     * @param width The width of the view the ribbon is drawn in.
      */
-    public Ribbon(BufferedImage ribbonImage, int initialScrollDirection, int ribbonSpeed)
+    public Ribbon(SpriteRegion ribbonImage, double ribbonSpeedFactor, int width)
     {
         //Store ribbon data
         image = ribbonImage;
-        scrollDirection = initialScrollDirection;
-        speed = ribbonSpeed;
-
-        //Set ribbon position and size
-        xPos = 0;
-        width = image.getWidth();
+        speedFactor = ribbonSpeedFactor;
+        viewWidth = width;
+        buildStrip();
     }
 
     /**
-     * Update the position of the head of the ribbon (scroll).
+     * Build the strip by repeating the ribbon's image until it covers one full cycle of the ribbon
+     * plus the width of the view. Drawing the strip at any point in the cycle then fills the screen
+     * without wrapping or scaling. The strip keeps the transparency of the image, so an opaque ribbon stays opaque. This must be called again if the ribbon's image changes.
      */
-    public void update()
+    public void buildStrip()
     {
-        //Move the image horizontally, reset the position to zero once the entire image has cycled through
-        if (scrollDirection == SCROLL_LEFT)
-        {
-            xPos = (xPos - speed) % width;
-        }
-        else if (scrollDirection == SCROLL_RIGHT)
+        width = image.getWidth();
+        int numImages = (width + viewWidth + width - 1) / width;
+        strip = ImageManager.createCompatibleImage(width * numImages, image.getHeight(), image.getTransparency());
+
+        Graphics2D g2d = strip.createGraphics();
+        for (int i = 0; i < numImages; i++)
         {
-            xPos = (xPos + speed) % width;
+            image.draw(g2d, i * width, 0);
         }
-        //Otherwise, don't scroll
+        g2d.dispose();
     }
 
     /**
-     * Draw the ribbon.
+     * Draw the ribbon. The ribbon follows the camera at its speed factor, so it moves in the
+     * opposite direction to the camera like the terrain does, only slower.
      * @param dbGraphics The graphics object used to draw the ribbon.
+     * @param xOffset The x offset of the camera.
      */
-    public void draw(Graphics dbGraphics)
+    public void draw(Graphics dbGraphics, int xOffset)
     {
-        //Draw the image according to the x position
-        if (xPos == 0)
-        {
-            //Draw full image normally
-            dbGraphics.drawImage(image, 0, 0, GamePanel.WIDTH, GamePanel.HEIGHT, 0, 0, GamePanel.WIDTH, GamePanel.HEIGHT, null);
-        }
-        else if(xPos > 0 && xPos < GamePanel.WIDTH) //Image head end is within the panel
-        {
-            //Draw the tail of the image
-            dbGraphics.drawImage(image, 0, 0, xPos, GamePanel.HEIGHT, width - xPos, 0, width, GamePanel.HEIGHT, null);
-            //Draw the head of the image
-            dbGraphics.drawImage(image, xPos, 0, GamePanel.WIDTH, GamePanel.HEIGHT, 0, 0, GamePanel.WIDTH - xPos, GamePanel.HEIGHT, null);
-        }
-        else if(xPos >= GamePanel.WIDTH)
-        {
-            //Draw the tail of the image
-            dbGraphics.drawImage(image, 0, 0, GamePanel.WIDTH, GamePanel.HEIGHT, width - xPos, 0, width - xPos + GamePanel.WIDTH, GamePanel.HEIGHT, null);
-        }
-        else if(xPos < 0 && (xPos >= GamePanel.WIDTH - width)) //Moving left, image head and tail end outside of panel
-        {
-            //Draw the body of the image, no head or tail
-            dbGraphics.drawImage(image, 0, 0, GamePanel.WIDTH, GamePanel.HEIGHT, -xPos, 0, GamePanel.WIDTH - xPos, GamePanel.HEIGHT, null);
-        }
-        else if(xPos < GamePanel.WIDTH - width) //Moving left, head and tail inside panel
-        {
-            //Draw the tail of the image
-            dbGraphics.drawImage(image, 0, 0, width + xPos, GamePanel.HEIGHT, -xPos, 0, width, GamePanel.HEIGHT, null);
-            //Draw the head of the image
-            dbGraphics.drawImage(image, width + xPos, 0, GamePanel.WIDTH, GamePanel.HEIGHT, 0, 0, GamePanel.WIDTH - width - xPos, GamePanel.HEIGHT, null);
-        }
+        drawStrip(dbGraphics, strip, width, getOffset(xOffset));
     }
 
     /**
-     * Reset the ribbon's scroll direction to zero.
+     * Add the ribbon to a snapshot, copying its strip and how far it has scrolled before and after the update.
+     * The snapshot's camera offsets must already be captured.
+     * @param snapshot The snapshot being captured.
+     * @param scrolls Flag specifying the ribbon scrolls with the camera, it is drawn at the start of its cycle if not.
      */
-    public void reset()
+    public void captureSnapshot(WorldSnapshot snapshot, boolean scrolls)
     {
-        //Rest the ribbon head, typically on player death
-        xPos = 0;
+        snapshot.addRibbon(strip, width, scrolls ? getOffset(snapshot.previousCameraX) : 0,
+                scrolls ? getOffset(snapshot.cameraX) : 0);
     }
 
     /**
-     * Set the scroll direction for the ribbon.
-     * @param newScrollDirection The new scroll direction.
+     * Get how far the ribbon has scrolled for a camera offset, the camera offsets are negative as it moves right.
+     * @param xOffset The x offset of the camera.
+     * @return How far the ribbon has scrolled in pixels, this is not wrapped to the ribbon's cycle.
+     */
+    private int getOffset(int xOffset)
+    {
+        return (int) Math.round(-xOffset * speedFactor);
+    }
+
+    /**
+     * Draw a ribbon's strip at the point in its cycle that an offset falls on.
+     * @param dbGraphics The graphics object used to draw the ribbon.
+     * @param strip The ribbon's image repeated side by side.
+     * @param width The width of the ribbon's image.
+     * @param offset How far the ribbon has scrolled.
      */
-    public void setScrollDirection(int newScrollDirection)
+    public static void drawStrip(Graphics dbGraphics, BufferedImage strip, int width, int offset)
     {
-        scrollDirection = newScrollDirection;
+        dbGraphics.drawImage(strip, -Math.floorMod(offset, width), 0, null);
     }
 }
@@ -0,0 +1,140 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.ImageObserver;
+/**
+ * A graphics object that draws the game at its logical size onto an output that is larger or smaller.
+ */
+public class ScaledGraphics extends ForwardingGraphics
+{
+    /** The graphics object drawing at the output resolution, used to blit the pre-scaled images */
+    private Graphics2D deviceGraphics;
+    /** The cache of pre-scaled images */
+    private ScaledSpriteCache spriteCache;
+    /** The factor the game is scaled by */
+    private double scale;
+    /** The graphics object returned by create(), kept so it can be reused once it is disposed */
+    private ScaledGraphics child;
+
+    /**
+     * Create a graphics object that lets the game draw at its logical resolution onto an output that is
+     * larger or smaller. Images drawn at their own size are replaced by pre-scaled copies from the cache and
+     * blitted without scaling, everything else is scaled as it is drawn. The game must not transform or clip
+     * the graphics object, the pre-scaled images are drawn without the transform. It draws nothing until it
+     * is bound to an output, it is kept and bound again each frame rather than created for every frame.
+     * @param cache The cache of pre-scaled images, this also sets the scale.
+     */
+    public ScaledGraphics(ScaledSpriteCache cache)
+    {
+        super(null);
+        spriteCache = cache;
+        scale = cache.getScale();
+    }
+
+    /**
+     * Draw onto an output. Binding the output that is already bound keeps the scaled copy of it, so an output
+     * that lasts between frames, such as an image's graphics, costs nothing to bind each frame.
+     * @param outputGraphics The graphics object drawing at the output resolution, it is not changed or disposed.
+     */
+    public void bind(Graphics2D outputGraphics)
+    {
+        if (outputGraphics != deviceGraphics || getTarget() == null)
+        {
+            bind(createScaledGraphics(outputGraphics, scale), outputGraphics);
+        }
+    }
+
+    /**
+     * Draw with a scaled graphics object, disposing the one drawn with before.
+     * @param scaledGraphics The graphics object that scales everything drawn with it, it is disposed with this.
+     * @param outputGraphics The graphics object drawing at the output resolution.
+     */
+    private void bind(Graphics2D scaledGraphics, Graphics2D outputGraphics)
+    {
+        if (getTarget() != null)
+        {
+            getTarget().dispose();
+        }
+        setTarget(scaledGraphics);
+        deviceGraphics = outputGraphics;
+    }
+
+    /**
+     * Create a copy of a graphics object that scales everything drawn with it.
+     * @param outputGraphics The graphics object drawing at the output resolution.
+     * @param scale The scale.
+     * @return The scaled copy.
+     */
+    private static Graphics2D createScaledGraphics(Graphics2D outputGraphics, double scale)
+    {
+        Graphics2D scaledGraphics = (Graphics2D) outputGraphics.create();
+        scaledGraphics.scale(scale, scale);
+        scaledGraphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        return scaledGraphics;
+    }
+
+    /**
+     * Blit the pre-scaled copy of a rectangle of an image at the output resolution.
+     * @param image The source image.
+     * @param x The x position to draw the rectangle at, at the logical resolution.
+     * @param y The y position to draw the rectangle at, at the logical resolution.
+     * @param sx1 The left edge of the rectangle.
+     * @param sy1 The top edge of the rectangle.
+     * @param sx2 The right edge of the rectangle.
+     * @param sy2 The bottom edge of the rectangle.
+     * @return True if the rectangle was drawn, false if it is not cached and must be scaled as it is drawn.
+     */
+    private boolean drawPrescaled(Image image, int x, int y, int sx1, int sy1, int sx2, int sy2)
+    {
+        BufferedImage scaledImage = spriteCache.get(image, sx1, sy1, sx2, sy2);
+        if (scaledImage == null)
+        {
+            return false;
+        }
+        deviceGraphics.drawImage(scaledImage, (int) Math.round(x * scale), (int) Math.round(y * scale), null);
+        return true;
+    }
+
+    @Override
+    public boolean drawImage(Image image, int x, int y, ImageObserver observer)
+    {
+        if (image != null && drawPrescaled(image, x, y, 0, 0, image.getWidth(null), image.getHeight(null)))
+        {
+            return true;
+        }
+        return super.drawImage(image, x, y, observer);
+    }
+
+    @Override
+    public boolean drawImage(Image image, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2, ImageObserver observer)
+    {
+        //Only images drawn at their own size are pre-scaled
+        if (dx2 - dx1 == sx2 - sx1 && dy2 - dy1 == sy2 - sy1 && drawPrescaled(image, dx1, dy1, sx1, sy1, sx2, sy2))
+        {
+            return true;
+        }
+        return super.drawImage(image, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, observer);
+    }
+
+    @Override
+    public Graphics create()
+    {
+        //Reuse the last copy if it has been disposed, the copy keeps this one's color, font and other state
+        if (child == null || child.getTarget() != null)
+        {
+            child = new ScaledGraphics(spriteCache);
+        }
+        child.bind((Graphics2D) getTarget().create(), deviceGraphics);
+        return child;
+    }
+
+    @Override
+    public void dispose()
+    {
+        //Only the scaled copy is released, the output belongs to whoever bound it
+        if (getTarget() != null)
+        {
+            getTarget().dispose();
+            setTarget(null);
+        }
+    }
+}
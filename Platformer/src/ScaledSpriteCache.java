@@ -0,0 +1,181 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+/**
+ * A cache of images pre-scaled to the output scale, limited to a memory budget.
+ */
+public class ScaledSpriteCache
+{
+    /** The default amount of memory the scaled images can use (in bytes) */
+    public static final long DEFAULT_BUDGET = 64L * 1024 * 1024;
+    /** The largest fraction of the budget a single scaled image can use, larger images are scaled as they are drawn */
+    private static final int MAX_IMAGE_SHARE = 4;
+    /** The number of bytes used by each pixel of a scaled image */
+    private static final int BYTES_PER_PIXEL = 4;
+
+    /** The factor the images are scaled by */
+    private double scale;
+    /** The amount of memory the scaled images can use (in bytes) */
+    private long budget;
+    /** The amount of memory the scaled images are using (in bytes) */
+    private long usedBytes;
+    /** The scaled images, keyed by their source and ordered from least to most recently drawn */
+    private LinkedHashMap<SourceRectangle, BufferedImage> scaledImages;
+    /** The number of times each source image has changed, so scaled copies of its old contents are not used */
+    private WeakHashMap<Image, Integer> imageVersions;
+    /** The key used to look up scaled images without creating a new one for every draw */
+    private SourceRectangle lookupKey;
+
+    /**
+     * Create an empty cache of scaled images.
+     * @param scaleFactor The factor the images are scaled by.
+     * @param budgetInBytes The amount of memory the scaled images can use, the least recently drawn are evicted first.
+     */
+    public ScaledSpriteCache(double scaleFactor, long budgetInBytes)
+    {
+        scale = scaleFactor;
+        budget = budgetInBytes;
+        scaledImages = new LinkedHashMap<>(64, 0.75f, true);
+        imageVersions = new WeakHashMap<>();
+        lookupKey = new SourceRectangle();
+    }
+
+    /**
+     * Get a scaled copy of a rectangle of an image, scaling it the first time it is requested. Images are
+     * scaled with nearest neighbour sampling so pixel art stays sharp. Each scaled copy is as wide and tall
+     * as the rectangle times the scale, rounded.
+     * @param image The source image.
+     * @param sx1 The left edge of the rectangle.
+     * @param sy1 The top edge of the rectangle.
+     * @param sx2 The right edge of the rectangle.
+     * @param sy2 The bottom edge of the rectangle.
+     * @return The scaled copy, or null if the image cannot be cached and must be scaled as it is drawn.
+     */
+    public BufferedImage get(Image image, int sx1, int sy1, int sx2, int sy2)
+    {
+        if (!(image instanceof BufferedImage) || sx2 <= sx1 || sy2 <= sy1)
+        {
+            return null;
+        }
+        Integer version = imageVersions.get(image);
+        lookupKey.set(image, (version != null) ? version : 0, sx1, sy1, sx2, sy2);
+        BufferedImage scaledImage = scaledImages.get(lookupKey);
+        if (scaledImage != null)
+        {
+            return scaledImage;
+        }
+
+        //Check the scaled copy is small enough to keep
+        int width = Math.max(1, (int) Math.round((sx2 - sx1) * scale));
+        int height = Math.max(1, (int) Math.round((sy2 - sy1) * scale));
+        long bytes = (long) width * height * BYTES_PER_PIXEL;
+        if (bytes > budget / MAX_IMAGE_SHARE)
+        {
+            return null;
+        }
+
+        //Evict the least recently drawn images until the scaled copy fits in the budget
+        Iterator<Map.Entry<SourceRectangle, BufferedImage>> iterator = scaledImages.entrySet().iterator();
+        while (usedBytes + bytes > budget && iterator.hasNext())
+        {
+            BufferedImage evicted = iterator.next().getValue();
+            usedBytes -= (long) evicted.getWidth() * evicted.getHeight() * BYTES_PER_PIXEL;
+            iterator.remove();
+        }
+
+        //Scale the rectangle into a new image
+        scaledImage = ImageManager.createCompatibleImage(width, height, ((BufferedImage) image).getTransparency());
+        Graphics2D g2d = scaledImage.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        g2d.drawImage(image, 0, 0, width, height, sx1, sy1, sx2, sy2, null);
+        g2d.dispose();
+
+        SourceRectangle key = new SourceRectangle();
+        key.set(image, lookupKey.version, sx1, sy1, sx2, sy2);
+        scaledImages.put(key, scaledImage);
+        usedBytes += bytes;
+        return scaledImage;
+    }
+
+    /**
+     * Stop using the scaled copies of an image because its contents changed. The old copies
+     * are never drawn again and are evicted as the cache fills up.
+     * @param image The image that changed.
+     */
+    public void invalidate(Image image)
+    {
+        Integer version = imageVersions.get(image);
+        imageVersions.put(image, (version != null) ? version + 1 : 1);
+    }
+
+    /**
+     * Remove every scaled image, such as when the images they were scaled from are replaced.
+     */
+    public void clear()
+    {
+        scaledImages.clear();
+        usedBytes = 0;
+    }
+
+    /**
+     * Get the factor the images are scaled by.
+     * @return The scale.
+     */
+    public double getScale()
+    {
+        return scale;
+    }
+
+    /**
+     * A rectangle of a version of a source image.
+     */
+    private static class SourceRectangle
+    {
+        /** The source image */
+        private Image image;
+        /** The version of the source image's contents */
+        private int version;
+        /** The edges of the rectangle */
+        private int x1, y1, x2, y2;
+
+        /**
+         * Set the image and rectangle.
+         * @param sourceImage The source image.
+         * @param sourceVersion The version of the source image's contents.
+         * @param sx1 The left edge of the rectangle.
+         * @param sy1 The top edge of the rectangle.
+         * @param sx2 The right edge of the rectangle.
+         * @param sy2 The bottom edge of the rectangle.
+         */
+        private void set(Image sourceImage, int sourceVersion, int sx1, int sy1, int sx2, int sy2)
+        {
+            image = sourceImage;
+            version = sourceVersion;
+            x1 = sx1;
+            y1 = sy1;
+            x2 = sx2;
+            y2 = sy2;
+        }
+
+        @Override
+        public boolean equals(Object object)
+        {
+            if (!(object instanceof SourceRectangle))
+            {
+                return false;
+            }
+            SourceRectangle other = (SourceRectangle) object;
+            return image == other.image && version == other.version && x1 == other.x1 && y1 == other.y1
+                    && x2 == other.x2 && y2 == other.y2;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return ((((System.identityHashCode(image) * 31 + version) * 31 + x1) * 31 + y1) * 31 + x2) * 31 + y2;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+/**
+ * Told when a static scene such as a menu changes and must be redrawn.
+ */
+public interface SceneWatcher
+{
+    /** This method is called by the Game when a static scene such as a menu changes and must be redrawn */
+    void sceneChanged();
+}
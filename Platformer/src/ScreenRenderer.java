@@ -0,0 +1,12 @@
+import java.awt.*;
+/**
+ * The way the GamePanel gets a frame to draw into and puts the finished frame on the screen.
+ */
+public interface ScreenRenderer
+{
+    /** Called by the GamePanel to fetch the graphics context the next frame is drawn into, null if the screen is not ready */
+    Graphics getDrawGraphics();
+
+    /** Called by the GamePanel once the frame has been drawn to put it on the screen, false if the frame was lost and must be drawn again */
+    boolean showFrame();
+}
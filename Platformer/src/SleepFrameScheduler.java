@@ -0,0 +1,29 @@
+/**
+ * A frame scheduler that sleeps until the deadline.
+ */
+public class SleepFrameScheduler implements FrameScheduler
+{
+    /**
+     * Sleep the thread until the deadline using Thread.sleep(). This uses the least amount of CPU,
+     * but the thread will typically wake up late by however much the OS timer resolution allows.
+     * @param deadlineInNanos The System.nanoTime() to wake up at.
+     * @return The time the thread overslept past the deadline in nanos.
+     */
+    @Override
+    public long waitUntil(long deadlineInNanos)
+    {
+        long timeToSleep = deadlineInNanos - System.nanoTime();
+        if (timeToSleep > 0)
+        {
+            try
+            {
+                //Split timeToSleep into milliseconds and the remaining nanoseconds
+                Thread.sleep(timeToSleep / 1000000, (int) (timeToSleep % 1000000));
+            }
+            catch (InterruptedException exception) { /* Do nothing */ }
+        }
+
+        //Measure how late the thread woke up
+        return System.nanoTime() - deadlineInNanos;
+    }
+}
@@ -0,0 +1,64 @@
+import java.util.concurrent.atomic.AtomicInteger;
+/**
+ * A lock-free triple buffer that hands the latest world snapshot from the update thread to the render thread.
+ */
+public class SnapshotExchange
+{
+    /** The bit set on the middle index when it holds a snapshot the reader has not seen */
+    private static final int NEW_SNAPSHOT = 4;
+    /** The bits of the middle index that hold the index itself */
+    private static final int INDEX_MASK = 3;
+
+    /** The three snapshots that are passed between the writer and the reader */
+    private WorldSnapshot[] snapshots;
+    /** The index of the snapshot owned by the writer (the update thread) */
+    private int backIndex;
+    /** The index of the snapshot waiting to be picked up, plus the NEW_SNAPSHOT bit */
+    private AtomicInteger middleIndex;
+    /** The index of the snapshot owned by the reader (the render thread) */
+    private int frontIndex;
+
+    /**
+     * Create a triple buffered exchange of snapshots between a single writer and a single reader.
+     * Each side owns one snapshot and they swap through the third with a single atomic
+     * operation, so neither thread ever waits on the other.
+     */
+    public SnapshotExchange()
+    {
+        snapshots = new WorldSnapshot[] { new WorldSnapshot(), new WorldSnapshot(), new WorldSnapshot() };
+        backIndex = 0;
+        middleIndex = new AtomicInteger(1);
+        frontIndex = 2;
+    }
+
+    /**
+     * Get the snapshot owned by the writer. It can be freely modified until it is published.
+     * @return The writer's snapshot.
+     */
+    public WorldSnapshot getBackSnapshot()
+    {
+        return snapshots[backIndex];
+    }
+
+    /**
+     * Publish the writer's snapshot, the writer receives the snapshot that was waiting in its place.
+     */
+    public void publish()
+    {
+        backIndex = middleIndex.getAndSet(backIndex | NEW_SNAPSHOT) & INDEX_MASK;
+    }
+
+    /**
+     * Get the most recently published snapshot for the reader. If nothing new has been published,
+     * the reader keeps the snapshot it already has. The snapshot must not be modified.
+     * @return The reader's snapshot.
+     */
+    public WorldSnapshot acquireLatest()
+    {
+        if ((middleIndex.get() & NEW_SNAPSHOT) != 0)
+        {
+            frontIndex = middleIndex.getAndSet(frontIndex) & INDEX_MASK;
+        }
+        return snapshots[frontIndex];
+    }
+}
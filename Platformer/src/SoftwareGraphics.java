@@ -0,0 +1,138 @@
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.ImageObserver;
+/**
+ * A graphics object that queues the draws the software renderer supports and forwards the rest.
+ */
+public class SoftwareGraphics extends ForwardingGraphics
+{
+    /** The renderer the supported draws are queued in */
+    private SoftwareRenderer renderer;
+
+    /**
+     * Create a graphics object that queues image draws and color fills in a software renderer. Every other
+     * call is drawn by Java2D into the framebuffer, after the queue is flushed so the draws stay in order.
+     * @param softwareRenderer The renderer the supported draws are queued in.
+     * @param framebufferGraphics A graphics object drawing into the renderer's framebuffer.
+     */
+    public SoftwareGraphics(SoftwareRenderer softwareRenderer, Graphics2D framebufferGraphics)
+    {
+        super(framebufferGraphics);
+        renderer = softwareRenderer;
+    }
+
+    /**
+     * Flush the queued draws before Java2D draws into the framebuffer.
+     */
+    @Override
+    protected void beforeDraw()
+    {
+        renderer.flush();
+    }
+
+    /**
+     * Check if the current state can be drawn by the software renderer. The renderer only handles whole pixel
+     * translations, the normal SrcOver composite, rectangular clips, and nearest neighbour scaling.
+     * @return True if the renderer can draw with the current state, false otherwise.
+     */
+    private boolean isSupported()
+    {
+        AffineTransform transform = getTarget().getTransform();
+        Composite composite = getTarget().getComposite();
+        Object interpolation = getTarget().getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+        Shape clip = getTarget().getClip();
+        return transform.getType() <= AffineTransform.TYPE_TRANSLATION
+                && transform.getTranslateX() == (int) transform.getTranslateX()
+                && transform.getTranslateY() == (int) transform.getTranslateY()
+                && AlphaComposite.SrcOver.equals(composite)
+                && (clip == null || clip instanceof Rectangle)
+                && (interpolation == null || interpolation == RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+    }
+
+    /**
+     * Queue a blit in the renderer if the current state is supported.
+     * @param image The source image.
+     * @param dx1 The x coordinate of the first corner of the destination rectangle.
+     * @param dy1 The y coordinate of the first corner of the destination rectangle.
+     * @param dx2 The x coordinate of the second corner of the destination rectangle.
+     * @param dy2 The y coordinate of the second corner of the destination rectangle.
+     * @param sx1 The x coordinate of the first corner of the source rectangle.
+     * @param sy1 The y coordinate of the first corner of the source rectangle.
+     * @param sx2 The x coordinate of the second corner of the source rectangle.
+     * @param sy2 The y coordinate of the second corner of the source rectangle.
+     * @return True if the blit was queued, false if it must be drawn by Java2D.
+     */
+    private boolean queueBlit(Image image, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2)
+    {
+        if (image == null || !isSupported())
+        {
+            return false;
+        }
+        //Move the rectangle and clip into framebuffer coordinates
+        AffineTransform transform = getTarget().getTransform();
+        int x = (int) transform.getTranslateX();
+        int y = (int) transform.getTranslateY();
+        Rectangle clip = (Rectangle) getTarget().getClip();
+        if (clip != null)
+        {
+            clip.translate(x, y);
+        }
+        return renderer.addBlit(image, dx1 + x, dy1 + y, dx2 + x, dy2 + y, sx1, sy1, sx2, sy2, clip);
+    }
+
+    @Override
+    public boolean drawImage(Image image, int x, int y, ImageObserver observer)
+    {
+        if (image != null && queueBlit(image, x, y, x + image.getWidth(null), y + image.getHeight(null),
+                0, 0, image.getWidth(null), image.getHeight(null)))
+        {
+            return true;
+        }
+        return super.drawImage(image, x, y, observer);
+    }
+
+    @Override
+    public boolean drawImage(Image image, int x, int y, int width, int height, ImageObserver observer)
+    {
+        if (image != null && queueBlit(image, x, y, x + width, y + height, 0, 0, image.getWidth(null), image.getHeight(null)))
+        {
+            return true;
+        }
+        return super.drawImage(image, x, y, width, height, observer);
+    }
+
+    @Override
+    public boolean drawImage(Image image, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2, ImageObserver observer)
+    {
+        if (queueBlit(image, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2))
+        {
+            return true;
+        }
+        return super.drawImage(image, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, observer);
+    }
+
+    @Override
+    public void fillRect(int x, int y, int width, int height)
+    {
+        if (getTarget().getPaint() instanceof Color && isSupported())
+        {
+            AffineTransform transform = getTarget().getTransform();
+            int translateX = (int) transform.getTranslateX();
+            int translateY = (int) transform.getTranslateY();
+            Rectangle clip = (Rectangle) getTarget().getClip();
+            if (clip != null)
+            {
+                clip.translate(translateX, translateY);
+            }
+            renderer.addFill((Color) getTarget().getPaint(), x + translateX, y + translateY, width, height, clip);
+            return;
+        }
+        super.fillRect(x, y, width, height);
+    }
+
+    @Override
+    public Graphics create()
+    {
+        return new SoftwareGraphics(renderer, (Graphics2D) getTarget().create());
+    }
+}
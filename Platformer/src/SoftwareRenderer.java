@@ -0,0 +1,582 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+/**
+ * Rasterizes queued image draws and fills into an integer framebuffer in parallel horizontal bands.
+ */
+public class SoftwareRenderer
+{
+    /** The command that copies a rectangle of an image into the framebuffer, scaling it if necessary */
+    private static final int BLIT = 0;
+    /** The command that fills a rectangle of the framebuffer with a color */
+    private static final int FILL = 1;
+
+    /** The source pixels have no alpha and are copied as they are */
+    private static final int OPAQUE_PIXELS = 0;
+    /** The source pixels are either fully transparent or fully opaque */
+    private static final int BITMASK_PIXELS = 1;
+    /** The source pixels are blended using their alpha */
+    private static final int ALPHA_PIXELS = 2;
+    /** The source pixels are blended using their alpha and their colors are already multiplied by it */
+    private static final int PREMULTIPLIED_PIXELS = 3;
+
+    //The positions of each value within a command
+    /** The command type */
+    private static final int TYPE = 0;
+    /** The format of the source pixels */
+    private static final int FORMAT = 1;
+    /** The index of the source image's first pixel in its pixel array */
+    private static final int OFFSET = 2;
+    /** The number of array elements between rows of the source image */
+    private static final int STRIDE = 3;
+    /** The destination rectangle, before clipping */
+    private static final int DEST_X = 4, DEST_Y = 5, DEST_WIDTH = 6, DEST_HEIGHT = 7;
+    /** The source rectangle */
+    private static final int SOURCE_X = 8, SOURCE_Y = 9, SOURCE_WIDTH = 10, SOURCE_HEIGHT = 11;
+    /** The part of the destination rectangle that is drawn, after clipping */
+    private static final int VISIBLE_X1 = 12, VISIBLE_Y1 = 13, VISIBLE_X2 = 14, VISIBLE_Y2 = 15;
+    /** The fill color */
+    private static final int COLOR = 16;
+    /** The number of values in a command */
+    private static final int COMMAND_SIZE = 17;
+    /** The number of commands that can be queued before the arrays grow */
+    private static final int INITIAL_CAPACITY = 64;
+    /** The number of palettes of indexed images kept, one per atlas page palette is enough */
+    private static final int NUM_PALETTES = 4;
+
+    /** The smallest band of rows rasterized by a single task */
+    private static final int MIN_BAND_HEIGHT = 8;
+    /** The product of two 8 bit values divided by 255, rounded the same way as Java2D's software loops */
+    private static final byte[] MUL8_TABLE = new byte[256 * 256];
+
+    static
+    {
+        for (int a = 0; a < 256; a++)
+        {
+            for (int b = 0; b < 256; b++)
+            {
+                MUL8_TABLE[(a << 8) | b] = (byte) (((long) a * 0x010101 * b + 0x800000) >>> 24);
+            }
+        }
+    }
+
+    /** The image the frame is drawn into */
+    private BufferedImage framebuffer;
+    /** The pixels of the framebuffer */
+    private int[] pixels;
+    /** The width of the framebuffer */
+    private int width;
+    /** The height of the framebuffer */
+    private int height;
+    /** The graphics object the game draws with, it queues the draws this renderer supports */
+    private SoftwareGraphics graphics;
+    /** The pool of threads that rasterize the bands in parallel */
+    private ForkJoinPool pool;
+    /** The number of rows in each band */
+    private int bandHeight;
+
+    /** The queued commands, COMMAND_SIZE values per command */
+    private int[] commands;
+    /** The pixels of the source image of each queued blit, or the palette of an indexed source image */
+    private int[][] commandPixels;
+    /** The palette indices of the source image of each queued blit, or null if the image is not indexed */
+    private byte[][] commandIndices;
+    /** The number of queued commands */
+    private int numCommands;
+
+    /** The color models of the indexed images blitted most recently */
+    private IndexColorModel[] paletteModels;
+    /** The colors of each color model in paletteModels, padded to 256 entries so any index can be looked up */
+    private int[][] palettes;
+    /** The entry in paletteModels replaced by the next new color model */
+    private int nextPalette;
+
+    /**
+     * Create a software renderer with an integer RGB framebuffer. The renderer does not use the display
+     * at all, so it also works headless.
+     * @param framebufferWidth The width of the framebuffer.
+     * @param framebufferHeight The height of the framebuffer.
+     */
+    public SoftwareRenderer(int framebufferWidth, int framebufferHeight)
+    {
+        width = framebufferWidth;
+        height = framebufferHeight;
+        framebuffer = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        pixels = ((DataBufferInt) framebuffer.getRaster().getDataBuffer()).getData();
+
+        //Split the frame into two bands per thread so a slow band does not hold up the others
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        bandHeight = Math.max(MIN_BAND_HEIGHT, (height + pool.getParallelism() * 2 - 1) / (pool.getParallelism() * 2));
+
+        commands = new int[INITIAL_CAPACITY * COMMAND_SIZE];
+        commandPixels = new int[INITIAL_CAPACITY][];
+        commandIndices = new byte[INITIAL_CAPACITY][];
+        paletteModels = new IndexColorModel[NUM_PALETTES];
+        palettes = new int[NUM_PALETTES][];
+        graphics = new SoftwareGraphics(this, framebuffer.createGraphics());
+    }
+
+    /**
+     * Get the graphics object used to draw the frame. Image draws and color fills are queued and rasterized
+     * by this renderer, everything else is drawn by Java2D into the framebuffer after the queue is flushed.
+     * @return The graphics object.
+     */
+    public Graphics2D getGraphics()
+    {
+        return graphics;
+    }
+
+    /**
+     * Get the framebuffer, flush() must be called first for it to contain every draw.
+     * @return The framebuffer image.
+     */
+    public BufferedImage getFramebuffer()
+    {
+        return framebuffer;
+    }
+
+    /**
+     * Queue a blit of a rectangle of an image into a rectangle of the framebuffer. The image is scaled with
+     * nearest neighbour sampling if the rectangles differ in size. Only integer RGB and ARGB images and byte
+     * indexed images, like the palette pages of the texture atlas, are supported. Indexed pixels are looked up in
+     * the image's palette, the transparent index has no alpha so it is skipped like any other transparent pixel.
+     * @param image The source image.
+     * @param dx1 The x coordinate of the first corner of the destination rectangle in the framebuffer.
+     * @param dy1 The y coordinate of the first corner of the destination rectangle in the framebuffer.
+     * @param dx2 The x coordinate of the second corner of the destination rectangle in the framebuffer.
+     * @param dy2 The y coordinate of the second corner of the destination rectangle in the framebuffer.
+     * @param sx1 The x coordinate of the first corner of the source rectangle.
+     * @param sy1 The y coordinate of the first corner of the source rectangle.
+     * @param sx2 The x coordinate of the second corner of the source rectangle.
+     * @param sy2 The y coordinate of the second corner of the source rectangle.
+     * @param clip The clip in framebuffer coordinates, or null if there is none.
+     * @return True if the blit was queued or had nothing to draw, false if it is not supported and must be drawn by Java2D.
+     */
+    public boolean addBlit(Image image, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2, Rectangle clip)
+    {
+        //Only images whose pixels are stored one int or one palette index each can be read directly
+        if (!(image instanceof BufferedImage) || dx2 < dx1 || dy2 < dy1 || sx2 < sx1 || sy2 < sy1)
+        {
+            return false;
+        }
+        BufferedImage bufferedImage = (BufferedImage) image;
+        int format;
+        switch (bufferedImage.getType())
+        {
+            case BufferedImage.TYPE_INT_RGB:
+                format = OPAQUE_PIXELS;
+                break;
+            case BufferedImage.TYPE_INT_ARGB:
+                format = (bufferedImage.getTransparency() == Transparency.BITMASK) ? BITMASK_PIXELS : ALPHA_PIXELS;
+                break;
+            case BufferedImage.TYPE_INT_ARGB_PRE:
+                format = (bufferedImage.getTransparency() == Transparency.BITMASK) ? BITMASK_PIXELS : PREMULTIPLIED_PIXELS;
+                break;
+            case BufferedImage.TYPE_BYTE_INDEXED:
+                format = (bufferedImage.getTransparency() == Transparency.OPAQUE) ? OPAQUE_PIXELS
+                        : (bufferedImage.getTransparency() == Transparency.BITMASK) ? BITMASK_PIXELS : ALPHA_PIXELS;
+                break;
+            default:
+                return false;
+        }
+        Raster raster = bufferedImage.getRaster();
+        boolean indexed = (bufferedImage.getType() == BufferedImage.TYPE_BYTE_INDEXED);
+        if (sx1 < 0 || sy1 < 0 || sx2 > bufferedImage.getWidth() || sy2 > bufferedImage.getHeight()
+                || (indexed && ((ComponentSampleModel) raster.getSampleModel()).getPixelStride() != 1))
+        {
+            return false;
+        }
+
+        int command = reserveCommand(BLIT, dx1, dy1, dx2, dy2, clip);
+        if (command >= 0)
+        {
+            int stride;
+            int offset;
+            if (indexed)
+            {
+                DataBufferByte dataBuffer = (DataBufferByte) raster.getDataBuffer();
+                stride = ((ComponentSampleModel) raster.getSampleModel()).getScanlineStride();
+                offset = dataBuffer.getOffset();
+                commandPixels[command / COMMAND_SIZE] = getPalette((IndexColorModel) bufferedImage.getColorModel());
+                commandIndices[command / COMMAND_SIZE] = dataBuffer.getData();
+            }
+            else
+            {
+                DataBufferInt dataBuffer = (DataBufferInt) raster.getDataBuffer();
+                stride = ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+                offset = dataBuffer.getOffset();
+                commandPixels[command / COMMAND_SIZE] = dataBuffer.getData();
+                commandIndices[command / COMMAND_SIZE] = null;
+            }
+            commands[command + FORMAT] = format;
+            commands[command + OFFSET] = offset - raster.getSampleModelTranslateX() - raster.getSampleModelTranslateY() * stride;
+            commands[command + STRIDE] = stride;
+            commands[command + SOURCE_X] = sx1;
+            commands[command + SOURCE_Y] = sy1;
+            commands[command + SOURCE_WIDTH] = sx2 - sx1;
+            commands[command + SOURCE_HEIGHT] = sy2 - sy1;
+        }
+        return true;
+    }
+
+    /**
+     * Get the colors of an indexed image's palette. The palettes of the last few color models are kept,
+     * so the atlas pages do not have their palettes copied on every blit.
+     * @param colorModel The color model of the indexed image.
+     * @return The non-premultiplied ARGB color of each index, indices past the end of the palette are transparent.
+     */
+    private int[] getPalette(IndexColorModel colorModel)
+    {
+        for (int i = 0; i < NUM_PALETTES; i++)
+        {
+            if (paletteModels[i] == colorModel)
+            {
+                return palettes[i];
+            }
+        }
+        int[] palette = new int[256];
+        colorModel.getRGBs(palette);
+        paletteModels[nextPalette] = colorModel;
+        palettes[nextPalette] = palette;
+        nextPalette = (nextPalette + 1) % NUM_PALETTES;
+        return palette;
+    }
+
+    /**
+     * Queue a fill of a rectangle of the framebuffer with a color, the color is blended using its alpha.
+     * @param color The fill color.
+     * @param x The x position of the rectangle in the framebuffer.
+     * @param y The y position of the rectangle in the framebuffer.
+     * @param rectangleWidth The width of the rectangle.
+     * @param rectangleHeight The height of the rectangle.
+     * @param clip The clip in framebuffer coordinates, or null if there is none.
+     */
+    public void addFill(Color color, int x, int y, int rectangleWidth, int rectangleHeight, Rectangle clip)
+    {
+        int command = reserveCommand(FILL, x, y, x + rectangleWidth, y + rectangleHeight, clip);
+        if (command >= 0)
+        {
+            commands[command + COLOR] = color.getRGB();
+        }
+    }
+
+    /**
+     * Add a command to the queue if any of it is visible.
+     * @param type The command type.
+     * @param dx1 The x coordinate of the first corner of the destination rectangle.
+     * @param dy1 The y coordinate of the first corner of the destination rectangle.
+     * @param dx2 The x coordinate of the second corner of the destination rectangle.
+     * @param dy2 The y coordinate of the second corner of the destination rectangle.
+     * @param clip The clip, or null if there is none.
+     * @return The index of the command's first value, or -1 if nothing would be drawn.
+     */
+    private int reserveCommand(int type, int dx1, int dy1, int dx2, int dy2, Rectangle clip)
+    {
+        //Clip the destination to the framebuffer and the clip
+        int visibleX1 = Math.max(dx1, 0);
+        int visibleY1 = Math.max(dy1, 0);
+        int visibleX2 = Math.min(dx2, width);
+        int visibleY2 = Math.min(dy2, height);
+        if (clip != null)
+        {
+            visibleX1 = Math.max(visibleX1, clip.x);
+            visibleY1 = Math.max(visibleY1, clip.y);
+            visibleX2 = Math.min(visibleX2, clip.x + clip.width);
+            visibleY2 = Math.min(visibleY2, clip.y + clip.height);
+        }
+        if (visibleX1 >= visibleX2 || visibleY1 >= visibleY2)
+        {
+            return -1;
+        }
+
+        //Grow the arrays if necessary
+        if ((numCommands + 1) * COMMAND_SIZE > commands.length)
+        {
+            commands = Arrays.copyOf(commands, commands.length * 2);
+            commandPixels = Arrays.copyOf(commandPixels, commandPixels.length * 2);
+            commandIndices = Arrays.copyOf(commandIndices, commandIndices.length * 2);
+        }
+        int command = numCommands * COMMAND_SIZE;
+        commands[command + TYPE] = type;
+        commands[command + DEST_X] = dx1;
+        commands[command + DEST_Y] = dy1;
+        commands[command + DEST_WIDTH] = dx2 - dx1;
+        commands[command + DEST_HEIGHT] = dy2 - dy1;
+        commands[command + VISIBLE_X1] = visibleX1;
+        commands[command + VISIBLE_Y1] = visibleY1;
+        commands[command + VISIBLE_X2] = visibleX2;
+        commands[command + VISIBLE_Y2] = visibleY2;
+        numCommands++;
+        return command;
+    }
+
+    /**
+     * Rasterize the queued commands into the framebuffer. The framebuffer is split into bands of rows
+     * that are rasterized in parallel, each band runs every command in order so the draws overlap
+     * the same way they would if they were drawn one at a time.
+     */
+    public void flush()
+    {
+        if (numCommands > 0)
+        {
+            pool.invoke(new BandTask(0, height));
+            numCommands = 0;
+            Arrays.fill(commandPixels, null); //Do not hold on to the source images
+            Arrays.fill(commandIndices, null);
+        }
+    }
+
+    /**
+     * Run every queued command on a band of rows.
+     * @param top The first row of the band.
+     * @param bottom The row after the last row of the band.
+     */
+    private void rasterizeBand(int top, int bottom)
+    {
+        for (int command = 0; command < numCommands * COMMAND_SIZE; command += COMMAND_SIZE)
+        {
+            int y1 = Math.max(top, commands[command + VISIBLE_Y1]);
+            int y2 = Math.min(bottom, commands[command + VISIBLE_Y2]);
+            if (y1 >= y2)
+            {
+                continue;
+            }
+
+            if (commands[command + TYPE] == FILL)
+            {
+                fill(command, y1, y2);
+            }
+            else if (commands[command + SOURCE_WIDTH] == commands[command + DEST_WIDTH]
+                    && commands[command + SOURCE_HEIGHT] == commands[command + DEST_HEIGHT])
+            {
+                blit(command, y1, y2);
+            }
+            else
+            {
+                scaledBlit(command, y1, y2);
+            }
+        }
+    }
+
+    /**
+     * Fill the rows of a fill command.
+     * @param command The index of the command's first value.
+     * @param y1 The first row.
+     * @param y2 The row after the last row.
+     */
+    private void fill(int command, int y1, int y2)
+    {
+        int x1 = commands[command + VISIBLE_X1];
+        int x2 = commands[command + VISIBLE_X2];
+        int color = commands[command + COLOR];
+        int alpha = color >>> 24;
+        for (int y = y1; y < y2; y++)
+        {
+            int row = y * width;
+            if (alpha == 0xFF)
+            {
+                Arrays.fill(pixels, row + x1, row + x2, color);
+            }
+            else if (alpha != 0)
+            {
+                for (int i = row + x1; i < row + x2; i++)
+                {
+                    pixels[i] = blend(color, pixels[i], alpha, false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copy the rows of an unscaled blit command using the blitter for its pixel format. Indexed
+     * pixels are looked up in the palette first, then drawn the same way as the format of the palette's colors.
+     * @param command The index of the command's first value.
+     * @param y1 The first row.
+     * @param y2 The row after the last row.
+     */
+    private void blit(int command, int y1, int y2)
+    {
+        int[] source = commandPixels[command / COMMAND_SIZE];
+        byte[] indices = commandIndices[command / COMMAND_SIZE];
+        int format = commands[command + FORMAT];
+        int stride = commands[command + STRIDE];
+        int x1 = commands[command + VISIBLE_X1];
+        int length = commands[command + VISIBLE_X2] - x1;
+        int sourceX = commands[command + SOURCE_X] + x1 - commands[command + DEST_X];
+        int sourceY = commands[command + SOURCE_Y] - commands[command + DEST_Y];
+        for (int y = y1; y < y2; y++)
+        {
+            int sourceIndex = commands[command + OFFSET] + (sourceY + y) * stride + sourceX;
+            int index = y * width + x1;
+            if (indices != null)
+            {
+                for (int i = 0; i < length; i++)
+                {
+                    int pixel = source[indices[sourceIndex + i] & 0xFF];
+                    int alpha = pixel >>> 24;
+                    if (alpha == 0xFF || (format == BITMASK_PIXELS && alpha != 0))
+                    {
+                        pixels[index + i] = pixel;
+                    }
+                    else if (alpha != 0)
+                    {
+                        pixels[index + i] = blend(pixel, pixels[index + i], alpha, false);
+                    }
+                }
+            }
+            else if (format == OPAQUE_PIXELS)
+            {
+                System.arraycopy(source, sourceIndex, pixels, index, length);
+            }
+            else if (format == BITMASK_PIXELS)
+            {
+                for (int i = 0; i < length; i++)
+                {
+                    int pixel = source[sourceIndex + i];
+                    if ((pixel >>> 24) != 0)
+                    {
+                        pixels[index + i] = pixel;
+                    }
+                }
+            }
+            else
+            {
+                boolean premultiplied = (format == PREMULTIPLIED_PIXELS);
+                for (int i = 0; i < length; i++)
+                {
+                    int pixel = source[sourceIndex + i];
+                    int alpha = pixel >>> 24;
+                    if (alpha == 0xFF)
+                    {
+                        pixels[index + i] = pixel;
+                    }
+                    else if (alpha != 0)
+                    {
+                        pixels[index + i] = blend(pixel, pixels[index + i], alpha, premultiplied);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Copy the rows of a scaled blit command, each destination pixel takes the source pixel under its center.
+     * @param command The index of the command's first value.
+     * @param y1 The first row.
+     * @param y2 The row after the last row.
+     */
+    private void scaledBlit(int command, int y1, int y2)
+    {
+        int[] source = commandPixels[command / COMMAND_SIZE];
+        byte[] indices = commandIndices[command / COMMAND_SIZE];
+        int format = commands[command + FORMAT];
+        int stride = commands[command + STRIDE];
+        long sourceWidth = commands[command + SOURCE_WIDTH];
+        long sourceHeight = commands[command + SOURCE_HEIGHT];
+        long destWidth = commands[command + DEST_WIDTH];
+        long destHeight = commands[command + DEST_HEIGHT];
+        int destX = commands[command + DEST_X];
+        int destY = commands[command + DEST_Y];
+        int x1 = commands[command + VISIBLE_X1];
+        int x2 = commands[command + VISIBLE_X2];
+        for (int y = y1; y < y2; y++)
+        {
+            int sourceY = commands[command + SOURCE_Y] + (int) (((y - destY) * 2L + 1) * sourceHeight / (destHeight * 2));
+            int sourceRow = commands[command + OFFSET] + sourceY * stride + commands[command + SOURCE_X];
+            int row = y * width;
+            for (int x = x1; x < x2; x++)
+            {
+                int sourceIndex = sourceRow + (int) (((x - destX) * 2L + 1) * sourceWidth / (destWidth * 2));
+                int pixel = (indices != null) ? source[indices[sourceIndex] & 0xFF] : source[sourceIndex];
+                int alpha = (format == OPAQUE_PIXELS) ? 0xFF : pixel >>> 24;
+                if (alpha == 0xFF || (format == BITMASK_PIXELS && alpha != 0))
+                {
+                    pixels[row + x] = pixel;
+                }
+                else if (alpha != 0)
+                {
+                    pixels[row + x] = blend(pixel, pixels[row + x], alpha, format == PREMULTIPLIED_PIXELS);
+                }
+            }
+        }
+    }
+
+    /**
+     * Blend a source pixel over a framebuffer pixel.
+     * @param source The source pixel.
+     * @param destination The framebuffer pixel.
+     * @param alpha The alpha of the source pixel (1 - 254).
+     * @param premultiplied Flag specifying the source color is already multiplied by its alpha.
+     * @return The blended pixel.
+     */
+    private static int blend(int source, int destination, int alpha, boolean premultiplied)
+    {
+        int sourceFactor = premultiplied ? 0xFF : alpha;
+        int destinationFactor = 0xFF - alpha;
+        int red = mul8(sourceFactor, (source >> 16) & 0xFF) + mul8(destinationFactor, (destination >> 16) & 0xFF);
+        int green = mul8(sourceFactor, (source >> 8) & 0xFF) + mul8(destinationFactor, (destination >> 8) & 0xFF);
+        int blue = mul8(sourceFactor, source & 0xFF) + mul8(destinationFactor, destination & 0xFF);
+        return (red << 16) | (green << 8) | blue;
+    }
+
+    /**
+     * Multiply two 8 bit values and divide by 255.
+     * @param a The first value (0 - 255).
+     * @param b The second value (0 - 255).
+     * @return The rounded result (0 - 255).
+     */
+    private static int mul8(int a, int b)
+    {
+        return MUL8_TABLE[(a << 8) | b] & 0xFF;
+    }
+
+    /**
+     * The task that rasterizes a band of rows, splitting itself in half until the bands are small enough.
+     */
+    private class BandTask extends RecursiveAction
+    {
+        /** The serialization version of the task */
+        private static final long serialVersionUID = 1L;
+
+        /** The first row of the band */
+        private int top;
+        /** The row after the last row of the band */
+        private int bottom;
+
+        /**
+         * Create a task for a band of rows.
+         * @param bandTop The first row of the band.
+         * @param bandBottom The row after the last row of the band.
+         */
+        public BandTask(int bandTop, int bandBottom)
+        {
+            top = bandTop;
+            bottom = bandBottom;
+        }
+
+        /**
+         * Rasterize the band, or split it and rasterize both halves in parallel.
+         */
+        @Override
+        protected void compute()
+        {
+            if (bottom - top <= bandHeight)
+            {
+                rasterizeBand(top, bottom);
+            }
+            else
+            {
+                int middle = top + (bottom - top) / 2;
+                invokeAll(new BandTask(top, middle), new BandTask(middle, bottom));
+            }
+        }
+    }
+}
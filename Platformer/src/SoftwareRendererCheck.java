@@ -0,0 +1,273 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.zip.CRC32;
+/**
+ * Renders the same snapshot through the software renderer and through Java2D and compares the frames.
+ */
+public class SoftwareRendererCheck
+{
+    /** The names of the sprite pixel formats checked, one for each blitter, then the game's own texture atlas */
+    private static final String[] FORMAT_NAMES = {"opaque", "bitmask", "alpha", "atlas"};
+    /** The index of the opaque format, drawn with the opaque blitter */
+    private static final int OPAQUE_FORMAT = 0;
+    /** The index of the bitmask format, drawn with the bitmask blitter */
+    private static final int BITMASK_FORMAT = 1;
+    /** The index of the packed texture atlas, most of its sprites are on palette pages drawn with the indexed blitter */
+    private static final int ATLAS_FORMAT = 3;
+    /** The width of the level in blocks */
+    private static final int MAP_WIDTH = 30;
+    /** The height of the level in blocks */
+    private static final int MAP_HEIGHT = 12;
+    /** The number of entity sprites in the snapshot */
+    private static final int NUM_SPRITES = 200;
+    /** The number of frames rendered for each format, each from a different camera position */
+    private static final int NUM_FRAMES = 8;
+
+    /**
+     * Render a synthetic level through both paths for each blitter, then with sprites from the real atlas, and print the frame checksums.
+     * This runs headless, the process exits with status 1 if any frame differs.
+     * @param args Unused.
+     */
+    public static void main(String[] args)
+    {
+        System.setProperty("java.awt.headless", "true");
+        boolean allMatched = true;
+        for (int format = 0; format < FORMAT_NAMES.length; format++)
+        {
+            WorldSnapshot snapshot = createSnapshot(format);
+            GameCamera softwareCamera = new GameCamera(MAP_WIDTH * Block.BLOCK_WIDTH, MAP_HEIGHT * Block.BLOCK_HEIGHT,
+                    GamePanel.DEFAULT_WIDTH, GamePanel.DEFAULT_HEIGHT);
+            GameCamera java2DCamera = new GameCamera(MAP_WIDTH * Block.BLOCK_WIDTH, MAP_HEIGHT * Block.BLOCK_HEIGHT,
+                    GamePanel.DEFAULT_WIDTH, GamePanel.DEFAULT_HEIGHT);
+            SoftwareRenderer softwareRenderer = new SoftwareRenderer(GamePanel.DEFAULT_WIDTH, GamePanel.DEFAULT_HEIGHT);
+            BufferedImage java2DFrame = new BufferedImage(GamePanel.DEFAULT_WIDTH, GamePanel.DEFAULT_HEIGHT, BufferedImage.TYPE_INT_RGB);
+
+            for (int frame = 0; frame < NUM_FRAMES; frame++)
+            {
+                //Pan the camera across the level, the offsets are negative as it moves right and down
+                snapshot.previousCameraX = snapshot.cameraX;
+                snapshot.previousCameraY = snapshot.cameraY;
+                snapshot.cameraX = -frame * 97;
+                snapshot.cameraY = -frame * 11;
+                snapshot.ribbonPreviousOffsets[0] = snapshot.ribbonOffsets[0];
+                snapshot.ribbonOffsets[0] = frame * 97 * 2 / 5;
+
+                Graphics2D softwareGraphics = softwareRenderer.getGraphics();
+                drawFrame(softwareGraphics, softwareCamera, snapshot);
+                softwareRenderer.flush();
+
+                Graphics2D java2DGraphics = java2DFrame.createGraphics();
+                drawFrame(java2DGraphics, java2DCamera, snapshot);
+                java2DGraphics.dispose();
+
+                int[] softwarePixels = getPixels(softwareRenderer.getFramebuffer());
+                int[] java2DPixels = getPixels(java2DFrame);
+                long softwareChecksum = getChecksum(softwarePixels);
+                long java2DChecksum = getChecksum(java2DPixels);
+                int numDifferent = 0;
+                for (int i = 0; i < softwarePixels.length; i++)
+                {
+                    if ((softwarePixels[i] & 0xFFFFFF) != (java2DPixels[i] & 0xFFFFFF))
+                    {
+                        numDifferent++;
+                    }
+                }
+                System.out.printf("%-8s frame %d  software %08x  java2d %08x  %s%n", FORMAT_NAMES[format], frame,
+                        softwareChecksum, java2DChecksum, (numDifferent == 0) ? "match" : numDifferent + " pixels differ");
+                allMatched &= (numDifferent == 0);
+            }
+        }
+
+        System.out.println(allMatched ? "All frames match" : "FRAMES DIFFER");
+        if (!allMatched)
+        {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Clear the frame and draw the snapshot the way the GamePanel does.
+     * @param graphics The graphics object used to draw.
+     * @param camera The camera that draws the snapshot, each path has its own so their terrain caches are separate.
+     * @param snapshot The snapshot to draw.
+     */
+    private static void drawFrame(Graphics2D graphics, GameCamera camera, WorldSnapshot snapshot)
+    {
+        graphics.setColor(Color.BLACK);
+        graphics.fillRect(0, 0, GamePanel.DEFAULT_WIDTH, GamePanel.DEFAULT_HEIGHT);
+        camera.draw(graphics, snapshot, 0.5);
+    }
+
+    /**
+     * Create a snapshot of a synthetic level whose blocks and sprites are all cut from one atlas page,
+     * or from the pages the game packs its images into.
+     * @param format The pixel format of the atlas page, an index into FORMAT_NAMES.
+     * @return The snapshot.
+     */
+    private static WorldSnapshot createSnapshot(int format)
+    {
+        Random random = new Random(format);
+
+        //A static block, an animated block, three entity sprites of different sizes, and a ribbon
+        HashMap<Integer, Block> blocks = new HashMap<>();
+        Animation[] sprites;
+        SpriteRegion ribbonImage;
+        if (format == ATLAS_FORMAT)
+        {
+            ImageManager imageManager = new ImageManager("ImagesConfig.txt");
+            blocks.put(1, createBlock(imageManager.getImages("Grass Block").get(0)));
+            blocks.put(2, createBlock(imageManager.getImages("Carrot").get(0), imageManager.getImages("Carrot").get(1)));
+            sprites = new Animation[] {createAnimation(imageManager.getImages("Turtle Walk Left").get(0)),
+                    createAnimation(imageManager.getImages("Chicken Right").get(0)),
+                    createAnimation(imageManager.getImages("Boar Left").get(0))};
+            ribbonImage = imageManager.getImages("Platformer Ribbon").get(0);
+        }
+        else
+        {
+            BufferedImage page = createPage(format, random);
+            blocks.put(1, createBlock(new SpriteRegion(page, 0, 0, Block.BLOCK_WIDTH, Block.BLOCK_HEIGHT)));
+            blocks.put(2, createBlock(new SpriteRegion(page, 60, 0, Block.BLOCK_WIDTH, Block.BLOCK_HEIGHT),
+                    new SpriteRegion(page, 120, 0, Block.BLOCK_WIDTH, Block.BLOCK_HEIGHT)));
+            sprites = new Animation[] {createAnimation(new SpriteRegion(page, 180, 0, 50, 40)),
+                    createAnimation(new SpriteRegion(page, 0, 60, 90, 60)),
+                    createAnimation(new SpriteRegion(page, 90, 60, 150, 60))};
+            ribbonImage = new SpriteRegion(page, 0, 0, page.getWidth(), page.getHeight());
+        }
+
+        //Fill the bottom rows with blocks and scatter a few platforms
+        int[][] blockIdMap = new int[MAP_WIDTH][MAP_HEIGHT];
+        for (int x = 0; x < MAP_WIDTH; x++)
+        {
+            blockIdMap[x][MAP_HEIGHT - 1] = 101;
+            blockIdMap[x][MAP_HEIGHT - 2] = (x % 3 == 0) ? 102 : 101;
+            if (random.nextInt(4) == 0)
+            {
+                blockIdMap[x][2 + random.nextInt(MAP_HEIGHT - 5)] = 101 + random.nextInt(2);
+            }
+        }
+
+        WorldSnapshot snapshot = new WorldSnapshot();
+        snapshot.tileMap = new TileMap(blockIdMap);
+        snapshot.blocks = blocks;
+        new Ribbon(ribbonImage, 0.4, GamePanel.DEFAULT_WIDTH).captureSnapshot(snapshot, true);
+        for (int i = 0; i < NUM_SPRITES; i++)
+        {
+            int x = random.nextInt(MAP_WIDTH * Block.BLOCK_WIDTH);
+            int y = random.nextInt(MAP_HEIGHT * Block.BLOCK_HEIGHT);
+            snapshot.addSprite(sprites[random.nextInt(sprites.length)], 0, x - random.nextInt(9), y - random.nextInt(9),
+                    x, y, random.nextInt(RenderQueue.NUM_LAYERS));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Create an atlas page filled with noise in a pixel format.
+     * @param format The pixel format, an index into FORMAT_NAMES.
+     * @param random The source of the noise.
+     * @return The page.
+     */
+    private static BufferedImage createPage(int format, Random random)
+    {
+        BufferedImage page;
+        if (format == OPAQUE_FORMAT)
+        {
+            page = new BufferedImage(240, 120, BufferedImage.TYPE_INT_RGB);
+        }
+        else if (format == BITMASK_FORMAT)
+        {
+            //An ARGB page the atlas classified as bitmask, as it would be on a display with bitmask images
+            page = new BufferedImage(240, 120, BufferedImage.TYPE_INT_ARGB)
+            {
+                @Override
+                public int getTransparency()
+                {
+                    return Transparency.BITMASK;
+                }
+            };
+        }
+        else
+        {
+            page = new BufferedImage(240, 120, BufferedImage.TYPE_INT_ARGB);
+        }
+
+        int[] pixels = getPixels(page);
+        for (int i = 0; i < pixels.length; i++)
+        {
+            int alpha;
+            if (format == OPAQUE_FORMAT)
+            {
+                alpha = 0xFF;
+            }
+            else if (format == BITMASK_FORMAT)
+            {
+                alpha = random.nextBoolean() ? 0xFF : 0;
+            }
+            else
+            {
+                //Mostly partial alpha, with some fully opaque and fully transparent pixels
+                int choice = random.nextInt(4);
+                alpha = (choice == 0) ? 0 : (choice == 1) ? 0xFF : random.nextInt(256);
+            }
+            pixels[i] = (alpha << 24) | (random.nextInt() & 0xFFFFFF);
+        }
+        return page;
+    }
+
+    /**
+     * Create a block whose normal graphics cycle through some sprites.
+     * @param images The sprites, a block with one sprite is static.
+     * @return The block.
+     */
+    private static Block createBlock(SpriteRegion... images)
+    {
+        HashMap<Integer, Animation> graphicsMap = new HashMap<>();
+        graphicsMap.put(Block.NORMAL_GRAPHICS, createAnimation(images));
+        return new Block(graphicsMap);
+    }
+
+    /**
+     * Create a looping animation of some sprites.
+     * @param images The sprites.
+     * @return The animation.
+     */
+    private static Animation createAnimation(SpriteRegion... images)
+    {
+        ArrayList<SpriteRegion> imageSequence = new ArrayList<>();
+        for (SpriteRegion image : images)
+        {
+            imageSequence.add(image);
+        }
+        return new Animation(imageSequence, 1000L, true);
+    }
+
+    /**
+     * Get the pixels of an integer image.
+     * @param image The image.
+     * @return The pixel array backing the image.
+     */
+    private static int[] getPixels(BufferedImage image)
+    {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * Get the CRC32 checksum of the RGB values of a frame.
+     * @param pixels The pixels of the frame.
+     * @return The checksum.
+     */
+    private static long getChecksum(int[] pixels)
+    {
+        CRC32 crc = new CRC32();
+        for (int pixel : pixels)
+        {
+            crc.update(pixel >> 16);
+            crc.update(pixel >> 8);
+            crc.update(pixel);
+        }
+        return crc.getValue();
+    }
+}
@@ -14,6 +14,8 @@ public class Sound implements LineListener
     private int durationInSecs;
     /** Flag specifying if the sound is looping */
     private boolean isLoopingSound;
+    /** Flag specifying if the sound was stopped part way through and should not be reset */
+    private volatile boolean isPaused;
     /** The watcher that is notified when sound events occur */
     private SoundWatcher soundWatcher;
 
@@ -102,8 +104,8 @@ public class Sound implements LineListener
      */
     public void update(LineEvent lineEvent)
     {
-        //If a soundsClip has stopped or reached its end
-        if (lineEvent.getType() == LineEvent.Type.STOP)
+        //If a soundsClip has stopped or reached its end, a paused clip keeps its position
+        if (lineEvent.getType() == LineEvent.Type.STOP && !isPaused)
         {
             //Stop and reset the soundClip
             soundClip.stop();
@@ -131,6 +133,7 @@ public class Sound implements LineListener
         if (soundClip != null)
         {
             //If the sound is already playing, restart it
+            isPaused = false;
             if (soundClip.getFramePosition() > 0)
             {
                 soundClip.stop();
@@ -149,6 +152,7 @@ public class Sound implements LineListener
         //Pause the clip
         if (soundClip != null)
         {
+            isPaused = true;
             soundClip.stop();
         }
     }
@@ -161,10 +165,20 @@ public class Sound implements LineListener
         //Play the sound
         if (soundClip != null)
         {
+            isPaused = false;
             soundClip.start();
         }
     }
 
+    /**
+     * Is the sound playing?
+     * @return True if the sound clip is running, false otherwise.
+     */
+    public boolean isPlaying()
+    {
+        return soundClip != null && soundClip.isRunning();
+    }
+
     /**
      * Stop and reset the sound.
      */
@@ -173,6 +187,7 @@ public class Sound implements LineListener
         //Stop and reset the sound
         if (soundClip != null)
         {
+            isPaused = false;
             soundClip.stop();
             soundClip.setFramePosition(0);
             isLoopingSound = false;
@@ -2,6 +2,7 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
 import java.util.HashMap;
 /**
  * @author Logan Karstetter
@@ -13,8 +14,12 @@ public class SoundManager
     private String directory = "Sounds/";
     /** Maps sound names to actual sound clips */
     private HashMap<String, Sound> soundMap;
+    /** The sounds that were playing when all sounds were last paused */
+    private ArrayList<Sound> pausedSounds;
     /** Flag specifying if sound is enabled or disabled */
     private boolean soundEnabled;
+    /** The flight recorder that audio commands are recorded in */
+    private FlightRecorder flightRecorder;
 
     /**
      * Create a new SoundManager for playing and storing sounds.
@@ -24,6 +29,7 @@ public class SoundManager
     {
         //Setup the sound map and load sounds
         soundMap = new HashMap<>();
+        pausedSounds = new ArrayList<>();
         soundEnabled = true;
         loadSoundsFromFile(soundConfigFile);
     }
@@ -99,6 +105,10 @@ public class SoundManager
         {
             if (soundMap.containsKey(soundName))
             {
+                if (flightRecorder != null)
+                {
+                    flightRecorder.recordEvent(FlightRecorder.SOUND_PLAYED);
+                }
                 soundMap.get(soundName).play(loopSound);
                 return true;
             }
@@ -148,6 +158,37 @@ public class SoundManager
         return false;
     }
 
+    /**
+     * Pause every sound that is currently playing. The paused sounds are remembered
+     * so that resumeAllSounds() only resumes the sounds that were interrupted.
+     */
+    public void pauseAllSounds()
+    {
+        for (Sound sound : soundMap.values())
+        {
+            if (sound.isPlaying())
+            {
+                sound.pause();
+                pausedSounds.add(sound);
+            }
+        }
+    }
+
+    /**
+     * Resume the sounds that were playing when pauseAllSounds() was last called.
+     */
+    public void resumeAllSounds()
+    {
+        if (soundEnabled)
+        {
+            for (Sound sound : pausedSounds)
+            {
+                sound.resume();
+            }
+        }
+        pausedSounds.clear();
+    }
+
     /**
      * Stop the sound mapped to the passed sound name.
      * @param soundName The the name of the sound to stop.
@@ -203,6 +244,15 @@ public class SoundManager
         return false;
     }
 
+    /**
+     * Set the flight recorder that audio commands are recorded in.
+     * @param recorder The flight recorder.
+     */
+    public void setFlightRecorder(FlightRecorder recorder)
+    {
+        flightRecorder = recorder;
+    }
+
     /**
      * Enable or disable sounds from playing
      * @param soundIsEnabled True if sounds should be enabled, false otherwise.
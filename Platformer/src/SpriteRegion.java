@@ -0,0 +1,202 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+/**
+ * A sprite stored as a rectangle of a texture atlas page.
+ */
+public class SpriteRegion
+{
+    /** Where the sprite is within the atlas, it is replaced as a whole when the atlas is rebuilt so that a sprite
+     * being drawn by another thread is drawn from either the old or the new atlas, never a mix of the two */
+    private Placement placement;
+
+    /**
+     * Create a sprite region referring to a rectangle within an atlas page.
+     * @param page The atlas page containing the sprite.
+     * @param regionX The x position of the sprite within the page.
+     * @param regionY The y position of the sprite within the page.
+     * @param regionWidth The width of the sprite.
+     * @param regionHeight The height of the sprite.
+     */
+    public SpriteRegion(BufferedImage page, int regionX, int regionY, int regionWidth, int regionHeight)
+    {
+        setRegion(page, regionX, regionY, regionWidth, regionHeight);
+    }
+
+    /**
+     * Draw the whole sprite.
+     * @param dbGraphics The graphics object used to draw the sprite.
+     * @param drawX The x position on the screen to draw the sprite at.
+     * @param drawY The y position on the screen to draw the sprite at.
+     */
+    public void draw(Graphics dbGraphics, int drawX, int drawY)
+    {
+        Placement current = placement;
+        if (current.regionWidth > 0 && current.regionHeight > 0)
+        {
+            int left = drawX + current.offsetX;
+            int top = drawY + current.offsetY;
+            dbGraphics.drawImage(current.atlasPage, left, top, left + current.regionWidth, top + current.regionHeight,
+                    current.x, current.y, current.x + current.regionWidth, current.y + current.regionHeight, null);
+        }
+    }
+
+    /**
+     * Draw part of the sprite, scaling it to fit the destination rectangle. The source coordinates are
+     * relative to the untrimmed sprite, not to the atlas page, and the first corner must be the top left.
+     * @param dbGraphics The graphics object used to draw the sprite.
+     * @param dx1 The x coordinate of the first corner of the destination rectangle.
+     * @param dy1 The y coordinate of the first corner of the destination rectangle.
+     * @param dx2 The x coordinate of the second corner of the destination rectangle.
+     * @param dy2 The y coordinate of the second corner of the destination rectangle.
+     * @param sx1 The x coordinate of the first corner of the source rectangle.
+     * @param sy1 The y coordinate of the first corner of the source rectangle.
+     * @param sx2 The x coordinate of the second corner of the source rectangle.
+     * @param sy2 The y coordinate of the second corner of the source rectangle.
+     */
+    public void draw(Graphics dbGraphics, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2)
+    {
+        //Shrink the source rectangle to the trimmed rectangle and the destination rectangle along with it
+        Placement current = placement;
+        int left = Math.max(sx1, current.offsetX);
+        int top = Math.max(sy1, current.offsetY);
+        int right = Math.min(sx2, current.offsetX + current.regionWidth);
+        int bottom = Math.min(sy2, current.offsetY + current.regionHeight);
+        if (left >= right || top >= bottom)
+        {
+            return;
+        }
+        int destLeft = dx1 + (left - sx1) * (dx2 - dx1) / (sx2 - sx1);
+        int destTop = dy1 + (top - sy1) * (dy2 - dy1) / (sy2 - sy1);
+        int destRight = dx1 + (right - sx1) * (dx2 - dx1) / (sx2 - sx1);
+        int destBottom = dy1 + (bottom - sy1) * (dy2 - dy1) / (sy2 - sy1);
+        dbGraphics.drawImage(current.atlasPage, destLeft, destTop, destRight, destBottom, current.x + left - current.offsetX,
+                current.y + top - current.offsetY, current.x + right - current.offsetX, current.y + bottom - current.offsetY, null);
+    }
+
+    /**
+     * Point the sprite at a new rectangle, the sprite is untrimmed and as transparent as its page.
+     * @param page The atlas page containing the sprite.
+     * @param regionX The x position of the sprite within the page.
+     * @param regionY The y position of the sprite within the page.
+     * @param newRegionWidth The width of the sprite within the page.
+     * @param newRegionHeight The height of the sprite within the page.
+     */
+    public void setRegion(BufferedImage page, int regionX, int regionY, int newRegionWidth, int newRegionHeight)
+    {
+        setRegion(page, regionX, regionY, newRegionWidth, newRegionHeight, 0, 0, newRegionWidth, newRegionHeight,
+                (page != null) ? page.getTransparency() : Transparency.TRANSLUCENT);
+    }
+
+    /**
+     * Point the sprite at a new rectangle, this is used when the atlas is rebuilt so the animations and ribbons
+     * already holding the sprite draw from the new atlas. The rectangle is the sprite with its transparent borders
+     * trimmed off, the sprite is drawn at its untrimmed size so trimming does not move it on the screen.
+     * @param page The atlas page containing the sprite.
+     * @param regionX The x position of the sprite within the page.
+     * @param regionY The y position of the sprite within the page.
+     * @param newRegionWidth The width of the sprite within the page.
+     * @param newRegionHeight The height of the sprite within the page.
+     * @param trimOffsetX The x position of the rectangle within the untrimmed sprite.
+     * @param trimOffsetY The y position of the rectangle within the untrimmed sprite.
+     * @param untrimmedWidth The width of the untrimmed sprite.
+     * @param untrimmedHeight The height of the untrimmed sprite.
+     * @param imageTransparency The transparency of the sprite's own image, this matches the Transparency constants.
+     */
+    public void setRegion(BufferedImage page, int regionX, int regionY, int newRegionWidth, int newRegionHeight,
+                          int trimOffsetX, int trimOffsetY, int untrimmedWidth, int untrimmedHeight, int imageTransparency)
+    {
+        placement = new Placement(page, regionX, regionY, newRegionWidth, newRegionHeight, trimOffsetX, trimOffsetY,
+                untrimmedWidth, untrimmedHeight, imageTransparency);
+    }
+
+    /**
+     * Get the atlas page containing the sprite, sprites on the same page can be drawn one after another.
+     * @return The atlas page, or null if the sprite has no visible pixels.
+     */
+    public BufferedImage getAtlasPage()
+    {
+        return placement.atlasPage;
+    }
+
+    /**
+     * Get the transparency of the sprite's own image, this can be less than its page's when it shares a palette page.
+     * @return The transparency, this matches the Transparency constants.
+     */
+    public int getTransparency()
+    {
+        return placement.transparency;
+    }
+
+    /**
+     * Get the width of the sprite before it was trimmed.
+     * @return The width in pixels.
+     */
+    public int getWidth()
+    {
+        return placement.width;
+    }
+
+    /**
+     * Get the height of the sprite before it was trimmed.
+     * @return The height in pixels.
+     */
+    public int getHeight()
+    {
+        return placement.height;
+    }
+
+    /**
+     * Where a sprite is within the atlas. Placements are never modified, so one can be read by any thread.
+     */
+    private static class Placement
+    {
+        /** The atlas page containing the sprite */
+        private final BufferedImage atlasPage;
+        /** The x position of the sprite within the atlas page */
+        private final int x;
+        /** The y position of the sprite within the atlas page */
+        private final int y;
+        /** The width of the sprite's rectangle within the atlas page, its transparent borders are trimmed off */
+        private final int regionWidth;
+        /** The height of the sprite's rectangle within the atlas page, its transparent borders are trimmed off */
+        private final int regionHeight;
+        /** The x position of the trimmed rectangle within the sprite */
+        private final int offsetX;
+        /** The y position of the trimmed rectangle within the sprite */
+        private final int offsetY;
+        /** The width of the sprite before it was trimmed */
+        private final int width;
+        /** The height of the sprite before it was trimmed */
+        private final int height;
+        /** The transparency of the sprite's own image */
+        private final int transparency;
+
+        /**
+         * Create a placement, the parameters match those of setRegion().
+         * @param page The atlas page containing the sprite.
+         * @param regionX The x position of the sprite within the page.
+         * @param regionY The y position of the sprite within the page.
+         * @param trimmedWidth The width of the sprite within the page.
+         * @param trimmedHeight The height of the sprite within the page.
+         * @param trimOffsetX The x position of the rectangle within the untrimmed sprite.
+         * @param trimOffsetY The y position of the rectangle within the untrimmed sprite.
+         * @param untrimmedWidth The width of the untrimmed sprite.
+         * @param untrimmedHeight The height of the untrimmed sprite.
+         * @param imageTransparency The transparency of the sprite's own image.
+         */
+        private Placement(BufferedImage page, int regionX, int regionY, int trimmedWidth, int trimmedHeight,
+                          int trimOffsetX, int trimOffsetY, int untrimmedWidth, int untrimmedHeight, int imageTransparency)
+        {
+            atlasPage = page;
+            x = regionX;
+            y = regionY;
+            regionWidth = trimmedWidth;
+            regionHeight = trimmedHeight;
+            offsetX = trimOffsetX;
+            offsetY = trimOffsetY;
+            width = untrimmedWidth;
+            height = untrimmedHeight;
+            transparency = imageTransparency;
+        }
+    }
+}
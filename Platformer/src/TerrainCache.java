@@ -0,0 +1,393 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+/**
+ * A least recently used cache of pre-rendered terrain chunks, built ahead of the camera as it moves.
+ */
+public class TerrainCache
+{
+    /** The number of blocks along each side of a chunk the game uses, see TerrainCacheBenchmark for how it was chosen */
+    public static final int DEFAULT_CHUNK_SIZE_IN_BLOCKS = 8;
+    /** The most chunks the game keeps at once in the default view, enough for the chunks on screen plus the ones built ahead of the camera */
+    public static final int DEFAULT_MAX_CHUNKS = 16;
+    /** The number of block id's, only the last two digits of an id in the map select the block */
+    private static final int PALETTE_SIZE = 100;
+    /** The most chunks built ahead of the camera each frame, so building them never causes a hitch */
+    private static final int MAX_CHUNKS_BUILT_AHEAD = 1;
+
+    /** The number of blocks along each side of a chunk */
+    private int chunkSizeInBlocks;
+    /** The width of a chunk in pixels */
+    private int chunkWidth;
+    /** The height of a chunk in pixels */
+    private int chunkHeight;
+    /** The most chunks kept at once */
+    private int maxChunks;
+
+    /** The chunk images, keyed by chunk position and ordered from least to most recently drawn */
+    private LinkedHashMap<Long, BufferedImage> chunks;
+    /** The chunk images that were evicted and can be cleared and reused */
+    private ArrayList<BufferedImage> spareChunks;
+
+    /** The cache of pre-scaled images the chunks may be drawn from, or null if the game is not scaled */
+    private ScaledSpriteCache spriteCache;
+
+    /** The map of block id's the chunks were built from */
+    private TileMap cachedTileMap;
+    /** The map of block id's to block graphics the chunks were built from */
+    private HashMap<Integer, Block> cachedBlocks;
+    /** The blocks indexed by id, null for the id's without a block such as air */
+    private Block[] palette;
+    /** Flag specifying some blocks are animated and must be drawn every frame */
+    private boolean hasAnimatedBlocks;
+
+    /** The x offset of the camera the last time the terrain was drawn */
+    private int previousXOffset;
+    /** The y offset of the camera the last time the terrain was drawn */
+    private int previousYOffset;
+
+    /** The number of chunks drawn this frame that were already in the cache */
+    private int numChunkHits;
+    /** The number of chunks drawn this frame that had to be built first */
+    private int numChunkMisses;
+    /** The number of chunks built ahead of the camera this frame */
+    private int numChunksBuiltAhead;
+    /** The time spent building chunks ahead of the camera this frame in nanoseconds */
+    private long buildAheadTime;
+
+    /**
+     * Create an empty terrain cache with the chunk size and number of chunks the game uses.
+     * Chunks are built the first time they are drawn.
+     */
+    public TerrainCache()
+    {
+        this(DEFAULT_CHUNK_SIZE_IN_BLOCKS, DEFAULT_MAX_CHUNKS);
+    }
+
+    /**
+     * Get the number of chunks of the default size the game keeps for a view. A view that is not aligned to the
+     * chunks covers one more chunk than fits in it along each side, and a row and column are built ahead of the
+     * camera, so a 600x600 view keeps the default number of chunks.
+     * @param viewWidth The width of the view in pixels.
+     * @param viewHeight The height of the view in pixels.
+     * @return The most chunks to keep at once, at least DEFAULT_MAX_CHUNKS.
+     */
+    public static int getMaxChunks(int viewWidth, int viewHeight)
+    {
+        int numChunksX = viewWidth / (DEFAULT_CHUNK_SIZE_IN_BLOCKS * Block.BLOCK_WIDTH) + 3;
+        int numChunksY = viewHeight / (DEFAULT_CHUNK_SIZE_IN_BLOCKS * Block.BLOCK_HEIGHT) + 3;
+        return Math.max(DEFAULT_MAX_CHUNKS, numChunksX * numChunksY);
+    }
+
+    /**
+     * Create an empty terrain cache. Chunks are built the first time they are drawn.
+     * @param chunkSize The number of blocks along each side of a chunk.
+     * @param maxNumChunks The most chunks kept at once.
+     */
+    public TerrainCache(int chunkSize, int maxNumChunks)
+    {
+        chunkSizeInBlocks = chunkSize;
+        chunkWidth = chunkSizeInBlocks * Block.BLOCK_WIDTH;
+        chunkHeight = chunkSizeInBlocks * Block.BLOCK_HEIGHT;
+        maxChunks = maxNumChunks;
+
+        //Keep the chunks in access order so the least recently drawn one is evicted first
+        spareChunks = new ArrayList<>();
+        chunks = new LinkedHashMap<Long, BufferedImage>(maxChunks, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest)
+            {
+                if (size() > maxChunks)
+                {
+                    spareChunks.add(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+        palette = new Block[PALETTE_SIZE];
+    }
+
+    /**
+     * Draw the terrain within the view. The chunks overlapping the view are drawn with one image each,
+     * building any that are missing, then the animated blocks are drawn on top of them. Afterwards a chunk
+     * just outside the view in the direction the camera is moving is built so it is ready when it scrolls in.
+     * @param dbGraphics The graphics object used to draw.
+     * @param tileMap The map of block id's.
+     * @param blocks The map of block id's to actual block graphics.
+     * @param xOffset The x offset of the camera.
+     * @param yOffset The y offset of the camera.
+     * @param viewWidth The width of the view in pixels.
+     * @param viewHeight The height of the view in pixels.
+     */
+    public void draw(Graphics dbGraphics, TileMap tileMap, HashMap<Integer, Block> blocks,
+                     int xOffset, int yOffset, int viewWidth, int viewHeight)
+    {
+        //Start over whenever a different level is drawn
+        if (tileMap != cachedTileMap || blocks != cachedBlocks)
+        {
+            changeLevel(tileMap, blocks);
+            previousXOffset = xOffset;
+            previousYOffset = yOffset;
+        }
+        numChunkHits = 0;
+        numChunkMisses = 0;
+
+        //Find the chunks overlapping the view, the offsets are negative so negate them to get the view's position
+        int numChunksX = (tileMap.getWidth() + chunkSizeInBlocks - 1) / chunkSizeInBlocks;
+        int numChunksY = (tileMap.getHeight() + chunkSizeInBlocks - 1) / chunkSizeInBlocks;
+        int firstChunkX = Math.max(0, Math.floorDiv(-xOffset, chunkWidth));
+        int lastChunkX = Math.min(numChunksX - 1, Math.floorDiv(-xOffset + viewWidth - 1, chunkWidth));
+        int firstChunkY = Math.max(0, Math.floorDiv(-yOffset, chunkHeight));
+        int lastChunkY = Math.min(numChunksY - 1, Math.floorDiv(-yOffset + viewHeight - 1, chunkHeight));
+
+        //Draw the chunks
+        for (int chunkX = firstChunkX; chunkX <= lastChunkX; chunkX++)
+        {
+            for (int chunkY = firstChunkY; chunkY <= lastChunkY; chunkY++)
+            {
+                dbGraphics.drawImage(getChunk(chunkX, chunkY), chunkX * chunkWidth + xOffset,
+                        chunkY * chunkHeight + yOffset, null);
+            }
+        }
+
+        //Draw the animated blocks that can be seen on screen, only the visible rows and columns are looked at
+        if (hasAnimatedBlocks)
+        {
+            int firstX = Math.max(0, Math.floorDiv(-xOffset, Block.BLOCK_WIDTH));
+            int lastX = Math.min(tileMap.getWidth() - 1, Math.floorDiv(-xOffset + viewWidth - 1, Block.BLOCK_WIDTH));
+            int firstY = Math.max(0, Math.floorDiv(-yOffset, Block.BLOCK_HEIGHT));
+            int lastY = Math.min(tileMap.getHeight() - 1, Math.floorDiv(-yOffset + viewHeight - 1, Block.BLOCK_HEIGHT));
+            for (int y = firstY; y <= lastY; y++)
+            {
+                for (int x = firstX; x <= lastX; x++)
+                {
+                    Block block = palette[tileMap.getTileId(x, y) % PALETTE_SIZE];
+                    if (block != null && !block.isStatic())
+                    {
+                        block.draw(dbGraphics, x * Block.BLOCK_WIDTH + xOffset, y * Block.BLOCK_HEIGHT + yOffset);
+                    }
+                }
+            }
+        }
+
+        //Build the chunks the camera is moving towards, the offsets shrink as the camera moves right or down
+        long buildAheadStartTime = System.nanoTime();
+        int chunksBuilt = 0;
+        int aheadChunkX = Integer.signum(previousXOffset - xOffset);
+        int aheadChunkY = Integer.signum(previousYOffset - yOffset);
+        if (aheadChunkX != 0)
+        {
+            int chunkX = (aheadChunkX > 0) ? lastChunkX + 1 : firstChunkX - 1;
+            for (int chunkY = firstChunkY; chunkY <= lastChunkY && chunksBuilt < MAX_CHUNKS_BUILT_AHEAD; chunkY++)
+            {
+                chunksBuilt += buildAhead(chunkX, chunkY, numChunksX, numChunksY);
+            }
+        }
+        if (aheadChunkY != 0)
+        {
+            int chunkY = (aheadChunkY > 0) ? lastChunkY + 1 : firstChunkY - 1;
+            for (int chunkX = firstChunkX; chunkX <= lastChunkX && chunksBuilt < MAX_CHUNKS_BUILT_AHEAD; chunkX++)
+            {
+                chunksBuilt += buildAhead(chunkX, chunkY, numChunksX, numChunksY);
+            }
+        }
+        numChunksBuiltAhead = chunksBuilt;
+        buildAheadTime = System.nanoTime() - buildAheadStartTime;
+        previousXOffset = xOffset;
+        previousYOffset = yOffset;
+    }
+
+    /**
+     * Throw away every chunk, they are built again from the current block images the next time they are drawn.
+     */
+    public void clear()
+    {
+        cachedTileMap = null;
+        cachedBlocks = null;
+    }
+
+    /**
+     * Forget the chunks of the previous level and fill the palette from the new blocks map.
+     * The old chunk images are kept so they can be reused.
+     * @param tileMap The map of block id's.
+     * @param blocks The map of block id's to actual block graphics.
+     */
+    private void changeLevel(TileMap tileMap, HashMap<Integer, Block> blocks)
+    {
+        Iterator<BufferedImage> iterator = chunks.values().iterator();
+        while (iterator.hasNext())
+        {
+            spareChunks.add(iterator.next());
+            iterator.remove();
+        }
+        cachedTileMap = tileMap;
+        cachedBlocks = blocks;
+
+        //Look the blocks up once here instead of for every tile
+        hasAnimatedBlocks = false;
+        for (int id = 0; id < PALETTE_SIZE; id++)
+        {
+            palette[id] = blocks.get(id);
+            if (palette[id] != null && !palette[id].isStatic())
+            {
+                hasAnimatedBlocks = true;
+            }
+        }
+    }
+
+    /**
+     * Build a chunk ahead of the camera if it is within the map and not already built.
+     * @param chunkX The x position of the chunk in chunks.
+     * @param chunkY The y position of the chunk in chunks.
+     * @param numChunksX The width of the map in chunks.
+     * @param numChunksY The height of the map in chunks.
+     * @return The number of chunks built, either 1 or 0.
+     */
+    private int buildAhead(int chunkX, int chunkY, int numChunksX, int numChunksY)
+    {
+        if (chunkX < 0 || chunkX >= numChunksX || chunkY < 0 || chunkY >= numChunksY
+                || chunks.containsKey(getChunkKey(chunkX, chunkY)))
+        {
+            return 0;
+        }
+        chunks.put(getChunkKey(chunkX, chunkY), buildChunk(chunkX, chunkY));
+        return 1;
+    }
+
+    /**
+     * Get the image of a chunk, building it if it is not in the cache.
+     * @param chunkX The x position of the chunk in chunks.
+     * @param chunkY The y position of the chunk in chunks.
+     * @return The chunk image.
+     */
+    private BufferedImage getChunk(int chunkX, int chunkY)
+    {
+        Long key = getChunkKey(chunkX, chunkY);
+        BufferedImage chunk = chunks.get(key);
+        if (chunk == null)
+        {
+            chunk = buildChunk(chunkX, chunkY);
+            chunks.put(key, chunk);
+            numChunkMisses++;
+        }
+        else
+        {
+            numChunkHits++;
+        }
+        return chunk;
+    }
+
+    /**
+     * Draw the static blocks of a chunk into an image. A spare image is cleared and reused if
+     * there is one, otherwise a new image compatible with the display is created.
+     * @param chunkX The x position of the chunk in chunks.
+     * @param chunkY The y position of the chunk in chunks.
+     * @return The chunk image.
+     */
+    private BufferedImage buildChunk(int chunkX, int chunkY)
+    {
+        BufferedImage chunk;
+        Graphics2D g2d;
+        if (spareChunks.isEmpty())
+        {
+            chunk = ImageManager.createCompatibleImage(chunkWidth, chunkHeight, Transparency.TRANSLUCENT);
+            g2d = chunk.createGraphics();
+        }
+        else
+        {
+            //Clear the old terrain so the background shows through the air blocks
+            chunk = spareChunks.remove(spareChunks.size() - 1);
+            g2d = chunk.createGraphics();
+            g2d.setComposite(AlphaComposite.Clear);
+            g2d.fillRect(0, 0, chunkWidth, chunkHeight);
+            g2d.setComposite(AlphaComposite.SrcOver);
+        }
+
+        //Draw the static blocks within the chunk
+        int lastX = Math.min(cachedTileMap.getWidth(), (chunkX + 1) * chunkSizeInBlocks);
+        int lastY = Math.min(cachedTileMap.getHeight(), (chunkY + 1) * chunkSizeInBlocks);
+        for (int x = chunkX * chunkSizeInBlocks; x < lastX; x++)
+        {
+            for (int y = chunkY * chunkSizeInBlocks; y < lastY; y++)
+            {
+                Block block = palette[cachedTileMap.getTileId(x, y) % PALETTE_SIZE];
+                if (block != null && block.isStatic())
+                {
+                    block.draw(g2d, (x - chunkX * chunkSizeInBlocks) * Block.BLOCK_WIDTH,
+                            (y - chunkY * chunkSizeInBlocks) * Block.BLOCK_HEIGHT);
+                }
+            }
+        }
+        g2d.dispose();
+
+        //A reused image has new contents, so any pre-scaled copy of it is out of date
+        if (spriteCache != null)
+        {
+            spriteCache.invalidate(chunk);
+        }
+        return chunk;
+    }
+
+    /**
+     * Set the cache of pre-scaled images the chunks are drawn from when the game is scaled.
+     * The cache is told whenever a chunk image is rebuilt.
+     * @param cache The cache, or null if the game is not scaled.
+     */
+    public void setSpriteCache(ScaledSpriteCache cache)
+    {
+        spriteCache = cache;
+    }
+
+    /**
+     * Get the number of chunks drawn this frame that were already in the cache.
+     * @return The number of cache hits.
+     */
+    public int getNumChunkHits()
+    {
+        return numChunkHits;
+    }
+
+    /**
+     * Get the number of chunks drawn this frame that had to be built first, each one is a hitch.
+     * @return The number of cache misses.
+     */
+    public int getNumChunkMisses()
+    {
+        return numChunkMisses;
+    }
+
+    /**
+     * Get the number of chunks built ahead of the camera this frame.
+     * @return The number of chunks built ahead.
+     */
+    public int getNumChunksBuiltAhead()
+    {
+        return numChunksBuiltAhead;
+    }
+
+    /**
+     * Get the time spent building chunks ahead of the camera this frame.
+     * @return The build ahead time in nanoseconds.
+     */
+    public long getBuildAheadTime()
+    {
+        return buildAheadTime;
+    }
+
+    /**
+     * Combine a chunk's position into the key used to store it.
+     * @param chunkX The x position of the chunk in chunks.
+     * @param chunkY The y position of the chunk in chunks.
+     * @return The chunk key.
+     */
+    private Long getChunkKey(int chunkX, int chunkY)
+    {
+        return ((long) chunkX << 32) | (chunkY & 0xFFFFFFFFL);
+    }
+}
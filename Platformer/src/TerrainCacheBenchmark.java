@@ -0,0 +1,384 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+/**
+ * Pans a camera across levels of growing size and reports the terrain cache's frame cost, build ahead time and hit rate,
+ * then times the tile traversal of the palette against the per-tile HashMap look ups it replaced.
+ */
+public class TerrainCacheBenchmark
+{
+    /** The widths of the levels benchmarked in blocks */
+    private static final int[] MAP_WIDTHS = {30, 1000, 10000, 100000};
+    /** The heights of the levels benchmarked in blocks */
+    private static final int[] MAP_HEIGHTS = {10, 50, 100, 200};
+    /** The number of frames drawn for each level */
+    private static final int NUM_FRAMES = 6000;
+    /** The number of frames drawn on the smallest level before the benchmark starts, to warm up the JIT */
+    private static final int NUM_WARMUP_FRAMES = 2000;
+    /** The distance the camera pans right each frame in pixels, a little faster than the player runs */
+    private static final int PAN_SPEED = 4;
+    /** The distance the camera bobs up and down from the middle of the level in pixels, as the player jumps */
+    private static final int BOB_HEIGHT = 360;
+    /** The number of frames the camera takes to bob up and down once */
+    private static final int BOB_PERIOD = 150;
+    /** The chunk sizes in blocks compared on the largest level */
+    private static final int[] CHUNK_SIZES = {4, 8, 16};
+    /** The numbers of chunks kept compared on the largest level */
+    private static final int[] MAX_CHUNKS = {9, 12, 16, 24};
+    /** The number of entries in the palette, matching the TerrainCache */
+    private static final int PALETTE_SIZE = 100;
+    /** The number of times the camera path is traversed when timing the tile traversal, the first is a warm up */
+    private static final int NUM_TRAVERSAL_PASSES = 4;
+
+    /**
+     * Run the benchmark and print a line for each level drawn with the cache sizes the game uses, then a line
+     * for each chunk size and number of chunks on the largest level. The draw and build ahead times are per
+     * frame, the hit rate is the share of chunks drawn that were already in the cache. A miss builds a chunk
+     * mid-frame, so the frames with misses are also reported on their own. The first frame on each level must
+     * build every chunk in view, so it is left out. Last, the tile traversal is timed without drawing anything.
+     * @param args Unused.
+     */
+    public static void main(String[] args)
+    {
+        System.setProperty("java.awt.headless", "true");
+        HashMap<Integer, Block> blocks = createBlocks();
+        BufferedImage frame = ImageManager.createCompatibleImage(GamePanel.DEFAULT_WIDTH, GamePanel.DEFAULT_HEIGHT, Transparency.OPAQUE);
+
+        //Warm up on the smallest level, the results are thrown away
+        run(new TerrainCache(), createTileMap(MAP_WIDTHS[0], MAP_HEIGHTS[0]), blocks, frame, NUM_WARMUP_FRAMES);
+
+        System.out.println("Chunks of " + TerrainCache.DEFAULT_CHUNK_SIZE_IN_BLOCKS + "x" + TerrainCache.DEFAULT_CHUNK_SIZE_IN_BLOCKS
+                + " blocks, " + TerrainCache.DEFAULT_MAX_CHUNKS + " chunks kept, view " + GamePanel.DEFAULT_WIDTH + "x" + GamePanel.DEFAULT_HEIGHT
+                + ", " + NUM_FRAMES + " frames per level");
+        System.out.println("level          draw mean   draw p99   no miss p99   miss frames   miss mean   ahead mean   ahead max"
+                + "   built ahead   misses   hit rate   (times in us)");
+        TileMap[] tileMaps = new TileMap[MAP_WIDTHS.length];
+        for (int i = 0; i < MAP_WIDTHS.length; i++)
+        {
+            tileMaps[i] = createTileMap(MAP_WIDTHS[i], MAP_HEIGHTS[i]);
+            String result = run(new TerrainCache(), tileMaps[i], blocks, frame, NUM_FRAMES);
+            System.out.printf("%-13s  %s%n", MAP_WIDTHS[i] + "x" + MAP_HEIGHTS[i], result);
+        }
+
+        //Compare other cache sizes on the largest level, each missed chunk is built mid-frame and is a hitch
+        TileMap tileMap = tileMaps[tileMaps.length - 1];
+        System.out.println();
+        System.out.println("chunk   kept   memory      draw mean   draw p99   no miss p99   miss frames   miss mean   ahead mean"
+                + "   ahead max   built ahead   misses   hit rate");
+        for (int chunkSize : CHUNK_SIZES)
+        {
+            for (int maxChunks : MAX_CHUNKS)
+            {
+                String result = run(new TerrainCache(chunkSize, maxChunks), tileMap, blocks, frame, NUM_FRAMES);
+                double memory = (double) maxChunks * chunkSize * Block.BLOCK_WIDTH * chunkSize * Block.BLOCK_HEIGHT * 4 / (1 << 20);
+                System.out.printf("%2dx%-2d   %4d   %5.1f MB   %s%n", chunkSize, chunkSize, maxChunks, memory, result);
+            }
+        }
+
+        //Time the tile traversal on its own, the chunk cache hides it when the whole draw is timed
+        System.out.println();
+        System.out.println("Tile traversal along the same camera path, nothing is drawn. The animated pass runs every frame: before,");
+        System.out.println("every animated block in the level was tested against the view and looked up in the HashMap with a modulo,");
+        System.out.println("now the palette is read for the tiles in view. The chunk look up finds the blocks of every chunk in view,");
+        System.out.println("which is the work of building them: before with a HashMap look up and a modulo per tile, now with the palette.");
+        System.out.println("level          animated before   animated now   chunk look up before   chunk look up now   (ns per frame)");
+        for (TileMap warmUpTileMap : tileMaps)
+        {
+            runTraversal(warmUpTileMap, blocks, NUM_WARMUP_FRAMES);
+        }
+        for (int i = 0; i < MAP_WIDTHS.length; i++)
+        {
+            System.out.printf("%-13s  %s%n", MAP_WIDTHS[i] + "x" + MAP_HEIGHTS[i], runTraversal(tileMaps[i], blocks, NUM_FRAMES));
+        }
+    }
+
+    /**
+     * Pan a camera across a level, drawing its terrain into a frame through a terrain cache.
+     * @param terrainCache The terrain cache, it should be new so it starts empty.
+     * @param tileMap The level.
+     * @param blocks The map of block id's to actual block graphics.
+     * @param frame The image the terrain is drawn into.
+     * @param numFrames The number of frames to draw.
+     * @return A line of results.
+     */
+    private static String run(TerrainCache terrainCache, TileMap tileMap, HashMap<Integer, Block> blocks,
+                              BufferedImage frame, int numFrames)
+    {
+        FrameHistogram drawTimes = new FrameHistogram(10000, 1000L, numFrames);
+        FrameHistogram noMissDrawTimes = new FrameHistogram(10000, 1000L, numFrames);
+        long totalDrawTime = 0;
+        long totalMissFrameTime = 0;
+        int numMissFrames = 0;
+        long totalBuildAheadTime = 0;
+        long maxBuildAheadTime = 0;
+        long numHits = 0;
+        long numMisses = 0;
+        long numBuiltAhead = 0;
+
+        int maxXOffset = Math.max(0, tileMap.getWidth() * Block.BLOCK_WIDTH - GamePanel.DEFAULT_WIDTH);
+        int maxYOffset = Math.max(0, tileMap.getHeight() * Block.BLOCK_HEIGHT - GamePanel.DEFAULT_HEIGHT);
+        Graphics2D g2d = frame.createGraphics();
+        for (int n = 0; n < numFrames; n++)
+        {
+            int x = getCameraX(n, maxXOffset);
+            int y = getCameraY(n, maxYOffset);
+            long time = System.nanoTime();
+            terrainCache.draw(g2d, tileMap, blocks, -x, -y, GamePanel.DEFAULT_WIDTH, GamePanel.DEFAULT_HEIGHT);
+            long drawTime = System.nanoTime() - time;
+
+            if (n > 0)
+            {
+                drawTimes.record(drawTime);
+                totalDrawTime += drawTime;
+                totalBuildAheadTime += terrainCache.getBuildAheadTime();
+                maxBuildAheadTime = Math.max(maxBuildAheadTime, terrainCache.getBuildAheadTime());
+                numHits += terrainCache.getNumChunkHits();
+                numMisses += terrainCache.getNumChunkMisses();
+                if (terrainCache.getNumChunkMisses() > 0)
+                {
+                    totalMissFrameTime += drawTime;
+                    numMissFrames++;
+                }
+                else
+                {
+                    noMissDrawTimes.record(drawTime);
+                }
+                numBuiltAhead += terrainCache.getNumChunksBuiltAhead();
+            }
+        }
+        g2d.dispose();
+
+        int numMeasured = numFrames - 1;
+        return String.format("%9.1f   %8.1f   %11.1f   %11d   %9.1f   %10.2f   %9.1f   %11d   %6d   %7.2f%%",
+                totalDrawTime / 1000.0 / numMeasured, drawTimes.getPercentile(0.99) / 1000.0,
+                noMissDrawTimes.getPercentile(0.99) / 1000.0, numMissFrames, totalMissFrameTime / 1000.0 / Math.max(1, numMissFrames),
+                totalBuildAheadTime / 1000.0 / numMeasured, maxBuildAheadTime / 1000.0, numBuiltAhead, numMisses,
+                100.0 * numHits / Math.max(1, numHits + numMisses));
+    }
+
+    /**
+     * Follow the camera path across a level, finding the blocks the terrain cache would draw without drawing them.
+     * Each traversal is timed over the whole path, the first pass warms up the JIT and is thrown away. The process
+     * exits with status 1 if the old and new traversals find different blocks.
+     * @param tileMap The level.
+     * @param blocks The map of block id's to actual block graphics.
+     * @param numFrames The number of frames in the camera path.
+     * @return A line of results.
+     */
+    private static String runTraversal(TileMap tileMap, HashMap<Integer, Block> blocks, int numFrames)
+    {
+        //Fill the palette and list the animated blocks of the level once, as each version of the cache did on a level change
+        Block[] palette = new Block[PALETTE_SIZE];
+        for (int id = 0; id < PALETTE_SIZE; id++)
+        {
+            palette[id] = blocks.get(id);
+        }
+        int[] animatedBlocks = new int[16];
+        int numAnimatedBlocks = 0;
+        for (int x = 0; x < tileMap.getWidth(); x++)
+        {
+            for (int y = 0; y < tileMap.getHeight(); y++)
+            {
+                Block block = blocks.get(tileMap.getTileId(x, y) % 100);
+                if (block != null && !block.isStatic())
+                {
+                    if (numAnimatedBlocks + 2 > animatedBlocks.length)
+                    {
+                        animatedBlocks = Arrays.copyOf(animatedBlocks, animatedBlocks.length * 2);
+                    }
+                    animatedBlocks[numAnimatedBlocks] = x;
+                    animatedBlocks[numAnimatedBlocks + 1] = y;
+                    numAnimatedBlocks += 2;
+                }
+            }
+        }
+
+        int maxXOffset = Math.max(0, tileMap.getWidth() * Block.BLOCK_WIDTH - GamePanel.DEFAULT_WIDTH);
+        int maxYOffset = Math.max(0, tileMap.getHeight() * Block.BLOCK_HEIGHT - GamePanel.DEFAULT_HEIGHT);
+        int chunkSize = TerrainCache.DEFAULT_CHUNK_SIZE_IN_BLOCKS;
+        long[] times = new long[4];
+        long[] found = new long[4]; //Used so the JIT cannot skip the look ups, the old and new traversals must agree
+        for (int pass = 0; pass < NUM_TRAVERSAL_PASSES; pass++)
+        {
+            Arrays.fill(found, 0L);
+            long[] passTimes = new long[4];
+            for (int n = 0; n < numFrames; n++)
+            {
+                int xOffset = -getCameraX(n, maxXOffset);
+                int yOffset = -getCameraY(n, maxYOffset);
+                int firstX = Math.max(0, Math.floorDiv(-xOffset, Block.BLOCK_WIDTH));
+                int lastX = Math.min(tileMap.getWidth() - 1, Math.floorDiv(-xOffset + GamePanel.DEFAULT_WIDTH - 1, Block.BLOCK_WIDTH));
+                int firstY = Math.max(0, Math.floorDiv(-yOffset, Block.BLOCK_HEIGHT));
+                int lastY = Math.min(tileMap.getHeight() - 1, Math.floorDiv(-yOffset + GamePanel.DEFAULT_HEIGHT - 1, Block.BLOCK_HEIGHT));
+
+                //Animated blocks before: test every animated block in the level against the view
+                long time = System.nanoTime();
+                for (int i = 0; i < numAnimatedBlocks; i += 2)
+                {
+                    int x = animatedBlocks[i] * Block.BLOCK_WIDTH + xOffset;
+                    int y = animatedBlocks[i + 1] * Block.BLOCK_HEIGHT + yOffset;
+                    if (x + Block.BLOCK_WIDTH > 0 && x < GamePanel.DEFAULT_WIDTH && y + Block.BLOCK_HEIGHT > 0 && y < GamePanel.DEFAULT_HEIGHT)
+                    {
+                        found[0] += blocks.get(tileMap.getTileId(animatedBlocks[i], animatedBlocks[i + 1]) % 100).hashCode() ^ (x + y);
+                    }
+                }
+                passTimes[0] += System.nanoTime() - time;
+
+                //Animated blocks now: only the tiles in view, through the palette
+                time = System.nanoTime();
+                for (int y = firstY; y <= lastY; y++)
+                {
+                    for (int x = firstX; x <= lastX; x++)
+                    {
+                        Block block = palette[tileMap.getTileId(x, y) % PALETTE_SIZE];
+                        if (block != null && !block.isStatic())
+                        {
+                            found[1] += block.hashCode() ^ (x * Block.BLOCK_WIDTH + xOffset + y * Block.BLOCK_HEIGHT + yOffset);
+                        }
+                    }
+                }
+                passTimes[1] += System.nanoTime() - time;
+
+                //The blocks of every chunk in view, before with a HashMap look up per tile and now with the palette
+                int firstChunkX = firstX / chunkSize * chunkSize;
+                int lastChunkX = Math.min(tileMap.getWidth(), (lastX / chunkSize + 1) * chunkSize);
+                int firstChunkY = firstY / chunkSize * chunkSize;
+                int lastChunkY = Math.min(tileMap.getHeight(), (lastY / chunkSize + 1) * chunkSize);
+                time = System.nanoTime();
+                for (int x = firstChunkX; x < lastChunkX; x++)
+                {
+                    for (int y = firstChunkY; y < lastChunkY; y++)
+                    {
+                        Block block = blocks.get(tileMap.getTileId(x, y) % 100);
+                        if (block != null && block.isStatic())
+                        {
+                            found[2] += block.hashCode() ^ (x + y);
+                        }
+                    }
+                }
+                passTimes[2] += System.nanoTime() - time;
+                time = System.nanoTime();
+                for (int x = firstChunkX; x < lastChunkX; x++)
+                {
+                    for (int y = firstChunkY; y < lastChunkY; y++)
+                    {
+                        Block block = palette[tileMap.getTileId(x, y) % PALETTE_SIZE];
+                        if (block != null && block.isStatic())
+                        {
+                            found[3] += block.hashCode() ^ (x + y);
+                        }
+                    }
+                }
+                passTimes[3] += System.nanoTime() - time;
+            }
+            if (found[0] != found[1] || found[2] != found[3])
+            {
+                System.out.println("MISMATCH between the old and new traversals on a " + tileMap.getWidth() + "x" + tileMap.getHeight() + " level");
+                System.exit(1);
+            }
+            if (pass > 0)
+            {
+                for (int i = 0; i < times.length; i++)
+                {
+                    times[i] += passTimes[i];
+                }
+            }
+        }
+
+        double numMeasured = (double) numFrames * (NUM_TRAVERSAL_PASSES - 1);
+        return String.format("%15.0f   %12.0f   %20.0f   %17.0f", times[0] / numMeasured, times[1] / numMeasured,
+                times[2] / numMeasured, times[3] / numMeasured);
+    }
+
+    /**
+     * Get the camera's x position in a frame. The camera pans right, turning back at the edges of the level.
+     * @param frame The frame number.
+     * @param maxXOffset The furthest right the camera can go in pixels.
+     * @return The x position of the camera, the negated x offset.
+     */
+    private static int getCameraX(int frame, int maxXOffset)
+    {
+        int x = frame * PAN_SPEED % (2 * maxXOffset + 1);
+        return (x > maxXOffset) ? 2 * maxXOffset - x : x;
+    }
+
+    /**
+     * Get the camera's y position in a frame. The camera bobs around the middle of the level.
+     * @param frame The frame number.
+     * @param maxYOffset The furthest down the camera can go in pixels.
+     * @return The y position of the camera, the negated y offset.
+     */
+    private static int getCameraY(int frame, int maxYOffset)
+    {
+        int y = maxYOffset / 2 + (int) (BOB_HEIGHT * Math.sin(2 * Math.PI * frame / BOB_PERIOD));
+        return Math.max(0, Math.min(maxYOffset, y));
+    }
+
+    /**
+     * Create a level with solid ground, floating platforms and the odd animated block.
+     * @param width The width of the level in blocks.
+     * @param height The height of the level in blocks.
+     * @return The level.
+     */
+    private static TileMap createTileMap(int width, int height)
+    {
+        Random random = new Random(width);
+        int[][] blockIdMap = new int[width][height];
+        for (int x = 0; x < width; x++)
+        {
+            blockIdMap[x][height - 1] = 101;
+            blockIdMap[x][height - 2] = (x % 7 == 0) ? 102 : 101;
+            for (int y = 0; y < height - 2; y++)
+            {
+                if (random.nextInt(12) == 0)
+                {
+                    blockIdMap[x][y] = (random.nextInt(20) == 0) ? 102 : 101;
+                }
+            }
+        }
+        return new TileMap(blockIdMap);
+    }
+
+    /**
+     * Create a static block and an animated block from noise.
+     * @return The map of block id's to block graphics.
+     */
+    private static HashMap<Integer, Block> createBlocks()
+    {
+        Random random = new Random(12);
+        BufferedImage page = ImageManager.createCompatibleImage(3 * Block.BLOCK_WIDTH, Block.BLOCK_HEIGHT, Transparency.TRANSLUCENT);
+        for (int x = 0; x < page.getWidth(); x++)
+        {
+            for (int y = 0; y < page.getHeight(); y++)
+            {
+                page.setRGB(x, y, 0xFF000000 | random.nextInt(0x1000000));
+            }
+        }
+
+        HashMap<Integer, Block> blocks = new HashMap<>();
+        blocks.put(1, createBlock(new SpriteRegion(page, 0, 0, Block.BLOCK_WIDTH, Block.BLOCK_HEIGHT)));
+        blocks.put(2, createBlock(new SpriteRegion(page, Block.BLOCK_WIDTH, 0, Block.BLOCK_WIDTH, Block.BLOCK_HEIGHT),
+                new SpriteRegion(page, 2 * Block.BLOCK_WIDTH, 0, Block.BLOCK_WIDTH, Block.BLOCK_HEIGHT)));
+        return blocks;
+    }
+
+    /**
+     * Create a block whose normal graphics cycle through some sprites.
+     * @param images The sprites, a block with one sprite is static.
+     * @return The block.
+     */
+    private static Block createBlock(SpriteRegion... images)
+    {
+        ArrayList<SpriteRegion> imageSequence = new ArrayList<>();
+        for (SpriteRegion image : images)
+        {
+            imageSequence.add(image);
+        }
+        HashMap<Integer, Animation> graphicsMap = new HashMap<>();
+        graphicsMap.put(Block.NORMAL_GRAPHICS, new Animation(imageSequence, 1000L, true));
+        return new Block(graphicsMap);
+    }
+}
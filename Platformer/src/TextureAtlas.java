@@ -0,0 +1,312 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+/**
+ * Packs the loaded images onto a few large pages grouped by how much transparency they need.
+ */
+public class TextureAtlas
+{
+    /** The width and height of an atlas page, images larger than this get a page of their own */
+    public static final int PAGE_SIZE = 2048;
+    /** The number of empty pixels left to the right of and below every image, so scaled images do not bleed into each other */
+    private static final int PADDING = 1;
+    /** The names of the page formats without a palette, indexed by the Transparency constants */
+    private static final String[] TRANSPARENCY_NAMES = { "", "opaque", "bitmask", "translucent" };
+
+    /**
+     * Pack images into as few atlas pages as possible and point each sprite region at the rectangle its
+     * image was copied to. Images that can be stored with a palette share palette pages of up to 255 colors,
+     * the rest go on opaque, bitmask, or translucent pages matching their transparency, so no image is
+     * stored or drawn with more alpha than it needs. How much of each page is used is reported to the console.
+     * @param images The trimmed images to pack.
+     * @param regions The sprite regions to update, one for each image.
+     */
+    public void pack(ArrayList<OptimizedImage> images, ArrayList<SpriteRegion> regions)
+    {
+        //Sort the images into groups sharing a page format, palette images join the first palette with room for their colors
+        ArrayList<ArrayList<Integer>> groups = new ArrayList<>();
+        ArrayList<Integer> groupTransparencies = new ArrayList<>();
+        ArrayList<LinkedHashSet<Integer>> groupPalettes = new ArrayList<>();
+        for (int i = 0; i < images.size(); i++)
+        {
+            OptimizedImage image = images.get(i);
+            if (image.getImage() == null)
+            {
+                //Images without visible pixels are never drawn and take no space
+                regions.get(i).setRegion(null, 0, 0, 0, 0, 0, 0, image.getWidth(), image.getHeight(),
+                        image.getTransparency());
+                continue;
+            }
+
+            int group = 0;
+            while (group < groups.size() && !fitsGroup(image, groupTransparencies.get(group), groupPalettes.get(group)))
+            {
+                group++;
+            }
+            if (group == groups.size())
+            {
+                groups.add(new ArrayList<Integer>());
+                groupTransparencies.add(image.getTransparency());
+                groupPalettes.add((image.getColors() != null) ? new LinkedHashSet<Integer>() : null);
+            }
+            groups.get(group).add(i);
+            if (image.getColors() != null)
+            {
+                for (int color : image.getColors())
+                {
+                    groupPalettes.get(group).add(color);
+                }
+                if (image.getTransparency() != Transparency.OPAQUE)
+                {
+                    groupTransparencies.set(group, Transparency.BITMASK);
+                }
+            }
+        }
+
+        //Pack each group onto its own pages
+        int numPages = 0;
+        for (int group = 0; group < groups.size(); group++)
+        {
+            numPages += packGroup(images, regions, groups.get(group), groupTransparencies.get(group), groupPalettes.get(group), numPages);
+        }
+    }
+
+    /**
+     * Check if an image can go on the pages of a group.
+     * @param image The image.
+     * @param transparency The transparency of the group's pages, this matches the Transparency constants.
+     * @param palette The colors of the group's palette, or null if the group's pages do not use a palette.
+     * @return True if the image can join the group, false otherwise.
+     */
+    private boolean fitsGroup(OptimizedImage image, int transparency, LinkedHashSet<Integer> palette)
+    {
+        if (image.getColors() == null || palette == null)
+        {
+            return image.getColors() == null && palette == null && image.getTransparency() == transparency;
+        }
+
+        //Count the colors the palette would have with the image's colors added
+        int numColors = palette.size();
+        for (int color : image.getColors())
+        {
+            if (!palette.contains(color))
+            {
+                numColors++;
+            }
+        }
+        return numColors <= OptimizedImage.MAX_PALETTE_COLORS;
+    }
+
+    /**
+     * Pack a group of images onto as few pages as possible. The images are placed tallest first with a
+     * skyline packer, which keeps the top edge of the packed images on each page and puts every image at
+     * the lowest spot it fits. The pages are cropped to the area used.
+     * @param images The trimmed images to pack.
+     * @param regions The sprite regions to update, one for each image.
+     * @param group The indices of the images in the group.
+     * @param transparency The transparency of the group's pages, this matches the Transparency constants.
+     * @param palette The colors of the group's palette, or null if the group's pages do not use a palette.
+     * @param firstPage The number of the group's first page, used when reporting.
+     * @return The number of pages created.
+     */
+    private int packGroup(final ArrayList<OptimizedImage> images, ArrayList<SpriteRegion> regions, ArrayList<Integer> group,
+                          int transparency, LinkedHashSet<Integer> palette, int firstPage)
+    {
+        //Place the tallest images first, then the widest
+        Collections.sort(group, new Comparator<Integer>()
+        {
+            @Override
+            public int compare(Integer first, Integer second)
+            {
+                OptimizedImage firstImage = images.get(first);
+                OptimizedImage secondImage = images.get(second);
+                if (firstImage.getTrimmedHeight() != secondImage.getTrimmedHeight())
+                {
+                    return secondImage.getTrimmedHeight() - firstImage.getTrimmedHeight();
+                }
+                return secondImage.getTrimmedWidth() - firstImage.getTrimmedWidth();
+            }
+        });
+
+        //Find a page and position for every image, the skyline of a page is a list of points where its height changes
+        ArrayList<ArrayList<Point>> skylines = new ArrayList<>();
+        ArrayList<Dimension> pageSizes = new ArrayList<>();
+        int[] imagePages = new int[group.size()];
+        Point[] imagePositions = new Point[group.size()];
+        for (int i = 0; i < group.size(); i++)
+        {
+            int width = images.get(group.get(i)).getTrimmedWidth() + PADDING;
+            int height = images.get(group.get(i)).getTrimmedHeight() + PADDING;
+            Point position = null;
+            int page = 0;
+            while (page < skylines.size())
+            {
+                position = findPosition(skylines.get(page), pageSizes.get(page), width, height);
+                if (position != null)
+                {
+                    break;
+                }
+                page++;
+            }
+            if (position == null)
+            {
+                //Start a new page, large enough for the image
+                ArrayList<Point> skyline = new ArrayList<>();
+                skyline.add(new Point(0, 0));
+                skylines.add(skyline);
+                pageSizes.add(new Dimension(Math.max(PAGE_SIZE, width), Math.max(PAGE_SIZE, height)));
+                position = new Point(0, 0);
+            }
+            addToSkyline(skylines.get(page), pageSizes.get(page).width, position.x, width, position.y + height);
+            imagePages[i] = page;
+            imagePositions[i] = position;
+        }
+
+        //Number the palette's colors, index 0 is left transparent if the pages need it
+        IndexColorModel colorModel = null;
+        HashMap<Integer, Integer> colorIndices = new HashMap<>();
+        if (palette != null)
+        {
+            int[] colors = new int[palette.size()];
+            int firstIndex = (transparency == Transparency.OPAQUE) ? 0 : 1;
+            int index = 0;
+            for (int color : palette)
+            {
+                colorIndices.put(color, index + firstIndex);
+                colors[index++] = color;
+            }
+            colorModel = OptimizedImage.createPalette(colors, firstIndex == 1);
+        }
+
+        //Create the pages, only as wide and tall as the images on them
+        int[] usedWidths = new int[skylines.size()];
+        for (int i = 0; i < group.size(); i++)
+        {
+            usedWidths[imagePages[i]] = Math.max(usedWidths[imagePages[i]], imagePositions[i].x + images.get(group.get(i)).getTrimmedWidth() + PADDING);
+        }
+        BufferedImage[] pages = new BufferedImage[skylines.size()];
+        for (int page = 0; page < pages.length; page++)
+        {
+            int usedHeight = 0;
+            for (Point point : skylines.get(page))
+            {
+                usedHeight = Math.max(usedHeight, point.y);
+            }
+            if (colorModel != null)
+            {
+                pages[page] = new BufferedImage(usedWidths[page], usedHeight, BufferedImage.TYPE_BYTE_INDEXED, colorModel);
+            }
+            else
+            {
+                pages[page] = ImageManager.createCompatibleImage(usedWidths[page], usedHeight, transparency);
+            }
+        }
+
+        //Copy the images into the pages and update the regions
+        long[] usedArea = new long[pages.length];
+        int[] numImages = new int[pages.length];
+        for (int i = 0; i < group.size(); i++)
+        {
+            OptimizedImage image = images.get(group.get(i));
+            BufferedImage page = pages[imagePages[i]];
+            Point position = imagePositions[i];
+            if (colorModel != null)
+            {
+                image.writeIndices(page.getRaster(), position.x, position.y, colorIndices);
+            }
+            else
+            {
+                Graphics2D pageGraphics = page.createGraphics();
+                pageGraphics.drawImage(image.getImage(), position.x, position.y, null);
+                pageGraphics.dispose();
+            }
+            SpriteRegion region = regions.get(group.get(i));
+            region.setRegion(page, position.x, position.y, image.getTrimmedWidth(), image.getTrimmedHeight(),
+                    image.getOffsetX(), image.getOffsetY(), image.getWidth(), image.getHeight(), image.getTransparency());
+            usedArea[imagePages[i]] += image.getTrimmedWidth() * image.getTrimmedHeight();
+            numImages[imagePages[i]]++;
+        }
+
+        //Report how well each page is used
+        String format = (palette != null) ? "palette of " + palette.size() : TRANSPARENCY_NAMES[transparency];
+        for (int page = 0; page < pages.length; page++)
+        {
+            System.out.println(String.format("Atlas page %d: %dx%d %s, %d images, %.1f%% used", firstPage + page, pages[page].getWidth(),
+                    pages[page].getHeight(), format, numImages[page], 100.0 * usedArea[page] / (pages[page].getWidth() * pages[page].getHeight())));
+        }
+        return pages.length;
+    }
+
+    /**
+     * Find the lowest position on a page an image fits at, preferring the leftmost position when there is a tie.
+     * Only the points of the skyline are tried, the image rests on the highest part of the skyline beneath it.
+     * @param skyline The skyline of the page.
+     * @param pageSize The size of the page.
+     * @param width The width of the image, including padding.
+     * @param height The height of the image, including padding.
+     * @return The position of the top left corner of the image, or null if it does not fit on the page.
+     */
+    private Point findPosition(ArrayList<Point> skyline, Dimension pageSize, int width, int height)
+    {
+        Point bestPosition = null;
+        for (int i = 0; i < skyline.size() && skyline.get(i).x + width <= pageSize.width; i++)
+        {
+            //Find the highest part of the skyline beneath the image
+            int x = skyline.get(i).x;
+            int y = 0;
+            for (int j = i; j < skyline.size() && skyline.get(j).x < x + width; j++)
+            {
+                y = Math.max(y, skyline.get(j).y);
+            }
+            if (y + height <= pageSize.height && (bestPosition == null || y < bestPosition.y))
+            {
+                bestPosition = new Point(x, y);
+            }
+        }
+        return bestPosition;
+    }
+
+    /**
+     * Raise the skyline beneath a newly placed image to the image's bottom edge.
+     * @param skyline The skyline of the page.
+     * @param pageWidth The width of the page.
+     * @param x The x position of the image, this must be a point of the skyline.
+     * @param width The width of the image, including padding.
+     * @param top The new height of the skyline beneath the image.
+     */
+    private void addToSkyline(ArrayList<Point> skyline, int pageWidth, int x, int width, int top)
+    {
+        //Remove the points covered by the image, remembering the height where the image ends
+        int first = 0;
+        while (skyline.get(first).x < x)
+        {
+            first++;
+        }
+        int heightAtEnd = 0;
+        while (first < skyline.size() && skyline.get(first).x < x + width)
+        {
+            heightAtEnd = skyline.remove(first).y;
+        }
+
+        //Add the image's edge, then step back down to the old height if the image did not cover the next point
+        skyline.add(first, new Point(x, top));
+        if (x + width < pageWidth && (first + 1 == skyline.size() || skyline.get(first + 1).x > x + width))
+        {
+            skyline.add(first + 1, new Point(x + width, heightAtEnd));
+        }
+
+        //Merge neighbouring points at the same height
+        for (int i = skyline.size() - 1; i > 0; i--)
+        {
+            if (skyline.get(i).y == skyline.get(i - 1).y)
+            {
+                skyline.remove(i);
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * A level map of block id's with bitsets of its solid cells for fast span collision tests.
+ */
+public class TileMap
+{
+    /** The number of cells packed into each word of the solid bitsets */
+    private static final int BITS_PER_WORD = 64;
+
+    /** The width of the map in cells */
+    private int width;
+    /** The height of the map in cells */
+    private int height;
+    /** The id of every cell, row by row */
+    private int[] tileIds;
+    /** The number of words in each row of the row solid bitset */
+    private int wordsPerRow;
+    /** The number of words in each column of the column solid bitset */
+    private int wordsPerColumn;
+    /** One bit per cell set if the cell is solid, row by row so a horizontal span is a masked word test */
+    private long[] solidRows;
+    /** One bit per cell set if the cell is solid, column by column so a vertical span is a masked word test */
+    private long[] solidColumns;
+
+    /**
+     * Compile a level's map of block id's. Each id is stored once in a flat array and whether
+     * each cell is solid is decoded once into a bitset, so collision checks are single bit tests.
+     * @param blockIdMap The map of block id's as it was read from the levels file, indexed [x][y].
+     */
+    public TileMap(int[][] blockIdMap)
+    {
+        width = blockIdMap.length;
+        height = blockIdMap[0].length;
+        tileIds = new int[width * height];
+        wordsPerRow = (width + BITS_PER_WORD - 1) / BITS_PER_WORD;
+        wordsPerColumn = (height + BITS_PER_WORD - 1) / BITS_PER_WORD;
+        solidRows = new long[wordsPerRow * height];
+        solidColumns = new long[wordsPerColumn * width];
+
+        for (int x = 0; x < width; x++)
+        {
+            for (int y = 0; y < height; y++)
+            {
+                int id = blockIdMap[x][y];
+                tileIds[y * width + x] = id;
+
+                //A cell is solid if the last two digits of its id are not 0 and the hundreds place is at least one
+                if (id % 100 != 0 && (id / 100) >= 1)
+                {
+                    solidRows[y * wordsPerRow + x / BITS_PER_WORD] |= 1L << (x % BITS_PER_WORD);
+                    solidColumns[x * wordsPerColumn + y / BITS_PER_WORD] |= 1L << (y % BITS_PER_WORD);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the id of a cell.
+     * @param x The x position of the cell.
+     * @param y The y position of the cell.
+     * @return The id of the cell as it was read from the levels file.
+     */
+    public int getTileId(int x, int y)
+    {
+        return tileIds[y * width + x];
+    }
+
+    /**
+     * Check if a cell is solid.
+     * @param x The x position of the cell, it must be within the map.
+     * @param y The y position of the cell, it must be within the map.
+     * @return True if the cell is solid, false otherwise.
+     */
+    public boolean isSolid(int x, int y)
+    {
+        return (solidRows[y * wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
+    }
+
+    /**
+     * Check if any cell in a horizontal span of a row is solid. The span is clipped to the map.
+     * @param y The row, it must be within the map.
+     * @param firstX The x position of the first cell in the span.
+     * @param lastX The x position of the last cell in the span.
+     * @return True if any cell in the span is solid, false otherwise.
+     */
+    public boolean isRowSpanSolid(int y, int firstX, int lastX)
+    {
+        return isSpanSolid(solidRows, y * wordsPerRow, Math.max(0, firstX), Math.min(width - 1, lastX));
+    }
+
+    /**
+     * Check if any cell in a vertical span of a column is solid. The span is clipped to the map.
+     * @param x The column, it must be within the map.
+     * @param firstY The y position of the first cell in the span.
+     * @param lastY The y position of the last cell in the span.
+     * @return True if any cell in the span is solid, false otherwise.
+     */
+    public boolean isColumnSpanSolid(int x, int firstY, int lastY)
+    {
+        return isSpanSolid(solidColumns, x * wordsPerColumn, Math.max(0, firstY), Math.min(height - 1, lastY));
+    }
+
+    /**
+     * Check if any bit in a span of a row or column of a bitset is set. A span within a single word,
+     * which is any span on a map up to 64 cells across, is tested with one masked word operation.
+     * @param bits The bitset.
+     * @param firstWord The index of the first word of the row or column.
+     * @param first The index of the first bit in the span.
+     * @param last The index of the last bit in the span.
+     * @return True if any bit in the span is set, false otherwise or if the span is empty.
+     */
+    private static boolean isSpanSolid(long[] bits, int firstWord, int first, int last)
+    {
+        if (first > last)
+        {
+            return false;
+        }
+        int word = first >>> 6;
+        int lastWord = last >>> 6;
+        long mask = -1L << first; //Shifts only use the low six bits of the distance
+        while (word < lastWord)
+        {
+            if ((bits[firstWord + word] & mask) != 0)
+            {
+                return true;
+            }
+            word++;
+            mask = -1L;
+        }
+        return (bits[firstWord + word] & mask & (-1L >>> (63 - (last & 63)))) != 0;
+    }
+
+    /**
+     * Get the width of the map.
+     * @return The width in cells.
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+
+    /**
+     * Get the height of the map.
+     * @return The height in cells.
+     */
+    public int getHeight()
+    {
+        return height;
+    }
+}
@@ -0,0 +1,168 @@
+import java.util.Random;
+/**
+ * Times the TileMap span tests against the per-cell int[][] scan they replaced and checks they agree.
+ */
+public class TileMapBenchmark
+{
+    /** The width of the benchmark map in blocks */
+    private static final int MAP_WIDTH = 2000;
+    /** The height of the benchmark map in blocks */
+    private static final int MAP_HEIGHT = 200;
+    /** The number of span queries in each timed pass */
+    private static final int NUM_QUERIES = 1 << 20;
+    /** The number of timed passes, the first passes warm up the JIT and are not reported */
+    private static final int NUM_PASSES = 8;
+    /** The number of warm up passes */
+    private static final int NUM_WARMUP_PASSES = 3;
+    /** The span lengths benchmarked, 1 to 3 cells is an entity, 11 cells is the width of the screen */
+    private static final int[] SPAN_LENGTHS = {1, 2, 3, 11, 64};
+
+    /**
+     * Run the benchmark and print the time per query of both collision paths for each span length.
+     * The process exits with status 1 if the paths ever disagree.
+     * @param args Unused.
+     */
+    public static void main(String[] args)
+    {
+        //Build a map with solid, empty, and decorative (hundreds place of zero) cells
+        Random random = new Random(22);
+        int[][] blockIdMap = new int[MAP_WIDTH][MAP_HEIGHT];
+        for (int x = 0; x < MAP_WIDTH; x++)
+        {
+            for (int y = 0; y < MAP_HEIGHT; y++)
+            {
+                int choice = random.nextInt(10);
+                blockIdMap[x][y] = (choice < 2) ? 101 + random.nextInt(20) : (choice < 3) ? 1 + random.nextInt(99) : 0;
+            }
+        }
+        TileMap tileMap = new TileMap(blockIdMap);
+
+        System.out.println("Map " + MAP_WIDTH + "x" + MAP_HEIGHT + ", " + NUM_QUERIES + " queries per pass");
+        System.out.println("span   row int[][]   row bitset   column int[][]   column bitset   (ns per query)");
+        for (int spanLength : SPAN_LENGTHS)
+        {
+            //Pick the queries up front so both paths answer exactly the same ones
+            int[] lines = new int[NUM_QUERIES];
+            int[] firsts = new int[NUM_QUERIES];
+            int[] columns = new int[NUM_QUERIES];
+            int[] firstRows = new int[NUM_QUERIES];
+            for (int i = 0; i < NUM_QUERIES; i++)
+            {
+                lines[i] = random.nextInt(MAP_HEIGHT);
+                firsts[i] = random.nextInt(MAP_WIDTH - spanLength + 1);
+                columns[i] = random.nextInt(MAP_WIDTH);
+                firstRows[i] = random.nextInt(MAP_HEIGHT - spanLength + 1);
+            }
+
+            //Check both paths give the same answers before timing them
+            for (int i = 0; i < NUM_QUERIES; i++)
+            {
+                int last = firsts[i] + spanLength - 1;
+                int lastRow = firstRows[i] + spanLength - 1;
+                if (tileMap.isRowSpanSolid(lines[i], firsts[i], last) != isRowSpanSolid(blockIdMap, lines[i], firsts[i], last)
+                        || tileMap.isColumnSpanSolid(columns[i], firstRows[i], lastRow)
+                        != isColumnSpanSolid(blockIdMap, columns[i], firstRows[i], lastRow))
+                {
+                    System.out.println("MISMATCH for span " + spanLength + " at query " + i);
+                    System.exit(1);
+                }
+            }
+
+            long[] times = new long[4];
+            int numSolid = 0; //Used so the JIT cannot skip the queries
+            for (int pass = 0; pass < NUM_PASSES; pass++)
+            {
+                long time = System.nanoTime();
+                for (int i = 0; i < NUM_QUERIES; i++)
+                {
+                    numSolid += isRowSpanSolid(blockIdMap, lines[i], firsts[i], firsts[i] + spanLength - 1) ? 1 : 0;
+                }
+                long rowArrayTime = System.nanoTime() - time;
+
+                time = System.nanoTime();
+                for (int i = 0; i < NUM_QUERIES; i++)
+                {
+                    numSolid += tileMap.isRowSpanSolid(lines[i], firsts[i], firsts[i] + spanLength - 1) ? 1 : 0;
+                }
+                long rowBitsetTime = System.nanoTime() - time;
+
+                time = System.nanoTime();
+                for (int i = 0; i < NUM_QUERIES; i++)
+                {
+                    numSolid += isColumnSpanSolid(blockIdMap, columns[i], firstRows[i], firstRows[i] + spanLength - 1) ? 1 : 0;
+                }
+                long columnArrayTime = System.nanoTime() - time;
+
+                time = System.nanoTime();
+                for (int i = 0; i < NUM_QUERIES; i++)
+                {
+                    numSolid += tileMap.isColumnSpanSolid(columns[i], firstRows[i], firstRows[i] + spanLength - 1) ? 1 : 0;
+                }
+                long columnBitsetTime = System.nanoTime() - time;
+
+                if (pass >= NUM_WARMUP_PASSES)
+                {
+                    times[0] += rowArrayTime;
+                    times[1] += rowBitsetTime;
+                    times[2] += columnArrayTime;
+                    times[3] += columnBitsetTime;
+                }
+            }
+
+            double queries = (double) NUM_QUERIES * (NUM_PASSES - NUM_WARMUP_PASSES);
+            System.out.printf("%4d   %11.2f   %10.2f   %14.2f   %13.2f   (%d solid)%n", spanLength, times[0] / queries,
+                    times[1] / queries, times[2] / queries, times[3] / queries, numSolid);
+        }
+        System.out.println("Both paths agree on every query");
+    }
+
+    /**
+     * Check if any cell in a row span is solid the way the int[][] map was checked before the TileMap.
+     * @param blockIdMap The map of block id's, indexed [x][y].
+     * @param y The row.
+     * @param firstX The x position of the first cell in the span.
+     * @param lastX The x position of the last cell in the span.
+     * @return True if any cell in the span is solid, false otherwise.
+     */
+    private static boolean isRowSpanSolid(int[][] blockIdMap, int y, int firstX, int lastX)
+    {
+        for (int x = firstX; x <= lastX; x++)
+        {
+            if (isSolid(blockIdMap[x][y]))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if any cell in a column span is solid the way the int[][] map was checked before the TileMap.
+     * @param blockIdMap The map of block id's, indexed [x][y].
+     * @param x The column.
+     * @param firstY The y position of the first cell in the span.
+     * @param lastY The y position of the last cell in the span.
+     * @return True if any cell in the span is solid, false otherwise.
+     */
+    private static boolean isColumnSpanSolid(int[][] blockIdMap, int x, int firstY, int lastY)
+    {
+        for (int y = firstY; y <= lastY; y++)
+        {
+            if (isSolid(blockIdMap[x][y]))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if a block id is solid, the last two digits are not 0 and the hundreds place is at least one.
+     * @param id The block id.
+     * @return True if the block is solid, false otherwise.
+     */
+    private static boolean isSolid(int id)
+    {
+        return id % 100 != 0 && (id / 100) >= 1;
+    }
+}
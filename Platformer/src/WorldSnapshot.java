@@ -0,0 +1,172 @@
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.HashMap;
+/**
+ * Everything the renderer needs to draw one update of the game, so it can draw without touching the live game.
+ */
+public class WorldSnapshot
+{
+    /** The number of sprites and ribbons a snapshot can hold before its arrays grow */
+    private static final int INITIAL_CAPACITY = 32;
+
+    /** The state of the game, this matches the Game state constants */
+    protected int gameState;
+    /** The scheduled time of the game update that produced this snapshot (System.nanoTime()) */
+    protected long timeOfUpdate;
+
+    /** The tile map of the current level, tile maps are never modified after loading */
+    protected TileMap tileMap;
+    /** The map of block id's to block graphics, this map is never modified once captured */
+    protected HashMap<Integer, Block> blocks;
+
+    /** The camera's x offset after the update */
+    protected int cameraX;
+    /** The camera's y offset after the update */
+    protected int cameraY;
+    /** The camera's x offset before the update */
+    protected int previousCameraX;
+    /** The camera's y offset before the update */
+    protected int previousCameraY;
+
+    /** The strip of repeated images of each background ribbon, strips are never modified after they are built */
+    protected BufferedImage[] ribbonStrips;
+    /** The width of each ribbon's image, the ribbon repeats every this many pixels */
+    protected int[] ribbonWidths;
+    /** How far each ribbon has scrolled after the update */
+    protected int[] ribbonOffsets;
+    /** How far each ribbon had scrolled before the update */
+    protected int[] ribbonPreviousOffsets;
+    /** The number of ribbons */
+    protected int numRibbons;
+
+    /** The animation each sprite is showing */
+    protected Animation[] spriteAnimations;
+    /** The index of the image each sprite's animation is showing */
+    protected int[] spriteFrames;
+    /** The x position of each sprite after the update */
+    protected int[] spriteX;
+    /** The y position of each sprite after the update */
+    protected int[] spriteY;
+    /** The x position of each sprite before the update */
+    protected int[] spritePreviousX;
+    /** The y position of each sprite before the update */
+    protected int[] spritePreviousY;
+    /** The layer each sprite is drawn in, matching the RenderQueue layer constants */
+    protected int[] spriteLayers;
+    /** The number of sprites, drawn in the order they were added */
+    protected int numSprites;
+
+    /** The number of entities in the level, zero if a menu is showing */
+    protected int numEntities;
+
+    /** The decimal place values of the number of carrots */
+    protected int[] numCarrotsValues;
+    /** The decimal place values of the number of enemies defeated */
+    protected int[] numEnemiesValues;
+    /** The number of player lives remaining */
+    protected int numPlayerLives;
+    /** Flag specifying if the golden carrot was found */
+    protected boolean goldenCarrotFound;
+    /** Flag specifying if the music is enabled */
+    protected boolean musicEnabled;
+    /** Flag specifying if the sound is enabled */
+    protected boolean soundEnabled;
+    /** The version of the values shown by the HUD and menus */
+    protected int interfaceVersion;
+    /** The number of times the texture atlas had been rebuilt when the snapshot was captured */
+    protected int atlasVersion;
+
+    /**
+     * Create an empty snapshot. All of the arrays are allocated up front and are
+     * reused every time the snapshot is captured, they only grow if a level needs more room.
+     */
+    public WorldSnapshot()
+    {
+        gameState = Game.MAIN_MENU;
+        ribbonStrips = new BufferedImage[INITIAL_CAPACITY];
+        ribbonWidths = new int[INITIAL_CAPACITY];
+        ribbonOffsets = new int[INITIAL_CAPACITY];
+        ribbonPreviousOffsets = new int[INITIAL_CAPACITY];
+        spriteAnimations = new Animation[INITIAL_CAPACITY];
+        spriteFrames = new int[INITIAL_CAPACITY];
+        spriteX = new int[INITIAL_CAPACITY];
+        spriteY = new int[INITIAL_CAPACITY];
+        spritePreviousX = new int[INITIAL_CAPACITY];
+        spritePreviousY = new int[INITIAL_CAPACITY];
+        spriteLayers = new int[INITIAL_CAPACITY];
+        numCarrotsValues = new int[3];
+        numEnemiesValues = new int[3];
+        musicEnabled = true;
+        soundEnabled = true;
+    }
+
+    /**
+     * Clear the ribbons and sprites so that the snapshot can be captured again.
+     */
+    public void clear()
+    {
+        numRibbons = 0;
+        numSprites = 0;
+    }
+
+    /**
+     * Add a ribbon to the snapshot. Ribbons are drawn in the order they are added.
+     * @param strip The ribbon's image repeated side by side.
+     * @param width The width of the ribbon's image.
+     * @param previousOffset How far the ribbon had scrolled before the update.
+     * @param offset How far the ribbon has scrolled after the update.
+     */
+    public void addRibbon(BufferedImage strip, int width, int previousOffset, int offset)
+    {
+        //Grow the arrays if necessary
+        if (numRibbons == ribbonStrips.length)
+        {
+            ribbonStrips = Arrays.copyOf(ribbonStrips, numRibbons * 2);
+            ribbonWidths = Arrays.copyOf(ribbonWidths, numRibbons * 2);
+            ribbonOffsets = Arrays.copyOf(ribbonOffsets, numRibbons * 2);
+            ribbonPreviousOffsets = Arrays.copyOf(ribbonPreviousOffsets, numRibbons * 2);
+        }
+
+        ribbonStrips[numRibbons] = strip;
+        ribbonWidths[numRibbons] = width;
+        ribbonPreviousOffsets[numRibbons] = previousOffset;
+        ribbonOffsets[numRibbons] = offset;
+        numRibbons++;
+    }
+
+    /**
+     * Add a sprite to the snapshot. Sprites are drawn by layer, and in the order they are added within a layer
+     * and atlas page.
+     * @param animation The animation the sprite is showing.
+     * @param frame The index of the image the animation is showing.
+     * @param previousX The x position of the sprite before the update.
+     * @param previousY The y position of the sprite before the update.
+     * @param x The x position of the sprite after the update.
+     * @param y The y position of the sprite after the update.
+     * @param layer The layer to draw the sprite in, this must match the RenderQueue layer constants.
+     */
+    public void addSprite(Animation animation, int frame, int previousX, int previousY, int x, int y,
+                          int layer)
+    {
+        //Grow the arrays if necessary
+        if (numSprites == spriteAnimations.length)
+        {
+            spriteAnimations = Arrays.copyOf(spriteAnimations, numSprites * 2);
+            spriteFrames = Arrays.copyOf(spriteFrames, numSprites * 2);
+            spriteX = Arrays.copyOf(spriteX, numSprites * 2);
+            spriteY = Arrays.copyOf(spriteY, numSprites * 2);
+            spritePreviousX = Arrays.copyOf(spritePreviousX, numSprites * 2);
+            spritePreviousY = Arrays.copyOf(spritePreviousY, numSprites * 2);
+            spriteLayers = Arrays.copyOf(spriteLayers, numSprites * 2);
+        }
+
+        spriteAnimations[numSprites] = animation;
+        spriteFrames[numSprites] = frame;
+        spritePreviousX[numSprites] = previousX;
+        spritePreviousY[numSprites] = previousY;
+        spriteX[numSprites] = x;
+        spriteY[numSprites] = y;
+        spriteLayers[numSprites] = layer;
+        numSprites++;
+    }
+}